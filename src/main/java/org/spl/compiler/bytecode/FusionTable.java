@@ -0,0 +1,244 @@
+package org.spl.compiler.bytecode;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sequences of instructions the compiler fuses into superinstructions. A
+ * line of the table names a superinstruction and the opcodes of a sequence it
+ * runs, like
+ * <pre>
+ * INC_LOCAL LOAD_FAST LOAD_CONST ADD STORE_FAST
+ * </pre>
+ * and # starts a comment. The interpreter implements every superinstruction
+ * for a fixed shape of sequences, the table picks which of them are fused.
+ * The built-in table is fusion.table next to this class, the file named by
+ * the environment variable SPL_FUSION_TABLE replaces it, SPLMain --profile
+ * writes such a file from the sequences a program runs most often.
+ * <p>
+ * The superinstruction replaces the first instruction of the sequence and
+ * keeps its argument, the rest of the sequence stays in the code. The
+ * interpreter reads the arguments of the sequence from there and skips it, or
+ * runs the first instruction and goes on with the rest of it one instruction
+ * at a time. Jumps into a sequence, the line table and the handlers are left
+ * as they are.
+ */
+public final class FusionTable {
+
+  public static final String FUSION_TABLE_NAME = "SPL_FUSION_TABLE";
+
+  // the opcodes every superinstruction accepts at each position of its sequence
+  private static final Map<OpCode, List<EnumSet<OpCode>>> SHAPES = new EnumMap<>(OpCode.class);
+
+  static {
+    SHAPES.put(OpCode.INC_LOCAL, List.of(
+        EnumSet.of(OpCode.LOAD_FAST),
+        EnumSet.of(OpCode.LOAD_CONST),
+        EnumSet.of(OpCode.ADD, OpCode.INPLACE_ADD),
+        EnumSet.of(OpCode.STORE_FAST)));
+    SHAPES.put(OpCode.CMP_LOCALS_JUMP, List.of(
+        EnumSet.of(OpCode.LOAD_FAST),
+        EnumSet.of(OpCode.LOAD_FAST),
+        EnumSet.of(OpCode.LT, OpCode.GT, OpCode.LE, OpCode.GE, OpCode.EQ, OpCode.NE),
+        EnumSet.of(OpCode.JUMP_FALSE)));
+    SHAPES.put(OpCode.CALL_POP, List.of(
+        EnumSet.of(OpCode.LOAD_NAME),
+        EnumSet.of(OpCode.CALL),
+        EnumSet.of(OpCode.POP)));
+    SHAPES.put(OpCode.CALL_BUILTIN_POP, List.of(
+        EnumSet.of(OpCode.LOAD_BUILTIN),
+        EnumSet.of(OpCode.CALL),
+        EnumSet.of(OpCode.POP)));
+  }
+
+  private static volatile boolean enabled = true;
+  private static volatile FusionTable instance;
+
+  private record Row(OpCode superinstruction, OpCode[] sequence) {
+  }
+
+  // the rows of the table by the opcode their sequence starts with
+  private final Map<OpCode, List<Row>> rows = new EnumMap<>(OpCode.class);
+
+  private FusionTable() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * a profile of the opcodes is taken of code which is not fused
+   */
+  public static void setEnabled(boolean enabled) {
+    FusionTable.enabled = enabled;
+  }
+
+  /**
+   * the table of SPL_FUSION_TABLE, the built-in one if it is not set or can
+   * not be read
+   */
+  public static FusionTable getInstance() {
+    FusionTable table = instance;
+    if (table == null) {
+      synchronized (FusionTable.class) {
+        if ((table = instance) == null) {
+          instance = table = load();
+        }
+      }
+    }
+    return table;
+  }
+
+  private static FusionTable load() {
+    String filename = System.getenv(FUSION_TABLE_NAME);
+    if (filename != null) {
+      try (Reader reader = new FileReader(filename, StandardCharsets.UTF_8)) {
+        return parse(reader);
+      } catch (IOException | IllegalArgumentException ignore) {
+      }
+    }
+    try (InputStream in = FusionTable.class.getResourceAsStream("fusion.table")) {
+      if (in == null) {
+        return new FusionTable();
+      }
+      return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      return new FusionTable();
+    }
+  }
+
+  public static FusionTable parse(Reader reader) throws IOException {
+    FusionTable table = new FusionTable();
+    BufferedReader in = new BufferedReader(reader);
+    String line;
+    int lineNo = 0;
+    while ((line = in.readLine()) != null) {
+      lineNo++;
+      int comment = line.indexOf('#');
+      if (comment >= 0) {
+        line = line.substring(0, comment);
+      }
+      line = line.strip();
+      if (line.isEmpty()) {
+        continue;
+      }
+      String[] names = line.split("\\s+");
+      OpCode[] sequence = new OpCode[names.length - 1];
+      OpCode superinstruction;
+      try {
+        superinstruction = OpCode.valueOf(names[0]);
+        for (int i = 1; i < names.length; i++) {
+          sequence[i - 1] = OpCode.valueOf(names[i]);
+        }
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("line " + lineNo + " of the fusion table: " + e.getMessage());
+      }
+      if (!accepts(superinstruction, sequence)) {
+        throw new IllegalArgumentException("line " + lineNo + " of the fusion table: " + superinstruction + " can not run " + Arrays.toString(sequence));
+      }
+      table.rows.computeIfAbsent(sequence[0], k -> new ArrayList<>()).add(new Row(superinstruction, sequence));
+    }
+    // the longest sequence wins
+    table.rows.values().forEach(l -> l.sort(Comparator.comparingInt(r -> -r.sequence.length)));
+    return table;
+  }
+
+  public static boolean isSuperinstruction(OpCode op) {
+    return SHAPES.containsKey(op);
+  }
+
+  /**
+   * the number of instructions of the sequences of superinstruction
+   */
+  public static int length(OpCode superinstruction) {
+    return SHAPES.get(superinstruction).size();
+  }
+
+  /**
+   * the instruction superinstruction has been written in place of
+   */
+  public static OpCode head(OpCode superinstruction) {
+    return SHAPES.get(superinstruction).get(0).iterator().next();
+  }
+
+  /**
+   * true if superinstruction runs sequence
+   */
+  public static boolean accepts(OpCode superinstruction, OpCode[] sequence) {
+    List<EnumSet<OpCode>> shape = SHAPES.get(superinstruction);
+    if (shape == null || shape.size() != sequence.length) {
+      return false;
+    }
+    for (int i = 0; i < sequence.length; i++) {
+      if (!shape.get(i).contains(sequence[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * the superinstruction which runs sequence, null if there is none
+   */
+  public static OpCode superinstructionOf(OpCode[] sequence) {
+    for (OpCode op : SHAPES.keySet()) {
+      if (accepts(op, sequence)) {
+        return op;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * the words of the decoded code with every superinstruction written back
+   * to the instruction it replaces, for code which runs every instruction of
+   * a sequence by itself
+   */
+  public static int[] unfuse(int[] words) {
+    int[] res = words.clone();
+    for (int i = 0; i < res.length; i++) {
+      OpCode op = OpCode.values()[res[i] & 0xff];
+      if (isSuperinstruction(op)) {
+        res[i] = res[i] & ~0xff | head(op).val;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * the superinstruction of the sequence of the table which starts at pos of
+   * instructions, null if there is none
+   */
+  public OpCode match(List<? extends Instruction> instructions, int pos) {
+    List<Row> candidates = rows.get(instructions.get(pos).getCode());
+    if (candidates == null) {
+      return null;
+    }
+    Next:
+    for (Row row : candidates) {
+      if (pos + row.sequence.length > instructions.size()) {
+        continue;
+      }
+      for (int i = 1; i < row.sequence.length; i++) {
+        if (instructions.get(pos + i).getCode() != row.sequence[i]) {
+          continue Next;
+        }
+      }
+      return row.superinstruction;
+    }
+    return null;
+  }
+}
@@ -79,7 +79,36 @@ public enum OpCode {
   STORE_CLOSURE,
   BUILD_CLASS,
   YIELD,
-  IMPORT;
+  IMPORT,
+  LOAD_FAST,
+  STORE_FAST,
+  LOAD_BUILTIN,
+  // type specialized forms of the instructions above, they are never emitted by
+  // the compiler but written into the quickened code by the interpreter
+  ADD_LONG_LONG,
+  SUB_LONG_LONG,
+  MUL_LONG_LONG,
+  ADD_FLOAT_FLOAT,
+  SUB_FLOAT_FLOAT,
+  MUL_FLOAT_FLOAT,
+  LT_LONG_LONG,
+  GT_LONG_LONG,
+  LE_LONG_LONG,
+  GE_LONG_LONG,
+  EQ_LONG_LONG,
+  NE_LONG_LONG,
+  // a long compare fused with the JUMP_FALSE following it
+  LT_LONG_JUMP_FALSE,
+  GT_LONG_JUMP_FALSE,
+  LE_LONG_JUMP_FALSE,
+  GE_LONG_JUMP_FALSE,
+  SUBSCRIBE_LIST_INT,
+  // superinstructions of the sequences of the FusionTable, the compiler writes one
+  // in place of the first instruction of a sequence and keeps the rest of it
+  INC_LOCAL,
+  CMP_LOCALS_JUMP,
+  CALL_POP,
+  CALL_BUILTIN_POP;
   public final byte val;
 
   OpCode() {
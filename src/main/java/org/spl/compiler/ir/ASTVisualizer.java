@@ -88,9 +88,9 @@ public class ASTVisualizer {
     } else if (node instanceof BoolLiteral) {
       return "bool";
     } else if (node instanceof FloatLiteral f) {
-      return Float.toString(f.getVal());
+      return Double.toString(f.getVal());
     } else if (node instanceof IntLiteral integer) {
-      return Integer.toString(integer.getVal());
+      return Long.toString(integer.getVal());
     } else if (node instanceof Program) {
       return "Program";
     } else if (node instanceof ProgramBlock) {
@@ -0,0 +1,350 @@
+package org.spl.compiler.ir;
+
+import org.spl.compiler.bytecode.Instruction;
+import org.spl.compiler.ir.binaryop.AbstractBinaryExp;
+import org.spl.compiler.ir.binaryop.ConditionalOr;
+import org.spl.compiler.ir.block.Program;
+import org.spl.compiler.ir.block.ProgramBlock;
+import org.spl.compiler.ir.context.ASTContext;
+import org.spl.compiler.ir.exp.ArrayStyleStore;
+import org.spl.compiler.ir.exp.InplaceStoreAttr;
+import org.spl.compiler.ir.stmt.ClassDefinition;
+import org.spl.compiler.ir.stmt.Decorator;
+import org.spl.compiler.ir.stmt.ImportStmt;
+import org.spl.compiler.ir.stmt.assignstmt.AbstractAssignStmt;
+import org.spl.compiler.ir.stmt.assignstmt.AssignStmt;
+import org.spl.compiler.ir.stmt.controlflow.*;
+import org.spl.compiler.ir.stmt.func.FuncDef;
+import org.spl.compiler.ir.stmt.returnstmt.Return;
+import org.spl.compiler.ir.unaryop.Invert;
+import org.spl.compiler.ir.unaryop.Neg;
+import org.spl.compiler.ir.unaryop.Not;
+import org.spl.compiler.ir.vals.*;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.objects.*;
+
+import java.util.*;
+
+/**
+ * The pass over the IR of a body before its code is generated, see
+ * {@link org.spl.compiler.ir.context.DefaultASTContext#generateByteCodes}. An
+ * operator on literals is folded to the literal of its result, and a name
+ * which is assigned a literal once is replaced by the literal where it is
+ * loaded after the assignment.
+ * <p>
+ * The result is made by the method the instruction calls when it runs, like
+ * {@link SPLObject#__add__}, so it is the same object, longs wrap, / of longs
+ * is a float and // casts to int. Only the operands the method can not fail
+ * on are folded, 1 / 0 or "a" - 1 are left to fail when they run.
+ * <p>
+ * A name is only propagated if the assignment is a statement of the body
+ * itself and nothing else in the body, or in a function or class it defines,
+ * stores to a name like it. The bodies of functions are compiled before the
+ * body which defines them, a load in a function is only replaced if the
+ * assignment is in the function. The code of a module which imports nothing
+ * runs before any other module can store to its names, the code of a module
+ * which imports is not propagated.
+ */
+public class ConstantFolder {
+
+  // a string which is longer is made when the code runs instead of being a constant
+  private static final int MAX_STRING_LENGTH = 4096;
+  private static volatile boolean enabled = true;
+
+  private final ASTContext<Instruction> context;
+  // the constants of the context by their index
+  private final List<SPLObject> constants;
+  // the literals of the names which are propagated
+  private final Map<String, SPLObject> values = new HashMap<>();
+
+  public ConstantFolder(ASTContext<Instruction> context) {
+    this.context = context;
+    constants = new ArrayList<>(Arrays.asList(context.getConstants()));
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * the code of a body is compiled as it is written when it is turned off
+   */
+  public static void setEnabled(boolean enabled) {
+    ConstantFolder.enabled = enabled;
+  }
+
+  public void fold(IRNode<Instruction> body) {
+    if (!(body instanceof Program || body instanceof ProgramBlock)) {
+      fold(null, body);
+      return;
+    }
+    Map<String, Integer> stores = new HashMap<>();
+    boolean imports = countStores(body, stores);
+    boolean propagate = context.isFastLocals() || !imports;
+    List<IRNode<Instruction>> statements = body.getChildren();
+    for (int i = 0; i < statements.size(); i++) {
+      IRNode<Instruction> statement = fold(body, statements.get(i));
+      if (propagate && statement instanceof AssignStmt s
+          && s.getChildren().get(0) instanceof Literal l) {
+        Variable lhs = (Variable) s.getVisualizedChildren().get(0);
+        if ((lhs.scope() == Scope.LOCAL || lhs.scope() == Scope.OTHERS)
+            && stores.get(lhs.getName()) == 1) {
+          values.put(lhs.getName(), constants.get(l.getOparg()));
+        }
+      }
+    }
+  }
+
+  /**
+   * folds the children of node and node itself, node is replaced in parent
+   * by the literal it is folded to
+   */
+  private IRNode<Instruction> fold(IRNode<Instruction> parent, IRNode<Instruction> node) {
+    if (node instanceof FuncDef || node instanceof ClassDefinition || node instanceof Decorator) {
+      // their bodies have been compiled
+      return node;
+    }
+    for (IRNode<Instruction> child : children(node)) {
+      fold(node, child);
+    }
+    SPLObject result = null;
+    try {
+      if (node instanceof Variable v && v.getRValueNode() == null && v.scope() != Scope.CLOSURE) {
+        result = values.get(v.getName());
+      } else if (node instanceof AbstractBinaryExp<Instruction> b
+          && b.getLeft() instanceof Literal l && b.getRight() instanceof Literal r) {
+        result = binary(b.getOperator(), constants.get(l.getOparg()), constants.get(r.getOparg()));
+      } else if (node instanceof Neg || node instanceof Invert || node instanceof Not) {
+        if (node.getChildren().get(0) instanceof Literal l) {
+          result = unary(node, constants.get(l.getOparg()));
+        }
+      }
+    } catch (SPLInternalException e) {
+      // the operands are checked before, the instruction fails the same way when it runs
+      result = null;
+    }
+    if (result == null || parent == null) {
+      return node;
+    }
+    Literal literal = literal(result, node);
+    parent.replaceChild(node, literal);
+    return literal;
+  }
+
+  private static SPLObject binary(Op op, SPLObject lhs, SPLObject rhs) throws SPLInternalException {
+    boolean numbers = isNumber(lhs) && isNumber(rhs);
+    boolean longs = lhs instanceof SPLLongObject && rhs instanceof SPLLongObject;
+    boolean strings = lhs instanceof SPLStringObject && rhs instanceof SPLStringObject;
+    switch (op) {
+      case ADD -> {
+        if (numbers) {
+          return lhs.__add__(rhs);
+        }
+        if ((lhs instanceof SPLStringObject || rhs instanceof SPLStringObject)
+            && (lhs instanceof SPLStringObject || isNumber(lhs))
+            && (rhs instanceof SPLStringObject || isNumber(rhs))) {
+          SPLObject s = lhs.__add__(rhs);
+          return ((SPLStringObject) s).getVal().length() <= MAX_STRING_LENGTH ? s : null;
+        }
+        return null;
+      }
+      case SUB -> {
+        return numbers ? lhs.__sub__(rhs) : null;
+      }
+      case MUL -> {
+        if (numbers) {
+          return lhs.__mul__(rhs);
+        }
+        if (lhs instanceof SPLStringObject s && rhs instanceof SPLLongObject n && n.getVal() >= 0
+            && (long) s.getVal().length() * n.getVal() <= MAX_STRING_LENGTH) {
+          return lhs.__mul__(rhs);
+        }
+        return null;
+      }
+      case DIV -> {
+        return numbers && !isZero(rhs) ? lhs.__div__(rhs) : null;
+      }
+      case TRUE_DIV -> {
+        return numbers && !isZero(rhs) ? lhs.__trueDiv__(rhs) : null;
+      }
+      case MOD -> {
+        // a long % 0 throws, a float % 0 is NaN
+        return numbers && !(longs && isZero(rhs)) ? lhs.__mod__(rhs) : null;
+      }
+      case POWER -> {
+        return numbers ? lhs.__pow__(rhs) : null;
+      }
+      case LSHIFT -> {
+        return longs ? lhs.__lshift__(rhs) : null;
+      }
+      case RSHIFT -> {
+        return longs ? lhs.__rshift__(rhs) : null;
+      }
+      case U_RSHIFT -> {
+        return longs ? lhs.__URshift__(rhs) : null;
+      }
+      case AND -> {
+        return longs ? lhs.__and__(rhs) : null;
+      }
+      case OR -> {
+        return longs ? lhs.__or__(rhs) : null;
+      }
+      case XOR -> {
+        return longs ? lhs.__xor__(rhs) : null;
+      }
+      case LT -> {
+        return numbers || strings ? lhs.__lt__(rhs) : null;
+      }
+      case GT -> {
+        return numbers || strings ? lhs.__gt__(rhs) : null;
+      }
+      case LE -> {
+        return numbers || strings ? lhs.__le__(rhs) : null;
+      }
+      case GE -> {
+        return numbers || strings ? lhs.__ge__(rhs) : null;
+      }
+      case EQ -> {
+        return numbers || strings || isBools(lhs, rhs) ? lhs.__eq__(rhs) : null;
+      }
+      case NE -> {
+        return numbers || strings || isBools(lhs, rhs) ? lhs.__ne__(rhs) : null;
+      }
+      default -> {
+        // && and || are left to their jumps
+        return null;
+      }
+    }
+  }
+
+  private static SPLObject unary(IRNode<Instruction> node, SPLObject operand) throws SPLInternalException {
+    if (node instanceof Neg && isNumber(operand)) {
+      return operand.__neg__();
+    } else if (node instanceof Invert && operand instanceof SPLLongObject) {
+      return operand.__invert__();
+    } else if (node instanceof Not && operand instanceof SPLBoolObject) {
+      return operand.__not__();
+    }
+    return null;
+  }
+
+  private static boolean isNumber(SPLObject o) {
+    return o instanceof SPLLongObject || o instanceof SPLFloatObject;
+  }
+
+  private static boolean isZero(SPLObject o) {
+    return o instanceof SPLLongObject l ? l.getVal() == 0 : ((SPLFloatObject) o).getVal() == 0;
+  }
+
+  private static boolean isBools(SPLObject lhs, SPLObject rhs) {
+    return lhs instanceof SPLBoolObject && rhs instanceof SPLBoolObject;
+  }
+
+  /**
+   * the literal of the constant o in the place of node
+   */
+  private Literal literal(SPLObject o, IRNode<Instruction> node) {
+    context.addConstantObject(o);
+    int idx = context.getConstantObjectIndex(o);
+    if (idx == constants.size()) {
+      constants.add(o);
+    }
+    Literal literal;
+    if (o instanceof SPLLongObject l) {
+      literal = new IntLiteral(l.getVal(), idx);
+    } else if (o instanceof SPLFloatObject f) {
+      literal = new FloatLiteral(f.getVal(), idx);
+    } else if (o instanceof SPLStringObject s) {
+      literal = new StringLiteral(s.getVal(), idx);
+    } else {
+      literal = new BoolLiteral(idx);
+    }
+    literal.setLineNo(node.getLineNo());
+    literal.setColumnNo(node.getColumnNo());
+    literal.setLen(node.getLen());
+    return literal;
+  }
+
+  /**
+   * the children of node which are folded, the blocks of statements included
+   */
+  private static List<IRNode<Instruction>> children(IRNode<Instruction> node) {
+    List<IRNode<Instruction>> children = new ArrayList<>();
+    if (node instanceof IfStmt s) {
+      Collections.addAll(children, s.getCondition(), s.getThenBlock(), s.getElseBlock());
+    } else if (node instanceof WhileStmt s) {
+      Collections.addAll(children, s.getCondition(), s.getBlock());
+    } else if (node instanceof DoWhile s) {
+      Collections.addAll(children, s.getCondition(), s.getBlock());
+    } else if (node instanceof ForStmt s) {
+      Collections.addAll(children, s.getInitializer(), s.getCondition(), s.getIncrement(), s.getBody());
+    } else if (node instanceof ConciseForStmt s) {
+      Collections.addAll(children, s.getExpression(), s.getBlock());
+    } else if (node instanceof TryStmt s) {
+      children.add(s.getTryBlock());
+      children.addAll(s.getCatchBlock());
+      children.add(s.getFinallyBlock());
+    } else if (node instanceof ExceptBlock s) {
+      children.add(s.getBlock());
+    } else if (node instanceof Return s) {
+      children.add(s.getExpr());
+    } else if (node instanceof ArrayStyleStore s) {
+      Collections.addAll(children, s.getObj(), s.getSub(), s.getValue());
+    } else if (node instanceof InplaceStoreAttr s) {
+      Collections.addAll(children, s.getLhs(), s.getRhs());
+    } else if (node instanceof AbstractAssignStmt s) {
+      // the first child is the name it stores to
+      children.add(s.getChildren().get(1));
+    } else if (node instanceof ConditionalOr s) {
+      Collections.addAll(children, s.getLeft(), s.getRight());
+    } else {
+      children.addAll(node.getChildren());
+    }
+    children.removeIf(Objects::isNull);
+    return children;
+  }
+
+  /**
+   * counts the stores to every name in node and in the functions and classes
+   * it defines, true if something is imported
+   */
+  private static boolean countStores(IRNode<Instruction> node, Map<String, Integer> stores) {
+    String name = null;
+    List<IRNode<Instruction>> children;
+    if (node instanceof FuncDef f) {
+      name = f.getFuncName();
+      children = new ArrayList<>(f.getDefaults());
+      children.add(f.getBody());
+    } else if (node instanceof ClassDefinition c) {
+      name = c.getClassName();
+      children = List.of(c.getBlock());
+    } else if (node instanceof Decorator d) {
+      children = List.of(d.getExpr(), d.getFuncDef());
+    } else {
+      children = children(node);
+      if (node instanceof AssignStmt s) {
+        name = ((Variable) s.getVisualizedChildren().get(0)).getName();
+      } else if (node instanceof AbstractAssignStmt s && s.getChildren().get(0) instanceof Variable v) {
+        name = v.getName();
+      } else if (node instanceof ConciseForStmt s) {
+        name = s.getName();
+      } else if (node instanceof ExceptBlock s) {
+        name = s.getStoreName();
+      } else if (node instanceof ImportStmt s) {
+        name = s.getPackageName();
+      } else if (node instanceof Variable v && v.getRValueNode() != null) {
+        name = v.getName();
+      }
+    }
+    if (name != null) {
+      stores.merge(name, 1, Integer::sum);
+    }
+    boolean imports = node instanceof ImportStmt;
+    for (IRNode<Instruction> child : children) {
+      if (child != null) {
+        imports |= countStores(child, stores);
+      }
+    }
+    return imports;
+  }
+}
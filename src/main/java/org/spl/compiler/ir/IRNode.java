@@ -73,6 +73,14 @@ public interface IRNode<E> {
 
   List<IRNode<E>> getChildren();
 
+  /**
+   * puts node in the place of the child expression old, false if old is not
+   * one, the passes over the IR use it before the code is generated
+   */
+  default boolean replaceChild(IRNode<E> old, IRNode<E> node) {
+    return false;
+  }
+
   default List<IRNode<E>> getVisualizedChildren() {
     return getChildren();
   }
@@ -4,5 +4,7 @@ public enum Scope {
   LOCAL,
   GLOBAL,
   CLOSURE,
-  OTHERS
+  OTHERS,
+  // a builtin whose name is never bound in the file
+  BUILTIN
 }
\ No newline at end of file
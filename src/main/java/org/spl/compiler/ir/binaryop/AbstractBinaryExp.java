@@ -9,8 +9,8 @@ import java.util.List;
 
 public abstract class AbstractBinaryExp<E> extends AbstractIR<E> {
 
-  protected final IRNode<E> L;
-  protected final IRNode<E> R;
+  protected IRNode<E> L;
+  protected IRNode<E> R;
   protected final Op op;
   private List<IRNode<E>> children;
 
@@ -44,6 +44,19 @@ public abstract class AbstractBinaryExp<E> extends AbstractIR<E> {
     context.increaseStackSize(1);
   }
 
+  @Override
+  public boolean replaceChild(IRNode<E> old, IRNode<E> node) {
+    if (L == old) {
+      L = node;
+    } else if (R == old) {
+      R = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<E>> getChildren() {
     if (children == null) {
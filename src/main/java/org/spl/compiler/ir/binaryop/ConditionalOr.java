@@ -29,6 +29,15 @@ public class ConditionalOr extends AbstractBinaryExp<Instruction> {
     context.add(new Instruction(OpCode.CONDITIONAL_OR), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (!super.replaceChild(old, node)) {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
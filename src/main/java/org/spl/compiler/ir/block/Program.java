@@ -36,6 +36,16 @@ public class Program extends AbstractIR<Instruction> {
     blocks.add(node);
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = blocks.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    blocks.set(i, node);
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return blocks;
@@ -34,6 +34,16 @@ public class ProgramBlock extends AbstractIR<Instruction> {
     return Op.NOP;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = statements.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    statements.set(i, node);
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return statements;
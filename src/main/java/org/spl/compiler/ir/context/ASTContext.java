@@ -98,13 +98,27 @@ public interface ASTContext<T> {
 
   boolean isInFunction();
 
+  /**
+   * whether local variables of this context live in the slot array of the frame
+   * instead of the locals map, the slot index of a variable is its index in varnames
+   */
+  boolean isFastLocals();
+
   ASTContext<T> getPreviousContext();
 
   boolean requestClosure(String var);
 
   Map<String, Integer> getClosureMap();
 
-  record JumpTableEntry(int startPc, int endPc, int targetPc) {
+  /**
+   * stackDepth is the depth of the eval stack the handler at targetPc starts
+   * with, it is filled in when the code object is built
+   */
+  record JumpTableEntry(int startPc, int endPc, int targetPc, int stackDepth) {
+
+    public JumpTableEntry(int startPc, int endPc, int targetPc) {
+      this(startPc, endPc, targetPc, 0);
+    }
 
     @Override
     public String toString() {
@@ -112,11 +126,8 @@ public interface ASTContext<T> {
           "startPC=" + startPc +
           ", endPC=" + endPc +
           ", targetPC=" + targetPc +
+          ", stackDepth=" + stackDepth +
           '}';
     }
-
-    public boolean isInRange(int pc) {
-      return pc >= startPc && pc <= endPc;
-    }
   }
 }
\ No newline at end of file
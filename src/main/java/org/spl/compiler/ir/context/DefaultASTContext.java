@@ -1,8 +1,10 @@
 package org.spl.compiler.ir.context;
 
+import org.spl.compiler.bytecode.FusionTable;
 import org.spl.compiler.bytecode.Instruction;
 import org.spl.compiler.bytecode.OpCode;
 import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.compiler.ir.ConstantFolder;
 import org.spl.compiler.ir.IRNode;
 import org.spl.compiler.ir.NameSpace;
 import org.spl.compiler.ir.block.ProgramBlock;
@@ -15,6 +17,8 @@ import java.util.*;
 public class DefaultASTContext<E extends Instruction> implements Visitor<E>, ASTContext<E> {
 
   private final List<E> instructions;
+  // the offset in code of every instruction
+  private final List<Integer> offsets;
   private final List<JumpTableEntry> jumpTable;
   private final Map<Object, Integer> varnames;
   private final Map<String, Integer> closures;
@@ -38,6 +42,7 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
   private ProgramBlock pb;
   private boolean inTry = false;
   private boolean inFunc = false;
+  private boolean fastLocals = false;
   private DefaultASTContext<E> prev;
 
   public DefaultASTContext(String filename, List<String> sourceCode) {
@@ -46,6 +51,7 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
     stackSize = 0;
     topStackSize = 0;
     instructions = new ArrayList<>();
+    offsets = new ArrayList<>();
     varnames = new HashMap<>();
     nameSpace = new NameSpace<>();
     firstLineNo = -1;
@@ -166,9 +172,9 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
       insOfLine++;
     } else {
       if (currentLineNo != lineNo) {
-        write(insOfLine, debugInfo);
+        writeVarInt(insOfLine, debugInfo);
         int rest = currentLineNo - lastLineNo;
-        write(rest, debugInfo);
+        writeVarInt(rest, debugInfo);
         lastLineNo = currentLineNo;
         currentLineNo = lineNo;
         insOfLine = 1;
@@ -178,6 +184,7 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
     }
 
     // write instruction info
+    offsets.add(code.size());
     write(instruction.getOpCode(), code);
     OpCode opcode = instruction.getCode();
     if (opcode == OpCode.JUMP_ABSOLUTE || opcode == OpCode.LONG_JUMP) {
@@ -189,8 +196,23 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
       write(instruction.getOparg(), code);
     }
     // write debug info
-    write(len, lenColumn);
-    write(columnNo, lenColumn);
+    writeVarInt(len, lenColumn);
+    writeVarInt(columnNo, lenColumn);
+  }
+
+  /**
+   * the format of the debug info and the len column table, see
+   * {@link org.spl.vm.interpreter.SPLLineTable}, a value is zigzag encoded so
+   * a negative line delta stays small and its bits follow 7 to a byte from the
+   * lowest, the high bit of a byte is set when another byte follows
+   */
+  private static void writeVarInt(int v, ByteArrayOutputStream out) {
+    int bits = v << 1 ^ v >> 31;
+    while ((bits & ~0x7f) != 0) {
+      out.write(bits & 0x7f | 0x80);
+      bits >>>= 7;
+    }
+    out.write(bits);
   }
 
   public void write(int v, ByteArrayOutputStream out) throws SPLSyntaxError {
@@ -335,15 +357,49 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public void generateByteCodes(IRNode<E> node) throws SPLSyntaxError {
+    if (ConstantFolder.isEnabled()) {
+      new ConstantFolder((ASTContext<Instruction>) this).fold((IRNode<Instruction>) node);
+    }
     node.accept(this);
+    if (FusionTable.isEnabled()) {
+      fuseInstructions(FusionTable.getInstance());
+    }
     completeVisiting();
   }
 
+  /**
+   * the peephole pass of the superinstructions, the first instruction of every
+   * sequence of the table is replaced in the list and in the code, the opcode
+   * of the superinstruction takes the same byte so nothing else moves
+   */
+  @SuppressWarnings("unchecked")
+  private void fuseInstructions(FusionTable table) {
+    byte[] bytes = null;
+    for (int i = 0; i < instructions.size(); i++) {
+      OpCode op = table.match(instructions, i);
+      if (op == null) {
+        continue;
+      }
+      if (bytes == null) {
+        bytes = code.toByteArray();
+      }
+      instructions.set(i, (E) new Instruction(op, instructions.get(i).getOparg()));
+      bytes[offsets.get(i)] = op.val;
+      // the sequences do not overlap
+      i += FusionTable.length(op) - 1;
+    }
+    if (bytes != null) {
+      code.reset();
+      code.write(bytes, 0, bytes.length);
+    }
+  }
+
   private void completeVisiting() throws SPLSyntaxError {
-    write(insOfLine, debugInfo);
+    writeVarInt(insOfLine, debugInfo);
     int rest = currentLineNo - lastLineNo;
-    write(rest, debugInfo);
+    writeVarInt(rest, debugInfo);
     currentLineNo = 0;
     insOfLine = 0;
   }
@@ -367,6 +423,15 @@ public class DefaultASTContext<E extends Instruction> implements Visitor<E>, AST
     return inFunc;
   }
 
+  @Override
+  public boolean isFastLocals() {
+    return fastLocals;
+  }
+
+  public void setFastLocals(boolean fastLocals) {
+    this.fastLocals = fastLocals;
+  }
+
   @Override
   public ASTContext<E> getPreviousContext() {
     return prev;
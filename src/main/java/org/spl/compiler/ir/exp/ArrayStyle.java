@@ -11,9 +11,9 @@ import java.util.List;
 
 public class ArrayStyle extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> lhs;
+  private IRNode<Instruction> lhs;
 
-  private final IRNode<Instruction> sub;
+  private IRNode<Instruction> sub;
   private List<IRNode<Instruction>> children;
 
   public ArrayStyle(IRNode<Instruction> lhs, IRNode<Instruction> sub) {
@@ -34,6 +34,19 @@ public class ArrayStyle extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (lhs == old) {
+      lhs = node;
+    } else if (sub == old) {
+      sub = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
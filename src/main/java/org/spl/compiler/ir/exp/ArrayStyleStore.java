@@ -12,9 +12,9 @@ import java.util.List;
 
 public class ArrayStyleStore extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> obj;
-  private final IRNode<Instruction> sub;
-  private final IRNode<Instruction> value;
+  private IRNode<Instruction> obj;
+  private IRNode<Instruction> sub;
+  private IRNode<Instruction> value;
 
   private final Lexer.TOKEN_TYPE opCode;
 
@@ -37,7 +37,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_ADD), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -46,7 +46,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_SUB), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -55,7 +55,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_MUL), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -64,7 +64,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_DIV), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -73,7 +73,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_TRUE_DIV), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -82,7 +82,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_POWER), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -91,7 +91,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_MOD), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -100,7 +100,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_OR), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -109,7 +109,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_AND), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -118,7 +118,7 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_XOR), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -127,25 +127,25 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_LSHIFT), getLineNo(), getColumnNo(), getLen());
-        context.increaseStackSize();
+        context.decreaseStackSize();
       }
       case ASSIGN_RSHIFT -> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_RSHIFT), getLineNo(), getColumnNo(), getLen());
-        context.increaseStackSize();
+        context.decreaseStackSize();
       }
       case ASSIGN_U_RSHIFT -> {
         context.addInstruction(new Instruction(OpCode.DUP2), getLineNo(), getColumnNo(), getLen());
         context.increaseStackSize(2);
         context.addInstruction(new Instruction(OpCode.SUBSCRIBE), getLineNo(), getColumnNo(), getLen());
-        context.decreaseStackSize(2);
+        context.decreaseStackSize();
         value.accept(context);
         context.addInstruction(new Instruction(OpCode.INPLACE_U_RSHIFT), getLineNo(), getColumnNo(), getLen());
         context.decreaseStackSize();
@@ -176,6 +176,20 @@ public class ArrayStyleStore extends AbstractIR<Instruction> {
     return true;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (obj == old) {
+      obj = node;
+    } else if (sub == old) {
+      sub = node;
+    } else if (value == old) {
+      value = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return List.of();
@@ -26,6 +26,16 @@ public class BuildMap extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.BUILD_MAP, children.size()), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = children.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    children.set(i, node);
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return children;
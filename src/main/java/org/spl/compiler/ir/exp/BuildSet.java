@@ -31,6 +31,16 @@ public class BuildSet extends AbstractIR<Instruction> {
     context.increaseStackSize();
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = children.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    children.set(i, node);
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return children;
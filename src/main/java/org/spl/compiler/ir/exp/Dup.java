@@ -25,6 +25,16 @@ public class Dup extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.DUP), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (node == old) {
+      node = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (node != null)
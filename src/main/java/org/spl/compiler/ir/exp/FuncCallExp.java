@@ -55,6 +55,17 @@ public class FuncCallExp extends AbstractIR<Instruction> {
     return lhs;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = args.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    args.set(i, node);
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -12,8 +12,8 @@ import java.util.List;
 
 public class InplaceStoreAttr extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> lhs;
-  private final IRNode<Instruction> rhs;
+  private IRNode<Instruction> lhs;
+  private IRNode<Instruction> rhs;
   private final int attrIndex;
   private final String name;
   private List<IRNode<Instruction>> children;
@@ -98,6 +98,10 @@ public class InplaceStoreAttr extends AbstractIR<Instruction> {
     return rhs;
   }
 
+  public int getAttrIndex() {
+    return attrIndex;
+  }
+
   public String getName() {
     return name;
   }
@@ -107,6 +111,18 @@ public class InplaceStoreAttr extends AbstractIR<Instruction> {
     return true;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (lhs == old) {
+      lhs = node;
+    } else if (rhs == old) {
+      rhs = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -27,6 +27,17 @@ public class LoadAttr extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.LOAD_ATTR, attrIndex), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (lhs == old) {
+      lhs = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -11,7 +11,7 @@ import java.util.List;
 
 public class LoadMethod extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> lhs;
+  private IRNode<Instruction> lhs;
   private final int attrIndex;
   private final String name;
   private List<IRNode<Instruction>> children;
@@ -27,6 +27,17 @@ public class LoadMethod extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.LOAD_METHOD, attrIndex), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (lhs == old) {
+      lhs = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -39,6 +50,10 @@ public class LoadMethod extends AbstractIR<Instruction> {
     return lhs;
   }
 
+  public int getAttrIndex() {
+    return attrIndex;
+  }
+
   public String getName() {
     return name;
   }
@@ -37,7 +37,8 @@ public class MethodCall extends AbstractIR<Instruction> {
     ond = (byte) context.getVarNameIndex(objName);
     switch (scope) {
       case LOCAL -> {
-        context.addInstruction(new Instruction(OpCode.LOAD_LOCAL, ond), getLineNo(), getColumnNo(), getLen());
+        OpCode load = context.isFastLocals() ? OpCode.LOAD_FAST : OpCode.LOAD_LOCAL;
+        context.addInstruction(new Instruction(load, ond), getLineNo(), getColumnNo(), getLen());
       }
       case GLOBAL -> {
         context.addInstruction(new Instruction(OpCode.LOAD_GLOBAL, ond), getLineNo(), getColumnNo(), getLen());
@@ -57,6 +58,17 @@ public class MethodCall extends AbstractIR<Instruction> {
     context.increaseStackSize(); // return val
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    int i = args.indexOf(old);
+    if (i < 0) {
+      return false;
+    }
+    args.set(i, node);
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -10,8 +10,8 @@ import org.spl.compiler.ir.context.ASTContext;
 import java.util.List;
 
 public class StoreAttr extends AbstractIR<Instruction> {
-  protected final IRNode<Instruction> lhs;
-  protected final IRNode<Instruction> rhs;
+  protected IRNode<Instruction> lhs;
+  protected IRNode<Instruction> rhs;
   protected final int attrIndex;
   protected final String name;
   protected List<IRNode<Instruction>> children;
@@ -28,6 +28,19 @@ public class StoreAttr extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.STORE_ATTR, attrIndex), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (lhs == old) {
+      lhs = node;
+    } else if (rhs == old) {
+      rhs = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -44,6 +57,10 @@ public class StoreAttr extends AbstractIR<Instruction> {
     return rhs;
   }
 
+  public int getAttrIndex() {
+    return attrIndex;
+  }
+
   public String getName() {
     return name;
   }
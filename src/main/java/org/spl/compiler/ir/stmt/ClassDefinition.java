@@ -48,7 +48,8 @@ public class ClassDefinition extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.BUILD_CLASS), getLineNo(), getColumnNo(), getLen());
     context.decreaseStackSize(2);
     context.increaseStackSize();
-    context.addInstruction(new Instruction(OpCode.STORE_LOCAL, classNameIdx), getLineNo(), getColumnNo(), getLen());
+    OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+    context.addInstruction(new Instruction(store, classNameIdx), getLineNo(), getColumnNo(), getLen());
     context.decreaseStackSize();
   }
 
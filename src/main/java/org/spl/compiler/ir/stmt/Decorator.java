@@ -25,13 +25,15 @@ public class Decorator extends AbstractIR<Instruction> {
   @Override
   public void codeGen(ASTContext<Instruction> context) throws SPLSyntaxError {
     int idxInVarNames = funcDef.getIdxInVarNames();
-    context.addInstruction(new Instruction(OpCode.LOAD_LOCAL, idxInVarNames), funcDef.getLineNo(), funcDef.getColumnNo(), funcDef.getLen());
+    OpCode load = context.isFastLocals() ? OpCode.LOAD_FAST : OpCode.LOAD_LOCAL;
+    OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+    context.addInstruction(new Instruction(load, idxInVarNames), funcDef.getLineNo(), funcDef.getColumnNo(), funcDef.getLen());
     context.increaseStackSize();
     expr.accept(context);
     context.addInstruction(new Instruction(OpCode.CALL, 1), getLineNo(), getColumnNo(), getLen());
     context.decreaseStackSize(2);
     context.increaseStackSize();
-    context.addInstruction(new Instruction(OpCode.STORE_LOCAL, idxInVarNames), funcDef.getLineNo(), funcDef.getColumnNo(), funcDef.getLen());
+    context.addInstruction(new Instruction(store, idxInVarNames), funcDef.getLineNo(), funcDef.getColumnNo(), funcDef.getLen());
     context.decreaseStackSize();
   }
 
@@ -14,7 +14,7 @@ import java.util.List;
 public class AbstractAssignStmt extends AbstractIR<Instruction> {
 
   private final IRNode<Instruction> lhs;
-  private final IRNode<Instruction> rhs;
+  private IRNode<Instruction> rhs;
   private final Op op;
   private List<IRNode<Instruction>> children;
 
@@ -73,7 +73,8 @@ public class AbstractAssignStmt extends AbstractIR<Instruction> {
     int idx = L.getIdx();
     switch (L.scope()) {
       case LOCAL -> {
-        context.add(new Instruction(OpCode.STORE_LOCAL, idx), getLineNo(), getColumnNo(), getLen());
+        OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+        context.add(new Instruction(store, idx), getLineNo(), getColumnNo(), getLen());
       }
       case GLOBAL -> {
         context.add(new Instruction(OpCode.STORE_GLOBAL, idx), getLineNo(), getColumnNo(), getLen());
@@ -88,6 +89,17 @@ public class AbstractAssignStmt extends AbstractIR<Instruction> {
     }
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (rhs == old) {
+      rhs = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
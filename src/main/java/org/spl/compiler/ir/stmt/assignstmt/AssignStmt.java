@@ -14,7 +14,7 @@ import java.util.List;
 public class AssignStmt extends AbstractIR<Instruction> {
 
   private final Variable lhs;
-  private final IRNode<Instruction> rhs;
+  private IRNode<Instruction> rhs;
   private List<IRNode<Instruction>> children;
   private List<IRNode<Instruction>> visualizedChildren;
 
@@ -30,7 +30,8 @@ public class AssignStmt extends AbstractIR<Instruction> {
     int idx = context.getVarNameIndex(lhs.getName());
     switch (lhs.scope()) {
       case LOCAL -> {
-        context.add(new Instruction(OpCode.STORE_LOCAL, idx), getLineNo(), getColumnNo(), getLen());
+        OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+        context.add(new Instruction(store, idx), getLineNo(), getColumnNo(), getLen());
       }
       case GLOBAL -> {
         context.add(new Instruction(OpCode.STORE_GLOBAL, idx), getLineNo(), getColumnNo(), getLen());
@@ -50,6 +51,18 @@ public class AssignStmt extends AbstractIR<Instruction> {
     return Op.ASSIGN;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (rhs == old) {
+      rhs = node;
+    } else {
+      return false;
+    }
+    children = null;
+    visualizedChildren = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -11,7 +11,7 @@ import java.util.List;
 
 public class ConciseForStmt extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> expression;
+  private IRNode<Instruction> expression;
   private final String name;
   private final int idx;
 
@@ -54,11 +54,23 @@ public class ConciseForStmt extends AbstractIR<Instruction> {
     size += blockSize;
     // absolute jump pos will occupy 3 bytes
     context.addInstruction(new Instruction(OpCode.NEXT, size), getLineNo(), getColumnNo(), getLen());
-    context.addInstruction(new Instruction(OpCode.STORE_LOCAL, idx), getLineNo(), getColumnNo(), getLen());
+    OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+    context.addInstruction(new Instruction(store, idx), getLineNo(), getColumnNo(), getLen());
     block.accept(context);
     context.addInstruction(new Instruction(OpCode.JUMP_ABSOLUTE, currentSize), getLineNo(), getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (expression == old) {
+      expression = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null) {
@@ -12,7 +12,7 @@ import java.util.List;
 public class DoWhile extends AbstractIR<Instruction> {
 
   private final IRNode<Instruction> block;
-  private final IRNode<Instruction> condition;
+  private IRNode<Instruction> condition;
 
   public DoWhile(IRNode<Instruction> condition, IRNode<Instruction> block) {
     this.condition = condition;
@@ -41,6 +41,16 @@ public class DoWhile extends AbstractIR<Instruction> {
     context.addInstruction(new Instruction(OpCode.JUMP_BACK_TRUE, diff), condition.getLineNo(), condition.getColumnNo(), condition.getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (condition == old) {
+      condition = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return List.of();
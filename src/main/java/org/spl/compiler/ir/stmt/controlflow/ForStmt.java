@@ -12,7 +12,7 @@ import java.util.List;
 public class ForStmt extends AbstractIR<Instruction> {
 
   private final IRNode<Instruction> initializer;
-  private final IRNode<Instruction> condition;
+  private IRNode<Instruction> condition;
   private final IRNode<Instruction> increment;
   private final IRNode<Instruction> body;
 
@@ -40,8 +40,9 @@ public class ForStmt extends AbstractIR<Instruction> {
     condition.accept(auxContex);
     int conditionSize = auxContex.getCodeSize();
 
+    // skip the body, the increment and the JUMP_ABSOLUTE back to the condition
+    int falseTarget = bdSize + incrementSize + 4;
     int diff = 2;
-    int falseTarget = bdSize + incrementSize + diff;
     if (falseTarget >= 255) {
       diff += 2;
     }
@@ -75,6 +76,16 @@ public class ForStmt extends AbstractIR<Instruction> {
     return body;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (condition == old) {
+      condition = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return List.of();
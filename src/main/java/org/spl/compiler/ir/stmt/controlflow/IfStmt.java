@@ -12,7 +12,7 @@ import java.util.List;
 
 public class IfStmt extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> condition;
+  private IRNode<Instruction> condition;
   private final IRNode<Instruction> thenBlock;
   private final IRNode<Instruction> elseBlock;
   private List<IRNode<Instruction>> children;
@@ -29,14 +29,19 @@ public class IfStmt extends AbstractIR<Instruction> {
     thenBlock.accept(innerContex);
 //    thenBlock.doVisit(innerContex);
     int size = innerContex.getNBytes();
-    context.addInstruction(new Instruction(OpCode.JUMP_FALSE, size), condition.getLineNo(), condition.getColumnNo(), condition.getLen());
-    thenBlock.accept(context);
+    int elseSize = 0;
     if (elseBlock != null) {
       innerContex = new JumpContext(context);
       elseBlock.accept(innerContex);
 //      elseBlock.doVisit(innerContex);
-      size = innerContex.getNBytes();
-      context.addInstruction(new Instruction(OpCode.JUMP_UNCON_FORWARD, size), condition.getLineNo(), condition.getColumnNo(), condition.getLen());
+      elseSize = innerContex.getNBytes();
+      // the false branch has to skip the jump over the else block too
+      size += elseSize >= 255 ? 4 : 2;
+    }
+    context.addInstruction(new Instruction(OpCode.JUMP_FALSE, size), condition.getLineNo(), condition.getColumnNo(), condition.getLen());
+    thenBlock.accept(context);
+    if (elseBlock != null) {
+      context.addInstruction(new Instruction(OpCode.JUMP_UNCON_FORWARD, elseSize), condition.getLineNo(), condition.getColumnNo(), condition.getLen());
       elseBlock.accept(context);
     }
   }
@@ -46,6 +51,17 @@ public class IfStmt extends AbstractIR<Instruction> {
     return Op.NOP;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (condition == old) {
+      condition = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     if (children == null)
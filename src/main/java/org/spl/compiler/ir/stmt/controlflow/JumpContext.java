@@ -245,6 +245,11 @@ public class JumpContext implements ASTContext<Instruction> {
     return context.isInFunction();
   }
 
+  @Override
+  public boolean isFastLocals() {
+    return context.isFastLocals();
+  }
+
   @Override
   public ASTContext<Instruction> getPreviousContext() {
     return context.getPreviousContext();
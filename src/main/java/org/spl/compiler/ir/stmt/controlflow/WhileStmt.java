@@ -11,7 +11,7 @@ import java.util.List;
 
 public class WhileStmt extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> condition;
+  private IRNode<Instruction> condition;
   private final IRNode<Instruction> block;
 
   public WhileStmt(IRNode<Instruction> condition, IRNode<Instruction> block) {
@@ -92,6 +92,16 @@ public class WhileStmt extends AbstractIR<Instruction> {
     return block;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (condition == old) {
+      condition = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return List.of();
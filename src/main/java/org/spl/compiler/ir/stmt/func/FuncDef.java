@@ -69,8 +69,10 @@ public class FuncDef extends AbstractIR<Instruction> {
   public void codeGen(ASTContext<Instruction> context) throws SPLSyntaxError {
     context.addInstruction(new Instruction(OpCode.LOAD_CONST, idxInConstants), getLineNo(), getColumnNo(), getLen());
     context.addInstruction(new Instruction(OpCode.MAKE_FUNCTION, defaults.size()), getLineNo(), getColumnNo(), getLen());
-    if (idxInVarNames != -1)
-      context.addInstruction(new Instruction(OpCode.STORE_LOCAL, idxInVarNames), getLineNo(), getColumnNo(), getLen());
+    if (idxInVarNames != -1) {
+      OpCode store = context.isFastLocals() ? OpCode.STORE_FAST : OpCode.STORE_LOCAL;
+      context.addInstruction(new Instruction(store, idxInVarNames), getLineNo(), getColumnNo(), getLen());
+    }
   }
 
   @Override
@@ -12,7 +12,7 @@ import java.util.List;
 
 public class Return extends AbstractIR<Instruction> {
 
-  private final IRNode<Instruction> expr;
+  private IRNode<Instruction> expr;
 
   public Return(IRNode<Instruction> expr) {
     this.expr = expr;
@@ -35,6 +35,16 @@ public class Return extends AbstractIR<Instruction> {
     context.add(new Instruction(OpCode.RETURN), this.getLineNo(), this.getColumnNo(), getLen());
   }
 
+  @Override
+  public boolean replaceChild(IRNode<Instruction> old, IRNode<Instruction> node) {
+    if (expr == old) {
+      expr = node;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<IRNode<Instruction>> getChildren() {
     return List.of();
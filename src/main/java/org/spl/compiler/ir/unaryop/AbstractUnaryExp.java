@@ -22,6 +22,17 @@ public abstract class AbstractUnaryExp<E> extends AbstractIR<E> {
     return op;
   }
 
+  @Override
+  public boolean replaceChild(IRNode<E> old, IRNode<E> node) {
+    if (operand == old) {
+      operand = node;
+    } else {
+      return false;
+    }
+    children = null;
+    return true;
+  }
+
   @Override
   public List<IRNode<E>> getChildren() {
     if (children == null) {
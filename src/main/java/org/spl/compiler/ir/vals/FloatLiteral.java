@@ -4,14 +4,14 @@ import org.spl.compiler.ir.Op;
 
 public class FloatLiteral extends Literal {
 
-  private final float val;
+  private final double val;
 
-  public FloatLiteral(float val, int oparg) {
+  public FloatLiteral(double val, int oparg) {
     super(oparg);
     this.val = val;
   }
 
-  public float getVal() {
+  public double getVal() {
     return val;
   }
 
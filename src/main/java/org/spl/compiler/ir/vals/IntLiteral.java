@@ -4,14 +4,14 @@ import org.spl.compiler.ir.Op;
 
 public class IntLiteral extends Literal {
 
-  private final int val;
+  private final long val;
 
-  public IntLiteral(int val, int oparg) {
+  public IntLiteral(long val, int oparg) {
     super(oparg);
     this.val = val;
   }
 
-  public int getVal() {
+  public long getVal() {
     return val;
   }
 
@@ -27,6 +27,10 @@ public class Literal extends AbstractIR<Instruction> {
     return List.of();
   }
 
+  public int getOparg() {
+    return oparg;
+  }
+
   @Override
   public boolean isLiteral() {
     return true;
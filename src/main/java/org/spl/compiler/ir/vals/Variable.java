@@ -39,7 +39,8 @@ public class Variable extends AbstractIR<Instruction> implements RValue<Instruct
   public void codeGen(ASTContext<Instruction> context) throws SPLSyntaxError {
     switch (scope) {
       case LOCAL -> {
-        context.add(new Instruction(OpCode.LOAD_LOCAL, idx), getLineNo(), getColumnNo(), getLen());
+        OpCode load = context.isFastLocals() ? OpCode.LOAD_FAST : OpCode.LOAD_LOCAL;
+        context.add(new Instruction(load, idx), getLineNo(), getColumnNo(), getLen());
       }
       case GLOBAL -> {
         context.add(new Instruction(OpCode.LOAD_GLOBAL, idx), getLineNo(), getColumnNo(), getLen());
@@ -50,6 +51,9 @@ public class Variable extends AbstractIR<Instruction> implements RValue<Instruct
       case OTHERS -> {
         context.add(new Instruction(OpCode.LOAD_NAME, idx), getLineNo(), getColumnNo(), getLen());
       }
+      case BUILTIN -> {
+        context.add(new Instruction(OpCode.LOAD_BUILTIN, idx), getLineNo(), getColumnNo(), getLen());
+      }
     }
   }
 
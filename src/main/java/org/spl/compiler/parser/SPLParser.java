@@ -24,16 +24,21 @@ import org.spl.compiler.ir.stmt.returnstmt.ReturnNone;
 import org.spl.compiler.ir.unaryop.*;
 import org.spl.compiler.ir.vals.*;
 import org.spl.compiler.lexer.Lexer;
+import org.spl.vm.builtin.Builtin;
 import org.spl.vm.internal.SPLCodeObjectBuilder;
 import org.spl.vm.internal.objs.SPLClassDefinition;
 import org.spl.vm.internal.objs.SPLCodeObject;
 import org.spl.vm.internal.objs.SPLFuncObject;
+import org.spl.vm.interpreter.SPLRegisterCompiler;
+import org.spl.vm.interpreter.SPLTreeCompiler;
 import org.spl.vm.objects.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * program      : block*
@@ -132,6 +137,8 @@ import java.util.Map;
  */
 public class SPLParser extends AbstractSyntaxParser {
   private IRNode<Instruction> root;
+  // names bound anywhere in this file, see isBuiltinName
+  private Set<String> boundNames;
 
   public SPLParser(String filename) throws IOException, SPLSyntaxError {
     super(filename);
@@ -150,6 +157,44 @@ public class SPLParser extends AbstractSyntaxParser {
     return root;
   }
 
+  /**
+   * a name can be loaded by LOAD_BUILTIN if it is a builtin and the file never
+   * binds it, neither by an assignment, a definition, an import, a for loop,
+   * a catch clause nor a global statement
+   */
+  private boolean isBuiltinName(String name) {
+    if (boundNames == null) {
+      boundNames = collectBoundNames();
+    }
+    return !boundNames.contains(name) && Builtin.contains(new SPLStringObject(name));
+  }
+
+  private Set<String> collectBoundNames() {
+    Set<String> res = new HashSet<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      Lexer.Token token = tokens.get(i);
+      if (token.isGlobal()) {
+        for (int j = i + 1; j < tokens.size() && (tokens.get(j).isIDENTIFIER() || tokens.get(j).isComma()); j++) {
+          if (tokens.get(j).isIDENTIFIER()) {
+            res.add(tokens.get(j).getIdentifier());
+          }
+        }
+      }
+      if (!token.isIDENTIFIER()) {
+        continue;
+      }
+      Lexer.Token prev = i > 0 ? tokens.get(i - 1) : null;
+      Lexer.Token next = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+      if (next != null && next.isASSIGN()) {
+        res.add(token.getIdentifier());
+      } else if (prev != null && (prev.isDef() || prev.isClass() || prev.isImport() || prev.isFor() || prev.isIDENTIFIER())) {
+        // 'catch (Type name)' is the only place where two identifiers follow each other
+        res.add(token.getIdentifier());
+      }
+    }
+    return res;
+  }
+
   @Override
   public IRNode<Instruction> getAST() {
     if (root == null) {
@@ -384,7 +429,7 @@ public class SPLParser extends AbstractSyntaxParser {
   private IRNode<Instruction> assignStatement() throws SPLSyntaxError {
     IRNode<Instruction> exp = atom();
     if (exp instanceof Variable lhs) {
-      if (lhs.scope() == Scope.OTHERS) {
+      if (lhs.scope() == Scope.OTHERS || lhs.scope() == Scope.BUILTIN) {
         lhs.setScope(Scope.LOCAL);
       }
       Lexer.Token sign = tokenFlow.peek();
@@ -627,6 +672,7 @@ public class SPLParser extends AbstractSyntaxParser {
     tokenFlow.next();
     var funcContext = new DefaultASTContext<>(filename, getSourceCode());
     funcContext.setInFunc(true);
+    funcContext.setFastLocals(true);
     funcContext.setPrev(context);
     funcContext.setFirstLineNo(token.getLineNo());
     List<String> parameters = new ArrayList<>();
@@ -676,6 +722,12 @@ public class SPLParser extends AbstractSyntaxParser {
     context = oldState;
     funcContext.generateByteCodes(block);
     SPLCodeObject code = SPLCodeObjectBuilder.build(funcContext);
+    if (SPLTreeCompiler.isEnabled()) {
+      code.setTreeCode(SPLTreeCompiler.compile(block, code));
+    }
+    if (SPLRegisterCompiler.isEnabled()) {
+      SPLRegisterCompiler.compile(block, code, parameters.size());
+    }
     SPLFuncObject func = new SPLFuncObject(parameters, funcName, code);
     context.addConstantObject(func);
     int idxInConstants = context.getConstantObjectIndex(func);
@@ -683,7 +735,7 @@ public class SPLParser extends AbstractSyntaxParser {
     String[] vars = new String[closureMap.size()];
     ArrayList<IRNode<Instruction>> closures = new ArrayList<>();
     closureMap.forEach((k, v) -> vars[v] = k);
-    code.setClosures(new SPLObject[vars.length]);
+    code.setNumberOfClosures(vars.length);
     Variable variable;
     for (String var : vars) {
       if (context.isGlobal(var)) {
@@ -1169,6 +1221,8 @@ public class SPLParser extends AbstractSyntaxParser {
       } else if (context.loadClosureVar(identifier) != -1) {
         scope = Scope.CLOSURE;
         idx = context.loadClosureVar(identifier);
+      } else if (isBuiltinName(identifier)) {
+        scope = Scope.BUILTIN;
       } else {
         scope = Scope.OTHERS;
       }
@@ -1318,6 +1372,7 @@ public class SPLParser extends AbstractSyntaxParser {
     tokenFlow.next();
     var params = new ArrayList<String>();
     DefaultASTContext<Instruction> auxContex = new DefaultASTContext<>(filename, getSourceCode());
+    auxContex.setFastLocals(true);
     var oldContex = context;
     context = auxContex;
     if (tokenFlow.peek().isLEFT_PARENTHESES()) {
@@ -1367,6 +1422,12 @@ public class SPLParser extends AbstractSyntaxParser {
     auxContex.generateByteCodes(block);
     SPLCodeObject codeObject = SPLCodeObjectBuilder.build(auxContex);
     codeObject.setArgs(params.size());
+    if (SPLTreeCompiler.isEnabled()) {
+      codeObject.setTreeCode(SPLTreeCompiler.compile(block, codeObject));
+    }
+    if (SPLRegisterCompiler.isEnabled()) {
+      SPLRegisterCompiler.compile(block, codeObject, params.size());
+    }
     SPLFuncObject func = new SPLFuncObject(params, codeObject);
     context.addConstantObject(func);
     int idx = context.getConstantObjectIndex(func);
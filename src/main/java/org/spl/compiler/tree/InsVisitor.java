@@ -15,6 +15,8 @@ public class InsVisitor implements Visitor<Instruction> {
   private final List<String> serializedInstructions;
   private final HashSet<OpCode> loadStoreInstructions;
   private int offset;
+  // instructions decoded to one word each, the offset is the instruction index
+  private boolean decoded;
 
   private InsVisitor() {
     idx2Var = new HashMap<>();
@@ -31,12 +33,20 @@ public class InsVisitor implements Visitor<Instruction> {
     loadStoreInstructions.add(OpCode.LOAD_LOCAL);
     loadStoreInstructions.add(OpCode.LOAD);
     loadStoreInstructions.add(OpCode.STORE_LOCAL);
+    loadStoreInstructions.add(OpCode.LOAD_FAST);
+    loadStoreInstructions.add(OpCode.STORE_FAST);
+    loadStoreInstructions.add(OpCode.LOAD_BUILTIN);
     loadStoreInstructions.add(OpCode.LOAD_ATTR);
     loadStoreInstructions.add(OpCode.STORE_ATTR);
     loadStoreInstructions.add(OpCode.LOAD_METHOD);
     loadStoreInstructions.add(OpCode.LOAD_NAME);
     loadStoreInstructions.add(OpCode.STORE);
     loadStoreInstructions.add(OpCode.STORE_EXC_VAL);
+    // the superinstructions keep the argument of the load they replace
+    loadStoreInstructions.add(OpCode.INC_LOCAL);
+    loadStoreInstructions.add(OpCode.CMP_LOCALS_JUMP);
+    loadStoreInstructions.add(OpCode.CALL_POP);
+    loadStoreInstructions.add(OpCode.CALL_BUILTIN_POP);
   }
 
   public InsVisitor(Map<?, Integer> varMap, Map<SPLObject, Integer> constants) {
@@ -58,6 +68,11 @@ public class InsVisitor implements Visitor<Instruction> {
       idx2Constant.put(i, constants[i]);
     }
   }
+  public InsVisitor(SPLStringObject[] vars, SPLObject[] constants, boolean decoded) {
+    this(vars, constants);
+    this.decoded = decoded;
+  }
+
 
   @Override
   public void visit(Instruction instruction) {
@@ -82,7 +97,9 @@ public class InsVisitor implements Visitor<Instruction> {
     } else {
       serialized = String.format("%-6d %s", offset, opcode);
     }
-    if (opcode == OpCode.JUMP_ABSOLUTE || opcode == OpCode.LONG_JUMP) {
+    if (decoded) {
+      offset++;
+    } else if (opcode == OpCode.JUMP_ABSOLUTE || opcode == OpCode.LONG_JUMP) {
       offset += 4;
     } else {
       if (instruction.getOparg() >= 255)
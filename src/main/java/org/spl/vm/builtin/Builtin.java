@@ -20,20 +20,28 @@ import org.spl.vm.internal.objs.SPLFuncObject;
 import org.spl.vm.internal.utils.Dissembler;
 import org.spl.vm.internal.utils.SPLRangeObject;
 import org.spl.vm.interpreter.DefaultEval;
+import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.*;
 import org.spl.vm.types.*;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Builtin {
   private final static Map<SPLObject, SPLObject> dict;
+  // builtins by slot, the slot of a name never changes once it is registered
+  private final static Map<SPLObject, Integer> slots;
+  private static volatile SPLObject[] table;
+  private static volatile long version;
 
   static {
     dict = new HashMap<>();
+    table = new SPLObject[0];
+    slots = new HashMap<>();
     register("print");
     register("parse");
     register("range");
@@ -75,17 +83,17 @@ public class Builtin {
     try {
       Method method = Builtin.class.getMethod(name, SPLObject[].class);
       SPLCallObject m = new SPLCallObject(method, null, true);
-      dict.put(new SPLStringObject(name), m);
+      put(new SPLStringObject(name), m);
     } catch (NoSuchMethodException ignore) {
     }
   }
 
   private static void register(String name, SPLObject m) {
-    dict.put(new SPLStringObject(name), m);
+    put(new SPLStringObject(name), m);
   }
 
   public static void addObject(SPLStringObject name, SPLObject o) {
-    dict.put(name, o);
+    put(name, o);
   }
 
   public static void addObject(String name, SPLObject o) {
@@ -96,8 +104,46 @@ public class Builtin {
     return dict.get(key);
   }
 
-  public static SPLObject put(SPLObject key, SPLObject value) {
-    return dict.put(key, value);
+  public static synchronized SPLObject put(SPLObject key, SPLObject value) {
+    SPLObject old = dict.put(key, value);
+    Integer slot = slots.get(key);
+    SPLObject[] t = Arrays.copyOf(table, Math.max(table.length, slots.size() + 1));
+    if (slot == null) {
+      slot = slots.size();
+      slots.put(key, slot);
+    }
+    t[slot] = value;
+    // publish a new table so readers never see a half updated one
+    table = t;
+    version++;
+    return old;
+  }
+
+  public static boolean contains(SPLObject key) {
+    return dict.containsKey(key);
+  }
+
+  /**
+   * the slot of a builtin in the builtin table, -1 if the name is not registered
+   */
+  public static int getSlot(SPLObject key) {
+    Integer slot = slots.get(key);
+    return slot == null ? -1 : slot;
+  }
+
+  public static SPLObject getBySlot(int slot) {
+    if (slot < 0) {
+      return null;
+    }
+    return table[slot];
+  }
+
+  /**
+   * bumped on every change of the builtins, global caches use it to revalidate
+   * names resolved to a builtin
+   */
+  public static long getVersion() {
+    return version;
   }
 
   public static SPLObject print(SPLObject... args) throws SPLInternalException {
@@ -359,7 +405,13 @@ public class Builtin {
       String line = s.getVal();
       SPLCodeObject code = compile(line);
       DefaultEval defaultEval = new DefaultEval(code);
-      return defaultEval.evalFrame();
+      ThreadState ts = ThreadState.get();
+      ts.pin();
+      try {
+        return defaultEval.execute();
+      } finally {
+        ts.unpin();
+      }
     }
     return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("eval() only takes one string argument"));
   }
@@ -6,11 +6,16 @@ public class SPLConfigBuilder {
 
   public static final String CALL_STACK_SIZE_NAME = "SPL_MAX_CALLSTACK_SIZE";
   public static final String CORE_COUNT_NAME = "SPL_CORE_COUNT";
-  public static final int DEFAULT_MAX_CALLSTACK_SIZE = 100;
+  public static final String TIME_SLICE_NAME = "SPL_TIME_SLICE";
+  public static final String JIT_THRESHOLD_NAME = "SPL_JIT_THRESHOLD";
+  public static final int DEFAULT_MAX_CALLSTACK_SIZE = 10000;
+  public static final int DEFAULT_JIT_THRESHOLD = 1000;
 
   public static SPLConfiguration build() {
     int maxCallStackSize = DEFAULT_MAX_CALLSTACK_SIZE;
     int coreCount = Runtime.getRuntime().availableProcessors();
+    int timeSlice = 0;
+    int jitThreshold = DEFAULT_JIT_THRESHOLD;
     Map<String, String> envs = System.getenv();
     if (envs.containsKey(CALL_STACK_SIZE_NAME)) {
       try {
@@ -24,6 +29,18 @@ public class SPLConfigBuilder {
       } catch (Exception ignore) {
       }
     }
-    return new SPLConfiguration(maxCallStackSize, coreCount);
+    if (envs.containsKey(TIME_SLICE_NAME)) {
+      try {
+        timeSlice = Integer.parseInt(envs.get(TIME_SLICE_NAME));
+      } catch (Exception ignore) {
+      }
+    }
+    if (envs.containsKey(JIT_THRESHOLD_NAME)) {
+      try {
+        jitThreshold = Integer.parseInt(envs.get(JIT_THRESHOLD_NAME));
+      } catch (Exception ignore) {
+      }
+    }
+    return new SPLConfiguration(maxCallStackSize, coreCount, timeSlice, jitThreshold);
   }
 }
@@ -5,9 +5,25 @@ public class SPLConfiguration {
 
   private final int maxCoreThreads;
 
+  // the number of instructions a routine runs before it gives up its worker, 0 disables preemption
+  private final int timeSlice;
+
+  // the calls and backward jumps after which a function is compiled to JVM code, 0 disables the JIT
+  private final int jitThreshold;
+
   public SPLConfiguration(int maxCallStackSize, int maxCoreThreads) {
+    this(maxCallStackSize, maxCoreThreads, 0);
+  }
+
+  public SPLConfiguration(int maxCallStackSize, int maxCoreThreads, int timeSlice) {
+    this(maxCallStackSize, maxCoreThreads, timeSlice, SPLConfigBuilder.DEFAULT_JIT_THRESHOLD);
+  }
+
+  public SPLConfiguration(int maxCallStackSize, int maxCoreThreads, int timeSlice, int jitThreshold) {
     this.maxCallStackSize = maxCallStackSize;
     this.maxCoreThreads = maxCoreThreads;
+    this.timeSlice = Math.max(timeSlice, 0);
+    this.jitThreshold = Math.max(jitThreshold, 0);
   }
 
   public int getMaxCallStackSize() {
@@ -17,4 +33,12 @@ public class SPLConfiguration {
   public int getMaxCoreThreads() {
     return maxCoreThreads;
   }
+
+  public int getTimeSlice() {
+    return timeSlice;
+  }
+
+  public int getJitThreshold() {
+    return jitThreshold;
+  }
 }
@@ -1,8 +1,14 @@
 package org.spl.vm.exceptions.jexceptions;
 
+/**
+ * Carries an error of an SPL program through the java frames of the
+ * interpreter, the SPL exception itself is kept in the thread state. It has no
+ * java stack trace, filling it in is most of the cost of throwing and SPL
+ * programs see the traceback of their own frames instead.
+ */
 public class SPLInternalException extends Exception {
 
   public SPLInternalException(String msg) {
-    super(msg);
+    super(msg, null, false, false);
   }
 }
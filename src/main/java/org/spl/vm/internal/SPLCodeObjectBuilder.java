@@ -1,11 +1,23 @@
 package org.spl.vm.internal;
 
 import org.spl.compiler.bytecode.Instruction;
+import org.spl.compiler.bytecode.OpCode;
 import org.spl.compiler.ir.context.ASTContext;
 import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.interpreter.Evaluation;
+import org.spl.vm.interpreter.SPLHandlerTable;
+import org.spl.vm.interpreter.SPLLineTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class SPLCodeObjectBuilder {
 
+  static {
+    Evaluation.init();
+  }
+
   public static SPLCodeObject build(ASTContext<Instruction> context) {
     byte[] code = context.getCode();
     byte[] debugInfo = context.getDebugInfo();
@@ -13,16 +25,116 @@ public class SPLCodeObjectBuilder {
     byte[] lenColumn = context.getLenColumn();
     int firstLineNo = context.getFirstLineNo();
     int args = context.getNumberOfArgs();
+    int[] index = indexInstructions(code);
+    int[] instructions = decode(code, index);
+    List<ASTContext.JumpTableEntry> jumpTable = resolveJumpTable(context.getJumpTable(), index, instructions);
     return new SPLCodeObject(args,
         context.getTopStackSize(),
         fileName,
         context.getCoName(),
         firstLineNo,
         code,
+        instructions,
         lenColumn,
         debugInfo,
-        context.getJumpTable(),
+        jumpTable,
+        SPLHandlerTable.build(jumpTable),
+        SPLLineTable.build(firstLineNo, debugInfo, lenColumn, instructions.length),
         context.getVarnames(),
-        context.getConstants(), context.getSourceCode());
+        context.getConstants(), context.getSourceCode(),
+        context.isFastLocals());
+  }
+
+  /**
+   * maps every byte offset in code at which an instruction starts, and the end
+   * of code, to the index of that instruction, all other offsets map to -1
+   */
+  private static int[] indexInstructions(byte[] code) {
+    int[] index = new int[code.length + 1];
+    Arrays.fill(index, -1);
+    int pc = 0;
+    int n = 0;
+    while (pc < code.length) {
+      index[pc] = n++;
+      OpCode op = Evaluation.opcode[code[pc] & 0xff];
+      if (op == OpCode.JUMP_ABSOLUTE || op == OpCode.LONG_JUMP || code[pc + 1] == -1) {
+        pc += 4;
+      } else {
+        pc += 2;
+      }
+    }
+    index[code.length] = n;
+    return index;
+  }
+
+  /**
+   * converts the variable length byte code into one word per instruction, the
+   * opcode is stored in the low byte and the argument in the upper 24 bits.
+   * Relative and absolute jumps are resolved to the index of their target
+   * instruction so the interpreter only has to assign it to pc.
+   */
+  private static int[] decode(byte[] code, int[] index) {
+    int[] words = new int[index[code.length]];
+    int pc = 0;
+    int n = 0;
+    while (pc < code.length) {
+      OpCode op = Evaluation.opcode[code[pc++] & 0xff];
+      int arg;
+      if (op == OpCode.JUMP_ABSOLUTE || op == OpCode.LONG_JUMP) {
+        arg = (code[pc] & 0xff) << 16 | (code[pc + 1] & 0xff) << 8 | code[pc + 2] & 0xff;
+        pc += 3;
+      } else if (code[pc] == -1) {
+        arg = (code[pc + 1] & 0xff) << 8 | code[pc + 2] & 0xff;
+        pc += 3;
+      } else {
+        arg = code[pc++] & 0xff;
+      }
+      // relative jumps count from the end of the jump instruction
+      switch (op) {
+        case JUMP_FALSE, JMP_TRUE_NO_POP, JUMP_UNCON_FORWARD, NEXT -> arg = target(index, pc + arg);
+        case JUMP_BACK, JUMP_BACK_TRUE -> arg = target(index, pc - arg);
+        case JUMP_ABSOLUTE -> arg = target(index, arg);
+        case LONG_JUMP -> arg = target(index, (arg & 1) == 1 ? pc + (arg >> 1) : pc - (arg >> 1));
+        default -> {
+        }
+      }
+      words[n++] = arg << 8 | op.val & 0xff;
+    }
+    return words;
+  }
+
+  private static List<ASTContext.JumpTableEntry> resolveJumpTable(List<ASTContext.JumpTableEntry> jumpTable, int[] index, int[] instructions) {
+    List<ASTContext.JumpTableEntry> res = new ArrayList<>(jumpTable.size());
+    for (ASTContext.JumpTableEntry entry : jumpTable) {
+      int start = target(index, entry.startPc());
+      res.add(new ASTContext.JumpTableEntry(start, target(index, entry.endPc()),
+          target(index, entry.targetPc()), stackDepth(instructions, start)));
+    }
+    return res;
+  }
+
+  /**
+   * the depth of the eval stack when the statement starting at instruction pos
+   * runs, a statement leaves nothing on the stack but the iterators of the for
+   * loops around it are kept there until the loop ends. An error may leave the
+   * operands of a half evaluated expression behind, the handler of a protected
+   * range resets the stack to this depth.
+   */
+  private static int stackDepth(int[] instructions, int pos) {
+    int depth = 0;
+    for (int i = 0; i < pos; i++) {
+      // the body of a loop lies between NEXT and the instruction it leaves the loop with
+      if (Evaluation.opcode[instructions[i] & 0xff] == OpCode.NEXT && pos < instructions[i] >>> 8) {
+        depth++;
+      }
+    }
+    return depth;
+  }
+
+  private static int target(int[] index, int offset) {
+    if (offset < 0 || offset >= index.length || index[offset] == -1) {
+      throw new IllegalStateException("offset " + offset + " is not the start of an instruction");
+    }
+    return index[offset];
   }
 }
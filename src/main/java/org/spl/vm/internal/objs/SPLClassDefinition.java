@@ -5,6 +5,7 @@ import org.spl.vm.exceptions.splexceptions.SPLLevelObject;
 import org.spl.vm.exceptions.types.SPLLevelType;
 import org.spl.vm.internal.typs.SPLClassDefinitionType;
 import org.spl.vm.interpreter.DefaultEval;
+import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.types.SPLCommonType;
 
@@ -50,7 +51,13 @@ public class SPLClassDefinition extends SPLObject {
   public SPLCommonType buildType(SPLCommonType base) throws SPLInternalException {
     HashMap<SPLObject, SPLObject> locals = new HashMap<>();
     DefaultEval eval = new DefaultEval(className, locals, locals, codeObject);
-    eval.evalFrame();
+    ThreadState ts = ThreadState.get();
+    ts.pin();
+    try {
+      eval.execute();
+    } finally {
+      ts.unpin();
+    }
     return new SPLLevelType(null, className, SPLLevelObject.class, base, locals);
   }
 }
@@ -3,6 +3,12 @@ package org.spl.vm.internal.objs;
 import org.spl.compiler.ir.context.ASTContext;
 import org.spl.vm.annotations.SPLExportField;
 import org.spl.vm.internal.typs.SPLCodeType;
+import org.spl.vm.builtin.Builtin;
+import org.spl.vm.interpreter.SPLCompiledCode;
+import org.spl.vm.interpreter.SPLGlobalCache;
+import org.spl.vm.interpreter.SPLHandlerTable;
+import org.spl.vm.interpreter.SPLInlineCache;
+import org.spl.vm.interpreter.SPLLineTable;
 import org.spl.vm.objects.SPLFloatObject;
 import org.spl.vm.objects.SPLLongObject;
 import org.spl.vm.objects.SPLObject;
@@ -16,14 +22,81 @@ public class SPLCodeObject extends SPLObject {
   private final String filename;
   private final int firstLineNo;
   private final byte[] code;
+  /**
+   * code decoded to one word per instruction by {@link org.spl.vm.internal.SPLCodeObjectBuilder},
+   * the opcode is the low byte of a word and the argument the upper 24 bits,
+   * jump arguments are the index of the target instruction
+   */
+  private final int[] instructions;
+  /**
+   * the instructions executed by the frames, it starts as a copy of instructions
+   * and the interpreter rewrites generic instructions in place to type specialized
+   * ones once it has seen their operands, the original instructions are left untouched
+   */
+  private final int[] quickened;
   private final byte[] lenColumn;
   private final byte[] debugInfo;
   private final SPLStringObject[] varnames;
   private final SPLObject[] constants;
   private final int maxStackSize;
   private final List<ASTContext.JumpTableEntry> jumpTable;
+  /**
+   * the jump table indexed by instruction, built by the code object builder
+   */
+  private final SPLHandlerTable handlers;
+  /**
+   * the source position of every instruction, used by tracebacks
+   */
+  private final SPLLineTable lineTable;
   private final List<String> sourceCode;
-  private SPLObject[] closures;
+  /**
+   * locals of a fast code object are stored in the slot array of the frame,
+   * the slot of a variable is its index in varnames and the parameters occupy
+   * the first slots
+   */
+  private final boolean fastLocals;
+  /**
+   * inline caches of the attribute sites, indexed by the index of the instruction
+   * and created when the site is executed for the first time
+   */
+  private final SPLInlineCache[] inlineCaches;
+  private final SPLGlobalCache[] globalCaches;
+  /**
+   * slots in the builtin table of the varnames, resolved when the code object
+   * is loaded and used by LOAD_BUILTIN, -1 if a name is not a builtin
+   */
+  private final int[] builtinSlots;
+  /**
+   * the number of variables captured from enclosing functions, the cells
+   * themselves belong to every function object made from this code object
+   */
+  private int numberOfClosures;
+  /**
+   * the JVM code of this code object once {@link org.spl.vm.interpreter.SPLJit}
+   * has compiled it, null while it is interpreted
+   */
+  private volatile SPLCompiledCode compiledCode;
+  /**
+   * the tree {@link org.spl.vm.interpreter.SPLTreeCompiler} made of the IR of
+   * this code object, null if it is interpreted
+   */
+  private SPLCompiledCode treeCode;
+  /**
+   * the code {@link org.spl.vm.interpreter.SPLRegisterCompiler} made of the
+   * IR of this code object, null if it is interpreted
+   */
+  private SPLCompiledCode registerCode;
+  /**
+   * the size of the register file of the frames, the array of their fast
+   * locals, whose first registers are the locals and the rest the temporaries
+   * of the register code
+   */
+  private int registers;
+  // the calls and backward jumps the interpreter has counted, -1 once the JIT gave up on it
+  private int hotness;
+  // the exits of the compiled code to the interpreter since it was compiled
+  private int deopts;
+  private int compilations;
   @SPLExportField
   private SPLStringObject name;
   private int args;
@@ -34,11 +107,15 @@ public class SPLCodeObject extends SPLObject {
                        String name,
                        int firstLineNo,
                        byte[] code,
+                       int[] instructions,
                        byte[] lenColumn,
                        byte[] debugInfo,
                        List<ASTContext.JumpTableEntry> jumpTable,
+                       SPLHandlerTable handlers,
+                       SPLLineTable lineTable,
                        Map<Object, Integer> varnames, SPLObject[] constants,
-                       List<String> sourceCode) {
+                       List<String> sourceCode,
+                       boolean fastLocals) {
     super(SPLCodeType.getInstance());
     this.args = args;
     this.name = new SPLStringObject(name);
@@ -46,6 +123,8 @@ public class SPLCodeObject extends SPLObject {
     this.filename = filename;
     this.firstLineNo = firstLineNo;
     this.code = code;
+    this.instructions = instructions;
+    this.quickened = instructions.clone();
     this.lenColumn = lenColumn;
     this.debugInfo = debugInfo;
     this.varnames = new SPLStringObject[varnames.size()];
@@ -55,7 +134,17 @@ public class SPLCodeObject extends SPLObject {
     });
     this.constants = constants;
     this.jumpTable = jumpTable;
+    this.handlers = handlers;
+    this.lineTable = lineTable;
     this.sourceCode = sourceCode;
+    this.fastLocals = fastLocals;
+    this.inlineCaches = new SPLInlineCache[instructions.length];
+    this.globalCaches = new SPLGlobalCache[instructions.length];
+    this.registers = this.varnames.length;
+    this.builtinSlots = new int[this.varnames.length];
+    for (int i = 0; i < builtinSlots.length; i++) {
+      builtinSlots[i] = Builtin.getSlot(this.varnames[i]);
+    }
   }
 
   public static SPLLongObject getSPL(int val) {
@@ -94,6 +183,21 @@ public class SPLCodeObject extends SPLObject {
     return code;
   }
 
+  public int[] getInstructions() {
+    return instructions;
+  }
+
+  public int[] getQuickenedCode() {
+    return quickened;
+  }
+
+  /**
+   * whether at least one instruction has been rewritten to a specialized form
+   */
+  public boolean isQuickened() {
+    return !Arrays.equals(instructions, quickened);
+  }
+
   public byte[] getLenColumn() {
     return lenColumn;
   }
@@ -122,6 +226,46 @@ public class SPLCodeObject extends SPLObject {
     return varnames;
   }
 
+  public boolean isFastLocals() {
+    return fastLocals;
+  }
+
+  public SPLInlineCache getInlineCache(int pc) {
+    SPLInlineCache cache = inlineCaches[pc];
+    if (cache == null) {
+      cache = new SPLInlineCache();
+      inlineCaches[pc] = cache;
+    }
+    return cache;
+  }
+
+  public SPLGlobalCache getGlobalCache(int pc) {
+    SPLGlobalCache cache = globalCaches[pc];
+    if (cache == null) {
+      cache = new SPLGlobalCache();
+      globalCaches[pc] = cache;
+    }
+    return cache;
+  }
+
+  public int getBuiltinSlot(int idx) {
+    return builtinSlots[idx];
+  }
+
+  /**
+   * the misses of the global caches, the inline caches only count theirs in
+   * {@link SPLInlineCache#getTotalMisses()}
+   */
+  public long getCacheMisses() {
+    long res = 0;
+    for (SPLGlobalCache cache : globalCaches) {
+      if (cache != null) {
+        res += cache.getMisses();
+      }
+    }
+    return res;
+  }
+
   public int getMaxStackSize() {
     return maxStackSize;
   }
@@ -130,6 +274,18 @@ public class SPLCodeObject extends SPLObject {
     return constants;
   }
 
+  public boolean hasHandlers() {
+    return !handlers.isEmpty();
+  }
+
+  public SPLHandlerTable getHandlers() {
+    return handlers;
+  }
+
+  public SPLLineTable getLineTable() {
+    return lineTable;
+  }
+
   public List<ASTContext.JumpTableEntry> getJumpTable() {
     return jumpTable;
   }
@@ -146,11 +302,64 @@ public class SPLCodeObject extends SPLObject {
     this.name = name;
   }
 
-  public SPLObject[] getClosures() {
-    return closures;
+  public SPLCompiledCode getCompiledCode() {
+    return compiledCode;
+  }
+
+  public void setCompiledCode(SPLCompiledCode compiledCode) {
+    this.compiledCode = compiledCode;
+  }
+
+  public SPLCompiledCode getTreeCode() {
+    return treeCode;
+  }
+
+  public void setTreeCode(SPLCompiledCode treeCode) {
+    this.treeCode = treeCode;
+  }
+
+  public SPLCompiledCode getRegisterCode() {
+    return registerCode;
+  }
+
+  public void setRegisterCode(SPLCompiledCode registerCode, int registers) {
+    this.registerCode = registerCode;
+    this.registers = Math.max(registers, varnames.length);
+  }
+
+  public int getRegisters() {
+    return registers;
+  }
+
+  public int getHotness() {
+    return hotness;
+  }
+
+  public void setHotness(int hotness) {
+    this.hotness = hotness;
+  }
+
+  public int getDeopts() {
+    return deopts;
+  }
+
+  public void setDeopts(int deopts) {
+    this.deopts = deopts;
+  }
+
+  public int getCompilations() {
+    return compilations;
+  }
+
+  public void setCompilations(int compilations) {
+    this.compilations = compilations;
+  }
+
+  public int getNumberOfClosures() {
+    return numberOfClosures;
   }
 
-  public void setClosures(SPLObject[] closures) {
-    this.closures = closures;
+  public void setNumberOfClosures(int numberOfClosures) {
+    this.numberOfClosures = numberOfClosures;
   }
 }
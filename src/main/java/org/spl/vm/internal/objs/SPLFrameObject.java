@@ -1,23 +1,38 @@
 package org.spl.vm.internal.objs;
 
 import org.spl.vm.internal.typs.SPLFrameType;
+import org.spl.vm.interpreter.SPLNamespace;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.objects.SPLStringObject;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class SPLFrameObject extends SPLObject {
-  protected final Map<SPLObject, SPLObject> locals;
+  protected Map<SPLObject, SPLObject> locals;
 
-  protected final SPLCodeObject codeObject;
+  /**
+   * slots of local variables, only allocated for fast code objects whose
+   * locals map is materialized on demand by {@link #getLocals()}, the register
+   * code of the code object keeps its temporaries after them
+   */
+  protected SPLObject[] fastLocals;
 
-  protected final Map<SPLObject, SPLObject> globals;
+  protected SPLCodeObject codeObject;
 
-  protected final byte[] code;
-  protected final SPLObject[] evalStack;
-  protected final SPLStringObject[] varnames;
+  /**
+   * the closure cells of the function object this frame runs, every function
+   * object made by MAKE_FUNCTION has its own cells
+   */
+  protected SPLObject[] closures;
+
+  protected Map<SPLObject, SPLObject> globals;
+
+  protected int[] code;
+  protected SPLObject[] evalStack;
+  protected SPLStringObject[] varnames;
   protected int pc;
   protected int top;
 
@@ -32,30 +47,100 @@ public class SPLFrameObject extends SPLObject {
     this.codeObject = codeObj;
     pc = 0;
     evalStack = new SPLObject[codeObj.getMaxStackSize()];
-    code = codeObj.getCode();
+    code = codeObj.getQuickenedCode();
     insNumExecuted = 0;
     varnames = codeObj.getVarnames();
     constants = codeObj.getConstants();
+    fastLocals = codeObj.isFastLocals() ? new SPLObject[codeObj.getRegisters()] : null;
   }
 
   public SPLFrameObject(SPLCodeObject codeObj) {
     super(SPLFrameType.getInstance());
     this.codeObject = codeObj;
-    this.locals = new HashMap<>();
+    this.locals = new SPLNamespace();
     this.globals = this.locals;
 
     pc = 0;
     evalStack = new SPLObject[codeObj.getMaxStackSize()];
-    code = codeObj.getCode();
+    code = codeObj.getQuickenedCode();
+    insNumExecuted = 0;
+    varnames = codeObj.getVarnames();
+    constants = codeObj.getConstants();
+    fastLocals = null;
+  }
+
+  /**
+   * prepares a frame which has finished running for a call of codeObj, the
+   * eval stack is kept when it is large enough
+   */
+  protected void reuse(Map<SPLObject, SPLObject> globals, SPLCodeObject codeObj) {
+    this.locals = null;
+    this.globals = globals;
+    this.codeObject = codeObj;
+    pc = 0;
+    top = 0;
+    if (evalStack.length < codeObj.getMaxStackSize()) {
+      evalStack = new SPLObject[codeObj.getMaxStackSize()];
+    }
+    code = codeObj.getQuickenedCode();
     insNumExecuted = 0;
     varnames = codeObj.getVarnames();
     constants = codeObj.getConstants();
+    if (fastLocals == null || fastLocals.length != codeObj.getRegisters()) {
+      fastLocals = new SPLObject[codeObj.getRegisters()];
+    }
+  }
+
+  /**
+   * drops the references to the objects of the last call
+   */
+  protected void clear() {
+    Arrays.fill(evalStack, null);
+    if (fastLocals != null) {
+      Arrays.fill(fastLocals, null);
+    }
+    locals = null;
+    closures = null;
   }
 
   public Map<SPLObject, SPLObject> getLocals() {
+    if (fastLocals != null) {
+      // sync slots into the locals map, it is only needed by callers outside the interpreter loop
+      if (locals == null) {
+        locals = new HashMap<>();
+      }
+      // the registers after the locals are temporaries of the register code
+      for (int i = 0; i < varnames.length; i++) {
+        if (fastLocals[i] != null) {
+          locals.put(varnames[i], fastLocals[i]);
+        } else {
+          locals.remove(varnames[i]);
+        }
+      }
+    }
     return locals;
   }
 
+  public SPLObject[] getFastLocals() {
+    return fastLocals;
+  }
+
+  public SPLObject[] getClosures() {
+    return closures;
+  }
+
+  public void setClosures(SPLObject[] closures) {
+    this.closures = closures;
+  }
+
+  protected void storeName(int idx, SPLObject o) {
+    if (fastLocals != null) {
+      fastLocals[idx] = o;
+    } else {
+      locals.put(varnames[idx], o);
+    }
+  }
+
   public SPLCodeObject getCodeObject() {
     return codeObject;
   }
@@ -65,7 +150,7 @@ public class SPLFrameObject extends SPLObject {
     return globals;
   }
 
-  public byte[] getCode() {
+  public int[] getCode() {
     return code;
   }
 
@@ -102,6 +187,9 @@ public class SPLFrameObject extends SPLObject {
   }
 
   SPLObject getFrameFirstArgument() {
+    if (fastLocals != null) {
+      return fastLocals[0];
+    }
     return locals.get(varnames[0]);
   }
 }
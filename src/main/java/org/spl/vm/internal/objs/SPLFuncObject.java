@@ -4,7 +4,6 @@ import org.spl.vm.annotations.SPLExportMethod;
 import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
-import org.spl.vm.interfaces.SPLContinuable;
 import org.spl.vm.internal.typs.SPLFuncType;
 import org.spl.vm.internal.utils.Dissembler;
 import org.spl.vm.interpreter.DefaultEval;
@@ -12,12 +11,12 @@ import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.SPLNoneObject;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.objects.SPLStringObject;
+import org.spl.vm.splroutine.SPLRoutineMarker;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class SPLFuncObject extends SPLObject implements SPLContinuable {
+public class SPLFuncObject extends SPLObject {
   public static int anonymousCount = 0;
   private final List<String> parameters;
   private final String name;
@@ -27,7 +26,11 @@ public class SPLFuncObject extends SPLObject implements SPLContinuable {
    * defaults will be set in runtime (in instruction MAKE_FUNCTION)
    */
   private List<SPLObject> defaults;
-  private DefaultEval evaluation;
+  /**
+   * the cells of the variables captured from enclosing functions, they belong
+   * to this function object so the same code may run in many routines at once
+   */
+  private SPLObject[] closures;
 
   public SPLFuncObject(List<String> parameters, String name, SPLCodeObject codeObject) {
     super(SPLFuncType.getInstance());
@@ -37,13 +40,18 @@ public class SPLFuncObject extends SPLObject implements SPLContinuable {
     this.codeObject.setName(new SPLStringObject(name));
   }
 
-  public SPLFuncObject(SPLFuncObject f) {
+  /**
+   * makes a function object from the constant f of a code object, this is what
+   * MAKE_FUNCTION pushes, the constant itself is never modified
+   */
+  public SPLFuncObject(SPLFuncObject f, Map<SPLObject, SPLObject> globals, List<SPLObject> defaults, SPLObject[] closures) {
     super(SPLFuncType.getInstance());
     this.parameters = f.parameters;
     this.name = f.name;
     this.codeObject = f.codeObject;
-    this.globals = f.globals;
-    this.defaults = f.defaults;
+    this.globals = globals;
+    this.defaults = defaults;
+    this.closures = closures;
   }
 
   public SPLFuncObject(List<String> parameters, SPLCodeObject codeObject) {
@@ -74,6 +82,10 @@ public class SPLFuncObject extends SPLObject implements SPLContinuable {
     return codeObject;
   }
 
+  public SPLObject[] getClosures() {
+    return closures;
+  }
+
   @Override
   public String toString() {
     return String.format("def %s (...) {...}", name);
@@ -90,37 +102,83 @@ public class SPLFuncObject extends SPLObject implements SPLContinuable {
   }
 
 
-  public void buildEval(SPLObject... args) throws SPLInternalException {
-    if (args.length + defaults.size() < parameters.size()) {
+  private void checkArguments(int n) throws SPLInternalException {
+    if (n + defaults.size() < parameters.size()) {
       SPLErrorUtils.splErrorFormat(new SPLRuntimeException(
           String.format("Invalid number of arguments, request %d parameters but only found %d arguments",
-              parameters.size() - defaults.size(), args.length)));
-    } else if (args.length > parameters.size()) {
+              parameters.size() - defaults.size(), n)));
+    } else if (n > parameters.size()) {
       SPLErrorUtils.splErrorFormat(new SPLRuntimeException(
           String.format("Invalid number of arguments, request %d parameters but found %d arguments",
-              parameters.size(), args.length)));
-    }
-    // pass function's parameters as locals
-    Map<SPLObject, SPLObject> locals = new HashMap<>();
-    for (int i = args.length; i < parameters.size(); i++) {
-      locals.put(new SPLStringObject(parameters.get(i)), defaults.get(i - args.length));
-    }
-    for (int i = 0; i < args.length; i++) {
-      locals.put(new SPLStringObject(parameters.get(i)), args[i]);
+              parameters.size(), n)));
     }
     assert globals != null;
-    evaluation = new DefaultEval(name, locals, globals, codeObject);
+    assert codeObject.isFastLocals();
+  }
+
+  // parameters occupy the first slots of a fast code object
+  private void fillDefaults(SPLObject[] fastLocals, int n) {
+    int firstDefault = parameters.size() - defaults.size();
+    for (int i = n; i < parameters.size(); i++) {
+      fastLocals[i] = defaults.get(i - firstDefault);
+    }
+  }
+
+  /**
+   * builds a frame of a call with args which has not started yet, a routine
+   * runs it by resuming it
+   */
+  public DefaultEval buildEval(SPLObject... args) throws SPLInternalException {
+    checkArguments(args.length);
+    DefaultEval frame = new DefaultEval(name, null, globals, codeObject);
+    frame.setClosures(closures);
+    SPLObject[] fastLocals = frame.getFastLocals();
+    System.arraycopy(args, 0, fastLocals, 0, args.length);
+    fillDefaults(fastLocals, args.length);
+    return frame;
   }
 
   @Override
   public SPLObject __call__(SPLObject... args) throws SPLInternalException {
-    buildEval(args);
+    checkArguments(args.length);
     ThreadState ts = ThreadState.get();
-    SPLFrameObject currentFrame = ts.getCurrentFrame();
-    ts.setCurrentFrame(evaluation);
-    SPLObject res = evaluation.evalFrame();
-    ts.setCurrentFrame(currentFrame);
-    return res;
+    DefaultEval frame = ts.getFramePool().acquire(name, globals, codeObject);
+    frame.setClosures(closures);
+    SPLObject[] fastLocals = frame.getFastLocals();
+    System.arraycopy(args, 0, fastLocals, 0, args.length);
+    fillDefaults(fastLocals, args.length);
+    ts.pin();
+    try {
+      SPLObject res = frame.execute();
+      // a suspended frame is resumed later and a failed one may be part of a traceback
+      if (!(res instanceof SPLRoutineMarker)) {
+        ts.getFramePool().release(frame);
+      }
+      return res;
+    } finally {
+      ts.unpin();
+    }
+  }
+
+  /**
+   * the frame of a call made by the CALL instruction, the n arguments are read
+   * from stack[base, base + n) where the first argument is the last one pushed,
+   * self is passed as first argument of a method when it is not null
+   */
+  public DefaultEval newFrame(SPLObject self, SPLObject[] stack, int base, int n) throws SPLInternalException {
+    int first = self == null ? 0 : 1;
+    checkArguments(n + first);
+    DefaultEval frame = ThreadState.get().getFramePool().acquire(name, globals, codeObject);
+    frame.setClosures(closures);
+    SPLObject[] fastLocals = frame.getFastLocals();
+    if (self != null) {
+      fastLocals[0] = self;
+    }
+    for (int i = 0; i < n; i++) {
+      fastLocals[first + i] = stack[base + n - 1 - i];
+    }
+    fillDefaults(fastLocals, n + first);
+    return frame;
   }
 
   @SPLExportMethod
@@ -130,14 +188,4 @@ public class SPLFuncObject extends SPLObject implements SPLContinuable {
     return SPLNoneObject.getInstance();
   }
 
-  @Override
-  public SPLObject resume() throws SPLInternalException {
-    ThreadState ts = ThreadState.get();
-    SPLFrameObject currentFrame = ts.getCurrentFrame();
-    ts.setCurrentFrame(evaluation);
-    SPLObject res = evaluation.resume();
-    ts.setCurrentFrame(currentFrame);
-    return res;
-  }
-
 }
@@ -1,11 +1,11 @@
 package org.spl.vm.internal.objs;
 
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
-import org.spl.vm.interfaces.SPLContinuable;
 import org.spl.vm.internal.typs.SPLMethodWrapperType;
+import org.spl.vm.interpreter.DefaultEval;
 import org.spl.vm.objects.SPLObject;
 
-public class SPLMethodWrapper extends SPLObject implements SPLContinuable {
+public class SPLMethodWrapper extends SPLObject {
 
   private final SPLFuncObject func;
   private SPLObject self;
@@ -24,6 +24,10 @@ public class SPLMethodWrapper extends SPLObject implements SPLContinuable {
     return func.__call__(newArgs);
   }
 
+  public DefaultEval newFrame(SPLObject[] stack, int base, int n) throws SPLInternalException {
+    return func.newFrame(self, stack, base, n);
+  }
+
   public SPLObject getSelf() {
     return self;
   }
@@ -32,15 +36,10 @@ public class SPLMethodWrapper extends SPLObject implements SPLContinuable {
     this.self = self;
   }
 
-  public void buildEval(SPLObject... args) throws SPLInternalException {
+  public DefaultEval buildEval(SPLObject... args) throws SPLInternalException {
     SPLObject[] newArgs = new SPLObject[args.length + 1];
     newArgs[0] = self;
     System.arraycopy(args, 0, newArgs, 1, args.length);
-    func.buildEval(newArgs);
-  }
-
-  @Override
-  public SPLObject resume() throws SPLInternalException {
-    return func.resume();
+    return func.buildEval(newArgs);
   }
 }
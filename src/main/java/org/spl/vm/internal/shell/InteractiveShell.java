@@ -21,6 +21,7 @@ import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.internal.SPLCodeObjectBuilder;
 import org.spl.vm.internal.objs.SPLCodeObject;
 import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLNamespace;
 import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.SPLNoneObject;
 import org.spl.vm.objects.SPLObject;
@@ -30,8 +31,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -41,7 +42,7 @@ public class InteractiveShell {
   private static LineReader reader;
   private static Terminal terminal;
 
-  private static HashMap<SPLObject, SPLObject> locals;
+  private static Map<SPLObject, SPLObject> locals;
 
   private static List<String> getCompletes() {
     ArrayList<String> completer = locals.keySet().stream()
@@ -131,7 +132,7 @@ public class InteractiveShell {
           \\/_____/   \\/_/     \\/_____/\s
                                       \s""";
     System.out.println(prompt + "\033[0m");
-    locals = new HashMap<>();
+    locals = new SPLNamespace();
     locals.put(new SPLStringObject("PS1"), new SPLStringObject("$ "));
     terminal = TerminalBuilder.terminal();
     terminal.echo(false);
@@ -1,19 +1,22 @@
 package org.spl.vm.interpreter;
 
+import org.spl.compiler.bytecode.OpCode;
 import org.spl.compiler.ir.context.ASTContext;
 import org.spl.vm.builtin.Builtin;
 import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLClassBuildError;
 import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
-import org.spl.vm.interfaces.SPLContinuable;
+import org.spl.vm.exceptions.splexceptions.SPLStackOverflowError;
 import org.spl.vm.interfaces.SPLIterator;
 import org.spl.vm.internal.objs.SPLClassDefinition;
 import org.spl.vm.internal.objs.SPLCodeObject;
 import org.spl.vm.internal.objs.SPLFrameObject;
 import org.spl.vm.internal.objs.SPLFuncObject;
+import org.spl.vm.internal.objs.SPLMethodWrapper;
 import org.spl.vm.objects.*;
 import org.spl.vm.splroutine.SPLRoutineMarker;
+import org.spl.vm.splroutine.SPLRoutineObject;
 import org.spl.vm.types.SPLCommonType;
 
 import java.util.*;
@@ -21,9 +24,37 @@ import java.util.*;
 
 public class DefaultEval extends SPLFrameObject implements Evaluation {
 
-  private final String name;
-  private boolean needsResume = false;
-  private SPLContinuable continuation;
+  static {
+    Evaluation.init();
+  }
+
+  // the instructions a routine runs before it is preempted, 0 if it only gives up its worker when it yields
+  private static int timeSlice;
+  // the calls and backward jumps after which the code of a function is compiled, 0 if it is always interpreted
+  private static int jitThreshold;
+  // every instruction is counted by SPLOpcodeProfile
+  private static boolean profile;
+  // returned by the loop of a frame which leaves an error to its caller, the error is in pendingError
+  private static final SPLObject PENDING = new SPLObject(null);
+  // returned by a tree or register code which has handed its frame to the loop of run, which goes on at the current frame
+  private static final SPLObject UNWOUND = new SPLObject(null);
+  private String name;
+  // the frame whose CALL instruction made this call, null for the first frame of a run
+  private DefaultEval caller;
+  // the frame the last CALL instruction has pushed, taken by the loop of run
+  private DefaultEval callee;
+  // the error of a callee, which this frame handles as if its CALL instruction had failed, or the one it leaves to its caller
+  private SPLInternalException pendingError;
+  // the instructions of this frame which have been taken from the time slice
+  private long sliceMark;
+  // the backward jumps of this frame only check the time slice once insNumExecuted reaches it
+  private long sliceDeadline;
+  // the state of the worker running this frame, null if native code evaluates it directly
+  private ThreadState threadState;
+  // the last instruction of the profile, the opcodes of the sequence it ends and its length
+  private int profilePc = -2;
+  private int profileHistory;
+  private int profileLength;
 
   public DefaultEval(SPLCodeObject codeObj) throws SPLInternalException {
     super(codeObj);
@@ -31,13 +62,52 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
       throw new SPLInternalException("SPLCodeObject's args count must be zero");
     }
     name = "anonymous";
-    Evaluation.init();
   }
 
   public DefaultEval(String name, Map<SPLObject, SPLObject> locals, Map<SPLObject, SPLObject> globals, SPLCodeObject codeObj) {
     super(locals, globals, codeObj);
     this.name = name;
-    Evaluation.init();
+  }
+
+  /**
+   * reinitializes a recycled frame, see {@link SPLFramePool}
+   */
+  void reuse(String name, Map<SPLObject, SPLObject> globals, SPLCodeObject codeObj) {
+    reuse(globals, codeObj);
+    this.name = name;
+    sliceMark = 0;
+    profilePc = -2;
+  }
+
+  /**
+   * drops the state of the finished call before the frame goes back to the pool
+   */
+  void recycle() {
+    clear();
+    caller = null;
+    callee = null;
+  }
+
+  static void setTimeSlice(int instructions) {
+    timeSlice = instructions;
+  }
+
+  static void setJitThreshold(int threshold) {
+    jitThreshold = threshold;
+  }
+
+  static void setProfile(boolean enabled) {
+    profile = enabled;
+  }
+
+  /**
+   * the worker which runs or resumes this frame, a suspended frame may be
+   * resumed by another worker
+   */
+  public void setThreadState(ThreadState threadState) {
+    this.threadState = threadState;
+    // without preemption the backward jumps never reach the deadline
+    sliceDeadline = timeSlice == 0 ? Long.MAX_VALUE : insNumExecuted;
   }
 
   public String getName() {
@@ -46,112 +116,135 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
 
   @Override
   public SPLObject evalFrame() throws SPLInternalException {
+    SPLObject res = eval();
+    if (res == PENDING) {
+      throw takePendingError();
+    }
+    return res;
+  }
+
+  /**
+   * runs the instructions of this frame. An error with no handler in this frame
+   * is not thrown, it is left in pendingError and {@link #PENDING} is returned,
+   * so the loop of run hands it to the caller without unwinding the Java stack.
+   */
+  private SPLObject eval() {
     MainLoop:
     for (; ; ) {
       try {
+        if (pendingError != null) {
+          // the error of the callee, as if the CALL instruction had failed
+          if (!findHandler()) {
+            traceThis();
+            return PENDING;
+          }
+          pendingError = null;
+        }
+        if (pc == 0) {
+          SPLCompiledCode nested = nestedCode(codeObject);
+          if (nested != null) {
+            return nested.run(this);
+          }
+          if (jitThreshold != 0) {
+            SPLObject res = runCompiled();
+            if (res != SPLJit.DEOPT) {
+              return res;
+            }
+          }
+        }
         while (pc < code.length) {
           insNumExecuted++;
-          switch (opcode[code[pc++] & 0xff]) {
+          if (profile) {
+            profile(pc);
+          }
+          int word = code[pc++];
+          int oparg = word >>> 8;
+          switch (opcode[word & 0xff]) {
             case NOP -> { // NOP
-              pc++;
             }
             case IMPORT -> {
-              int arg = getOparg();
-              SPLStringObject mn = varnames[arg];
+              SPLStringObject mn = varnames[oparg];
               SPLModuleObject m = SPLInternalWorld.splWorld.loadModule(mn.getVal());
-              locals.put(mn, m);
+              storeName(oparg, m);
             }
             case ADD -> { // ADD
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.ADD_LONG_LONG, OpCode.ADD_FLOAT_FLOAT);
               evalStack[top++] = lhs.__add__(rhs);
             }
             case SUB -> { // SUB
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.SUB_LONG_LONG, OpCode.SUB_FLOAT_FLOAT);
               evalStack[top++] = lhs.__sub__(rhs);
             }
             case MUL -> { // MUL
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.MUL_LONG_LONG, OpCode.MUL_FLOAT_FLOAT);
               evalStack[top++] = lhs.__mul__(rhs);
             }
             case DIV -> { // DIV
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__div__(rhs);
             }
             case TRUE_DIV -> {
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__trueDiv__(rhs);
             }
             case NEG -> {
-              pc++;
               SPLObject o = evalStack[--top].__neg__();
               evalStack[top++] = o;
             }
             case MOD -> { // MOD
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__mod__(rhs);
             }
             case POWER -> { // POWER
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__pow__(rhs);
             }
             case XOR -> { // XOR
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__xor__(rhs);
             }
             case LSHIFT -> { // LSHIFT
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__lshift__(rhs);
             }
             case RSHIFT -> { // RSHIFT
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__rshift__(rhs);
             }
             case U_RSHIFT -> { // U_RSHIFT
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__URshift__(rhs);
             }
             case INPLACE_LSHIFT -> { // LSHIFT_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceLshift__(rhs);
             }
             case INPLACE_RSHIFT -> { // RSHIFT_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceRshift__(rhs);
             }
             case INPLACE_TRUE_DIV -> {
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceTrueDiv__(rhs);
             }
             case NEXT -> {
-              int arg = getOparg();
               SPLObject o = evalStack[this.top - 1];
               if (o instanceof SPLIterator iterator) {
                 SPLObject next = iterator.next();
@@ -159,14 +252,13 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
                   evalStack[top++] = next;
                 } else {
                   top--;
-                  pc += arg;
+                  pc = oparg;
                 }
                 continue;
               }
               throw new SPLInternalException("NEXT can only be used with iterators");
             }
             case GET_ITERATOR -> {
-              pc++;
               SPLObject o = evalStack[--top];
               SPLObject iterator = o.__getIterator__();
               if (iterator == null) {
@@ -176,69 +268,65 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case INPLACE_U_RSHIFT -> { // U_RSHIFT_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceURshift__(rhs);
             }
             case INPLACE_AND -> { // AND_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceAnd__(rhs);
             }
             case INPLACE_OR -> { // OR_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceOr__(rhs);
             }
             case INPLACE_XOR -> { // XOR_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceXor__(rhs);
             }
             case INPLACE_ADD -> { // ADD_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              // inplace operators of longs and floats are the plain ones
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.ADD_LONG_LONG, OpCode.ADD_FLOAT_FLOAT);
               evalStack[top++] = lhs.__inplaceAdd__(rhs);
             }
             case INPLACE_SUB -> { // SUB_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              // inplace operators of longs and floats are the plain ones
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.SUB_LONG_LONG, OpCode.SUB_FLOAT_FLOAT);
               evalStack[top++] = lhs.__inplaceSub__(rhs);
             }
             case INPLACE_MUL -> { // MUL_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              // inplace operators of longs and floats are the plain ones
+              quickenArithmetic(pc - 1, lhs, rhs, OpCode.MUL_LONG_LONG, OpCode.MUL_FLOAT_FLOAT);
               evalStack[top++] = lhs.__inplaceMul__(rhs);
             }
             case INPLACE_DIV -> { // DIV_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceDiv__(rhs);
             }
             case INPLACE_MOD -> { // MOD_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplaceMod__(rhs);
             }
             case INPLACE_POWER -> { // POWER_ASSIGN
-              getOparg();
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__inplacePow__(rhs);
             }
             case LT -> { // LT
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.LT_LONG_LONG, OpCode.LT_LONG_JUMP_FALSE);
               if (lhs.__lt__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -246,9 +334,9 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case GT -> { // GT
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.GT_LONG_LONG, OpCode.GT_LONG_JUMP_FALSE);
               if (lhs.__gt__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -256,9 +344,9 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case EQ -> { // EQ
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.EQ_LONG_LONG, null);
               if (lhs.__eq__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -266,9 +354,9 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case NE -> { // NE
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.NE_LONG_LONG, null);
               if (lhs.__ne__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -276,9 +364,9 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case LE -> { // LE
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.LE_LONG_LONG, OpCode.LE_LONG_JUMP_FALSE);
               if (lhs.__le__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -286,9 +374,9 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case GE -> { // GE
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
+              quickenCompare(pc - 1, lhs, rhs, OpCode.GE_LONG_LONG, OpCode.GE_LONG_JUMP_FALSE);
               if (lhs.__ge__(rhs) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -296,24 +384,20 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case AND -> { // AND
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__and__(rhs);
             }
             case OR -> { // OR
-              pc++;
               SPLObject rhs = evalStack[--top];
               SPLObject lhs = evalStack[--top];
               evalStack[top++] = lhs.__or__(rhs);
             }
             case INVERT -> { // INVERT
-              pc++;
               SPLObject o = evalStack[--top].__invert__();
               evalStack[top++] = o;
             }
             case CONDITIONAL_AND -> { // CONDITIONAL_AND
-              pc++;
               if (evalStack[--top].__conditionalAnd__(evalStack[--top]) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -321,7 +405,6 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case CONDITIONAL_OR -> { // CONDITIONAL_OR
-              pc++;
               if (evalStack[--top].__conditionalOr__(evalStack[--top]) == SPLBoolObject.getTrue()) {
                 evalStack[top++] = SPLBoolObject.getTrue();
               } else {
@@ -329,224 +412,178 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case NOT -> { // NOT
-              pc++;
               evalStack[top++] = evalStack[--top].__not__();
             }
             case STORE_LOCAL -> { // STORE_LOCAL
-              int oparg = getOparg();
               SPLObject o = evalStack[--top];
               SPLObject key = varnames[oparg];
               locals.put(key, o);
             }
             case LOAD_LOCAL -> { // LOAD_LOCAL
-              int oparg = getOparg();
               if (locals.containsKey(varnames[oparg])) {
                 evalStack[top++] = locals.get(varnames[oparg]);
                 continue;
               }
               SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[oparg].__str__() + "\""));
             }
+            case STORE_FAST -> { // STORE_FAST
+              fastLocals[oparg] = evalStack[--top];
+            }
+            case LOAD_FAST -> { // LOAD_FAST
+              SPLObject o = fastLocals[oparg];
+              if (o != null) {
+                evalStack[top++] = o;
+                continue;
+              }
+              SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[oparg].__str__() + "\""));
+            }
+            case LOAD_BUILTIN -> {
+              evalStack[top++] = loadBuiltin(oparg);
+            }
             case STORE_GLOBAL -> { // STORE_GLOBAL
-              int oparg = getOparg();
               SPLObject o = evalStack[--top];
               globals.put(varnames[oparg], o);
             }
             case LOAD_GLOBAL -> { // LOAD_GLOBAL
-              int oparg = getOparg();
-              if (globals.containsKey(varnames[oparg])) {
-                evalStack[top++] = globals.get(varnames[oparg]);
-                continue;
-              } else if (Builtin.getDict().containsKey(varnames[oparg])) {
-                evalStack[top++] = Builtin.getDict().get(varnames[oparg]);
-                continue;
-              }
-              SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[oparg].__str__() + "\""));
+              evalStack[top++] = loadGlobal(pc - 1, oparg);
             }
             case LOAD_NAME, LOAD -> { // LOAD_NAME
-              int oparg = getOparg();
-              if (locals.containsKey(varnames[oparg])) {
-                evalStack[top++] = locals.get(varnames[oparg]);
-                continue;
-              } else if (globals.containsKey(varnames[oparg])) {
-                evalStack[top++] = globals.get(varnames[oparg]);
-                continue;
-              } else {
-                SPLObject o = Builtin.get(varnames[oparg]);
-                if (o != null) {
-                  evalStack[top++] = o;
-                  continue;
-                }
-              }
-              SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[oparg].__str__() + "\""));
+              evalStack[top++] = loadName(pc - 1, oparg);
             }
             case LOAD_METHOD -> { // LOAD_METHOD
-              int arg = getOparg();
-              SPLObject o = evalStack[--top];
-              SPLObject callable = o.__getMethod__(varnames[arg]);
-              evalStack[top++] = callable;
+              evalStack[top - 1] = loadMethod(pc - 1, evalStack[top - 1], oparg);
             }
             case CALL_METHOD -> { // CALL_METHOD
               // We do not use this instruction now
             }
             case MAKE_FUNCTION -> {
-              int arg = getOparg();
               var defaults = new ArrayList<SPLObject>();
               SPLObject func = evalStack[--top];
               assert func instanceof SPLFuncObject;
-              for (int i = 0; i < arg; i++) {
+              for (int i = 0; i < oparg; i++) {
                 defaults.add(evalStack[--top]);
               }
-              func.setGlobals(globals);
               SPLFuncObject f = ((SPLFuncObject) func);
-              SPLObject[] closure = f.getCodeObject().getClosures();
-              if (closure != null) {
-                for (int i = 0; i < closure.length; i++) {
-                  closure[i] = evalStack[--top];
-                }
+              SPLObject[] closure = new SPLObject[f.getCodeObject().getNumberOfClosures()];
+              for (int i = 0; i < closure.length; i++) {
+                closure[i] = evalStack[--top];
               }
-              f.setDefaults(defaults);
-              evalStack[top++] = func;
+              evalStack[top++] = new SPLFuncObject(f, globals, defaults, closure);
             }
             case STORE -> { // STORE
             }
             case STORE_ATTR -> {
-              int arg = getOparg();
               SPLObject o = evalStack[--top];
-              evalStack[--top].__setAttr__(varnames[arg], o);
+              storeAttr(pc - 1, evalStack[--top], oparg, o);
             }
             case LOAD_ATTR -> { // LOAD_ATTR
-              int arg = getOparg();
-              evalStack[top - 1] = evalStack[top - 1].__getAttr__(varnames[arg]);
+              evalStack[top - 1] = loadAttr(pc - 1, evalStack[top - 1], oparg);
             }
             case YIELD -> {
-              pc++;
               return SPLRoutineMarker.READY;
             }
             case CALL -> { // CALL
-              int ttop = top;
-              int tpc = pc - 1;
-              int oparg = getOparg();
-              if (needsResume) {
-                ThreadState.increaseThreadCallStackSize();
-                SPLObject o = continuation.resume();
-                ThreadState.decreaseThreadCallStackSize();
-                if (o instanceof SPLRoutineMarker marker && marker.isNeedReCall()) {
-                  pc = tpc;
-                  return o;
-                } else {
-                  needsResume = false;
-                  continuation = null;
-                  evalStack[top++] = o;
-                }
-                continue;
-              }
-
-              SPLObject callable = evalStack[--top];
-              SPLObject[] args = new SPLObject[oparg];
-              for (int i = 0; i < oparg; i++) {
-                args[i] = evalStack[--top];
-              }
-              ThreadState.increaseThreadCallStackSize();
-              SPLObject o = callable.__call__(args);
-              ThreadState.decreaseThreadCallStackSize();
-              if (o instanceof SPLRoutineMarker marker) {
-                if (marker.isNeedReCall()) {
-                  pc = tpc;
-                  if (callable instanceof SPLContinuable continuable) {
-                    needsResume = true;
-                    continuation = continuable;
-                  } else {
-                    top = ttop;
-                  }
-                } else {
-                  top++;
-                }
-                marker.setNeedReCall(true);
-                return marker;
-              } else {
-                evalStack[top++] = o;
+              SPLObject res = call(oparg);
+              if (res != null || callee != null) {
+                return res;
               }
             }
             case LOAD_CONST -> { // LOAD_CONST
-              int oparg = getOparg();
               evalStack[top++] = constants[oparg];
             }
             case LOAD_CLOSURE -> {
-              int arg = getOparg();
-              evalStack[top++] = codeObject.getClosures()[arg];
+              evalStack[top++] = closures[oparg];
             }
             case STORE_CLOSURE -> {
-              int arg = getOparg();
-              codeObject.getClosures()[arg] = evalStack[top - 1];
+              closures[oparg] = evalStack[top - 1];
             }
             case POP -> { // POP
-              pc++;
               top--;
             }
             case JUMP_FALSE -> { // JUMP_FALSE
-              int oparg = getOparg();
               if (evalStack[--top] == SPLBoolObject.getFalse()) {
-                pc += oparg;
+                pc = oparg;
               }
             }
             case JMP_TRUE_NO_POP -> { // JUMP_TRUE
-              int oparg = getOparg();
               if (evalStack[top] == SPLBoolObject.getTrue()) {
-                pc += oparg;
+                pc = oparg;
               }
             }
             case JUMP_BACK -> { // JUMP_BACK
-              int oparg = getOparg();
-              pc -= oparg;
+              pc = oparg;
+              if (insNumExecuted >= sliceDeadline && sliceExpired()) {
+                return SPLRoutineMarker.READY;
+              }
+              if (jitThreshold != 0) {
+                SPLObject res = runCompiled();
+                if (res != SPLJit.DEOPT) {
+                  return res;
+                }
+              }
             }
             case JUMP_BACK_TRUE -> { // JUMP_BACK_TRUE
-              int oparg = getOparg();
               if (evalStack[--top] == SPLBoolObject.getTrue()) {
-                pc -= oparg;
+                pc = oparg;
+                if (insNumExecuted >= sliceDeadline && sliceExpired()) {
+                  return SPLRoutineMarker.READY;
+                }
+                if (jitThreshold != 0) {
+                  SPLObject res = runCompiled();
+                  if (res != SPLJit.DEOPT) {
+                    return res;
+                  }
+                }
               }
             }
             case JUMP_UNCON_FORWARD -> { // unconditional jump
-              int oparg = getOparg();
-              pc += oparg;
-            }
-            case JUMP_ABSOLUTE -> {
-              int pos = 0;
-              pos |= code[pc++];
-              pos <<= 8;
-              pos |= code[pc++];
-              pos <<= 8;
-              pos |= code[pc];
-              pc = pos;
+              pc = oparg;
+            }
+            case JUMP_ABSOLUTE, LONG_JUMP -> {
+              // the backward jump of a for loop
+              boolean backward = oparg < pc;
+              pc = oparg;
+              if (backward) {
+                if (insNumExecuted >= sliceDeadline && sliceExpired()) {
+                  return SPLRoutineMarker.READY;
+                }
+                if (jitThreshold != 0) {
+                  SPLObject res = runCompiled();
+                  if (res != SPLJit.DEOPT) {
+                    return res;
+                  }
+                }
+              }
             }
             case RETURN -> {
-              pc++;
+              if (timeSlice != 0) {
+                sliceExpired();
+              }
               return evalStack[--top];
             }
             case RETURN_NONE -> {
-              pc++;
+              if (timeSlice != 0) {
+                sliceExpired();
+              }
               return SPLNoneObject.getInstance();
             }
             case DUP -> {
-              pc++;
               SPLObject t = evalStack[top - 1];
               evalStack[top++] = t;
             }
             case DUP2 -> {
-              pc++;
               for (int i = 0; i < 2; i++) {
                 SPLObject t = evalStack[top - 2];
                 evalStack[top++] = t;
               }
             }
             case SUBSCRIBE_STORE -> {
-              pc++;
               SPLObject val = evalStack[--top];
               SPLObject sub = evalStack[--top];
               SPLObject obj = evalStack[--top];
               obj.__setAttr__(sub, val);
             }
             case BUILD_CLASS -> {
-              pc++;
               SPLObject superClass = evalStack[--top];
               SPLObject definition = evalStack[--top];
               if (definition instanceof SPLClassDefinition cf && superClass instanceof SPLCommonType st) {
@@ -557,48 +594,231 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               SPLErrorUtils.splErrorFormat(new SPLClassBuildError("Illegal arguments for class creation"));
             }
             case BUILD_LIST -> {
-              int arg = getOparg();
-              top -= arg;
-              ArrayList<SPLObject> params = new ArrayList<>(Arrays.asList(evalStack).subList(top, arg + top));
+              top -= oparg;
+              ArrayList<SPLObject> params = new ArrayList<>(Arrays.asList(evalStack).subList(top, oparg + top));
               evalStack[top++] = new SPLListObject(params);
             }
             case BUILD_MAP -> {
-              int arg = getOparg();
               HashMap<SPLObject, SPLObject> params = new HashMap<>();
-              top -= arg;
-              for (int i = 0; i < arg; i += 2) {
+              top -= oparg;
+              for (int i = 0; i < oparg; i += 2) {
                 params.put(evalStack[top + i], evalStack[top + i + 1]);
               }
               evalStack[top++] = new SPLDictObject(params);
             }
             case BUILD_SET -> {
-              int arg = getOparg();
-              top -= arg;
-              HashSet<SPLObject> params = new HashSet<>(Arrays.asList(evalStack).subList(top, arg + top));
+              top -= oparg;
+              HashSet<SPLObject> params = new HashSet<>(Arrays.asList(evalStack).subList(top, oparg + top));
               evalStack[top++] = new SPLSetObject(params);
             }
             case SUBSCRIBE -> {
-              pc++;
               SPLObject param = evalStack[--top];
               SPLObject o = evalStack[--top];
+              if (o instanceof SPLListObject && param instanceof SPLLongObject) {
+                quicken(pc - 1, OpCode.SUBSCRIBE_LIST_INT);
+              }
               evalStack[top++] = o.__subscribe__(param);
             }
-            case LONG_JUMP -> {
-              int size = 0;
-              size |= code[pc++];
-              size <<= 8;
-              size |= code[pc++];
-              size <<= 8;
-              size |= code[pc++];
-              if ((size & 1) == 1) {
-                size = size >> 1;
+            case SUBSCRIBE_LIST_INT -> {
+              if (evalStack[top - 2] instanceof SPLListObject l && evalStack[top - 1] instanceof SPLLongObject idx) {
+                top--;
+                evalStack[top - 1] = l.get(idx.getVal());
               } else {
-                size = -(size >> 1);
+                deoptimize(pc - 1);
               }
-              pc += size;
             }
-            case EXEC_MATCH -> {
+            case ADD_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = SPLLongObject.create(l.getVal() + r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case SUB_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = SPLLongObject.create(l.getVal() - r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case MUL_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = SPLLongObject.create(l.getVal() * r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case ADD_FLOAT_FLOAT -> {
+              if (evalStack[top - 2] instanceof SPLFloatObject l && evalStack[top - 1] instanceof SPLFloatObject r) {
+                top--;
+                evalStack[top - 1] = new SPLFloatObject(l.getVal() + r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case SUB_FLOAT_FLOAT -> {
+              if (evalStack[top - 2] instanceof SPLFloatObject l && evalStack[top - 1] instanceof SPLFloatObject r) {
+                top--;
+                evalStack[top - 1] = new SPLFloatObject(l.getVal() - r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case MUL_FLOAT_FLOAT -> {
+              if (evalStack[top - 2] instanceof SPLFloatObject l && evalStack[top - 1] instanceof SPLFloatObject r) {
+                top--;
+                evalStack[top - 1] = new SPLFloatObject(l.getVal() * r.getVal());
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case LT_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() < r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case GT_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() > r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case LE_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() <= r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case GE_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() >= r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case EQ_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() == r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case NE_LONG_LONG -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top--;
+                evalStack[top - 1] = l.getVal() != r.getVal() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case LT_LONG_JUMP_FALSE -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top -= 2;
+                // the JUMP_FALSE following the compare holds the target
+                int target = code[pc++] >>> 8;
+                if (l.getVal() >= r.getVal()) {
+                  pc = target;
+                }
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case GT_LONG_JUMP_FALSE -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top -= 2;
+                // the JUMP_FALSE following the compare holds the target
+                int target = code[pc++] >>> 8;
+                if (l.getVal() <= r.getVal()) {
+                  pc = target;
+                }
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case LE_LONG_JUMP_FALSE -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top -= 2;
+                // the JUMP_FALSE following the compare holds the target
+                int target = code[pc++] >>> 8;
+                if (l.getVal() > r.getVal()) {
+                  pc = target;
+                }
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case GE_LONG_JUMP_FALSE -> {
+              if (evalStack[top - 2] instanceof SPLLongObject l && evalStack[top - 1] instanceof SPLLongObject r) {
+                top -= 2;
+                // the JUMP_FALSE following the compare holds the target
+                int target = code[pc++] >>> 8;
+                if (l.getVal() < r.getVal()) {
+                  pc = target;
+                }
+              } else {
+                deoptimize(pc - 1);
+              }
+            }
+            case INC_LOCAL -> {
+              // LOAD_FAST a, LOAD_CONST c, ADD or INPLACE_ADD, STORE_FAST b
+              if (fastLocals[oparg] instanceof SPLLongObject l && constants[code[pc] >>> 8] instanceof SPLLongObject r) {
+                fastLocals[code[pc + 2] >>> 8] = SPLLongObject.create(l.getVal() + r.getVal());
+                pc += 3;
+                continue;
+              }
+              // the rest of the sequence runs one instruction at a time
+              evalStack[top++] = loadFast(oparg);
+            }
+            case CMP_LOCALS_JUMP -> {
+              // LOAD_FAST a, LOAD_FAST b, a compare and JUMP_FALSE
+              if (fastLocals[oparg] instanceof SPLLongObject l && fastLocals[code[pc] >>> 8] instanceof SPLLongObject r) {
+                // the compare may have been quickened when a jump has landed on the second load
+                if (compareLongs(codeObject.getInstructions()[pc + 1], l.getVal(), r.getVal())) {
+                  pc += 3;
+                } else {
+                  pc = code[pc + 2] >>> 8;
+                }
+                continue;
+              }
+              evalStack[top++] = loadFast(oparg);
+            }
+            case CALL_POP -> {
+              // LOAD_NAME f, CALL n, POP
+              evalStack[top++] = loadName(pc - 1, oparg);
               pc++;
+              SPLObject res = call(code[pc - 1] >>> 8);
+              if (res != null || callee != null) {
+                // the POP drops the result of a function once it has returned
+                return res;
+              }
+              top--;
+              pc++;
+            }
+            case CALL_BUILTIN_POP -> {
+              // LOAD_BUILTIN f, CALL n, POP
+              evalStack[top++] = loadBuiltin(oparg);
+              pc++;
+              SPLObject res = call(code[pc - 1] >>> 8);
+              if (res != null || callee != null) {
+                // the POP drops the result of a function once it has returned
+                return res;
+              }
+              top--;
+              pc++;
+            }
+            case EXEC_MATCH -> {
               SPLObject o = evalStack[--top];
               ThreadState ts = ThreadState.get();
               if (SPLCommonType.isExecMatch(ts.getExecVal(), (SPLCommonType) o)) {
@@ -608,57 +828,682 @@ public class DefaultEval extends SPLFrameObject implements Evaluation {
               }
             }
             case STORE_EXC_VAL -> {
-              int arg = getOparg();
               ThreadState ts = ThreadState.get();
               var val = ts.getExecVal();
               assert val != null;
-              locals.put(varnames[arg], val);
+              storeName(oparg, val);
+              // the error is handled, it must not show up in a later traceback
+              ThreadState.clearCurrentCoroutineState();
             }
             default -> {
-              throw new SPLInternalException("unknown opcode " + code[--pc]);
+              throw new SPLInternalException("unknown opcode " + (word & 0xff));
             }
           }
         }
         break;
       } catch (SPLInternalException e) {
-        ThreadState ts = ThreadState.get();
-        if (ts.getExecVal() != null) {
-          for (ASTContext.JumpTableEntry entry : this.codeObject.getJumpTable()) {
-            if (entry.isInRange(pc)) {
-              pc = entry.targetPc();
-              continue MainLoop;
-            }
-          }
+        if (findHandler()) {
+          continue MainLoop;
         }
         traceThis();
-        throw e;
+        pendingError = e;
+        return PENDING;
       }
     }
     return SPLNoneObject.getInstance();
   }
 
+  /**
+   * moves pc to the handler of the error which the instruction before pc has
+   * raised, false if no try block of this frame covers it
+   */
+  private boolean findHandler() {
+    // frames without try blocks skip the lookup
+    if (!codeObject.hasHandlers() || ThreadState.get().getExecVal() == null) {
+      return false;
+    }
+    ASTContext.JumpTableEntry entry = codeObject.getHandlers().find(pc - 1);
+    if (entry == null) {
+      return false;
+    }
+    pc = entry.targetPc();
+    // drop the operands the failed instruction and its expression left behind
+    top = entry.stackDepth();
+    return true;
+  }
+
+  private SPLInternalException takePendingError() {
+    SPLInternalException e = pendingError;
+    pendingError = null;
+    return e;
+  }
+
+  /**
+   * resumes the routine this frame is the first frame of, at the innermost
+   * frame of its call stack when it has been suspended
+   */
   @Override
   public SPLObject resume() throws SPLInternalException {
-    return evalFrame();
+    ThreadState ts = ThreadState.get();
+    DefaultEval frame = ts.getCurrentFrame() instanceof DefaultEval top ? top : this;
+    return run(ts, frame);
+  }
+
+  /**
+   * runs this frame to its end for native code, like a function called by a
+   * builtin, the frames of its calls are run on top of the call stack of the
+   * routine and the frame of the caller becomes the current frame again. The
+   * loop is nested on the Java stack, which may overflow before
+   * {@link ThreadState#MAX_NATIVE_CALLS} of them are nested, the frames it has
+   * run are dropped and a stack overflow is raised to the native code.
+   */
+  public SPLObject execute() throws SPLInternalException {
+    ThreadState ts = ThreadState.get();
+    SPLFrameObject currentFrame = ts.getCurrentFrame();
+    SPLRoutineObject routine = ts.getCurrentRoutine();
+    int callStackSize = routine.getCallStackSize();
+    try {
+      return run(ts, this);
+    } catch (StackOverflowError e) {
+      routine.setCallStackSize(callStackSize);
+      return SPLErrorUtils.splErrorFormat(new SPLStackOverflowError("Call Stack Overflow"));
+    } finally {
+      ts.setCurrentFrame(currentFrame);
+    }
+  }
+
+  /**
+   * runs frame and the frames of the calls it makes until this frame returns,
+   * calls do not recurse on the Java stack, a CALL instruction links the frame
+   * of the callee to its caller and returns to this loop. A routine which is
+   * suspended returns its marker right away and its innermost frame stays the
+   * current frame, it continues from there on the next resume.
+   */
+  private SPLObject run(ThreadState ts, DefaultEval frame) throws SPLInternalException {
+    for (; ; ) {
+      ts.setCurrentFrame(frame);
+      frame.setThreadState(ts);
+      SPLObject res = frame.eval();
+      if (res == UNWOUND) {
+        // the frames a tree has nested on the Java stack are linked to it, the innermost one goes on
+        frame = (DefaultEval) ts.getCurrentFrame();
+        continue;
+      }
+      if (res == PENDING) {
+        if (frame == this) {
+          // native code made this call, it sees the error as an exception
+          throw takePendingError();
+        }
+        // the frame may be part of the traceback, it does not go back to the pool
+        DefaultEval caller = frame.caller;
+        frame.caller = null;
+        ts.getCurrentRoutine().decreaseCallStackSize();
+        caller.pendingError = frame.takePendingError();
+        frame = caller;
+        continue;
+      }
+      if (frame.callee != null) {
+        DefaultEval callee = frame.callee;
+        frame.callee = null;
+        frame = callee;
+        continue;
+      }
+      if (res instanceof SPLRoutineMarker || frame == this) {
+        return res;
+      }
+      DefaultEval caller = frame.caller;
+      ts.getFramePool().release(frame);
+      ts.getCurrentRoutine().decreaseCallStackSize();
+      caller.evalStack[caller.top++] = res;
+      frame = caller;
+      // a call return is a safe point of the time slice
+      if (timeSlice != 0 && frame.sliceExpired()) {
+        ts.setCurrentFrame(frame);
+        return SPLRoutineMarker.READY;
+      }
+    }
   }
 
-  private int getOparg() {
-    if (code[pc] == -1) {
-      pc++;
-      int arg = code[pc++];
-      arg <<= 8;
-      arg |= (code[pc++] & 0xff);
-      return arg;
+  /**
+   * runs the compiled code of this frame from pc, which is 0 or the target of a
+   * backward jump, the code is compiled once the interpreter has counted enough
+   * calls and backward jumps. Returns {@link SPLJit#DEOPT} if the interpreter
+   * has to go on.
+   */
+  private SPLObject runCompiled() throws SPLInternalException {
+    SPLCompiledCode compiled = codeObject.getCompiledCode();
+    if (compiled == null && (compiled = SPLJit.compileIfHot(codeObject, jitThreshold)) == null) {
+      return SPLJit.DEOPT;
+    }
+    return compiled.run(this);
+  }
+
+  /**
+   * makes a call for compiled code, the callable and the arguments have been
+   * written to the eval stack from base. A function is run nested on the Java
+   * stack so the caller goes on in compiled code when it returns, unless too
+   * many calls are nested already. Returns null if the call has been given to
+   * the loop of run or a marker if the routine is suspended, this frame then
+   * goes on in the interpreter after the call.
+   */
+  SPLObject jitCall(int pos, int base, int n) throws SPLInternalException {
+    SPLObject callable = evalStack[base + n];
+    DefaultEval frame;
+    if (callable instanceof SPLFuncObject f) {
+      frame = f.newFrame(null, evalStack, base, n);
+    } else if (callable instanceof SPLMethodWrapper m) {
+      frame = m.newFrame(evalStack, base, n);
+    } else {
+      SPLObject[] args = new SPLObject[n];
+      for (int i = 0; i < n; i++) {
+        args[i] = evalStack[base + n - 1 - i];
+      }
+      SPLObject o;
+      ThreadState.increaseThreadCallStackSize();
+      try {
+        o = callable.__call__(args);
+      } finally {
+        ThreadState.decreaseThreadCallStackSize();
+      }
+      if (o instanceof SPLRoutineMarker marker) {
+        // the same state the CALL instruction leaves behind
+        if (marker.isNeedReCall()) {
+          pc = pos;
+          top = base + n + 1;
+        } else {
+          pc = pos + 1;
+          top = base + 1;
+        }
+        return marker.reCall();
+      }
+      return o;
+    }
+    ThreadState ts = threadState;
+    pc = pos + 1;
+    top = base;
+    if (!ts.enterCompiledCall(SPLJit.MAX_NESTED_CALLS)) {
+      return pushCall(frame);
+    }
+    ThreadState.increaseThreadCallStackSize();
+    frame.caller = this;
+    SPLObject res;
+    try {
+      res = frame.run(ts, frame);
+    } catch (SPLInternalException e) {
+      frame.caller = null;
+      ts.getCurrentRoutine().decreaseCallStackSize();
+      ts.setCurrentFrame(this);
+      throw e;
+    } finally {
+      ts.exitCompiledCall();
+    }
+    // the suspended callee returns to this frame through the loop of run
+    if (res instanceof SPLRoutineMarker) {
+      return res;
+    }
+    ts.getFramePool().release(frame);
+    ts.getCurrentRoutine().decreaseCallStackSize();
+    ts.setCurrentFrame(this);
+    // the return of a nested call is a safe point of the time slice like in the loop of run
+    if (timeSlice != 0 && sliceExpired()) {
+      evalStack[top++] = res;
+      return SPLRoutineMarker.READY;
+    }
+    return res;
+  }
+
+  /**
+   * compiled code stops at a yield, it has written its state back to the frame
+   */
+  SPLObject jitSuspend(int pos, int top) {
+    pc = pos + 1;
+    this.top = top;
+    return SPLRoutineMarker.READY;
+  }
+
+  /**
+   * compiled code jumps back, it takes the executed instructions of its loop
+   * from the time slice and tells whether the routine is preempted
+   */
+  boolean jitSafePoint(int executed) {
+    insNumExecuted += executed;
+    return insNumExecuted >= sliceDeadline && sliceExpired();
+  }
+
+  /**
+   * the time slice of compiled code which has been preempted at the backward
+   * jump to pos, it has written its state back to the frame
+   */
+  SPLObject jitPreempt(int pos, int top) {
+    pc = pos;
+    this.top = top;
+    return SPLRoutineMarker.READY;
+  }
+
+  /**
+   * compiled code returns, executed is the pc after its return which it takes
+   * as the instructions it executed outside of its loops
+   */
+  void jitReturn(int executed) {
+    insNumExecuted += executed;
+    if (timeSlice != 0) {
+      sliceExpired();
+    }
+  }
+
+  /**
+   * a guard of compiled code has failed, it has written its state back to the
+   * frame and the interpreter executes the instruction at pos
+   */
+  SPLObject jitDeopt(int pos, int top) {
+    pc = pos;
+    this.top = top;
+    SPLJit.deoptimized(codeObject);
+    return SPLJit.DEOPT;
+  }
+
+  /**
+   * the instruction at pos of compiled code has failed, the traceback takes pc
+   */
+  void jitFailed(int pos) {
+    pc = pos + 1;
+  }
+
+  /**
+   * makes a call for a tree of {@link SPLTreeCompiler} or for register code,
+   * the arguments are in stack from the last to the first like on the eval
+   * stack and pos is the CALL instruction of the call in the byte code. The
+   * call is run nested on the Java stack like a call of native code, the tree
+   * of the callee is run right away. A call which suspends the routine, or
+   * which would nest too many calls, throws {@link Deopt} and this frame goes on
+   * in the interpreter, the frame of the callee is linked to it and returns to
+   * it through the loop of run.
+   */
+  SPLObject treeCall(int pos, SPLObject callable, SPLObject[] stack) throws SPLInternalException {
+    int n = stack.length;
+    DefaultEval frame;
+    if (callable instanceof SPLFuncObject f) {
+      frame = f.newFrame(null, stack, 0, n);
+    } else if (callable instanceof SPLMethodWrapper m) {
+      frame = m.newFrame(stack, 0, n);
     } else {
-      return code[pc++];
+      SPLObject[] args = new SPLObject[n];
+      for (int i = 0; i < n; i++) {
+        args[i] = stack[n - 1 - i];
+      }
+      SPLObject o;
+      ThreadState.increaseThreadCallStackSize();
+      try {
+        o = callable.__call__(args);
+      } finally {
+        ThreadState.decreaseThreadCallStackSize();
+      }
+      if (o instanceof SPLRoutineMarker marker) {
+        // the same state the CALL instruction leaves behind
+        if (marker.isNeedReCall()) {
+          Deopt deopt = new Deopt(marker.reCall(), pos).below(callable);
+          for (int i = n - 1; i >= 0; i--) {
+            deopt.below(stack[i]);
+          }
+          throw deopt;
+        }
+        throw new Deopt(marker.reCall(), pos + 1).below(n > 0 ? stack[0] : callable);
+      }
+      return o;
+    }
+    ThreadState ts = ThreadState.get();
+    if (!ts.enterCompiledCall(SPLJit.MAX_NESTED_CALLS)) {
+      // the loop of run makes the call once this frame has been handed to it
+      ThreadState.increaseThreadCallStackSize();
+      frame.caller = this;
+      ts.setCurrentFrame(frame);
+      throw new Deopt(null, pos + 1);
+    }
+    SPLObject res;
+    try {
+      res = callTree(ts, frame);
+    } finally {
+      ts.exitCompiledCall();
+    }
+    if (res instanceof SPLRoutineMarker || res == UNWOUND) {
+      frame.caller = this;
+      throw new Deopt(res == UNWOUND ? null : res, pos + 1);
     }
+    ts.getFramePool().release(frame);
+    return res;
   }
 
+  /**
+   * runs frame, a frame which has been handed to the interpreter stays on the
+   * call stack of the routine and the current frame is the innermost one
+   */
+  private SPLObject callTree(ThreadState ts, DefaultEval frame) throws SPLInternalException {
+    ThreadState.increaseThreadCallStackSize();
+    SPLObject res = null;
+    try {
+      SPLCompiledCode tree = nestedCode(frame.codeObject);
+      if (tree == null) {
+        res = frame.run(ts, frame);
+      } else {
+        ts.setCurrentFrame(frame);
+        try {
+          res = tree.run(frame);
+        } catch (SPLInternalException e) {
+          frame.traceThis();
+          throw e;
+        }
+      }
+      return res;
+    } catch (StackOverflowError e) {
+      // the call stack of a routine is much deeper than the Java stack of a worker
+      return SPLErrorUtils.splErrorFormat(new SPLStackOverflowError("Call Stack Overflow"));
+    } finally {
+      if (!(res instanceof SPLRoutineMarker) && res != UNWOUND) {
+        ts.setCurrentFrame(this);
+        ThreadState.decreaseThreadCallStackSize();
+      }
+    }
+  }
+
+  /**
+   * hands this frame of a tree or of register code to the interpreter, which
+   * goes on at the pc of deopt with the values deopt has collected on the eval
+   * stack. Returns the marker of the routine or {@link #UNWOUND} to the loop of
+   * run, see {@link SPLCompiledCode}.
+   */
+  SPLObject deopt(Deopt deopt) {
+    pc = deopt.pc;
+    top = 0;
+    for (int i = deopt.stack.size() - 1; i >= 0; i--) {
+      evalStack[top++] = deopt.stack.get(i);
+    }
+    return deopt.marker != null ? deopt.marker : UNWOUND;
+  }
+
+  /**
+   * the tree or the register code the frames of codeObject run nested on the
+   * Java stack, null if they are interpreted
+   */
+  private static SPLCompiledCode nestedCode(SPLCodeObject codeObject) {
+    if (timeSlice != 0) {
+      // like compiled code, trees and register code do not count their instructions
+      return null;
+    }
+    SPLCompiledCode code = codeObject.getTreeCode();
+    return code != null ? code : codeObject.getRegisterCode();
+  }
+
+  /**
+   * a statement of the tree of this frame has failed, the traceback points at
+   * the first instruction of its line and column. The innermost statement
+   * comes first, the ones around it keep its position.
+   */
+  void treeFailed(int lineNo, int columnNo) {
+    if (pc != 0) {
+      return;
+    }
+    SPLLineTable lineTable = codeObject.getLineTable();
+    int line = -1;
+    for (int i = 0; i < code.length; i++) {
+      if (lineTable.getLineNo(i) == lineNo) {
+        if (lineTable.getColumnNo(i) == columnNo) {
+          pc = i + 1;
+          return;
+        }
+        if (line == -1) {
+          line = i;
+        }
+      }
+    }
+    if (line != -1) {
+      pc = line + 1;
+    }
+  }
+
+  /**
+   * the CALL instruction of oparg arguments, pc has moved past it. The frame
+   * of a function called is pushed, see {@link #pushCall}, evalFrame returns
+   * then like it does with the marker of a native callable this returns. Null
+   * and no callee if the result of a native callable has been pushed.
+   */
+  private SPLObject call(int oparg) throws SPLInternalException {
+    int ttop = top;
+    int tpc = pc - 1;
+    SPLObject callable = evalStack[--top];
+    // a call of a function is run by the loop of run, the callee frame takes the arguments from the eval stack
+    if (callable instanceof SPLFuncObject f) {
+      top -= oparg;
+      return pushCall(f.newFrame(null, evalStack, top, oparg));
+    } else if (callable instanceof SPLMethodWrapper m) {
+      top -= oparg;
+      return pushCall(m.newFrame(evalStack, top, oparg));
+    }
+    SPLObject[] args = new SPLObject[oparg];
+    for (int i = 0; i < oparg; i++) {
+      args[i] = evalStack[--top];
+    }
+    SPLObject o;
+    ThreadState.increaseThreadCallStackSize();
+    // an error handled by this frame must not leave the depth of the callee behind
+    try {
+      o = callable.__call__(args);
+    } finally {
+      ThreadState.decreaseThreadCallStackSize();
+    }
+    if (o instanceof SPLRoutineMarker marker) {
+      if (marker.isNeedReCall()) {
+        pc = tpc;
+        top = ttop;
+      } else {
+        top++;
+      }
+      return marker.reCall();
+    }
+    evalStack[top++] = o;
+    if (timeSlice != 0 && sliceExpired()) {
+      return SPLRoutineMarker.READY;
+    }
+    return null;
+  }
+
+  private SPLObject loadFast(int idx) throws SPLInternalException {
+    SPLObject o = fastLocals[idx];
+    if (o != null) {
+      return o;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[idx].__str__() + "\""));
+  }
+
+  private SPLObject loadName(int site, int idx) throws SPLInternalException {
+    if (fastLocals != null && fastLocals[idx] != null) {
+      return fastLocals[idx];
+    } else if (fastLocals == null && locals != globals && locals.containsKey(varnames[idx])) {
+      return locals.get(varnames[idx]);
+    }
+    return loadGlobal(site, idx);
+  }
+
+  /**
+   * the compare of the original instruction word on two longs
+   */
+  private static boolean compareLongs(int word, long l, long r) {
+    return switch (opcode[word & 0xff]) {
+      case LT -> l < r;
+      case GT -> l > r;
+      case LE -> l <= r;
+      case GE -> l >= r;
+      case EQ -> l == r;
+      default -> l != r;
+    };
+  }
+
+  SPLObject loadGlobal(int site, int idx) throws SPLInternalException {
+    SPLObject o = codeObject.getGlobalCache(site).load(globals, varnames[idx]);
+    if (o != null) {
+      return o;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[idx].__str__() + "\""));
+  }
+
+  SPLObject loadBuiltin(int idx) throws SPLInternalException {
+    if (globals instanceof SPLNamespace ns && !ns.isShadowingBuiltins()) {
+      SPLObject o = Builtin.getBySlot(codeObject.getBuiltinSlot(idx));
+      if (o != null) {
+        return o;
+      }
+    }
+    // a builtin name has been bound in the globals at runtime
+    SPLObject o = globals.get(varnames[idx]);
+    if (o == null) {
+      o = Builtin.get(varnames[idx]);
+    }
+    if (o != null) {
+      return o;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + varnames[idx].__str__() + "\""));
+  }
+
+  void storeGlobal(int idx, SPLObject o) {
+    globals.put(varnames[idx], o);
+  }
+
+  SPLObject loadAttr(int site, SPLObject o, int idx) throws SPLInternalException {
+    return codeObject.getInlineCache(site).loadAttr(o, varnames[idx]);
+  }
+
+  void storeAttr(int site, SPLObject o, int idx, SPLObject value) throws SPLInternalException {
+    codeObject.getInlineCache(site).storeAttr(o, varnames[idx], value);
+  }
+
+  SPLObject loadMethod(int site, SPLObject o, int idx) throws SPLInternalException {
+    return codeObject.getInlineCache(site).loadMethod(o, varnames[idx]);
+  }
+
+  /**
+   * links the frame of a call to this frame and gives it to the loop of run,
+   * the result of the call is pushed when it returns
+   */
+  private SPLObject pushCall(DefaultEval frame) throws SPLInternalException {
+    ThreadState.increaseThreadCallStackSize();
+    frame.caller = this;
+    callee = frame;
+    return null;
+  }
+
+  /**
+   * takes the instructions this frame executed since its last safe point from
+   * the time slice of the routine, a frame only checks it at a backward jump or
+   * when a call returns, where it can be suspended and resumed like at a yield.
+   * A callee takes its instructions from the same slice, so the deadline of the
+   * backward jumps is set again whenever a call returns.
+   */
+  private boolean sliceExpired() {
+    ThreadState ts = threadState;
+    if (ts == null) {
+      sliceDeadline = Long.MAX_VALUE;
+      return false;
+    }
+    long executed = insNumExecuted - sliceMark;
+    sliceMark = insNumExecuted;
+    if (ts.consumeSlice(executed)) {
+      return true;
+    }
+    long budget = ts.getSliceBudget();
+    sliceDeadline = insNumExecuted + (budget > 0 ? budget : timeSlice);
+    return false;
+  }
+
+  /**
+   * counts the sequences the instruction at pos ends, see SPLOpcodeProfile
+   */
+  private void profile(int pos) {
+    int op = codeObject.getInstructions()[pos] & 0xff;
+    if (pos == profilePc + 1) {
+      profileHistory = profileHistory << 8 | op;
+      profileLength = Math.min(profileLength + 1, SPLOpcodeProfile.MAX_LENGTH);
+    } else {
+      profileHistory = op;
+      profileLength = 1;
+    }
+    profilePc = pos;
+    SPLOpcodeProfile.record(profileHistory, profileLength);
+    switch (opcode[code[pos] & 0xff]) {
+      // the quickened compare runs the JUMP_FALSE after it as well
+      case LT_LONG_JUMP_FALSE, GT_LONG_JUMP_FALSE, LE_LONG_JUMP_FALSE, GE_LONG_JUMP_FALSE -> profile(pos + 1);
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * rewrites the instruction at pos in the quickened code to the form
+   * specialized for the types of its operands, the specialized form checks the
+   * types again and falls back to the generic instruction when they change
+   */
+  private void quickenArithmetic(int pos, SPLObject lhs, SPLObject rhs, OpCode longOp, OpCode floatOp) {
+    if (lhs instanceof SPLLongObject && rhs instanceof SPLLongObject) {
+      quicken(pos, longOp);
+    } else if (lhs instanceof SPLFloatObject && rhs instanceof SPLFloatObject) {
+      quicken(pos, floatOp);
+    }
+  }
+
+  private void quickenCompare(int pos, SPLObject lhs, SPLObject rhs, OpCode longOp, OpCode fusedOp) {
+    if (lhs instanceof SPLLongObject && rhs instanceof SPLLongObject) {
+      if (fusedOp != null && pos + 1 < code.length && (code[pos + 1] & 0xff) == OpCode.JUMP_FALSE.val) {
+        quicken(pos, fusedOp);
+      } else {
+        quicken(pos, longOp);
+      }
+    }
+  }
+
+  private void quicken(int pos, OpCode op) {
+    code[pos] = code[pos] & ~0xff | op.val;
+  }
+
+  /**
+   * restores the generic instruction at pos and executes it again
+   */
+  private void deoptimize(int pos) {
+    code[pos] = codeObject.getInstructions()[pos];
+    pc = pos;
+  }
+
+  /**
+   * thrown by a call of a tree or of register code which can not return to it,
+   * because it has suspended the routine or has to be made by the loop of run.
+   * It collects the values the eval stack of the caller holds below the CALL
+   * instruction, from the top, while it unwinds the nodes which have evaluated
+   * them, see {@link #deopt}.
+   */
+  static final class Deopt extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // null if the routine goes on at the current frame
+    private final transient SPLObject marker;
+    private final int pc;
+    private final transient List<SPLObject> stack = new ArrayList<>();
+
+    Deopt(SPLObject marker, int pc) {
+      super(null, null, false, false);
+      this.marker = marker;
+      this.pc = pc;
+    }
+
+    /**
+     * a value under the ones collected so far
+     */
+    Deopt below(SPLObject o) {
+      stack.add(o);
+      return this;
+    }
+  }
 
   public void traceThis() {
     ThreadState ts = ThreadState.get();
     SPLTraceBackObject trace = ts.getTrace();
-    SPLTraceBackObject newTrace = new SPLTraceBackObject(this);
+    SPLTraceBackObject newTrace = new SPLTraceBackObject(codeObject, pc);
     if (trace == null) {
       ts.setTrace(newTrace);
     } else {
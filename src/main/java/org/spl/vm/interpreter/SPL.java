@@ -13,7 +13,7 @@ import org.spl.vm.splroutine.SPLRoutineObject;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
+import java.util.Map;
 
 public class SPL {
 
@@ -36,8 +36,8 @@ public class SPL {
     }
   }
 
-  public SPL(String filename, HashMap<SPLObject, SPLObject> locals,
-             HashMap<SPLObject, SPLObject> globals) throws SPLSyntaxError, IOException {
+  public SPL(String filename, Map<SPLObject, SPLObject> locals,
+             Map<SPLObject, SPLObject> globals) throws SPLSyntaxError, IOException {
     this.filename = filename;
     SPLCompiler compiler = new SPLCompiler(getResource(filename));
     SPLCodeObject code = compiler.compile();
@@ -45,8 +45,8 @@ public class SPL {
     this.frame = new DefaultEval(filename, locals, globals, code);
   }
 
-  public SPL(String filename, HashMap<SPLObject, SPLObject> locals,
-             HashMap<SPLObject, SPLObject> globals, SPLCodeObject code) throws SPLSyntaxError, IOException {
+  public SPL(String filename, Map<SPLObject, SPLObject> locals,
+             Map<SPLObject, SPLObject> globals, SPLCodeObject code) throws SPLSyntaxError, IOException {
     this.filename = filename;
     this.code = code;
     this.frame = new DefaultEval(filename, locals, globals, code);
@@ -78,8 +78,11 @@ public class SPL {
   }
 
   public SPLObject run() {
-    SPLConfiguration build = SPLConfigBuilder.build();
-    SPLInternalWorld world = new SPLInternalWorld(build);
+    return run(SPLConfigBuilder.build());
+  }
+
+  public SPLObject run(SPLConfiguration config) {
+    SPLInternalWorld world = new SPLInternalWorld(config);
     SPLInternalWorld.splWorld = world;
     world.boot(frame);
     return null;
@@ -0,0 +1,21 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.objects.SPLObject;
+
+/**
+ * The JVM code {@link SPLJit} made of a code object. It runs a frame from its
+ * pc, which is 0 or the target of a backward jump, and returns what evalFrame
+ * would return, or {@link SPLJit#DEOPT} once it has written its state back to
+ * the frame and the interpreter has to continue at the pc of the frame.
+ * <p>
+ * A tree of {@link SPLTreeCompiler} or the code of {@link SPLRegisterCompiler}
+ * runs a frame from pc 0. When a call suspends the routine it hands the frame
+ * to the interpreter with {@link DefaultEval#deopt} and returns the marker of
+ * the routine, or a sentinel which tells the loop of run to go on at the
+ * current frame.
+ */
+public interface SPLCompiledCode {
+
+  SPLObject run(DefaultEval frame) throws SPLInternalException;
+}
@@ -0,0 +1,44 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.Map;
+
+/**
+ * A free list of function frames owned by one thread. Frames are kept in
+ * buckets by the max stack size of the code object they ran, a frame is only
+ * given back when its call returned normally, frames of suspended routines and
+ * of failed calls may still be referenced by the routine or a traceback.
+ */
+public class SPLFramePool {
+
+  private static final int MAX_STACK_SIZE = 32;
+  private static final int MAX_FRAMES = 64;
+
+  private final DefaultEval[][] frames = new DefaultEval[MAX_STACK_SIZE + 1][];
+  private final int[] sizes = new int[MAX_STACK_SIZE + 1];
+
+  public DefaultEval acquire(String name, Map<SPLObject, SPLObject> globals, SPLCodeObject codeObject) {
+    int bucket = codeObject.getMaxStackSize();
+    if (bucket <= MAX_STACK_SIZE && sizes[bucket] > 0) {
+      DefaultEval frame = frames[bucket][--sizes[bucket]];
+      frames[bucket][sizes[bucket]] = null;
+      frame.reuse(name, globals, codeObject);
+      return frame;
+    }
+    return new DefaultEval(name, null, globals, codeObject);
+  }
+
+  public void release(DefaultEval frame) {
+    int bucket = frame.getCodeObject().getMaxStackSize();
+    if (bucket > MAX_STACK_SIZE || sizes[bucket] == MAX_FRAMES) {
+      return;
+    }
+    if (frames[bucket] == null) {
+      frames[bucket] = new DefaultEval[MAX_FRAMES];
+    }
+    frame.recycle();
+    frames[bucket][sizes[bucket]++] = frame;
+  }
+}
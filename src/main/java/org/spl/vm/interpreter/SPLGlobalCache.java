@@ -0,0 +1,51 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.builtin.Builtin;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.Map;
+
+/**
+ * The cache of one LOAD_GLOBAL or LOAD_NAME site. It remembers the value a name
+ * resolved to in the globals or the builtins together with the sum of both
+ * versions, which only grows, so a single compare tells whether the value is
+ * still valid.
+ */
+public class SPLGlobalCache {
+
+  private volatile Entry entry;
+  // hits are not counted, the sites are shared by all workers and a write on every hit would make them contend
+  private long misses;
+
+  /**
+   * returns the value of {@code name} in {@code globals} or the builtins, null if
+   * it is bound in neither of them
+   */
+  public SPLObject load(Map<SPLObject, SPLObject> globals, SPLObject name) {
+    if (!(globals instanceof SPLNamespace ns)) {
+      SPLObject res = globals.get(name);
+      return res != null ? res : Builtin.get(name);
+    }
+    long version = ns.getVersion() + Builtin.getVersion();
+    Entry e = entry;
+    if (e != null && e.version == version && e.namespace == ns) {
+      return e.value;
+    }
+    misses++;
+    SPLObject res = ns.get(name);
+    if (res == null) {
+      res = Builtin.get(name);
+    }
+    if (res != null) {
+      entry = new Entry(ns, version, res);
+    }
+    return res;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  private record Entry(SPLNamespace namespace, long version, SPLObject value) {
+  }
+}
@@ -0,0 +1,96 @@
+package org.spl.vm.interpreter;
+
+import org.spl.compiler.ir.context.ASTContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The exception handlers of a code object as sorted, non overlapping ranges of
+ * instruction indices. Nested ranges of the jump table are split so every
+ * instruction maps to the handler which comes first in the jump table, the
+ * innermost one, and the handler of a failing instruction is found with a
+ * binary search.
+ */
+public class SPLHandlerTable {
+
+  private static final SPLHandlerTable EMPTY = new SPLHandlerTable(new int[0], new int[0], new ASTContext.JumpTableEntry[0]);
+
+  // range i covers the instructions [starts[i], ends[i])
+  private final int[] starts;
+  private final int[] ends;
+  private final ASTContext.JumpTableEntry[] handlers;
+
+  private SPLHandlerTable(int[] starts, int[] ends, ASTContext.JumpTableEntry[] handlers) {
+    this.starts = starts;
+    this.ends = ends;
+    this.handlers = handlers;
+  }
+
+  /**
+   * builds the table of a jump table whose entries cover the instructions
+   * [startPc, endPc), an entry has precedence over the entries after it
+   */
+  public static SPLHandlerTable build(List<ASTContext.JumpTableEntry> jumpTable) {
+    if (jumpTable.isEmpty()) {
+      return EMPTY;
+    }
+    TreeSet<Integer> bounds = new TreeSet<>();
+    for (ASTContext.JumpTableEntry entry : jumpTable) {
+      bounds.add(entry.startPc());
+      bounds.add(entry.endPc());
+    }
+    List<Integer> starts = new ArrayList<>();
+    List<Integer> ends = new ArrayList<>();
+    List<ASTContext.JumpTableEntry> handlers = new ArrayList<>();
+    Integer lo = bounds.first();
+    for (Integer hi = bounds.higher(lo); hi != null; lo = hi, hi = bounds.higher(hi)) {
+      ASTContext.JumpTableEntry handler = null;
+      for (ASTContext.JumpTableEntry entry : jumpTable) {
+        if (entry.startPc() <= lo && hi <= entry.endPc()) {
+          handler = entry;
+          break;
+        }
+      }
+      if (handler == null) {
+        continue;
+      }
+      int last = handlers.size() - 1;
+      if (last >= 0 && handlers.get(last) == handler && ends.get(last) == (int) lo) {
+        ends.set(last, hi);
+      } else {
+        starts.add(lo);
+        ends.add(hi);
+        handlers.add(handler);
+      }
+    }
+    return new SPLHandlerTable(starts.stream().mapToInt(Integer::intValue).toArray(),
+        ends.stream().mapToInt(Integer::intValue).toArray(),
+        handlers.toArray(new ASTContext.JumpTableEntry[0]));
+  }
+
+  public boolean isEmpty() {
+    return handlers.length == 0;
+  }
+
+  /**
+   * the handler of the instruction at index ins, null if it is not protected
+   */
+  public ASTContext.JumpTableEntry find(int ins) {
+    int lo = 0;
+    int hi = starts.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (starts[mid] <= ins) {
+        if (ins < ends[mid]) {
+          return handlers[mid];
+        }
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return null;
+  }
+}
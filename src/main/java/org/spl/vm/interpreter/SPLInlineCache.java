@@ -0,0 +1,223 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLLevelObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A polymorphic inline cache attached to one LOAD_ATTR, LOAD_METHOD or
+ * STORE_ATTR site of a code object. Entries are keyed on the java class and
+ * the type of the receiver plus the version of that type, a hit skips the
+ * reflective lookup in the type chain and the exceptions used as a miss signal.
+ * Instance attributes are never cached, they are still read from the
+ * attrs map of the receiver first.
+ */
+public class SPLInlineCache {
+
+  private static final int MAX_ENTRIES = 4;
+
+  // the name lives in the attrs map of the receiver
+  private static final int INSTANCE = 0;
+  // a callable found in the type chain which has to be bound to the receiver
+  private static final int METHOD = 1;
+  // an attribute of the type chain
+  private static final int TYPE_ATTR = 2;
+  // the type chain has no method of this name
+  private static final int NO_METHOD = 3;
+  // the value can be put into the attrs map of the receiver directly
+  private static final int PLAIN_STORE = 4;
+
+  // the sites are shared by all workers, hits and misses are only counted while SPLMain --profile runs
+  private static boolean counting;
+  private static final LongAdder totalHits = new LongAdder();
+  private static final LongAdder totalMisses = new LongAdder();
+
+  // receivers whose attribute lookup is the one of SPLObject, overridden ones are never cached
+  private static final ClassValue<Boolean> plainLoad = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> clazz) {
+      try {
+        Class<?> attr = clazz.getMethod("__getAttr__", SPLObject.class).getDeclaringClass();
+        Class<?> method = clazz.getMethod("__getMethod__", SPLObject.class).getDeclaringClass();
+        return (attr == SPLObject.class || attr == SPLLevelObject.class) && method == SPLObject.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private static final ClassValue<Boolean> plainStore = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> clazz) {
+      try {
+        Class<?> attr = clazz.getMethod("__setAttr__", SPLObject.class, SPLObject.class).getDeclaringClass();
+        return attr == SPLObject.class || attr == SPLLevelObject.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private volatile Entry[] entries = new Entry[0];
+
+  static void setCounting(boolean enabled) {
+    counting = enabled;
+  }
+
+  public static long getTotalHits() {
+    return totalHits.sum();
+  }
+
+  public static long getTotalMisses() {
+    return totalMisses.sum();
+  }
+
+  public int getNumberOfEntries() {
+    return entries.length;
+  }
+
+  public SPLObject loadAttr(SPLObject o, SPLObject name) throws SPLInternalException {
+    Entry e = find(o);
+    if (e != null) {
+      SPLObject res = o.getAttrFromAttrs(name);
+      if (res != null) {
+        hit();
+        return res;
+      }
+      switch (e.kind) {
+        case METHOD -> {
+          hit();
+          return o.bindTypeMethod(e.target);
+        }
+        case TYPE_ATTR -> {
+          hit();
+          return e.target;
+        }
+        default -> {
+          // the name has left the attrs map of this receiver, look it up again
+        }
+      }
+    }
+    miss();
+    SPLCommonType type = o.getType();
+    long version = type.getVersion();
+    boolean cacheable = plainLoad.get(o.getClass()) && type.getAttrFromAttrs(SPLObject.__getAttr__) == null;
+    SPLObject res = o.__getAttr__(name);
+    if (cacheable) {
+      Map<SPLObject, SPLObject> attrs = o.getAttrs();
+      if (attrs != null && attrs.containsKey(name)) {
+        // exported fields are copied into the attrs map by the slow path too
+        add(new Entry(o.getClass(), type, version, INSTANCE, null));
+      } else {
+        SPLObject method = o.getTypeMethod(name);
+        if (method != null) {
+          add(new Entry(o.getClass(), type, version, METHOD, method));
+        } else {
+          add(new Entry(o.getClass(), type, version, TYPE_ATTR, res));
+        }
+      }
+    }
+    return res;
+  }
+
+  public SPLObject loadMethod(SPLObject o, SPLObject name) throws SPLInternalException {
+    Entry e = find(o);
+    if (e != null) {
+      hit();
+      if (e.kind == METHOD) {
+        return o.bindTypeMethod(e.target);
+      }
+      return o.getInstanceMethod(name);
+    }
+    miss();
+    SPLCommonType type = o.getType();
+    long version = type.getVersion();
+    if (!plainLoad.get(o.getClass())) {
+      return o.__getMethod__(name);
+    }
+    SPLObject method = o.getTypeMethod(name);
+    if (method != null) {
+      add(new Entry(o.getClass(), type, version, METHOD, method));
+      return o.bindTypeMethod(method);
+    }
+    add(new Entry(o.getClass(), type, version, NO_METHOD, null));
+    return o.getInstanceMethod(name);
+  }
+
+  public void storeAttr(SPLObject o, SPLObject name, SPLObject value) throws SPLInternalException {
+    Entry e = find(o);
+    Map<SPLObject, SPLObject> attrs = o.getAttrs();
+    if (e != null && attrs != null) {
+      hit();
+      attrs.put(name, value);
+      return;
+    }
+    miss();
+    SPLCommonType type = o.getType();
+    long version = type.getVersion();
+    // SPLLevelObject hands the store to an attribute of its type with the same name
+    if (plainStore.get(o.getClass()) && type.getAttrFromAttrs(name) == null) {
+      add(new Entry(o.getClass(), type, version, PLAIN_STORE, null));
+    }
+    o.__setAttr__(name, value);
+  }
+
+  private Entry find(SPLObject o) {
+    Entry[] es = entries;
+    if (es.length == 0) {
+      return null;
+    }
+    SPLCommonType type = o.getType();
+    Class<?> clazz = o.getClass();
+    long version = -1;
+    for (Entry e : es) {
+      if (e.type == type && e.clazz == clazz) {
+        if (version == -1) {
+          version = type.getVersion();
+        }
+        if (e.version == version) {
+          return e;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void add(Entry e) {
+    Entry[] es = entries;
+    int n = 0;
+    Entry[] res = new Entry[Math.min(es.length + 1, MAX_ENTRIES)];
+    res[n++] = e;
+    // drop stale entries of the same receiver and the oldest ones when the site is megamorphic
+    for (int i = 0; i < es.length && n < res.length; i++) {
+      if (es[i].type != e.type || es[i].clazz != e.clazz) {
+        res[n++] = es[i];
+      }
+    }
+    if (n < res.length) {
+      Entry[] tmp = new Entry[n];
+      System.arraycopy(res, 0, tmp, 0, n);
+      res = tmp;
+    }
+    entries = res;
+  }
+
+  private static void hit() {
+    if (counting) {
+      totalHits.increment();
+    }
+  }
+
+  private static void miss() {
+    if (counting) {
+      totalMisses.increment();
+    }
+  }
+
+  private record Entry(Class<?> clazz, SPLCommonType type, long version, int kind, SPLObject target) {
+  }
+}
@@ -5,39 +5,69 @@ import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.impsys.SPLLoader;
 import org.spl.vm.objects.SPLModuleObject;
 import org.spl.vm.splroutine.SPLRoutineObject;
+import org.spl.vm.splroutine.SPLRoutineWaiter;
 
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class SPLInternalWorld {
 
   public static SPLInternalWorld splWorld;
   public static String mainRoutineName = "main";
-  private final BlockingQueue<SPLRoutineObject> ready;
-  private final BlockingQueue<SPLRoutineObject> waiting;
-  private final ConcurrentHashMap<SPLRoutineObject, Long> timeWaiting;
+  // the name of the threads the workers run on, the thread which runs the main routine keeps its own
+  public static final String WORKER_NAME = "spl-worker";
+  /**
+   * routines which are not made ready by a worker of this world, like the main
+   * routine and the routines woken up by the timers
+   */
+  private final SPLRunQueue injection;
+  private final Queue<SPLRoutineObject> waiting;
+  private final ThreadLocal<RunQueue> runQueue;
+  // the timers are guarded by lock, idle workers wait on available
+  private final SPLTimerWheel timers;
   private final SPLConfiguration config;
   private final ReentrantLock lock;
+  private final Condition available;
   private final SPLLoader loader;
   private final Map<String, SPLModuleObject> modules;
   private final Set<SPLWorldWorker> workers;
+  private final AtomicInteger idleWorkers;
   public boolean hasError;
   private SPLRoutineObject mainRoutine;
-  private volatile boolean inChecking;
+  // the run queues of all workers, replaced under lock
+  private volatile RunQueue[] runQueues;
+  // the time the idle workers wait for, Long.MAX_VALUE if they wait for a routine
+  private long parkedUntil;
+  // the earliest time the timers may have to be advanced
+  private volatile long nextTimer;
+  private volatile boolean terminated;
 
 
   public SPLInternalWorld(SPLConfiguration config) {
     this.config = config;
-    ready = new LinkedBlockingQueue<>();
-    waiting = new LinkedBlockingQueue<>();
+    DefaultEval.setTimeSlice(config.getTimeSlice());
+    DefaultEval.setJitThreshold(config.getJitThreshold());
+    injection = new SPLRunQueue();
+    waiting = new ConcurrentLinkedQueue<>();
+    runQueue = new ThreadLocal<>();
+    runQueues = new RunQueue[0];
+    idleWorkers = new AtomicInteger();
+    nextTimer = Long.MAX_VALUE;
     lock = new ReentrantLock();
-    timeWaiting = new ConcurrentHashMap<>();
-    inChecking = false;
+    available = lock.newCondition();
+    timers = new SPLTimerWheel();
     loader = new SPLLoader();
     modules = new ConcurrentHashMap<>();
     workers = new CopyOnWriteArraySet<>();
@@ -61,81 +91,252 @@ public class SPLInternalWorld {
 
   private void createMainRoutine(DefaultEval eval) {
     mainRoutine = new SPLRoutineObject(eval, mainRoutineName);
-    ready.add(mainRoutine);
+    addCoroutine(mainRoutine, SPLRoutineObject.SPLRoutineState.READY);
   }
 
 
-  private void swapRoutine(SPLRoutineObject routine) {
+  private void swapRoutine(SPLRoutineObject routine, RunQueue queue) {
     routine.setState(SPLRoutineObject.SPLRoutineState.RUNNING);
-    ThreadState.get().setCoroutine(routine);
+    ThreadState ts = ThreadState.get();
+    ts.setCoroutine(routine);
+    ts.startSlice(config.getTimeSlice());
     if (routine.getState() == SPLRoutineObject.SPLRoutineState.INIT) {
       routine.setState(SPLRoutineObject.SPLRoutineState.READY);
     }
+    long start = System.nanoTime();
     SPLRoutineObject.SPLRoutineState state = routine.resume();
+    routine.charge(System.nanoTime() - start);
     switch (state) {
       case TERMINATED, ERROR_OCCURRED -> {
         routine.destroy();
+        terminateIfDone();
       }
-      case WAITING -> {
-        waiting.add(routine);
+      case WAITING -> addCoroutine(routine, SPLRoutineObject.SPLRoutineState.WAITING);
+      // the routine which completes the operation makes it ready, unless it already has
+      case BLOCKED, LOCK_WAITING -> {
+        SPLRoutineWaiter waiter = routine.getWaiter();
+        if (waiter == null || !waiter.park()) {
+          routine.setState(SPLRoutineObject.SPLRoutineState.READY);
+          SPLRunQueue.credit(routine, queue.minRuntime);
+          queue.routines.addFirst(routine);
+        }
       }
+      /*
+       * a yielding routine goes behind the other routines of this worker, unless
+       * it is still behind the next one in virtual run time
+       */
       case READY -> {
-        ready.add(routine);
+        SPLRoutineObject next = queue.routines.peekFirst();
+        if (next == null || routine.getVirtualRuntime() < next.getVirtualRuntime()) {
+          queue.routines.addFirst(routine);
+        } else {
+          queue.routines.addLast(routine);
+        }
+        if (next != null) {
+          wakeUpWorker();
+        }
       }
+      // another worker may only resume the routine after it has left this one
+      case TIME_WAITING -> addTimeWaitingRoutine(routine, routine.getWakeUpTime());
     }
   }
 
-  private void checkTimeWaitingRoutines() {
-    if (inChecking) return;
-    inChecking = true;
-    Set<Map.Entry<SPLRoutineObject, Long>> entries = timeWaiting.entrySet();
-    for (Map.Entry<SPLRoutineObject, Long> entry : entries) {
-      if (entry.getValue() <= System.currentTimeMillis()) {
-        if (entries.remove(entry)) {
-          SPLRoutineObject routine = entry.getKey();
-          routine.setState(SPLRoutineObject.SPLRoutineState.READY);
-          ready.add(routine);
+  /**
+   * there are more ready routines than this worker can run, wakes up an idle
+   * worker or starts a new one if none is idle
+   */
+  private void wakeUpWorker() {
+    if (idleWorkers.get() > 0) {
+      lock.lock();
+      try {
+        available.signal();
+      } finally {
+        lock.unlock();
+      }
+    } else if (workers.size() < config.getMaxCoreThreads() && lock.tryLock()) {
+      try {
+        if (workers.size() < config.getMaxCoreThreads()) {
+          SPLWorldWorker worker = new SPLWorldWorker();
+          workers.add(worker);
+          worker.start();
         }
+      } finally {
+        lock.unlock();
       }
     }
-    inChecking = false;
   }
 
+  private void controlCenter() {
+    RunQueue queue = new RunQueue();
+    runQueue.set(queue);
+    updateRunQueues(queue, true);
+    try {
+      SPLRoutineObject routine;
+      while ((routine = nextRoutine(queue)) != null) {
+        swapRoutine(routine, queue);
+      }
+    } finally {
+      updateRunQueues(queue, false);
+      runQueue.remove();
+    }
+  }
 
-  private void adaptiveAddThread() {
-    boolean s = lock.tryLock();
-    if (!s) return;
+  private void updateRunQueues(RunQueue queue, boolean add) {
+    lock.lock();
     try {
-      if (ready.size() > 1 && workers.size() < config.getMaxCoreThreads()) {
-        SPLWorldWorker worker = new SPLWorldWorker();
-        worker.start();
-        workers.add(worker);
+      List<RunQueue> queues = new ArrayList<>(List.of(runQueues));
+      if (add) {
+        queues.add(queue);
+      } else {
+        queues.remove(queue);
       }
+      runQueues = queues.toArray(new RunQueue[0]);
     } finally {
       lock.unlock();
     }
   }
 
-  private void controlCenter() {
-    while (SPLRoutineObject.nonDaemonRoutineCount.get() != 0) {
-      checkTimeWaitingRoutines();
-      SPLRoutineObject routine = ready.poll();
-      adaptiveAddThread();
-      if (routine == null) {
-        moveWaitingRoutineToReady();
-        continue;
+  /**
+   * takes the next routine to run, the one with the smaller virtual run time of
+   * the head of the own queue of the worker and the injection queue, or the
+   * oldest routine of another worker. An idle worker parks until a routine
+   * becomes ready or the timers reach a tick with timers in its slot. Returns
+   * null once all non daemon routines and timers have finished.
+   */
+  private SPLRoutineObject nextRoutine(RunQueue queue) {
+    while (!terminated) {
+      if (System.nanoTime() - nextTimer >= 0 && lock.tryLock()) {
+        try {
+          advanceTimers(System.nanoTime());
+        } finally {
+          lock.unlock();
+        }
+      }
+      SPLRoutineObject routine = queue.routines.peekFirst();
+      long runtime = routine == null ? Long.MAX_VALUE : routine.getVirtualRuntime();
+      if (injection.peekRuntime() < runtime && (routine = injection.poll()) != null) {
+        return routine;
+      }
+      if ((routine = queue.routines.pollFirst()) != null
+          || (routine = injection.poll()) != null
+          || (routine = steal(queue)) != null) {
+        if (routine.getVirtualRuntime() > queue.minRuntime) {
+          queue.minRuntime = routine.getVirtualRuntime();
+        }
+        return routine;
+      }
+      if (!park()) {
+        return null;
       }
-      swapRoutine(routine);
     }
+    return null;
   }
 
+  /**
+   * takes the oldest routine of another worker, of the oldest routines of the
+   * workers the one with the smallest virtual run time, starting at a random
+   * worker to break ties
+   */
+  private SPLRoutineObject steal(RunQueue self) {
+    RunQueue[] queues = runQueues;
+    int n = queues.length;
+    if (n < 2) {
+      return null;
+    }
+    int start = ThreadLocalRandom.current().nextInt(n);
+    RunQueue victim = null;
+    long runtime = Long.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      RunQueue queue = queues[(start + i) % n];
+      SPLRoutineObject oldest;
+      if (queue != self && (oldest = queue.routines.peekLast()) != null
+          && (victim == null || oldest.getVirtualRuntime() < runtime)) {
+        victim = queue;
+        runtime = oldest.getVirtualRuntime();
+      }
+    }
+    // another worker may have taken it meanwhile
+    return victim == null ? null : victim.routines.pollLast();
+  }
+
+  /**
+   * waits until a routine may have become ready, false if the worker has been
+   * interrupted
+   */
+  private boolean park() {
+    lock.lock();
+    try {
+      long now = System.nanoTime();
+      advanceTimers(now);
+      moveWaitingRoutineToReady();
+      // a routine made ready after this sees the idle worker and signals it
+      idleWorkers.incrementAndGet();
+      try {
+        if (terminated || hasReadyRoutines()) {
+          return true;
+        }
+        parkedUntil = nextTimer;
+        if (parkedUntil == Long.MAX_VALUE) {
+          available.await();
+        } else {
+          available.awaitNanos(parkedUntil - now);
+        }
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } finally {
+        idleWorkers.decrementAndGet();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean hasReadyRoutines() {
+    if (!injection.isEmpty()) {
+      return true;
+    }
+    for (RunQueue queue : runQueues) {
+      if (!queue.routines.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * the caller must hold the lock
+   */
+  private void advanceTimers(long now) {
+    timers.advance(now, routine -> injection.add(routine, true));
+    nextTimer = timers.nextWakeUpTime();
+    if (!injection.isEmpty() && idleWorkers.get() > 0) {
+      available.signal();
+    }
+  }
+
+  /**
+   * routines which gave up the worker run again when nothing else is ready
+   */
   private void moveWaitingRoutineToReady() {
+    SPLRoutineObject o;
+    while ((o = waiting.poll()) != null) {
+      o.setState(SPLRoutineObject.SPLRoutineState.READY);
+      injection.add(o, true);
+    }
+  }
+
+  /**
+   * stops the workers once the last non daemon routine has finished
+   */
+  private void terminateIfDone() {
     lock.lock();
     try {
-      while (!waiting.isEmpty()) {
-        SPLRoutineObject o = waiting.poll();
-        o.setState(SPLRoutineObject.SPLRoutineState.READY);
-        ready.add(o);
+      // pending timers keep the world alive
+      if (SPLRoutineObject.nonDaemonRoutineCount.get() == 0 && timers.isEmpty()) {
+        terminated = true;
+        available.signalAll();
       }
     } finally {
       lock.unlock();
@@ -151,16 +352,29 @@ public class SPLInternalWorld {
 
   public void addCoroutine(SPLRoutineObject routine, SPLRoutineObject.SPLRoutineState state) {
     switch (state) {
-      case READY -> ready.add(routine);
+      case READY -> {
+        injection.add(routine, true);
+        wakeUpWorker();
+      }
       case WAITING -> waiting.add(routine);
       default -> throw new IllegalStateException("Unexpected value: " + state);
     }
   }
 
+  /**
+   * makes a new routine ready, a routine spawned by a worker of this world is
+   * put in front of the queue of that worker
+   */
   public void addReadyRoutine(SPLRoutineObject routine) {
     assert routine.getState() == SPLRoutineObject.SPLRoutineState.READY;
-    ready.add(routine);
-    adaptiveAddThread();
+    RunQueue queue = runQueue.get();
+    if (queue == null) {
+      addCoroutine(routine, SPLRoutineObject.SPLRoutineState.READY);
+      return;
+    }
+    SPLRunQueue.credit(routine, queue.minRuntime);
+    queue.routines.addFirst(routine);
+    wakeUpWorker();
   }
 
   public SPLModuleObject loadModule(String moduleName) throws SPLInternalException {
@@ -171,16 +385,70 @@ public class SPLInternalWorld {
     return m;
   }
 
+  /**
+   * puts a routine to sleep until {@link System#nanoTime()} reaches time
+   */
   public void addTimeWaitingRoutine(SPLRoutineObject routine, long time) {
-    timeWaiting.put(routine, time);
+    schedule(() -> {
+      routine.setState(SPLRoutineObject.SPLRoutineState.READY);
+      return routine;
+    }, time);
+  }
+
+  /**
+   * runs task once {@link System#nanoTime()} reaches deadline
+   */
+  public SPLTimerWheel.Timeout schedule(SPLTimerWheel.Task task, long deadline) {
+    lock.lock();
+    try {
+      SPLTimerWheel.Timeout timeout = timers.schedule(task, deadline);
+      if (deadline < nextTimer) {
+        nextTimer = deadline;
+      }
+      // the idle workers may be parked until a later tick
+      if (idleWorkers.get() > 0 && deadline < parkedUntil) {
+        parkedUntil = deadline;
+        available.signal();
+      }
+      return timeout;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean cancel(SPLTimerWheel.Timeout timeout) {
+    lock.lock();
+    try {
+      return timers.cancel(timeout);
+    } finally {
+      lock.unlock();
+    }
   }
 
   public SPLRoutineObject getMainRoutine() {
     return mainRoutine;
   }
 
+  /**
+   * the ready routines of a worker, the worker takes them at the head and
+   * other workers steal them at the tail. The deque is not sorted: virtual run
+   * time is only compared at its ends, when a routine yields, when the worker
+   * chooses between its head and the injection queue and when a thief picks a
+   * victim, so the priority order between the routines of a worker is only
+   * approximate
+   */
+  private static class RunQueue {
+    private final Deque<SPLRoutineObject> routines = new ConcurrentLinkedDeque<>();
+    // the virtual run time of the queue, the largest of the routines the worker has taken, only it writes it
+    private volatile long minRuntime;
+  }
+
   private class SPLWorldWorker extends Thread {
 
+    SPLWorldWorker() {
+      super(WORKER_NAME);
+    }
+
     @Override
     public void run() {
       controlCenter();
@@ -0,0 +1,952 @@
+package org.spl.vm.interpreter;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.spl.compiler.bytecode.FusionTable;
+import org.spl.compiler.bytecode.OpCode;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interfaces.SPLIterator;
+import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.objects.SPLBoolObject;
+import org.spl.vm.objects.SPLDictObject;
+import org.spl.vm.objects.SPLFloatObject;
+import org.spl.vm.objects.SPLListObject;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLSetObject;
+import org.spl.vm.objects.SPLStopIteration;
+import org.spl.vm.splroutine.SPLRoutineMarker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Compiles the code object of a hot function to a JVM hidden class. Every
+ * instruction becomes the JVM code of its case in the interpreter, the locals
+ * and the slots of the eval stack are JVM locals, the slot of a value is its
+ * depth on the eval stack which is the same whenever an instruction is
+ * executed. An instruction the interpreter has quickened gets a fast path for
+ * the types of its operands, the compiled code checks the types and leaves to
+ * the interpreter when they have changed: it writes the locals and the eval
+ * stack of the instruction back to the frame and the interpreter executes it.
+ * The compiled code can be entered at 0 and at the targets of the backward
+ * jumps, where a loop of an interpreted frame goes on in the compiled code.
+ * Like the interpreter it takes its instructions from the time slice at the
+ * backward jumps, the returns and the calls it runs nested, the routine is
+ * preempted at a backward jump as if it had been interpreted.
+ * <p>
+ * A function is compiled after {@link DefaultEval} has counted threshold calls
+ * and backward jumps of it. Code objects with try blocks and instructions
+ * which need the locals in the frame are never compiled, code whose guards
+ * fail too often is dropped and compiled again with the types the interpreter
+ * has seen since.
+ */
+public final class SPLJit {
+
+  /**
+   * returned by compiled code which leaves the frame to the interpreter
+   */
+  static final SPLObject DEOPT = new SPLObject(null);
+  // the calls compiled code runs nested on the Java stack, the Java stack of a worker is much smaller than the call stack of a routine
+  static final int MAX_NESTED_CALLS = 200;
+  private static final int MAX_DEOPTS = 64;
+  private static final int MAX_COMPILATIONS = 4;
+
+  private static final String OBJ = Type.getInternalName(SPLObject.class);
+  private static final String OBJ_DESC = Type.getDescriptor(SPLObject.class);
+  private static final String EVAL = Type.getInternalName(DefaultEval.class);
+  private static final String LONG = Type.getInternalName(SPLLongObject.class);
+  private static final String FLOAT = Type.getInternalName(SPLFloatObject.class);
+  private static final String BOOL = Type.getInternalName(SPLBoolObject.class);
+  private static final String BINARY = "(" + OBJ_DESC + ")" + OBJ_DESC;
+  private static final String UNARY = "()" + OBJ_DESC;
+  private static final Map<OpCode, String> BINARY_METHODS = new EnumMap<>(OpCode.class);
+  private static final Map<OpCode, String> UNARY_METHODS = new EnumMap<>(OpCode.class);
+  // the quickened instructions which have seen two longs
+  private static final EnumSet<OpCode> LONG_HINTS = EnumSet.of(OpCode.ADD_LONG_LONG, OpCode.SUB_LONG_LONG,
+      OpCode.MUL_LONG_LONG, OpCode.LT_LONG_LONG, OpCode.GT_LONG_LONG, OpCode.LE_LONG_LONG, OpCode.GE_LONG_LONG,
+      OpCode.EQ_LONG_LONG, OpCode.NE_LONG_LONG, OpCode.LT_LONG_JUMP_FALSE, OpCode.GT_LONG_JUMP_FALSE,
+      OpCode.LE_LONG_JUMP_FALSE, OpCode.GE_LONG_JUMP_FALSE);
+
+  static {
+    BINARY_METHODS.put(OpCode.ADD, "__add__");
+    BINARY_METHODS.put(OpCode.SUB, "__sub__");
+    BINARY_METHODS.put(OpCode.MUL, "__mul__");
+    BINARY_METHODS.put(OpCode.DIV, "__div__");
+    BINARY_METHODS.put(OpCode.TRUE_DIV, "__trueDiv__");
+    BINARY_METHODS.put(OpCode.MOD, "__mod__");
+    BINARY_METHODS.put(OpCode.POWER, "__pow__");
+    BINARY_METHODS.put(OpCode.XOR, "__xor__");
+    BINARY_METHODS.put(OpCode.LSHIFT, "__lshift__");
+    BINARY_METHODS.put(OpCode.RSHIFT, "__rshift__");
+    BINARY_METHODS.put(OpCode.U_RSHIFT, "__URshift__");
+    BINARY_METHODS.put(OpCode.AND, "__and__");
+    BINARY_METHODS.put(OpCode.OR, "__or__");
+    BINARY_METHODS.put(OpCode.INPLACE_LSHIFT, "__inplaceLshift__");
+    BINARY_METHODS.put(OpCode.INPLACE_RSHIFT, "__inplaceRshift__");
+    BINARY_METHODS.put(OpCode.INPLACE_U_RSHIFT, "__inplaceURshift__");
+    BINARY_METHODS.put(OpCode.INPLACE_AND, "__inplaceAnd__");
+    BINARY_METHODS.put(OpCode.INPLACE_OR, "__inplaceOr__");
+    BINARY_METHODS.put(OpCode.INPLACE_XOR, "__inplaceXor__");
+    BINARY_METHODS.put(OpCode.INPLACE_ADD, "__inplaceAdd__");
+    BINARY_METHODS.put(OpCode.INPLACE_SUB, "__inplaceSub__");
+    BINARY_METHODS.put(OpCode.INPLACE_MUL, "__inplaceMul__");
+    BINARY_METHODS.put(OpCode.INPLACE_DIV, "__inplaceDiv__");
+    BINARY_METHODS.put(OpCode.INPLACE_TRUE_DIV, "__inplaceTrueDiv__");
+    BINARY_METHODS.put(OpCode.INPLACE_MOD, "__inplaceMod__");
+    BINARY_METHODS.put(OpCode.INPLACE_POWER, "__inplacePow__");
+    BINARY_METHODS.put(OpCode.SUBSCRIBE, "__subscribe__");
+    BINARY_METHODS.put(OpCode.LT, "__lt__");
+    BINARY_METHODS.put(OpCode.GT, "__gt__");
+    BINARY_METHODS.put(OpCode.EQ, "__eq__");
+    BINARY_METHODS.put(OpCode.NE, "__ne__");
+    BINARY_METHODS.put(OpCode.LE, "__le__");
+    BINARY_METHODS.put(OpCode.GE, "__ge__");
+    UNARY_METHODS.put(OpCode.NEG, "__neg__");
+    UNARY_METHODS.put(OpCode.INVERT, "__invert__");
+    UNARY_METHODS.put(OpCode.NOT, "__not__");
+  }
+
+  // the JVM locals of the compiled method
+  private static final int FRAME = 1;
+  private static final int SPC = 2;
+  private static final int LOCALS = 3;
+  private static final int STACK = 4;
+  private static final int CONSTANTS = 5;
+  private static final int CLOSURES = 6;
+  private static final int TMP = 7;
+  private static final int FIRST_LOCAL = 8;
+
+  private final SPLCodeObject codeObject;
+  private final int[] instructions;
+  private final int[] quickened;
+  // the depth of the eval stack before every instruction, -1 if it is never executed
+  private final int[] depths;
+  private final BitSet jumpTargets;
+  // the targets of the backward jumps, where an interpreted frame enters the compiled code
+  private final BitSet entries;
+  private final int numberOfLocals;
+  private final Label[] labels;
+  private final Map<Integer, Label> deopts;
+  private final Map<Integer, Label> exits;
+  // the targets of the backward jumps at which the routine is preempted
+  private final Map<Integer, Label> preempts;
+  private MethodVisitor mv;
+
+  private SPLJit(SPLCodeObject codeObject) {
+    this.codeObject = codeObject;
+    // compiled code runs every instruction of a sequence fused by the compiler
+    instructions = FusionTable.unfuse(codeObject.getInstructions());
+    quickened = FusionTable.unfuse(codeObject.getQuickenedCode());
+    depths = new int[instructions.length + 1];
+    jumpTargets = new BitSet();
+    entries = new BitSet();
+    numberOfLocals = codeObject.getVarnames().length;
+    labels = new Label[instructions.length + 1];
+    deopts = new TreeMap<>();
+    exits = new TreeMap<>();
+    preempts = new TreeMap<>();
+  }
+
+  /**
+   * counts a call or a backward jump of code object and compiles it once it
+   * has been counted threshold times, null if it is interpreted
+   */
+  static SPLCompiledCode compileIfHot(SPLCodeObject codeObject, int threshold) {
+    int hotness = codeObject.getHotness();
+    if (hotness < 0) {
+      return null;
+    }
+    // counted without a lock, the frames of other workers may lose some counts
+    codeObject.setHotness(++hotness);
+    if (hotness < threshold) {
+      return null;
+    }
+    synchronized (codeObject) {
+      SPLCompiledCode compiled = codeObject.getCompiledCode();
+      if (compiled != null || codeObject.getHotness() < 0) {
+        return compiled;
+      }
+      codeObject.setCompilations(codeObject.getCompilations() + 1);
+      compiled = compile(codeObject);
+      if (compiled == null) {
+        codeObject.setHotness(-1);
+      } else {
+        codeObject.setDeopts(0);
+        codeObject.setCompiledCode(compiled);
+      }
+      return compiled;
+    }
+  }
+
+  /**
+   * counts a failed guard of the compiled code of code object, code which
+   * fails too often is dropped and compiled again once it is hot again
+   */
+  static void deoptimized(SPLCodeObject codeObject) {
+    int deopts = codeObject.getDeopts() + 1;
+    codeObject.setDeopts(deopts);
+    if (deopts == MAX_DEOPTS) {
+      synchronized (codeObject) {
+        codeObject.setCompiledCode(null);
+        codeObject.setHotness(codeObject.getCompilations() < MAX_COMPILATIONS ? 0 : -1);
+      }
+    }
+  }
+
+  /**
+   * compiles code object, null if it can not be compiled
+   */
+  public static SPLCompiledCode compile(SPLCodeObject codeObject) {
+    if (!codeObject.isFastLocals() || codeObject.hasHandlers()) {
+      return null;
+    }
+    SPLJit jit = new SPLJit(codeObject);
+    if (!jit.analyze()) {
+      return null;
+    }
+    try {
+      byte[] bytes = jit.generate();
+      MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+      return (SPLCompiledCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+    } catch (Throwable e) {
+      // like a function too large for one JVM method, it stays interpreted
+      return null;
+    }
+  }
+
+  // helpers of the compiled code
+
+  static SPLObject bool(SPLObject o) {
+    return o == SPLBoolObject.getTrue() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  static SPLObject iterator(SPLObject o) throws SPLInternalException {
+    SPLObject iterator = o.__getIterator__();
+    if (iterator == null) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException(o.__str__() + " is not an iterator"));
+    }
+    return iterator;
+  }
+
+  static SPLObject next(SPLObject o) throws SPLInternalException {
+    if (o instanceof SPLIterator iterator) {
+      return iterator.next();
+    }
+    throw new SPLInternalException("NEXT can only be used with iterators");
+  }
+
+  private static OpCode op(int word) {
+    return Evaluation.opcode[word & 0xff];
+  }
+
+  /**
+   * computes the depth of the eval stack before every instruction, false if
+   * the code has an instruction compiled code can not run
+   */
+  private boolean analyze() {
+    Arrays.fill(depths, -1);
+    ArrayList<Integer> work = new ArrayList<>();
+    depths[0] = 0;
+    work.add(0);
+    int maxStackSize = codeObject.getMaxStackSize();
+    while (!work.isEmpty()) {
+      int pc = work.remove(work.size() - 1);
+      if (pc == instructions.length) {
+        continue;
+      }
+      int word = instructions[pc];
+      OpCode op = op(word);
+      if (op == null) {
+        return false;
+      }
+      int oparg = word >>> 8;
+      int depth = depths[pc];
+      int next;
+      int target = -1;
+      int targetDepth = 0;
+      boolean fallThrough = true;
+      switch (op) {
+        case NOP, STORE, CALL_METHOD, NEG, INVERT, NOT, LOAD_ATTR, LOAD_METHOD, GET_ITERATOR, STORE_CLOSURE, YIELD ->
+            next = depth;
+        case LOAD_FAST, LOAD_CONST, LOAD_NAME, LOAD, LOAD_GLOBAL, LOAD_BUILTIN, LOAD_CLOSURE, DUP -> next = depth + 1;
+        case DUP2 -> next = depth + 2;
+        case STORE_FAST, STORE_GLOBAL, POP -> next = depth - 1;
+        case STORE_ATTR -> next = depth - 2;
+        case SUBSCRIBE_STORE -> next = depth - 3;
+        case CALL -> next = depth - oparg;
+        case BUILD_LIST, BUILD_SET, BUILD_MAP -> next = depth - oparg + 1;
+        case JUMP_FALSE, JUMP_BACK_TRUE -> {
+          next = depth - 1;
+          target = oparg;
+          targetDepth = depth - 1;
+        }
+        case NEXT -> {
+          next = depth + 1;
+          target = oparg;
+          targetDepth = depth - 1;
+        }
+        case JUMP_BACK, JUMP_UNCON_FORWARD, JUMP_ABSOLUTE, LONG_JUMP -> {
+          next = depth;
+          target = oparg;
+          targetDepth = depth;
+          fallThrough = false;
+        }
+        case RETURN, RETURN_NONE -> {
+          next = depth;
+          fallThrough = false;
+        }
+        default -> {
+          if (BINARY_METHODS.containsKey(op) || op == OpCode.CONDITIONAL_AND || op == OpCode.CONDITIONAL_OR) {
+            next = depth - 1;
+          } else {
+            // the instructions which need the locals in the frame or a handler of the frame
+            return false;
+          }
+        }
+      }
+      if (next < 0 || next > maxStackSize) {
+        return false;
+      }
+      if (fallThrough && !visit(pc + 1, next, work)) {
+        return false;
+      }
+      if (target >= 0) {
+        jumpTargets.set(target);
+        if (target <= pc) {
+          entries.set(target);
+        }
+        if (!visit(target, targetDepth, work)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean visit(int pc, int depth, ArrayList<Integer> work) {
+    if (pc < 0 || pc > instructions.length) {
+      return false;
+    }
+    if (depths[pc] == -1) {
+      depths[pc] = depth;
+      work.add(pc);
+      return true;
+    }
+    return depths[pc] == depth;
+  }
+
+  private byte[] generate() {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+      @Override
+      protected ClassLoader getClassLoader() {
+        return SPLJit.class.getClassLoader();
+      }
+    };
+    String name = Type.getInternalName(SPLJit.class) + "Code";
+    cw.visit(V17, ACC_FINAL | ACC_SYNTHETIC, name, null, "java/lang/Object",
+        new String[]{Type.getInternalName(SPLCompiledCode.class)});
+    MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    init.visitCode();
+    init.visitVarInsn(ALOAD, 0);
+    init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    init.visitInsn(RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+    mv = cw.visitMethod(ACC_PUBLIC, "run", "(L" + EVAL + ";)" + OBJ_DESC, null,
+        new String[]{Type.getInternalName(SPLInternalException.class)});
+    mv.visitCode();
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = new Label();
+    }
+    generateEntry();
+    Label start = new Label();
+    Label end = new Label();
+    Label handler = new Label();
+    mv.visitTryCatchBlock(start, end, handler, Type.getInternalName(SPLInternalException.class));
+    mv.visitLabel(start);
+    for (int pc = 0; pc < instructions.length; pc++) {
+      if (depths[pc] >= 0) {
+        mv.visitLabel(labels[pc]);
+        pc = generate(pc);
+      }
+    }
+    // the interpreter returns None when it runs past the last instruction
+    mv.visitLabel(labels[instructions.length]);
+    frameCall("jitReturn", "(I)V", instructions.length);
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SPLNoneObject.class), "getInstance",
+        "()L" + Type.getInternalName(SPLNoneObject.class) + ";", false);
+    mv.visitInsn(ARETURN);
+    mv.visitLabel(end);
+    // the traceback of the frame takes the pc of the failed instruction
+    mv.visitLabel(handler);
+    mv.visitVarInsn(ALOAD, FRAME);
+    mv.visitVarInsn(ILOAD, SPC);
+    mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, "jitFailed", "(I)V", false);
+    mv.visitInsn(ATHROW);
+    generateExits();
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  /**
+   * loads the frame into the JVM locals and jumps to the instruction at the pc
+   * of the frame
+   */
+  private void generateEntry() {
+    loadFrameArray("getFastLocals", LOCALS);
+    loadFrameArray("getEvalStack", STACK);
+    loadFrameArray("getConstants", CONSTANTS);
+    loadFrameArray("getClosures", CLOSURES);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, SPC);
+    mv.visitInsn(ACONST_NULL);
+    mv.visitVarInsn(ASTORE, TMP);
+    for (int i = 0; i < numberOfLocals; i++) {
+      mv.visitVarInsn(ALOAD, LOCALS);
+      push(i);
+      mv.visitInsn(AALOAD);
+      mv.visitVarInsn(ASTORE, local(i));
+    }
+    int[] keys = entries.stream().filter(pc -> pc != 0 && depths[pc] >= 0).toArray();
+    int[] allKeys = new int[keys.length + 1];
+    System.arraycopy(keys, 0, allKeys, 1, keys.length);
+    Label[] targets = new Label[allKeys.length];
+    targets[0] = labels[0];
+    for (int i = 1; i < targets.length; i++) {
+      targets[i] = new Label();
+    }
+    Label notEntry = new Label();
+    mv.visitVarInsn(ALOAD, FRAME);
+    mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, "getPC", "()I", false);
+    mv.visitLookupSwitchInsn(notEntry, allKeys, targets);
+    for (int i = 1; i < targets.length; i++) {
+      int pc = allKeys[i];
+      mv.visitLabel(targets[i]);
+      for (int d = 0; d < depths[pc]; d++) {
+        mv.visitVarInsn(ALOAD, STACK);
+        push(d);
+        mv.visitInsn(AALOAD);
+        mv.visitVarInsn(ASTORE, slot(d));
+      }
+      mv.visitJumpInsn(GOTO, labels[pc]);
+    }
+    mv.visitLabel(notEntry);
+    mv.visitFieldInsn(GETSTATIC, Type.getInternalName(SPLJit.class), "DEOPT", OBJ_DESC);
+    mv.visitInsn(ARETURN);
+  }
+
+  private void loadFrameArray(String getter, int var) {
+    mv.visitVarInsn(ALOAD, FRAME);
+    mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, getter, "()[" + OBJ_DESC, false);
+    mv.visitVarInsn(ASTORE, var);
+  }
+
+  /**
+   * generates the instruction at pc, returns the last instruction it has
+   * generated
+   */
+  private int generate(int pc) {
+    int word = instructions[pc];
+    OpCode op = op(word);
+    OpCode hint = op(quickened[pc]);
+    int oparg = word >>> 8;
+    int d = depths[pc];
+    switch (op) {
+      case NOP, STORE, CALL_METHOD, POP -> {
+      }
+      case LOAD_FAST -> {
+        // the interpreter reports the unbound variable
+        mv.visitVarInsn(ALOAD, local(oparg));
+        mv.visitJumpInsn(IFNULL, deopt(pc));
+        mv.visitVarInsn(ALOAD, local(oparg));
+        store(d);
+      }
+      case STORE_FAST -> {
+        load(d - 1);
+        mv.visitVarInsn(ASTORE, local(oparg));
+      }
+      case LOAD_CONST -> {
+        mv.visitVarInsn(ALOAD, CONSTANTS);
+        push(oparg);
+        mv.visitInsn(AALOAD);
+        store(d);
+      }
+      case LOAD_NAME, LOAD -> {
+        Label global = new Label();
+        Label done = new Label();
+        mv.visitVarInsn(ALOAD, local(oparg));
+        mv.visitJumpInsn(IFNULL, global);
+        mv.visitVarInsn(ALOAD, local(oparg));
+        mv.visitJumpInsn(GOTO, done);
+        mv.visitLabel(global);
+        site(pc);
+        frameCall("loadGlobal", "(II)" + OBJ_DESC, pc, oparg);
+        mv.visitLabel(done);
+        store(d);
+      }
+      case LOAD_GLOBAL -> {
+        site(pc);
+        frameCall("loadGlobal", "(II)" + OBJ_DESC, pc, oparg);
+        store(d);
+      }
+      case LOAD_BUILTIN -> {
+        site(pc);
+        frameCall("loadBuiltin", "(I)" + OBJ_DESC, oparg);
+        store(d);
+      }
+      case STORE_GLOBAL -> {
+        mv.visitVarInsn(ALOAD, FRAME);
+        push(oparg);
+        load(d - 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, "storeGlobal", "(I" + OBJ_DESC + ")V", false);
+      }
+      case LOAD_CLOSURE -> {
+        mv.visitVarInsn(ALOAD, CLOSURES);
+        push(oparg);
+        mv.visitInsn(AALOAD);
+        store(d);
+      }
+      case STORE_CLOSURE -> {
+        mv.visitVarInsn(ALOAD, CLOSURES);
+        push(oparg);
+        load(d - 1);
+        mv.visitInsn(AASTORE);
+      }
+      case LOAD_ATTR, LOAD_METHOD -> {
+        site(pc);
+        mv.visitVarInsn(ALOAD, FRAME);
+        push(pc);
+        load(d - 1);
+        push(oparg);
+        String method = op == OpCode.LOAD_ATTR ? "loadAttr" : "loadMethod";
+        mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, method, "(I" + OBJ_DESC + "I)" + OBJ_DESC, false);
+        store(d - 1);
+      }
+      case STORE_ATTR -> {
+        site(pc);
+        mv.visitVarInsn(ALOAD, FRAME);
+        push(pc);
+        load(d - 2);
+        push(oparg);
+        load(d - 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, "storeAttr", "(I" + OBJ_DESC + "I" + OBJ_DESC + ")V", false);
+      }
+      case DUP -> {
+        load(d - 1);
+        store(d);
+      }
+      case DUP2 -> {
+        load(d - 2);
+        store(d);
+        load(d - 1);
+        store(d + 1);
+      }
+      case JUMP_FALSE -> {
+        load(d - 1);
+        mv.visitMethodInsn(INVOKESTATIC, BOOL, "getFalse", "()L" + BOOL + ";", false);
+        mv.visitJumpInsn(IF_ACMPEQ, labels[oparg]);
+      }
+      case JUMP_BACK_TRUE -> {
+        Label exit = new Label();
+        load(d - 1);
+        mv.visitMethodInsn(INVOKESTATIC, BOOL, "getTrue", "()L" + BOOL + ";", false);
+        mv.visitJumpInsn(IF_ACMPNE, exit);
+        backwardJump(pc, oparg);
+        mv.visitLabel(exit);
+      }
+      case JUMP_BACK -> backwardJump(pc, oparg);
+      case JUMP_UNCON_FORWARD, JUMP_ABSOLUTE, LONG_JUMP -> {
+        if (oparg < pc) {
+          backwardJump(pc, oparg);
+        } else {
+          mv.visitJumpInsn(GOTO, labels[oparg]);
+        }
+      }
+      case RETURN -> {
+        frameCall("jitReturn", "(I)V", pc + 1);
+        load(d - 1);
+        mv.visitInsn(ARETURN);
+      }
+      case RETURN_NONE -> {
+        frameCall("jitReturn", "(I)V", pc + 1);
+        mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SPLNoneObject.class), "getInstance",
+            "()L" + Type.getInternalName(SPLNoneObject.class) + ";", false);
+        mv.visitInsn(ARETURN);
+      }
+      case SUBSCRIBE_STORE -> {
+        site(pc);
+        load(d - 3);
+        load(d - 2);
+        load(d - 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, OBJ, "__setAttr__", "(" + OBJ_DESC + OBJ_DESC + ")" + OBJ_DESC, false);
+        mv.visitInsn(POP);
+      }
+      case GET_ITERATOR -> {
+        site(pc);
+        load(d - 1);
+        helper("iterator");
+        store(d - 1);
+      }
+      case NEXT -> {
+        site(pc);
+        load(d - 1);
+        helper("next");
+        mv.visitVarInsn(ASTORE, TMP);
+        mv.visitVarInsn(ALOAD, TMP);
+        mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SPLStopIteration.class), "getInstance",
+            "()L" + Type.getInternalName(SPLStopIteration.class) + ";", false);
+        mv.visitJumpInsn(IF_ACMPEQ, labels[oparg]);
+        mv.visitVarInsn(ALOAD, TMP);
+        store(d);
+      }
+      case BUILD_LIST -> buildCollection(d, oparg, ArrayList.class, SPLListObject.class, "java/util/List");
+      case BUILD_SET -> buildCollection(d, oparg, HashSet.class, SPLSetObject.class, "java/util/Set");
+      case BUILD_MAP -> {
+        String map = Type.getInternalName(HashMap.class);
+        mv.visitTypeInsn(NEW, map);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, map, "<init>", "()V", false);
+        for (int i = 0; i < oparg; i += 2) {
+          mv.visitInsn(DUP);
+          load(d - oparg + i);
+          load(d - oparg + i + 1);
+          mv.visitMethodInsn(INVOKEVIRTUAL, map, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", false);
+          mv.visitInsn(POP);
+        }
+        wrap(Type.getInternalName(SPLDictObject.class), "java/util/Map");
+        store(d - oparg);
+      }
+      case CALL -> {
+        int base = d - 1 - oparg;
+        for (int i = base; i < d; i++) {
+          spill(i);
+        }
+        site(pc);
+        frameCall("jitCall", "(III)" + OBJ_DESC, pc, base, oparg);
+        mv.visitVarInsn(ASTORE, TMP);
+        mv.visitVarInsn(ALOAD, TMP);
+        mv.visitJumpInsn(IFNULL, exit(pc));
+        mv.visitVarInsn(ALOAD, TMP);
+        mv.visitTypeInsn(INSTANCEOF, Type.getInternalName(SPLRoutineMarker.class));
+        mv.visitJumpInsn(IFNE, exit(pc));
+        mv.visitVarInsn(ALOAD, TMP);
+        store(base);
+      }
+      case YIELD -> {
+        spillLocals();
+        for (int i = 0; i < d; i++) {
+          spill(i);
+        }
+        frameCall("jitSuspend", "(II)" + OBJ_DESC, pc, d);
+        mv.visitInsn(ARETURN);
+      }
+      case CONDITIONAL_AND, CONDITIONAL_OR -> {
+        site(pc);
+        load(d - 1);
+        load(d - 2);
+        String method = op == OpCode.CONDITIONAL_AND ? "__conditionalAnd__" : "__conditionalOr__";
+        mv.visitMethodInsn(INVOKEVIRTUAL, OBJ, method, BINARY, false);
+        helper("bool");
+        store(d - 2);
+      }
+      case NEG, INVERT, NOT -> {
+        site(pc);
+        load(d - 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, OBJ, UNARY_METHODS.get(op), UNARY, false);
+        store(d - 1);
+      }
+      case LT, GT, LE, GE, EQ, NE -> {
+        if (isLongHint(hint)) {
+          return generateLongCompare(pc, op, d);
+        }
+        site(pc);
+        load(d - 2);
+        load(d - 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, OBJ, BINARY_METHODS.get(op), BINARY, false);
+        helper("bool");
+        store(d - 2);
+      }
+      default -> {
+        if (hint == OpCode.SUBSCRIBE_LIST_INT) {
+          generateSubscribe(pc, d);
+        } else if (isLongHint(hint)) {
+          generateLongArithmetic(pc, op, d);
+        } else if (hint == OpCode.ADD_FLOAT_FLOAT || hint == OpCode.SUB_FLOAT_FLOAT || hint == OpCode.MUL_FLOAT_FLOAT) {
+          generateFloatArithmetic(pc, op, d);
+        } else {
+          site(pc);
+          load(d - 2);
+          load(d - 1);
+          mv.visitMethodInsn(INVOKEVIRTUAL, OBJ, BINARY_METHODS.get(op), BINARY, false);
+          store(d - 2);
+        }
+      }
+    }
+    return pc;
+  }
+
+  private static boolean isLongHint(OpCode hint) {
+    return LONG_HINTS.contains(hint);
+  }
+
+  /**
+   * a compare of two longs, fused with the JUMP_FALSE after it unless another
+   * instruction jumps to that
+   */
+  private int generateLongCompare(int pc, OpCode op, int d) {
+    guard(pc, d - 2, LONG);
+    guard(pc, d - 1, LONG);
+    unbox(d - 2, LONG, "J");
+    unbox(d - 1, LONG, "J");
+    mv.visitInsn(LCMP);
+    // the JVM jump taken when the compare is false
+    int jump = switch (op) {
+      case LT -> IFGE;
+      case GT -> IFLE;
+      case LE -> IFGT;
+      case GE -> IFLT;
+      case EQ -> IFNE;
+      default -> IFEQ;
+    };
+    int next = pc + 1;
+    if (next < instructions.length && op(instructions[next]) == OpCode.JUMP_FALSE && !jumpTargets.get(next)) {
+      mv.visitJumpInsn(jump, labels[instructions[next] >>> 8]);
+      return next;
+    }
+    Label isFalse = new Label();
+    Label done = new Label();
+    mv.visitJumpInsn(jump, isFalse);
+    mv.visitMethodInsn(INVOKESTATIC, BOOL, "getTrue", "()L" + BOOL + ";", false);
+    mv.visitJumpInsn(GOTO, done);
+    mv.visitLabel(isFalse);
+    mv.visitMethodInsn(INVOKESTATIC, BOOL, "getFalse", "()L" + BOOL + ";", false);
+    mv.visitLabel(done);
+    store(d - 2);
+    return pc;
+  }
+
+  private void generateLongArithmetic(int pc, OpCode op, int d) {
+    guard(pc, d - 2, LONG);
+    guard(pc, d - 1, LONG);
+    unbox(d - 2, LONG, "J");
+    unbox(d - 1, LONG, "J");
+    mv.visitInsn(switch (op) {
+      case ADD, INPLACE_ADD -> LADD;
+      case SUB, INPLACE_SUB -> LSUB;
+      default -> LMUL;
+    });
+    mv.visitMethodInsn(INVOKESTATIC, LONG, "create", "(J)L" + LONG + ";", false);
+    store(d - 2);
+  }
+
+  private void generateFloatArithmetic(int pc, OpCode op, int d) {
+    guard(pc, d - 2, FLOAT);
+    guard(pc, d - 1, FLOAT);
+    mv.visitTypeInsn(NEW, FLOAT);
+    mv.visitInsn(DUP);
+    unbox(d - 2, FLOAT, "D");
+    unbox(d - 1, FLOAT, "D");
+    mv.visitInsn(switch (op) {
+      case ADD, INPLACE_ADD -> DADD;
+      case SUB, INPLACE_SUB -> DSUB;
+      default -> DMUL;
+    });
+    mv.visitMethodInsn(INVOKESPECIAL, FLOAT, "<init>", "(D)V", false);
+    store(d - 2);
+  }
+
+  private void generateSubscribe(int pc, int d) {
+    String list = Type.getInternalName(SPLListObject.class);
+    guard(pc, d - 2, list);
+    guard(pc, d - 1, LONG);
+    site(pc);
+    load(d - 2);
+    mv.visitTypeInsn(CHECKCAST, list);
+    unbox(d - 1, LONG, "J");
+    mv.visitMethodInsn(INVOKEVIRTUAL, list, "get", "(J)" + OBJ_DESC, false);
+    store(d - 2);
+  }
+
+  private void buildCollection(int d, int n, Class<?> collection, Class<?> wrapper, String parameter) {
+    String name = Type.getInternalName(collection);
+    mv.visitTypeInsn(NEW, name);
+    mv.visitInsn(DUP);
+    mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+    for (int i = 0; i < n; i++) {
+      mv.visitInsn(DUP);
+      load(d - n + i);
+      mv.visitMethodInsn(INVOKEVIRTUAL, name, "add", "(Ljava/lang/Object;)Z", false);
+      mv.visitInsn(POP);
+    }
+    wrap(Type.getInternalName(wrapper), parameter);
+    store(d - n);
+  }
+
+  /**
+   * wraps the collection on the JVM stack into an object of type
+   */
+  private void wrap(String type, String parameter) {
+    mv.visitVarInsn(ASTORE, TMP);
+    mv.visitTypeInsn(NEW, type);
+    mv.visitInsn(DUP);
+    mv.visitVarInsn(ALOAD, TMP);
+    mv.visitMethodInsn(INVOKESPECIAL, type, "<init>", "(L" + parameter + ";)V", false);
+  }
+
+  /**
+   * leaves to the interpreter at pc unless the value in slot has type
+   */
+  private void guard(int pc, int slot, String type) {
+    load(slot);
+    mv.visitTypeInsn(INSTANCEOF, type);
+    mv.visitJumpInsn(IFEQ, deopt(pc));
+  }
+
+  private void unbox(int slot, String type, String desc) {
+    load(slot);
+    mv.visitTypeInsn(CHECKCAST, type);
+    mv.visitMethodInsn(INVOKEVIRTUAL, type, "getVal", "()" + desc, false);
+  }
+
+  /**
+   * jumps back to target, the instructions of the loop are taken from the time
+   * slice and the routine is preempted at target once it is used up
+   */
+  private void backwardJump(int pc, int target) {
+    frameCall("jitSafePoint", "(I)Z", pc - target + 1);
+    mv.visitJumpInsn(IFNE, preempt(target));
+    mv.visitJumpInsn(GOTO, labels[target]);
+  }
+
+  private Label deopt(int pc) {
+    return deopts.computeIfAbsent(pc, k -> new Label());
+  }
+
+  private Label exit(int pc) {
+    return exits.computeIfAbsent(pc, k -> new Label());
+  }
+
+  private Label preempt(int pc) {
+    return preempts.computeIfAbsent(pc, k -> new Label());
+  }
+
+  /**
+   * the frame state of the guards, the calls and the backward jumps which
+   * leave the compiled code, the locals and the eval stack are written back to
+   * the frame
+   */
+  private void generateExits() {
+    for (Map.Entry<Integer, Label> e : deopts.entrySet()) {
+      int pc = e.getKey();
+      mv.visitLabel(e.getValue());
+      spillLocals();
+      for (int i = 0; i < depths[pc]; i++) {
+        spill(i);
+      }
+      frameCall("jitDeopt", "(II)" + OBJ_DESC, pc, depths[pc]);
+      mv.visitInsn(ARETURN);
+    }
+    // the callable and the arguments of the call are on the eval stack already
+    for (Map.Entry<Integer, Label> e : exits.entrySet()) {
+      int pc = e.getKey();
+      mv.visitLabel(e.getValue());
+      spillLocals();
+      int base = depths[pc] - 1 - (instructions[pc] >>> 8);
+      for (int i = 0; i < base; i++) {
+        spill(i);
+      }
+      mv.visitVarInsn(ALOAD, TMP);
+      mv.visitInsn(ARETURN);
+    }
+    for (Map.Entry<Integer, Label> e : preempts.entrySet()) {
+      int pc = e.getKey();
+      mv.visitLabel(e.getValue());
+      spillLocals();
+      for (int i = 0; i < depths[pc]; i++) {
+        spill(i);
+      }
+      frameCall("jitPreempt", "(II)" + OBJ_DESC, pc, depths[pc]);
+      mv.visitInsn(ARETURN);
+    }
+  }
+
+  private void spillLocals() {
+    for (int i = 0; i < numberOfLocals; i++) {
+      mv.visitVarInsn(ALOAD, LOCALS);
+      push(i);
+      mv.visitVarInsn(ALOAD, local(i));
+      mv.visitInsn(AASTORE);
+    }
+  }
+
+  private void spill(int d) {
+    mv.visitVarInsn(ALOAD, STACK);
+    push(d);
+    load(d);
+    mv.visitInsn(AASTORE);
+  }
+
+  private void site(int pc) {
+    push(pc);
+    mv.visitVarInsn(ISTORE, SPC);
+  }
+
+  private void frameCall(String method, String desc, int... args) {
+    mv.visitVarInsn(ALOAD, FRAME);
+    for (int arg : args) {
+      push(arg);
+    }
+    mv.visitMethodInsn(INVOKEVIRTUAL, EVAL, method, desc, false);
+  }
+
+  private void helper(String method) {
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SPLJit.class), method, BINARY, false);
+  }
+
+  private void push(int value) {
+    if (value >= -1 && value <= 5) {
+      mv.visitInsn(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      mv.visitIntInsn(BIPUSH, value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      mv.visitIntInsn(SIPUSH, value);
+    } else {
+      mv.visitLdcInsn(value);
+    }
+  }
+
+  private void load(int d) {
+    mv.visitVarInsn(ALOAD, slot(d));
+  }
+
+  private void store(int d) {
+    mv.visitVarInsn(ASTORE, slot(d));
+  }
+
+  private int local(int i) {
+    return FIRST_LOCAL + i;
+  }
+
+  private int slot(int d) {
+    return FIRST_LOCAL + numberOfLocals + d;
+  }
+}
@@ -0,0 +1,74 @@
+package org.spl.vm.interpreter;
+
+/**
+ * The source position of every instruction of a code object, decoded once from
+ * the debug info and the len column table of the compiler when the code object
+ * is built, so a traceback only has to remember the index of the failing
+ * instruction.
+ */
+public class SPLLineTable {
+
+  private final int[] lines;
+  // the column of an instruction in the upper and its length in the lower 16 bits
+  private final int[] positions;
+
+  private SPLLineTable(int[] lines, int[] positions) {
+    this.lines = lines;
+    this.positions = positions;
+  }
+
+  /**
+   * debugInfo holds pairs of (number of instructions, line delta) and lenColumn
+   * a pair of (length, column) for each instruction, every value is a varint
+   * of {@link org.spl.compiler.ir.context.DefaultASTContext}
+   */
+  public static SPLLineTable build(int firstLineNo, byte[] debugInfo, byte[] lenColumn, int numberOfInstructions) {
+    int[] lines = new int[numberOfInstructions];
+    int[] positions = new int[numberOfInstructions];
+    int[] cursor = new int[1];
+    int[] pos = new int[1];
+    int line = firstLineNo;
+    int count = 0;
+    for (int ins = 0; ins < numberOfInstructions; ins++) {
+      while (count <= ins && cursor[0] < debugInfo.length) {
+        count += read(debugInfo, cursor);
+        line += read(debugInfo, cursor);
+      }
+      lines[ins] = line;
+      if (pos[0] < lenColumn.length) {
+        int len = read(lenColumn, pos);
+        int column = read(lenColumn, pos);
+        positions[ins] = column << 16 | len & 0xffff;
+      }
+    }
+    return new SPLLineTable(lines, positions);
+  }
+
+  /**
+   * a zigzag varint of DefaultASTContext, 7 bits a byte from the lowest while
+   * the high bit is set
+   */
+  private static int read(byte[] data, int[] cursor) {
+    int bits = 0;
+    for (int shift = 0; cursor[0] < data.length && shift < 32; shift += 7) {
+      byte b = data[cursor[0]++];
+      bits |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        break;
+      }
+    }
+    return bits >>> 1 ^ -(bits & 1);
+  }
+
+  public int getLineNo(int ins) {
+    return lines[ins];
+  }
+
+  public int getColumnNo(int ins) {
+    return positions[ins] >> 16;
+  }
+
+  public int getLength(int ins) {
+    return positions[ins] & 0xffff;
+  }
+}
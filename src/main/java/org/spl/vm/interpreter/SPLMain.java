@@ -3,6 +3,8 @@ package org.spl.vm.interpreter;
 import org.spl.compiler.SPLCompiler;
 import org.spl.compiler.exceptions.SPLSyntaxError;
 import org.spl.compiler.ir.ASTVisualizer;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
 import org.spl.vm.internal.shell.InteractiveShell;
 
 import java.io.*;
@@ -67,10 +69,35 @@ public class SPLMain {
   }
 
   public void start() {
-    if (args.length == 1) {
+    String[] files = args;
+    String profile = null;
+    if (args.length == 2 && args[0].equals("--tree")) {
+      // the functions are run by the tree engine instead of the interpreter
+      SPLTreeCompiler.setEnabled(true);
+      files = new String[]{args[1]};
+    } else if (args.length == 2 && args[0].equals("--register")) {
+      // the functions are run as register code instead of byte code
+      SPLRegisterCompiler.setEnabled(true);
+      files = new String[]{args[1]};
+    } else if (args.length == 3 && args[0].equals("--profile")) {
+      // the sequences of opcodes the program runs are written to a fusion table
+      SPLOpcodeProfile.setEnabled(true);
+      profile = args[1];
+      files = new String[]{args[2]};
+    }
+    if (files.length == 1) {
       try {
-        SPL spl = new SPL(args[0]);
-        spl.run();
+        SPL spl = new SPL(files[0]);
+        if (profile == null) {
+          spl.run();
+        } else {
+          // compiled code is not counted
+          SPLConfiguration config = SPLConfigBuilder.build();
+          spl.run(new SPLConfiguration(config.getMaxCallStackSize(), config.getMaxCoreThreads(), config.getTimeSlice(), 0));
+          StringWriter table = new StringWriter();
+          SPLOpcodeProfile.write(table);
+          saveStringToFile(table.toString(), profile);
+        }
         if (SPLInternalWorld.splWorld.hasError) {
           Runtime.getRuntime().exit(-1);
         }
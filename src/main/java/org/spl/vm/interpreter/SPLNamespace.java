@@ -0,0 +1,180 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.builtin.Builtin;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The globals of a module and the attributes of module objects, which the
+ * routines of all workers share. Reads do not lock and writes only lock the bin
+ * of their key. Every change of a binding bumps the version after it has been
+ * made, so the global caches of LOAD_GLOBAL and LOAD_NAME sites which read the
+ * version before the value can revalidate with a single compare. Changes made
+ * through the entry set or its iterators are not tracked.
+ */
+public class SPLNamespace extends ConcurrentHashMap<SPLObject, SPLObject> {
+
+  private static final long serialVersionUID = 1L;
+  private final AtomicLong version = new AtomicLong();
+  private volatile boolean shadowsBuiltins;
+
+  public SPLNamespace() {
+  }
+
+  public SPLNamespace(Map<? extends SPLObject, ? extends SPLObject> m) {
+    putAll(m);
+  }
+
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * whether a name of the builtins has been bound in this namespace, LOAD_BUILTIN
+   * can only use the builtin table directly as long as this is false
+   */
+  public boolean isShadowingBuiltins() {
+    return shadowsBuiltins;
+  }
+
+  private void modified(Object key, SPLObject old) {
+    version.incrementAndGet();
+    if (old == null && key instanceof SPLObject name && Builtin.contains(name)) {
+      shadowsBuiltins = true;
+    }
+  }
+
+  @Override
+  public SPLObject put(SPLObject key, SPLObject value) {
+    SPLObject old = super.put(key, value);
+    if (old != value) {
+      modified(key, old);
+    }
+    return old;
+  }
+
+  @Override
+  public void putAll(Map<? extends SPLObject, ? extends SPLObject> m) {
+    m.forEach(this::put);
+  }
+
+  @Override
+  public SPLObject putIfAbsent(SPLObject key, SPLObject value) {
+    SPLObject old = super.putIfAbsent(key, value);
+    if (old == null) {
+      modified(key, null);
+    }
+    return old;
+  }
+
+  @Override
+  public SPLObject remove(Object key) {
+    SPLObject old = super.remove(key);
+    if (old != null) {
+      version.incrementAndGet();
+    }
+    return old;
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    boolean res = super.remove(key, value);
+    if (res) {
+      version.incrementAndGet();
+    }
+    return res;
+  }
+
+  @Override
+  public SPLObject replace(SPLObject key, SPLObject value) {
+    SPLObject old = super.replace(key, value);
+    if (old != null && old != value) {
+      version.incrementAndGet();
+    }
+    return old;
+  }
+
+  @Override
+  public boolean replace(SPLObject key, SPLObject oldValue, SPLObject newValue) {
+    boolean res = super.replace(key, oldValue, newValue);
+    if (res) {
+      version.incrementAndGet();
+    }
+    return res;
+  }
+
+  /**
+   * the functions of the compute methods run under the lock of the bin of their
+   * key, they record the value they see so the version only changes with the
+   * binding
+   */
+  @Override
+  public SPLObject computeIfAbsent(SPLObject key, Function<? super SPLObject, ? extends SPLObject> mappingFunction) {
+    boolean[] called = new boolean[1];
+    SPLObject res = super.computeIfAbsent(key, k -> {
+      called[0] = true;
+      return mappingFunction.apply(k);
+    });
+    if (called[0] && res != null) {
+      modified(key, null);
+    }
+    return res;
+  }
+
+  @Override
+  public SPLObject computeIfPresent(SPLObject key, BiFunction<? super SPLObject, ? super SPLObject, ? extends SPLObject> remappingFunction) {
+    Object[] old = {this};
+    SPLObject res = super.computeIfPresent(key, (k, v) -> {
+      old[0] = v;
+      return remappingFunction.apply(k, v);
+    });
+    if (old[0] != this && old[0] != res) {
+      version.incrementAndGet();
+    }
+    return res;
+  }
+
+  @Override
+  public SPLObject compute(SPLObject key, BiFunction<? super SPLObject, ? super SPLObject, ? extends SPLObject> remappingFunction) {
+    SPLObject[] old = new SPLObject[1];
+    SPLObject res = super.compute(key, (k, v) -> {
+      old[0] = v;
+      return remappingFunction.apply(k, v);
+    });
+    if (old[0] != res) {
+      modified(key, old[0]);
+    }
+    return res;
+  }
+
+  @Override
+  public SPLObject merge(SPLObject key, SPLObject value, BiFunction<? super SPLObject, ? super SPLObject, ? extends SPLObject> remappingFunction) {
+    // the function is only called if the key is present
+    SPLObject[] old = new SPLObject[1];
+    SPLObject res = super.merge(key, value, (v, given) -> {
+      old[0] = v;
+      return remappingFunction.apply(v, given);
+    });
+    if (old[0] != res) {
+      modified(key, old[0]);
+    }
+    return res;
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super SPLObject, ? super SPLObject, ? extends SPLObject> function) {
+    super.replaceAll(function);
+    version.incrementAndGet();
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    version.incrementAndGet();
+  }
+}
@@ -0,0 +1,151 @@
+package org.spl.vm.interpreter;
+
+import org.spl.compiler.bytecode.FusionTable;
+import org.spl.compiler.bytecode.OpCode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the sequences of one to four instructions the interpreter runs one
+ * after the other, SPLMain --profile turns it on together with the counters of
+ * the inline caches. Instructions are only a sequence if they follow each
+ * other in the code, a jump starts a new one and a call goes on with the
+ * instruction after it once it returns. The opcodes are the ones of the
+ * compiler, the code is not fused while a profile is taken and the quickened
+ * forms count as the generic instruction.
+ * <p>
+ * The profile is written as a {@link FusionTable}: the most frequent
+ * sequences as comments, then a row for every sequence a superinstruction
+ * can run, the most frequent first.
+ */
+public final class SPLOpcodeProfile {
+
+  static final int MAX_LENGTH = 4;
+  // the most frequent sequences of every length listed in the comments of the table
+  private static final int LISTED = 20;
+
+  private static volatile boolean enabled;
+  // the sequence in the low bytes, the first opcode in the highest, and the length above them
+  private static final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+  // the instructions of the register code of SPLRegisterCompiler, which are not opcodes
+  private static final LongAdder registerInstructions = new LongAdder();
+
+  private SPLOpcodeProfile() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * the code compiled after this is not fused
+   */
+  public static void setEnabled(boolean enabled) {
+    SPLOpcodeProfile.enabled = enabled;
+    FusionTable.setEnabled(!enabled);
+    DefaultEval.setProfile(enabled);
+    SPLInlineCache.setCounting(enabled);
+  }
+
+  public static void clear() {
+    counts.clear();
+    registerInstructions.reset();
+  }
+
+  /**
+   * counts the sequences of every length the last instruction of history
+   * ends, history holds the last length opcodes one per byte
+   */
+  static void record(int history, int length) {
+    for (int n = 1; n <= length; n++) {
+      long key = (long) n << 32 | (history & 0xffffffffL >>> (MAX_LENGTH - n) * 8);
+      counts.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+  }
+
+  /**
+   * the number of times sequence has been run
+   */
+  public static long count(OpCode... sequence) {
+    long ops = 0;
+    for (OpCode op : sequence) {
+      ops = ops << 8 | op.val & 0xff;
+    }
+    LongAdder adder = counts.get((long) sequence.length << 32 | ops);
+    return adder == null ? 0 : adder.sum();
+  }
+
+  static void recordRegisterInstructions(long n) {
+    registerInstructions.add(n);
+  }
+
+  /**
+   * the number of instructions of the byte code which have been run
+   */
+  public static long instructions() {
+    long n = 0;
+    for (Map.Entry<Long, LongAdder> e : counts.entrySet()) {
+      if (e.getKey() >>> 32 == 1) {
+        n += e.getValue().sum();
+      }
+    }
+    return n;
+  }
+
+  /**
+   * the number of instructions of register code which have been run
+   */
+  public static long registerInstructions() {
+    return registerInstructions.sum();
+  }
+
+  public static void write(Writer out) throws IOException {
+    List<Map.Entry<OpCode[], Long>> sequences = new ArrayList<>();
+    counts.forEach((key, count) -> sequences.add(Map.entry(decode(key), count.sum())));
+    sequences.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+    out.write("# a fusion table of the sequences of opcodes a program runs, see FusionTable\n");
+    for (int length = 2; length <= MAX_LENGTH; length++) {
+      out.write("#\n# the most frequent sequences of " + length + " instructions\n");
+      int listed = 0;
+      for (Map.Entry<OpCode[], Long> e : sequences) {
+        if (e.getKey().length == length && listed++ < LISTED) {
+          out.write(String.format("# %12d %s\n", e.getValue(), names(e.getKey())));
+        }
+      }
+    }
+    out.write("\n");
+    for (Map.Entry<OpCode[], Long> e : sequences) {
+      OpCode superinstruction = FusionTable.superinstructionOf(e.getKey());
+      if (superinstruction != null) {
+        out.write(String.format("%s %s # %d\n", superinstruction.name(), names(e.getKey()), e.getValue()));
+      }
+    }
+  }
+
+  private static OpCode[] decode(long key) {
+    int length = (int) (key >>> 32);
+    OpCode[] sequence = new OpCode[length];
+    for (int i = length - 1; i >= 0; i--) {
+      sequence[i] = Evaluation.opcode[(int) key & 0xff];
+      key >>>= 8;
+    }
+    return sequence;
+  }
+
+  private static String names(OpCode[] sequence) {
+    StringBuilder builder = new StringBuilder();
+    for (OpCode op : sequence) {
+      if (!builder.isEmpty()) {
+        builder.append(' ');
+      }
+      builder.append(op.name());
+    }
+    return builder.toString();
+  }
+}
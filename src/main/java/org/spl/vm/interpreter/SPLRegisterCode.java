@@ -0,0 +1,171 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLStringObject;
+
+/**
+ * The register code {@link SPLRegisterCompiler} made of the IR of a function,
+ * run by {@link SPLRegisterEval}. An instruction is an opcode in the low byte
+ * of its first word and its first operand above it, the other operands follow
+ * in the next words. An operand which is read is a register if it is not
+ * negative and the constant ~operand otherwise, registers and jump targets
+ * are never negative:
+ * <pre>
+ *   ADD a b c g      r[a] = b + c, g is the operator when they are not numbers
+ *   JUMP_NOT_LT t b c  jumps to the word t unless b &lt; c
+ *   CALL a f n x.. s   r[a] = f(x..), s is the state of the call in {@link #calls}
+ * </pre>
+ * The register file of a frame is the array of its fast locals, the locals are
+ * the first registers and the temporaries of the expressions follow them, see
+ * {@link org.spl.vm.internal.objs.SPLCodeObject#getRegisters()}.
+ */
+final class SPLRegisterCode implements SPLCompiledCode {
+
+  static final int MOVE = 0;
+  static final int LOAD_FAST = 1;
+  static final int LOAD_GLOBAL = 2;
+  static final int LOAD_NAME = 3;
+  static final int LOAD_BUILTIN = 4;
+  static final int LOAD_CLOSURE = 5;
+  static final int STORE_GLOBAL = 6;
+  static final int STORE_CLOSURE = 7;
+  static final int ADD = 8;
+  static final int SUB = 9;
+  static final int MUL = 10;
+  static final int BINARY = 11;
+  static final int LT = 12;
+  static final int GT = 13;
+  static final int LE = 14;
+  static final int GE = 15;
+  static final int EQ = 16;
+  static final int NE = 17;
+  static final int JUMP_NOT_LT = 18;
+  static final int JUMP_NOT_GT = 19;
+  static final int JUMP_NOT_LE = 20;
+  static final int JUMP_NOT_GE = 21;
+  static final int JUMP_NOT_EQ = 22;
+  static final int JUMP_NOT_NE = 23;
+  static final int CONDITIONAL_AND = 24;
+  static final int CONDITIONAL_OR = 25;
+  static final int NEG = 26;
+  static final int INVERT = 27;
+  static final int NOT = 28;
+  static final int JUMP = 29;
+  static final int JUMP_FALSE = 30;
+  static final int JUMP_TRUE = 31;
+  static final int CALL = 32;
+  static final int LOAD_ATTR = 33;
+  static final int LOAD_METHOD = 34;
+  static final int STORE_ATTR = 35;
+  static final int SUBSCRIBE = 36;
+  static final int STORE_SUBSCRIBE = 37;
+  static final int BUILD_LIST = 38;
+  static final int BUILD_SET = 39;
+  static final int BUILD_MAP = 40;
+  static final int GET_ITER = 41;
+  static final int FOR_ITER = 42;
+  static final int RETURN = 43;
+  static final int RETURN_NONE = 44;
+
+  // the name and the number of words of every opcode, CALL and BUILD_* are followed by their items
+  private static final String[] NAMES = {
+      "MOVE", "LOAD_FAST", "LOAD_GLOBAL", "LOAD_NAME", "LOAD_BUILTIN", "LOAD_CLOSURE",
+      "STORE_GLOBAL", "STORE_CLOSURE", "ADD", "SUB", "MUL", "BINARY",
+      "LT", "GT", "LE", "GE", "EQ", "NE",
+      "JUMP_NOT_LT", "JUMP_NOT_GT", "JUMP_NOT_LE", "JUMP_NOT_GE", "JUMP_NOT_EQ", "JUMP_NOT_NE",
+      "CONDITIONAL_AND", "CONDITIONAL_OR", "NEG", "INVERT", "NOT", "JUMP", "JUMP_FALSE", "JUMP_TRUE",
+      "CALL", "LOAD_ATTR", "LOAD_METHOD", "STORE_ATTR", "SUBSCRIBE", "STORE_SUBSCRIBE",
+      "BUILD_LIST", "BUILD_SET", "BUILD_MAP", "GET_ITER", "FOR_ITER", "RETURN", "RETURN_NONE"};
+  private static final int[] LENGTHS = {
+      2, 2, 3, 3, 2, 2,
+      2, 2, 4, 4, 4, 4,
+      3, 3, 3, 3, 3, 3,
+      3, 3, 3, 3, 3, 3,
+      3, 3, 2, 2, 2, 1, 2, 2,
+      4, 4, 4, 4, 3, 4,
+      2, 2, 2, 2, 3, 2, 1};
+
+  final int[] code;
+  final SPLObject[] constants;
+  final SPLStringObject[] varnames;
+  // the operators of BINARY and the generic forms of ADD, SUB and MUL
+  final SPLTreeNode.BinaryOp[] operators;
+  final SPLInlineCache[] inlineCaches;
+  final SPLGlobalCache[] globalCaches;
+  // the pc of the CALL instruction of a call in the byte code and the operands the eval stack holds below it, from the bottom
+  final int[][] calls;
+  // where the IR node of the instruction at a word starts, a failing instruction points the traceback at it
+  final int[] lineNos;
+  final int[] columnNos;
+  private final int registers;
+
+  SPLRegisterCode(int[] code, SPLObject[] constants, SPLStringObject[] varnames, SPLTreeNode.BinaryOp[] operators,
+                  int inlineCaches, int globalCaches, int[][] calls, int[] lineNos, int[] columnNos, int registers) {
+    this.code = code;
+    this.constants = constants;
+    this.varnames = varnames;
+    this.operators = operators;
+    this.inlineCaches = new SPLInlineCache[inlineCaches];
+    for (int i = 0; i < inlineCaches; i++) {
+      this.inlineCaches[i] = new SPLInlineCache();
+    }
+    this.globalCaches = new SPLGlobalCache[globalCaches];
+    for (int i = 0; i < globalCaches; i++) {
+      this.globalCaches[i] = new SPLGlobalCache();
+    }
+    this.calls = calls;
+    this.lineNos = lineNos;
+    this.columnNos = columnNos;
+    this.registers = registers;
+  }
+
+  @Override
+  public SPLObject run(DefaultEval frame) throws SPLInternalException {
+    return SPLRegisterEval.run(frame, this);
+  }
+
+  /**
+   * the size of the register file, the fast locals and the temporaries
+   */
+  int getRegisters() {
+    return registers;
+  }
+
+  /**
+   * the number of words of the instruction at pc
+   */
+  static int length(int[] code, int pc) {
+    int op = code[pc] & 0xff;
+    return switch (op) {
+      case CALL -> LENGTHS[op] + code[pc + 2];
+      case BUILD_LIST, BUILD_SET, BUILD_MAP -> LENGTHS[op] + code[pc + 1];
+      default -> LENGTHS[op];
+    };
+  }
+
+  /**
+   * the number of instructions of the code, not of its words
+   */
+  int getInstructionCount() {
+    int n = 0;
+    for (int pc = 0; pc < code.length; pc += length(code, pc)) {
+      n++;
+    }
+    return n;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (int pc = 0; pc < code.length; pc += length(code, pc)) {
+      builder.append(String.format("%4d %-16s %d", pc, NAMES[code[pc] & 0xff], code[pc] >>> 8));
+      for (int i = 1; i < length(code, pc); i++) {
+        int operand = code[pc + i];
+        builder.append(operand < 0 ? " k" + ~operand : " " + operand);
+      }
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,542 @@
+package org.spl.vm.interpreter;
+
+import org.spl.compiler.bytecode.Instruction;
+import org.spl.compiler.ir.IRNode;
+import org.spl.compiler.ir.Op;
+import org.spl.compiler.ir.Scope;
+import org.spl.compiler.ir.binaryop.AbstractBinaryExp;
+import org.spl.compiler.ir.binaryop.ConditionalAnd;
+import org.spl.compiler.ir.binaryop.ConditionalOr;
+import org.spl.compiler.ir.block.ProgramBlock;
+import org.spl.compiler.ir.exp.*;
+import org.spl.compiler.ir.stmt.assignstmt.AbstractAssignStmt;
+import org.spl.compiler.ir.stmt.assignstmt.AssignStmt;
+import org.spl.compiler.ir.stmt.controlflow.*;
+import org.spl.compiler.ir.stmt.returnstmt.Return;
+import org.spl.compiler.ir.stmt.returnstmt.ReturnNone;
+import org.spl.compiler.ir.unaryop.Invert;
+import org.spl.compiler.ir.unaryop.NOP;
+import org.spl.compiler.ir.unaryop.Neg;
+import org.spl.compiler.ir.unaryop.Not;
+import org.spl.compiler.ir.vals.Literal;
+import org.spl.compiler.ir.vals.Variable;
+import org.spl.compiler.lexer.Lexer;
+import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.objects.SPLStringObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.spl.vm.interpreter.SPLRegisterCode.*;
+
+/**
+ * Compiles the IR of a function to {@link SPLRegisterCode}, the three address
+ * form of the code which runs in place of its byte code when it is enabled by
+ * {@code --register}. The IR is compiled right after its byte code and uses the
+ * fast locals, constants and names of that code object, it supports the IR
+ * the trees of {@link SPLTreeCompiler} support and a function with any other
+ * node stays with the interpreter.
+ * <p>
+ * The locals are registers and a constant is an operand, so a statement like
+ * {@code i = i + 1} is a single ADD of a local and a constant into the local.
+ * The value of any other expression is computed into a temporary register, a
+ * temporary lives until the statement or the expression which reads it ends.
+ * A local is only read without a check for it being unset where it has been
+ * assigned on every path to the read, parameters are always set.
+ * <p>
+ * Every CALL has the state the byte code has at its CALL instruction, its pc
+ * and the operands it has on the eval stack, like the left operand of a binary
+ * expression whose right operand is the call. A call which suspends the
+ * routine hands the frame to the interpreter in that state.
+ */
+public final class SPLRegisterCompiler {
+
+  private static volatile boolean enabled;
+
+  private final SPLCodeObject code;
+  private final SPLStringObject[] varnames;
+  private final Map<String, Integer> names;
+  private final Map<Op, Integer> operatorIndexes = new EnumMap<>(Op.class);
+  private final List<SPLTreeNode.BinaryOp> operators = new ArrayList<>();
+  private int[] words = new int[64];
+  private int[] lineNos = new int[64];
+  private int[] columnNos = new int[64];
+  private int size;
+  // the word of the last instruction
+  private int last = -1;
+  private int inlineCaches;
+  private int globalCaches;
+  // the states of the calls, the pc of the CALL instruction and the operands below it
+  private final List<int[]> calls = new ArrayList<>();
+  // the operands the byte code has on the eval stack at the expression being compiled, from the bottom
+  private final List<Integer> stack = new ArrayList<>();
+  // the first free temporary and the size of the register file
+  private int top;
+  private int registers;
+  // the locals which are set at the instruction being compiled
+  private BitSet assigned;
+  // the innermost loop, a break or continue needs one
+  private Loop loop;
+
+  private SPLRegisterCompiler(SPLCodeObject code, int parameters) {
+    this.code = code;
+    this.varnames = code.getVarnames();
+    this.names = new HashMap<>();
+    for (int i = 0; i < varnames.length; i++) {
+      names.putIfAbsent(varnames[i].getVal(), i);
+    }
+    top = registers = varnames.length;
+    assigned = new BitSet(varnames.length);
+    assigned.set(0, parameters);
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    SPLRegisterCompiler.enabled = enabled;
+  }
+
+  /**
+   * sets the register code of the body of a function whose byte code is code,
+   * the function is interpreted if its IR can not be compiled
+   */
+  public static void compile(IRNode<Instruction> body, SPLCodeObject code, int parameters) {
+    if (!code.isFastLocals()) {
+      return;
+    }
+    try {
+      SPLRegisterCompiler compiler = new SPLRegisterCompiler(code, parameters);
+      compiler.statement(body);
+      if (compiler.last == -1 || !compiler.returns(compiler.last)) {
+        compiler.emit(body, RETURN_NONE, 0);
+      }
+      code.setRegisterCode(compiler.build(), compiler.registers);
+    } catch (SPLTreeCompiler.Unsupported ignore) {
+    }
+  }
+
+  private SPLRegisterCode build() {
+    return new SPLRegisterCode(Arrays.copyOf(words, size), code.getConstants(), varnames,
+        operators.toArray(new SPLTreeNode.BinaryOp[0]), inlineCaches, globalCaches, calls.toArray(new int[0][]),
+        Arrays.copyOf(lineNos, size), Arrays.copyOf(columnNos, size), registers);
+  }
+
+  private void statement(IRNode<Instruction> ir) throws SPLTreeCompiler.Unsupported {
+    int mark = top;
+    if (ir instanceof ProgramBlock pb) {
+      for (IRNode<Instruction> s : pb.getStatements()) {
+        // the value of an expression statement is dropped by the POP after it
+        if (!(s instanceof Pop)) {
+          statement(s);
+        }
+      }
+    } else if (ir instanceof AssignStmt s) {
+      Variable lhs = (Variable) s.getVisualizedChildren().get(0);
+      store(s, lhs.scope(), index(lhs.getName()), s.getChildren().get(0));
+    } else if (ir instanceof AbstractAssignStmt s && s.getChildren().get(0) instanceof Variable lhs) {
+      int l = operand(lhs);
+      int r = operandOver(s.getChildren().get(1), l);
+      if (lhs.scope() == Scope.LOCAL) {
+        binary(s, s.getOperator(), lhs.getIdx(), l, r);
+        assigned.set(lhs.getIdx());
+      } else {
+        int t = temp();
+        binary(s, s.getOperator(), t, l, r);
+        storeOperand(s, lhs.scope(), lhs.getIdx(), t);
+      }
+    } else if (ir instanceof StoreAttr s) {
+      int o = operand(s.getLhs());
+      int v = operandOver(s.getRhs(), o);
+      emit(s, STORE_ATTR, inlineCaches++, o, s.getAttrIndex(), v);
+    } else if (ir instanceof InplaceStoreAttr s) {
+      // the object is evaluated once
+      int o = operand(s.getLhs());
+      int t = temp();
+      emit(s, LOAD_ATTR, t, o, s.getAttrIndex(), inlineCaches++);
+      int r = operandOver(s.getRhs(), o, t);
+      emit(s, BINARY, t, t, r, operator(s.getOp()));
+      emit(s, STORE_ATTR, inlineCaches++, o, s.getAttrIndex(), t);
+    } else if (ir instanceof ArrayStyleStore s) {
+      int o = operand(s.getObj());
+      int sub = operandOver(s.getSub(), o);
+      int v;
+      if (s.getOpCode() == Lexer.TOKEN_TYPE.ASSIGN) {
+        v = operandOver(s.getValue(), o, sub);
+      } else {
+        v = temp();
+        emit(s, SUBSCRIBE, v, o, sub);
+        int r = operandOver(s.getValue(), o, sub, v);
+        emit(s, BINARY, v, v, r, operator(SPLTreeCompiler.assignOp(s.getOpCode())));
+      }
+      emit(s, STORE_SUBSCRIBE, 0, o, sub, v);
+    } else if (ir instanceof IfStmt s) {
+      List<Integer> otherwise = new ArrayList<>();
+      jumpFalse(s.getCondition(), otherwise);
+      branch(s.getThenBlock());
+      if (s.getElseBlock() == null) {
+        patch(otherwise, size);
+      } else {
+        int end = emit(s, JUMP, 0);
+        patch(otherwise, size);
+        branch(s.getElseBlock());
+        patch(end, size);
+      }
+    } else if (ir instanceof WhileStmt s) {
+      int start = size;
+      List<Integer> exits = new ArrayList<>();
+      jumpFalse(s.getCondition(), exits);
+      Loop body = loopBody(s.getBlock());
+      patch(body.continues, start);
+      emit(s, JUMP, start);
+      patch(exits, size);
+      patch(body.breaks, size);
+    } else if (ir instanceof ForStmt s) {
+      statement(s.getInitializer());
+      int start = size;
+      List<Integer> exits = new ArrayList<>();
+      jumpFalse(s.getCondition(), exits);
+      Loop body = loopBody(s.getBody());
+      // a continue runs the increment
+      patch(body.continues, size);
+      branch(s.getIncrement());
+      emit(s, JUMP, start);
+      patch(exits, size);
+      patch(body.breaks, size);
+    } else if (ir instanceof ConciseForStmt s) {
+      int it = temp();
+      emit(s, GET_ITER, it, operand(s.getExpression()));
+      int start = emit(s, FOR_ITER, 0, it, s.getIdx());
+      BitSet saved = (BitSet) assigned.clone();
+      assigned.set(s.getIdx());
+      // the iterator stays on the eval stack while the body runs
+      stack.add(it);
+      Loop body = loopBody(s.getBlock());
+      stack.remove(stack.size() - 1);
+      assigned = saved;
+      patch(body.continues, start);
+      emit(s, JUMP, start);
+      patch(start, size);
+      patch(body.breaks, size);
+    } else if (ir instanceof DoWhile s) {
+      int start = size;
+      // a continue goes back to the start of the body without testing the condition
+      Loop body = loopBody(s.getBlock());
+      patch(body.continues, start);
+      emit(s, JUMP_TRUE, start, operand(s.getCondition()));
+      patch(body.breaks, size);
+    } else if (ir instanceof Break && loop != null) {
+      loop.breaks.add(emit(ir, JUMP, 0));
+    } else if (ir instanceof Continue && loop != null) {
+      loop.continues.add(emit(ir, JUMP, 0));
+    } else if (ir instanceof Return r) {
+      if (r.getExpr() == null) {
+        emit(r, RETURN_NONE, 0);
+      } else {
+        emit(r, RETURN, 0, operand(r.getExpr()));
+      }
+    } else if (ir instanceof ReturnNone) {
+      emit(ir, RETURN_NONE, 0);
+    } else if (!(ir instanceof NOP)) {
+      // an expression whose value is dropped
+      operand(ir);
+    }
+    top = mark;
+  }
+
+  /**
+   * a block which may not run, the locals it assigns are not set after it
+   */
+  private void branch(IRNode<Instruction> ir) throws SPLTreeCompiler.Unsupported {
+    BitSet saved = (BitSet) assigned.clone();
+    statement(ir);
+    assigned = saved;
+  }
+
+  private Loop loopBody(IRNode<Instruction> ir) throws SPLTreeCompiler.Unsupported {
+    Loop outer = loop;
+    Loop body = loop = new Loop();
+    try {
+      branch(ir);
+    } finally {
+      loop = outer;
+    }
+    return body;
+  }
+
+  private void store(IRNode<Instruction> ir, Scope scope, int idx, IRNode<Instruction> value) throws SPLTreeCompiler.Unsupported {
+    if (scope == Scope.LOCAL) {
+      expression(value, idx);
+      assigned.set(idx);
+    } else {
+      storeOperand(ir, scope, idx, operand(value));
+    }
+  }
+
+  private void storeOperand(IRNode<Instruction> ir, Scope scope, int idx, int value) throws SPLTreeCompiler.Unsupported {
+    switch (scope) {
+      case GLOBAL -> emit(ir, STORE_GLOBAL, idx, value);
+      case CLOSURE -> emit(ir, STORE_CLOSURE, idx, value);
+      // STORE does nothing with the value
+      case OTHERS -> {
+      }
+      default -> throw new SPLTreeCompiler.Unsupported();
+    }
+  }
+
+  /**
+   * emits the jumps which are taken when cond is false, a comparison jumps on
+   * its operands without making its value
+   */
+  private void jumpFalse(IRNode<Instruction> cond, List<Integer> jumps) throws SPLTreeCompiler.Unsupported {
+    int mark = top;
+    int compare = cond instanceof AbstractBinaryExp<Instruction> b
+        && !(cond instanceof ConditionalAnd) && !(cond instanceof ConditionalOr) ? compare(b.getOperator()) : -1;
+    if (compare != -1) {
+      AbstractBinaryExp<Instruction> b = (AbstractBinaryExp<Instruction>) cond;
+      int l = operand(b.getLeft());
+      int r = operandOver(b.getRight(), l);
+      jumps.add(emit(cond, compare - LT + JUMP_NOT_LT, 0, l, r));
+    } else {
+      jumps.add(emit(cond, JUMP_FALSE, 0, operand(cond)));
+    }
+    top = mark;
+  }
+
+  /**
+   * the operand of the value of ir, a constant, a local which is set or the
+   * temporary the value is computed into
+   */
+  private int operand(IRNode<Instruction> ir) throws SPLTreeCompiler.Unsupported {
+    if (ir instanceof Literal l) {
+      return ~l.getOparg();
+    }
+    if (ir instanceof Variable v && v.getRValueNode() == null && v.scope() == Scope.LOCAL && assigned.get(v.getIdx())) {
+      return v.getIdx();
+    }
+    int t = temp();
+    expression(ir, t);
+    return t;
+  }
+
+  /**
+   * computes the value of ir into the register dest, which is only written by
+   * the last instruction once every operand has been read
+   */
+  private void expression(IRNode<Instruction> ir, int dest) throws SPLTreeCompiler.Unsupported {
+    int mark = top;
+    if (ir instanceof Literal l) {
+      emit(ir, MOVE, dest, ~l.getOparg());
+    } else if (ir instanceof Variable v && v.getRValueNode() == null) {
+      int idx = v.getIdx();
+      switch (v.scope()) {
+        case LOCAL -> emit(ir, assigned.get(idx) ? MOVE : LOAD_FAST, dest, idx);
+        case GLOBAL -> emit(ir, LOAD_GLOBAL, dest, idx, globalCaches++);
+        case OTHERS -> emit(ir, LOAD_NAME, dest, idx, globalCaches++);
+        case BUILTIN -> emit(ir, LOAD_BUILTIN, dest, idx);
+        case CLOSURE -> emit(ir, LOAD_CLOSURE, dest, idx);
+      }
+    } else if (ir instanceof ConditionalAnd b) {
+      int l = operand(b.getLeft());
+      int r = operandOver(b.getRight(), l);
+      emit(ir, CONDITIONAL_AND, dest, l, r);
+    } else if (ir instanceof ConditionalOr b) {
+      // the right operand is skipped when the left one is true
+      int l = operand(b.getLeft());
+      int skip = emit(ir, JUMP_TRUE, 0, l);
+      int r = operandOver(b.getRight(), l);
+      emit(ir, CONDITIONAL_OR, dest, l, r);
+      int end = emit(ir, JUMP, 0);
+      patch(skip, size);
+      emit(ir, MOVE, dest, l);
+      patch(end, size);
+    } else if (ir instanceof AbstractBinaryExp<Instruction> b) {
+      int l = operand(b.getLeft());
+      int r = operandOver(b.getRight(), l);
+      binary(ir, b.getOperator(), dest, l, r);
+    } else if (ir instanceof Neg n) {
+      emit(ir, NEG, dest, operand(n.getChildren().get(0)));
+    } else if (ir instanceof Invert n) {
+      emit(ir, INVERT, dest, operand(n.getChildren().get(0)));
+    } else if (ir instanceof Not n) {
+      emit(ir, NOT, dest, operand(n.getChildren().get(0)));
+    } else if (ir instanceof FuncCallExp c) {
+      // the arguments from the last to the first and the callable after them like CALL
+      List<IRNode<Instruction>> args = c.getArgs();
+      int n = args.size();
+      int[] operands = new int[n + 3];
+      int below = stack.size();
+      for (int i = n - 1; i >= 0; i--) {
+        operands[2 + i] = operand(args.get(i));
+        stack.add(operands[2 + i]);
+      }
+      operands[0] = operand(c.getLhs());
+      stack.subList(below, stack.size()).clear();
+      operands[1] = n;
+      operands[n + 2] = call(c);
+      emit(ir, CALL, dest, operands);
+    } else if (ir instanceof LoadAttr a) {
+      emit(ir, LOAD_ATTR, dest, operand(a.getLhs()), a.getAttrIndex(), inlineCaches++);
+    } else if (ir instanceof LoadMethod m) {
+      emit(ir, LOAD_METHOD, dest, operand(m.getLhs()), m.getAttrIndex(), inlineCaches++);
+    } else if (ir instanceof ArrayStyle a) {
+      int o = operand(a.getLhs());
+      int s = operandOver(a.getSub(), o);
+      emit(ir, SUBSCRIBE, dest, o, s);
+    } else if (ir instanceof BuildList b) {
+      build(ir, BUILD_LIST, dest, b.getChildren());
+    } else if (ir instanceof BuildSet b) {
+      build(ir, BUILD_SET, dest, b.getChildren());
+    } else if (ir instanceof BuildMap b) {
+      build(ir, BUILD_MAP, dest, b.getChildren());
+    } else {
+      throw new SPLTreeCompiler.Unsupported();
+    }
+    top = mark;
+  }
+
+  /**
+   * the operand of ir, which the byte code evaluates with below on its eval
+   * stack
+   */
+  private int operandOver(IRNode<Instruction> ir, int... below) throws SPLTreeCompiler.Unsupported {
+    for (int o : below) {
+      stack.add(o);
+    }
+    int o = operand(ir);
+    stack.subList(stack.size() - below.length, stack.size()).clear();
+    return o;
+  }
+
+  /**
+   * the index of the state of the call c, see {@link SPLRegisterCode#calls}
+   */
+  private int call(FuncCallExp c) throws SPLTreeCompiler.Unsupported {
+    int[] state = new int[stack.size() + 1];
+    state[0] = SPLTreeCompiler.callPc(code, c);
+    for (int i = 0; i < stack.size(); i++) {
+      state[i + 1] = stack.get(i);
+    }
+    calls.add(state);
+    return calls.size() - 1;
+  }
+
+  private void build(IRNode<Instruction> ir, int op, int dest, List<IRNode<Instruction>> items) throws SPLTreeCompiler.Unsupported {
+    int[] operands = new int[items.size() + 1];
+    operands[0] = items.size();
+    int below = stack.size();
+    for (int i = 0; i < items.size(); i++) {
+      operands[i + 1] = operand(items.get(i));
+      stack.add(operands[i + 1]);
+    }
+    stack.subList(below, stack.size()).clear();
+    emit(ir, op, dest, operands);
+  }
+
+  private void binary(IRNode<Instruction> ir, Op op, int dest, int l, int r) throws SPLTreeCompiler.Unsupported {
+    int compare = compare(op);
+    if (compare != -1) {
+      emit(ir, compare, dest, l, r);
+      return;
+    }
+    int instruction = switch (op) {
+      case ADD, ASSIGN_ADD -> ADD;
+      case SUB, ASSIGN_SUB -> SUB;
+      case MUL, ASSIGN_MUL -> MUL;
+      default -> BINARY;
+    };
+    emit(ir, instruction, dest, l, r, operator(op));
+  }
+
+  /**
+   * the instruction of a comparison, -1 for any other operator
+   */
+  private static int compare(Op op) {
+    return switch (op) {
+      case LT -> LT;
+      case GT -> GT;
+      case LE -> LE;
+      case GE -> GE;
+      case EQ -> EQ;
+      case NE -> NE;
+      default -> -1;
+    };
+  }
+
+  /**
+   * the index of the method the instruction of op calls on its left operand
+   */
+  private int operator(Op op) throws SPLTreeCompiler.Unsupported {
+    Integer idx = operatorIndexes.get(op);
+    if (idx == null) {
+      operators.add(SPLTreeCompiler.op(op));
+      idx = operators.size() - 1;
+      operatorIndexes.put(op, idx);
+    }
+    return idx;
+  }
+
+  private int temp() {
+    int t = top++;
+    registers = Math.max(registers, top);
+    return t;
+  }
+
+  private int index(String name) throws SPLTreeCompiler.Unsupported {
+    Integer idx = names.get(name);
+    if (idx == null) {
+      throw new SPLTreeCompiler.Unsupported();
+    }
+    return idx;
+  }
+
+  /**
+   * appends an instruction of ir and returns its word
+   */
+  private int emit(IRNode<Instruction> ir, int op, int a, int... operands) {
+    int pc = size;
+    int n = 1 + operands.length;
+    if (size + n > words.length) {
+      int capacity = Math.max(words.length * 2, size + n);
+      words = Arrays.copyOf(words, capacity);
+      lineNos = Arrays.copyOf(lineNos, capacity);
+      columnNos = Arrays.copyOf(columnNos, capacity);
+    }
+    words[size] = op | a << 8;
+    System.arraycopy(operands, 0, words, size + 1, operands.length);
+    Arrays.fill(lineNos, size, size + n, ir.getLineNo());
+    Arrays.fill(columnNos, size, size + n, ir.getColumnNo());
+    size += n;
+    last = pc;
+    return pc;
+  }
+
+  private boolean returns(int pc) {
+    int op = words[pc] & 0xff;
+    return op == RETURN || op == RETURN_NONE;
+  }
+
+  /**
+   * sets the target of the jump at pc
+   */
+  private void patch(int pc, int target) {
+    words[pc] = words[pc] & 0xff | target << 8;
+  }
+
+  private void patch(List<Integer> jumps, int target) {
+    for (int pc : jumps) {
+      patch(pc, target);
+    }
+  }
+
+  private static final class Loop {
+    private final List<Integer> breaks = new ArrayList<>();
+    private final List<Integer> continues = new ArrayList<>();
+  }
+}
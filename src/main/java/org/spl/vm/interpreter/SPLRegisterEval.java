@@ -0,0 +1,307 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interfaces.SPLIterator;
+import org.spl.vm.objects.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.spl.vm.interpreter.SPLRegisterCode.*;
+
+/**
+ * The interpreter of {@link SPLRegisterCode}, it runs the register code of a
+ * frame in place of its byte code. An instruction reads its operands from the
+ * registers or the constants and writes its result to a register, nothing is
+ * pushed on the eval stack of the frame. The instructions do what the stack
+ * instructions of the same IR do, in the same order.
+ * <p>
+ * Like the trees of {@link SPLTreeCompiler} the register code makes its calls
+ * nested on the Java stack, see {@link DefaultEval#treeCall}, and it is not
+ * preempted. A call which suspends the routine hands the frame to the
+ * interpreter with the operands of the state of the call on its eval stack.
+ */
+final class SPLRegisterEval {
+
+  private SPLRegisterEval() {
+  }
+
+  static SPLObject run(DefaultEval frame, SPLRegisterCode rc) throws SPLInternalException {
+    SPLObject[] r = frame.getFastLocals();
+    SPLObject[] k = rc.constants;
+    int[] code = rc.code;
+    int pc = 0;
+    long executed = 0;
+    try {
+      for (; ; ) {
+        executed++;
+        int word = code[pc];
+        int a = word >>> 8;
+        switch (word & 0xff) {
+          case MOVE -> {
+            r[a] = operand(r, k, code[pc + 1]);
+            pc += 2;
+          }
+          case LOAD_FAST -> {
+            SPLObject o = r[code[pc + 1]];
+            if (o == null) {
+              notFound(rc.varnames[code[pc + 1]]);
+            }
+            r[a] = o;
+            pc += 2;
+          }
+          case LOAD_GLOBAL, LOAD_NAME -> {
+            SPLObject o = null;
+            int idx = code[pc + 1];
+            if ((word & 0xff) == LOAD_NAME) {
+              o = r[idx];
+            }
+            if (o == null && (o = rc.globalCaches[code[pc + 2]].load(frame.getGlobals(), rc.varnames[idx])) == null) {
+              notFound(rc.varnames[idx]);
+            }
+            r[a] = o;
+            pc += 3;
+          }
+          case LOAD_BUILTIN -> {
+            r[a] = frame.loadBuiltin(code[pc + 1]);
+            pc += 2;
+          }
+          case LOAD_CLOSURE -> {
+            r[a] = frame.getClosures()[code[pc + 1]];
+            pc += 2;
+          }
+          case STORE_GLOBAL -> {
+            frame.storeGlobal(a, operand(r, k, code[pc + 1]));
+            pc += 2;
+          }
+          case STORE_CLOSURE -> {
+            frame.getClosures()[a] = operand(r, k, code[pc + 1]);
+            pc += 2;
+          }
+          case ADD -> {
+            SPLObject lhs = operand(r, k, code[pc + 1]);
+            SPLObject rhs = operand(r, k, code[pc + 2]);
+            if (lhs instanceof SPLLongObject x && rhs instanceof SPLLongObject y) {
+              r[a] = SPLLongObject.create(x.getVal() + y.getVal());
+            } else if (lhs instanceof SPLFloatObject x && rhs instanceof SPLFloatObject y) {
+              r[a] = new SPLFloatObject(x.getVal() + y.getVal());
+            } else {
+              r[a] = rc.operators[code[pc + 3]].apply(lhs, rhs);
+            }
+            pc += 4;
+          }
+          case SUB -> {
+            SPLObject lhs = operand(r, k, code[pc + 1]);
+            SPLObject rhs = operand(r, k, code[pc + 2]);
+            if (lhs instanceof SPLLongObject x && rhs instanceof SPLLongObject y) {
+              r[a] = SPLLongObject.create(x.getVal() - y.getVal());
+            } else if (lhs instanceof SPLFloatObject x && rhs instanceof SPLFloatObject y) {
+              r[a] = new SPLFloatObject(x.getVal() - y.getVal());
+            } else {
+              r[a] = rc.operators[code[pc + 3]].apply(lhs, rhs);
+            }
+            pc += 4;
+          }
+          case MUL -> {
+            SPLObject lhs = operand(r, k, code[pc + 1]);
+            SPLObject rhs = operand(r, k, code[pc + 2]);
+            if (lhs instanceof SPLLongObject x && rhs instanceof SPLLongObject y) {
+              r[a] = SPLLongObject.create(x.getVal() * y.getVal());
+            } else if (lhs instanceof SPLFloatObject x && rhs instanceof SPLFloatObject y) {
+              r[a] = new SPLFloatObject(x.getVal() * y.getVal());
+            } else {
+              r[a] = rc.operators[code[pc + 3]].apply(lhs, rhs);
+            }
+            pc += 4;
+          }
+          case BINARY -> {
+            r[a] = rc.operators[code[pc + 3]].apply(operand(r, k, code[pc + 1]), operand(r, k, code[pc + 2]));
+            pc += 4;
+          }
+          case LT, GT, LE, GE, EQ, NE -> {
+            r[a] = SPLTreeNode.bool(compare(word & 0xff, operand(r, k, code[pc + 1]), operand(r, k, code[pc + 2])));
+            pc += 3;
+          }
+          case JUMP_NOT_LT, JUMP_NOT_GT, JUMP_NOT_LE, JUMP_NOT_GE, JUMP_NOT_EQ, JUMP_NOT_NE -> {
+            int cmp = (word & 0xff) - JUMP_NOT_LT + LT;
+            pc = compare(cmp, operand(r, k, code[pc + 1]), operand(r, k, code[pc + 2])) ? pc + 3 : a;
+          }
+          case CONDITIONAL_AND -> {
+            SPLObject lhs = operand(r, k, code[pc + 1]);
+            r[a] = SPLTreeNode.bool(operand(r, k, code[pc + 2]).__conditionalAnd__(lhs));
+            pc += 3;
+          }
+          case CONDITIONAL_OR -> {
+            SPLObject lhs = operand(r, k, code[pc + 1]);
+            r[a] = SPLTreeNode.bool(operand(r, k, code[pc + 2]).__conditionalOr__(lhs));
+            pc += 3;
+          }
+          case NEG -> {
+            r[a] = operand(r, k, code[pc + 1]).__neg__();
+            pc += 2;
+          }
+          case INVERT -> {
+            r[a] = operand(r, k, code[pc + 1]).__invert__();
+            pc += 2;
+          }
+          case NOT -> {
+            r[a] = operand(r, k, code[pc + 1]).__not__();
+            pc += 2;
+          }
+          case JUMP -> pc = a;
+          case JUMP_FALSE -> pc = operand(r, k, code[pc + 1]) == SPLBoolObject.getFalse() ? a : pc + 2;
+          case JUMP_TRUE -> pc = operand(r, k, code[pc + 1]) == SPLBoolObject.getTrue() ? a : pc + 2;
+          case CALL -> {
+            int n = code[pc + 2];
+            // the arguments from the last to the first, the order of the eval stack
+            SPLObject[] stack = new SPLObject[n];
+            for (int i = 0; i < n; i++) {
+              stack[n - 1 - i] = operand(r, k, code[pc + 3 + i]);
+            }
+            int[] state = rc.calls[code[pc + 3 + n]];
+            try {
+              r[a] = frame.treeCall(state[0], operand(r, k, code[pc + 1]), stack);
+            } catch (DefaultEval.Deopt d) {
+              for (int i = state.length - 1; i > 0; i--) {
+                d.below(operand(r, k, state[i]));
+              }
+              return frame.deopt(d);
+            }
+            pc += 4 + n;
+          }
+          case LOAD_ATTR -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            r[a] = rc.inlineCaches[code[pc + 3]].loadAttr(o, rc.varnames[code[pc + 2]]);
+            pc += 4;
+          }
+          case LOAD_METHOD -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            r[a] = rc.inlineCaches[code[pc + 3]].loadMethod(o, rc.varnames[code[pc + 2]]);
+            pc += 4;
+          }
+          case STORE_ATTR -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            rc.inlineCaches[a].storeAttr(o, rc.varnames[code[pc + 2]], operand(r, k, code[pc + 3]));
+            pc += 4;
+          }
+          case SUBSCRIBE -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            SPLObject s = operand(r, k, code[pc + 2]);
+            if (o instanceof SPLListObject l && s instanceof SPLLongObject idx) {
+              r[a] = l.get(idx.getVal());
+            } else {
+              r[a] = o.__subscribe__(s);
+            }
+            pc += 3;
+          }
+          case STORE_SUBSCRIBE -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            o.__setAttr__(operand(r, k, code[pc + 2]), operand(r, k, code[pc + 3]));
+            pc += 4;
+          }
+          case BUILD_LIST -> {
+            int n = code[pc + 1];
+            ArrayList<SPLObject> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+              list.add(operand(r, k, code[pc + 2 + i]));
+            }
+            r[a] = new SPLListObject(list);
+            pc += 2 + n;
+          }
+          case BUILD_SET -> {
+            int n = code[pc + 1];
+            HashSet<SPLObject> set = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+              set.add(operand(r, k, code[pc + 2 + i]));
+            }
+            r[a] = new SPLSetObject(set);
+            pc += 2 + n;
+          }
+          case BUILD_MAP -> {
+            int n = code[pc + 1];
+            HashMap<SPLObject, SPLObject> map = new HashMap<>();
+            for (int i = 0; i < n; i += 2) {
+              map.put(operand(r, k, code[pc + 2 + i]), operand(r, k, code[pc + 3 + i]));
+            }
+            r[a] = new SPLDictObject(map);
+            pc += 2 + n;
+          }
+          case GET_ITER -> {
+            SPLObject o = operand(r, k, code[pc + 1]);
+            SPLObject it = o.__getIterator__();
+            if (it == null) {
+              SPLErrorUtils.splErrorFormat(new SPLRuntimeException(o.__str__() + " is not an iterator"));
+            }
+            if (!(it instanceof SPLIterator)) {
+              throw new SPLInternalException("NEXT can only be used with iterators");
+            }
+            r[a] = it;
+            pc += 2;
+          }
+          case FOR_ITER -> {
+            SPLObject next = ((SPLIterator) r[code[pc + 1]]).next();
+            if (next == SPLStopIteration.getInstance()) {
+              pc = a;
+            } else {
+              r[code[pc + 2]] = next;
+              pc += 3;
+            }
+          }
+          case RETURN -> {
+            return operand(r, k, code[pc + 1]);
+          }
+          case RETURN_NONE -> {
+            return SPLNoneObject.getInstance();
+          }
+          default -> throw new SPLInternalException("unknown register instruction " + (word & 0xff));
+        }
+      }
+    } catch (SPLInternalException e) {
+      frame.treeFailed(rc.lineNos[pc], rc.columnNos[pc]);
+      throw e;
+    } finally {
+      if (SPLOpcodeProfile.isEnabled()) {
+        SPLOpcodeProfile.recordRegisterInstructions(executed);
+      }
+    }
+  }
+
+  private static SPLObject operand(SPLObject[] r, SPLObject[] k, int operand) {
+    return operand >= 0 ? r[operand] : k[~operand];
+  }
+
+  /**
+   * the comparison of LT to NE, longs are compared here and everything else
+   * by the method of the left operand, only true is true
+   */
+  private static boolean compare(int op, SPLObject lhs, SPLObject rhs) throws SPLInternalException {
+    if (lhs instanceof SPLLongObject a && rhs instanceof SPLLongObject b) {
+      long x = a.getVal();
+      long y = b.getVal();
+      return switch (op) {
+        case LT -> x < y;
+        case GT -> x > y;
+        case LE -> x <= y;
+        case GE -> x >= y;
+        case EQ -> x == y;
+        default -> x != y;
+      };
+    }
+    SPLObject res = switch (op) {
+      case LT -> lhs.__lt__(rhs);
+      case GT -> lhs.__gt__(rhs);
+      case LE -> lhs.__le__(rhs);
+      case GE -> lhs.__ge__(rhs);
+      case EQ -> lhs.__eq__(rhs);
+      default -> lhs.__ne__(rhs);
+    };
+    return res == SPLBoolObject.getTrue();
+  }
+
+  private static void notFound(SPLStringObject name) throws SPLInternalException {
+    SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + name.__str__() + "\""));
+  }
+}
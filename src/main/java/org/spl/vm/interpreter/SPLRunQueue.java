@@ -0,0 +1,85 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.splroutine.SPLRoutineObject;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Ready routines ordered by their virtual run time, the run time weighted by
+ * their priority, so the routine which got the smallest share of the workers
+ * runs first, the way CFS orders the tasks of a cpu. Routines of the same
+ * virtual run time run in the order they became ready. It is the injection
+ * queue of the world, the workers keep the routines they make ready in a
+ * lock-free deque and only compare virtual run times with this queue.
+ */
+public class SPLRunQueue {
+
+  /**
+   * how far a routine which has been sleeping or waiting may fall behind the
+   * routines of the queue, it runs before them but can not monopolize the worker
+   * to catch up on the time it has been away
+   */
+  public static final long SLEEPER_CREDIT = 1_000_000;
+
+  private final PriorityQueue<Entry> routines;
+  // the smallest virtual run time of the routines taken from this queue, it never decreases
+  private volatile long minRuntime;
+  private long sequence;
+
+  public SPLRunQueue() {
+    routines = new PriorityQueue<>(Comparator.comparingLong(Entry::runtime).thenComparingLong(Entry::sequence));
+  }
+
+  /**
+   * adds a routine, a new or woken up routine starts at the virtual run time of
+   * the queue less the credit of a sleeper
+   */
+  public synchronized void add(SPLRoutineObject routine, boolean woken) {
+    long runtime = woken ? credit(routine, minRuntime) : routine.getVirtualRuntime();
+    routines.add(new Entry(routine, runtime, sequence++));
+  }
+
+  /**
+   * moves a routine which has been away up to the credit of a sleeper behind
+   * min, returns its virtual run time
+   */
+  static long credit(SPLRoutineObject routine, long min) {
+    long runtime = routine.getVirtualRuntime();
+    if (runtime < min - SLEEPER_CREDIT) {
+      runtime = min - SLEEPER_CREDIT;
+      routine.setVirtualRuntime(runtime);
+    }
+    return runtime;
+  }
+
+  public synchronized SPLRoutineObject poll() {
+    Entry entry = routines.poll();
+    if (entry == null) {
+      return null;
+    }
+    if (entry.runtime > minRuntime) {
+      minRuntime = entry.runtime;
+    }
+    return entry.routine;
+  }
+
+  /**
+   * the virtual run time of the next routine, Long.MAX_VALUE if the queue is empty
+   */
+  public synchronized long peekRuntime() {
+    Entry entry = routines.peek();
+    return entry == null ? Long.MAX_VALUE : entry.runtime;
+  }
+
+  public synchronized boolean isEmpty() {
+    return routines.isEmpty();
+  }
+
+  public long getMinRuntime() {
+    return minRuntime;
+  }
+
+  private record Entry(SPLRoutineObject routine, long runtime, long sequence) {
+  }
+}
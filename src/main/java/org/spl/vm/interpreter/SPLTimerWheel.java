@@ -0,0 +1,151 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.splroutine.SPLRoutineObject;
+
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel holding the timers of a world. Time is cut into ticks
+ * and a timer is linked into the slot of the tick it expires in, so scheduling
+ * and cancelling a timer are O(1) and a tick expires all timers of its slot at
+ * once. A slot holds the timers of every round of the wheel, those of later
+ * rounds stay in it until their tick comes. The wheel is not thread safe, the
+ * world guards it with its lock.
+ */
+public class SPLTimerWheel {
+
+  public static final long TICK_NANOS = 100_000;
+  private static final int WHEEL_SIZE = 1024;
+  private static final int MASK = WHEEL_SIZE - 1;
+
+  private final Timeout[] slots;
+  private final long origin;
+  // the last tick whose timers have been expired
+  private long tick;
+  private int size;
+
+  public SPLTimerWheel() {
+    slots = new Timeout[WHEEL_SIZE];
+    origin = System.nanoTime();
+  }
+
+  /**
+   * schedules task to be run once {@link System#nanoTime()} reaches deadline,
+   * a deadline in the past expires with the next tick
+   */
+  public Timeout schedule(Task task, long deadline) {
+    Timeout timeout = new Timeout(task, Math.max(tickOf(deadline), tick + 1));
+    int slot = (int) (timeout.tick & MASK);
+    timeout.next = slots[slot];
+    if (timeout.next != null) {
+      timeout.next.prev = timeout;
+    }
+    slots[slot] = timeout;
+    size++;
+    return timeout;
+  }
+
+  /**
+   * removes a timeout which has neither expired nor been cancelled yet
+   */
+  public boolean cancel(Timeout timeout) {
+    if (timeout.task == null) {
+      return false;
+    }
+    unlink(timeout);
+    return true;
+  }
+
+  /**
+   * expires all timers whose tick has passed at now and hands the routines
+   * their tasks return to ready
+   */
+  public void advance(long now, Consumer<SPLRoutineObject> ready) {
+    long target = (now - origin) / TICK_NANOS;
+    if (target <= tick) {
+      return;
+    }
+    // after a full turn every slot has been visited
+    long ticks = Math.min(target - tick, WHEEL_SIZE);
+    for (long t = tick + 1; ticks-- > 0; t++) {
+      Timeout timeout = slots[(int) (t & MASK)];
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.tick <= target) {
+          Task task = timeout.task;
+          unlink(timeout);
+          SPLRoutineObject routine = task.expire();
+          if (routine != null) {
+            ready.accept(routine);
+          }
+        }
+        timeout = next;
+      }
+    }
+    tick = target;
+  }
+
+  /**
+   * the time of the next tick which has timers in its slot, they may belong to
+   * a later round, Long.MAX_VALUE if the wheel is empty
+   */
+  public long nextWakeUpTime() {
+    if (size == 0) {
+      return Long.MAX_VALUE;
+    }
+    for (long t = tick + 1; t <= tick + WHEEL_SIZE; t++) {
+      if (slots[(int) (t & MASK)] != null) {
+        return origin + t * TICK_NANOS;
+      }
+    }
+    return origin + (tick + WHEEL_SIZE) * TICK_NANOS;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private long tickOf(long deadline) {
+    // round up so a timer never expires before its deadline
+    return Math.floorDiv(deadline - origin + TICK_NANOS - 1, TICK_NANOS);
+  }
+
+  private void unlink(Timeout timeout) {
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      slots[(int) (timeout.tick & MASK)] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+    timeout.task = null;
+    size--;
+  }
+
+  /**
+   * the action of a timer, it runs with the lock of the world held and returns
+   * the routine which becomes ready, or null
+   */
+  public interface Task {
+    SPLRoutineObject expire();
+  }
+
+  public static class Timeout {
+    private final long tick;
+    private Task task;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout(Task task, long tick) {
+      this.task = task;
+      this.tick = tick;
+    }
+
+    public boolean isPending() {
+      return task != null;
+    }
+  }
+}
@@ -4,57 +4,33 @@ import org.spl.vm.internal.objs.SPLCodeObject;
 import org.spl.vm.objects.SPLObject;
 
 
+/**
+ * One frame of a traceback. It only keeps the code object and the pc of the
+ * frame when the error passed through it, the message is formatted from the
+ * line table of the code object the first time it is asked for, so errors
+ * which are caught right away never pay for it.
+ */
 public class SPLTraceBackObject extends SPLObject {
 
-  private final DefaultEval eval;
-  private final byte[] debugInfo;
-  private final byte[] position;
+  private final SPLCodeObject codeObject;
+  // the index of the instruction after the failing one
+  private final int pc;
   private String errorMessage;
   private SPLTraceBackObject next;
-  private int pos;
-  private int cursor;
 
-  public SPLTraceBackObject(DefaultEval eval) {
+  public SPLTraceBackObject(SPLCodeObject codeObject, int pc) {
     super(SPLTraceBackType.getInstance());
-    this.eval = eval;
-    SPLCodeObject codeObject = eval.getCodeObject();
-    debugInfo = codeObject.getDebugInfo();
-    position = codeObject.getLenColumn();
-    pos = 0;
-    doTrace();
+    this.codeObject = codeObject;
+    this.pc = pc;
   }
 
-  private void doTrace() {
-    int endPC = eval.getPC();
-    int ins = 0;
-    int pc = 0;
-    byte[] code = eval.getCode();
-    while (pc < endPC) {
-      switch (Evaluation.opcode[code[pc++] & 0xff]) {
-        case LONG_JUMP, JUMP_ABSOLUTE -> {
-          pc += 3;
-        }
-        default -> {
-          if (code[pc] == -1) {
-            pc += 3;
-          } else {
-            pc++;
-          }
-        }
-      }
-      ins++;
-    }
-    SPLCodeObject codeObject = eval.getCodeObject();
-    cursor = 0;
-    int line = codeObject.getFirstLineNo();
-    int count = 0;
-    while (count < ins) {
-      count += getValidCount();
-      line += getValidCount();
-    }
-    StringBuilder builder = new StringBuilder();
-    String codeText = eval.getSourceCode().get(line - 1);
+  private String doTrace() {
+    SPLLineTable lineTable = codeObject.getLineTable();
+    int ins = pc - 1;
+    int line = lineTable.getLineNo(ins);
+    String codeText = codeObject.getSourceCode().get(line - 1);
     StringBuilder tip = new StringBuilder(" ".repeat(codeText.length()));
+    StringBuilder builder = new StringBuilder();
     builder.append("File \"")
         .append(codeObject.getFilename())
         .append("\", line ")
@@ -67,52 +43,31 @@ public class SPLTraceBackObject extends SPLObject {
     int leftBoundary = 0;
     while (codeText.charAt(leftBoundary) == ' ')
       leftBoundary++;
-    iterateLenColumnTo(ins - 1);
-    int len = getArg();
-    int column = getArg();
+    int len = lineTable.getLength(ins);
+    int column = lineTable.getColumnNo(ins);
     for (int i = 0; i < len; i++) {
       tip.setCharAt(column + i - 1, '^');
     }
     tip.delete(0, leftBoundary);
-    errorMessage = builder.append("\t").append(tip).toString();
-  }
-
-  private void iterateLenColumnTo(int n) {
-    for (int i = 0; i < n; i++) {
-      getArg(); // len
-      getArg(); // column
-    }
+    return builder.append("\t").append(tip).toString();
   }
 
-  private int getArg() {
-    if (position[pos] == -1) {
-      pos++;
-      int arg = position[pos++];
-      arg <<= 8;
-      arg |= (position[pos++] & 0xff);
-      return arg;
-    } else {
-      return position[pos++];
-    }
+  public SPLCodeObject getCodeObject() {
+    return codeObject;
   }
 
-  private int getValidCount() {
-    if (debugInfo[cursor] == -1) {
-      cursor++;
-      int arg = debugInfo[cursor++];
-      arg <<= 8;
-      arg |= (debugInfo[cursor++] & 0xff);
-      return arg;
-    } else {
-      return debugInfo[cursor++];
-    }
+  public int getPC() {
+    return pc;
   }
 
-  public DefaultEval getEval() {
-    return eval;
+  public int getLineNo() {
+    return codeObject.getLineTable().getLineNo(pc - 1);
   }
 
   public String getErrorMessage() {
+    if (errorMessage == null) {
+      errorMessage = doTrace();
+    }
     return errorMessage;
   }
 
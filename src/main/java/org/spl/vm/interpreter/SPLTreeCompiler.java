@@ -0,0 +1,362 @@
+package org.spl.vm.interpreter;
+
+import org.spl.compiler.bytecode.Instruction;
+import org.spl.compiler.bytecode.OpCode;
+import org.spl.compiler.ir.IRNode;
+import org.spl.compiler.ir.Op;
+import org.spl.compiler.ir.binaryop.AbstractBinaryExp;
+import org.spl.compiler.ir.binaryop.ConditionalAnd;
+import org.spl.compiler.ir.binaryop.ConditionalOr;
+import org.spl.compiler.ir.block.ProgramBlock;
+import org.spl.compiler.ir.exp.*;
+import org.spl.compiler.ir.stmt.assignstmt.AbstractAssignStmt;
+import org.spl.compiler.ir.stmt.assignstmt.AssignStmt;
+import org.spl.compiler.ir.stmt.controlflow.*;
+import org.spl.compiler.ir.stmt.returnstmt.Return;
+import org.spl.compiler.ir.stmt.returnstmt.ReturnNone;
+import org.spl.compiler.ir.unaryop.Invert;
+import org.spl.compiler.ir.unaryop.NOP;
+import org.spl.compiler.ir.unaryop.Neg;
+import org.spl.compiler.ir.unaryop.Not;
+import org.spl.compiler.ir.vals.Literal;
+import org.spl.compiler.ir.vals.Variable;
+import org.spl.compiler.lexer.Lexer;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLStringObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the IR of a function to a tree of {@link SPLTreeNode}s, the
+ * engine which runs the functions of a program instead of the interpreter when
+ * it is enabled by {@code --tree}. The IR is compiled right after its byte
+ * code, the tree uses the fast locals, constants and names of that code
+ * object. A function whose IR has a node the tree does not support, like a
+ * try statement, a yield or a nested function, stays with the interpreter.
+ * <p>
+ * A tree runs its calls nested on the Java stack like a call made by native
+ * code and it is not preempted by the time slice. A call which suspends the
+ * routine, like a receive on an empty channel in a callee, or which would nest
+ * too many calls on the Java stack hands the frame to the interpreter, which
+ * goes on after the CALL instruction of the call, see {@link DefaultEval#treeCall}.
+ * A function whose calls can not be told apart by their position in the line
+ * table stays with the interpreter.
+ */
+public final class SPLTreeCompiler {
+
+  private static volatile boolean enabled;
+
+  private final SPLCodeObject code;
+  private final SPLStringObject[] varnames;
+  private final Map<String, Integer> names;
+  // the loops around the node being compiled, a break or continue needs one
+  private int loops;
+
+  private SPLTreeCompiler(SPLCodeObject code) {
+    this.code = code;
+    this.varnames = code.getVarnames();
+    this.names = new HashMap<>();
+    for (int i = 0; i < varnames.length; i++) {
+      names.putIfAbsent(varnames[i].getVal(), i);
+    }
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    SPLTreeCompiler.enabled = enabled;
+  }
+
+  /**
+   * the tree of the body of a function whose byte code is code, null if the
+   * function has to be interpreted
+   */
+  public static SPLCompiledCode compile(IRNode<Instruction> body, SPLCodeObject code) {
+    if (!code.isFastLocals()) {
+      return null;
+    }
+    try {
+      return new Tree(new SPLTreeCompiler(code).statement(body));
+    } catch (Unsupported e) {
+      return null;
+    }
+  }
+
+  private SPLTreeNode statement(IRNode<Instruction> ir) throws Unsupported {
+    SPLTreeNode node;
+    if (ir instanceof ProgramBlock pb) {
+      node = block(pb.getStatements());
+    } else if (ir instanceof AssignStmt s) {
+      Variable lhs = (Variable) s.getVisualizedChildren().get(0);
+      node = store(lhs, expression(s.getChildren().get(0)), index(lhs.getName()));
+    } else if (ir instanceof AbstractAssignStmt s && s.getChildren().get(0) instanceof Variable lhs) {
+      SPLTreeNode value = binary(expression(lhs), expression(s.getChildren().get(1)), s.getOperator());
+      node = store(lhs, value, lhs.getIdx());
+    } else if (ir instanceof StoreAttr s) {
+      node = new SPLTreeNode.StoreAttr(expression(s.getLhs()), expression(s.getRhs()), varnames[s.getAttrIndex()], null);
+    } else if (ir instanceof InplaceStoreAttr s) {
+      node = new SPLTreeNode.StoreAttr(expression(s.getLhs()), expression(s.getRhs()), varnames[s.getAttrIndex()], op(s.getOp()));
+    } else if (ir instanceof ArrayStyleStore s) {
+      Op op = s.getOpCode() == Lexer.TOKEN_TYPE.ASSIGN ? null : assignOp(s.getOpCode());
+      node = new SPLTreeNode.SubscribeStore(expression(s.getObj()), expression(s.getSub()), expression(s.getValue()),
+          op == null ? null : op(op));
+    } else if (ir instanceof IfStmt s) {
+      SPLTreeNode elseBlock = s.getElseBlock() == null ? null : statement(s.getElseBlock());
+      node = new SPLTreeNode.If(expression(s.getCondition()), statement(s.getThenBlock()), elseBlock);
+    } else if (ir instanceof WhileStmt s) {
+      node = new SPLTreeNode.Loop(expression(s.getCondition()), loopBody(s.getBlock()), null);
+    } else if (ir instanceof ForStmt s) {
+      SPLTreeNode init = statement(s.getInitializer());
+      SPLTreeNode loop = new SPLTreeNode.Loop(expression(s.getCondition()), loopBody(s.getBody()),
+          statement(s.getIncrement()));
+      node = new SPLTreeNode.Block(new SPLTreeNode[]{init, loop});
+    } else if (ir instanceof ConciseForStmt s) {
+      node = new SPLTreeNode.ForIn(expression(s.getExpression()), s.getIdx(), loopBody(s.getBlock()));
+    } else if (ir instanceof DoWhile s) {
+      node = new SPLTreeNode.DoWhile(expression(s.getCondition()), loopBody(s.getBlock()));
+    } else if (ir instanceof Break && loops > 0) {
+      node = new SPLTreeNode.Jump(SPLTreeNode.BREAK);
+    } else if (ir instanceof Continue && loops > 0) {
+      node = new SPLTreeNode.Jump(SPLTreeNode.CONTINUE);
+    } else if (ir instanceof Return r) {
+      node = new SPLTreeNode.Return(r.getExpr() == null ? null : expression(r.getExpr()));
+    } else if (ir instanceof ReturnNone) {
+      node = new SPLTreeNode.Return(null);
+    } else if (ir instanceof NOP) {
+      node = new SPLTreeNode.Block(new SPLTreeNode[0]);
+    } else {
+      // an expression, its value is dropped by the POP after it or left on the stack
+      node = new SPLTreeNode.Eval(expression(ir));
+    }
+    return at(node, ir);
+  }
+
+  private SPLTreeNode loopBody(IRNode<Instruction> ir) throws Unsupported {
+    loops++;
+    try {
+      return statement(ir);
+    } finally {
+      loops--;
+    }
+  }
+
+  /**
+   * the statements of a block, an expression statement is followed by the POP
+   * of its value
+   */
+  private SPLTreeNode block(List<IRNode<Instruction>> statements) throws Unsupported {
+    List<SPLTreeNode> nodes = new ArrayList<>(statements.size());
+    for (IRNode<Instruction> ir : statements) {
+      if (ir instanceof Pop) {
+        continue;
+      }
+      nodes.add(statement(ir));
+    }
+    return new SPLTreeNode.Block(nodes.toArray(new SPLTreeNode[0]));
+  }
+
+  private SPLTreeNode store(Variable lhs, SPLTreeNode value, int idx) throws Unsupported {
+    return switch (lhs.scope()) {
+      case LOCAL -> new SPLTreeNode.StoreFast(idx, value);
+      case GLOBAL -> new SPLTreeNode.StoreGlobal(idx, value);
+      case CLOSURE -> new SPLTreeNode.StoreClosure(idx, value);
+      // STORE does nothing with the value
+      case OTHERS -> new SPLTreeNode.Eval(value);
+      default -> throw new Unsupported();
+    };
+  }
+
+  private SPLTreeNode expression(IRNode<Instruction> ir) throws Unsupported {
+    SPLTreeNode node;
+    if (ir instanceof Literal l) {
+      node = new SPLTreeNode.Const(code.getConstants()[l.getOparg()]);
+    } else if (ir instanceof Variable v && v.getRValueNode() == null) {
+      int idx = v.getIdx();
+      node = switch (v.scope()) {
+        case LOCAL -> new SPLTreeNode.LoadFast(idx, varnames[idx]);
+        case GLOBAL -> new SPLTreeNode.LoadGlobal(idx, varnames[idx], false);
+        case OTHERS -> new SPLTreeNode.LoadGlobal(idx, varnames[idx], true);
+        case BUILTIN -> new SPLTreeNode.LoadBuiltin(idx);
+        case CLOSURE -> new SPLTreeNode.LoadClosure(idx);
+      };
+    } else if (ir instanceof ConditionalAnd b) {
+      node = new SPLTreeNode.ConditionalAnd(expression(b.getLeft()), expression(b.getRight()));
+    } else if (ir instanceof ConditionalOr b) {
+      node = new SPLTreeNode.ConditionalOr(expression(b.getLeft()), expression(b.getRight()));
+    } else if (ir instanceof AbstractBinaryExp<Instruction> b) {
+      node = binary(expression(b.getLeft()), expression(b.getRight()), b.getOperator());
+    } else if (ir instanceof Neg n) {
+      node = new SPLTreeNode.Unary(expression(n.getChildren().get(0)), SPLObject::__neg__);
+    } else if (ir instanceof Invert n) {
+      node = new SPLTreeNode.Unary(expression(n.getChildren().get(0)), SPLObject::__invert__);
+    } else if (ir instanceof Not n) {
+      node = new SPLTreeNode.Unary(expression(n.getChildren().get(0)), SPLObject::__not__);
+    } else if (ir instanceof FuncCallExp c) {
+      node = new SPLTreeNode.Call(expression(c.getLhs()), expressions(c.getArgs()), callPc(code, c));
+    } else if (ir instanceof LoadAttr a) {
+      node = new SPLTreeNode.LoadAttr(expression(a.getLhs()), varnames[a.getAttrIndex()], false);
+    } else if (ir instanceof LoadMethod m) {
+      node = new SPLTreeNode.LoadAttr(expression(m.getLhs()), varnames[m.getAttrIndex()], true);
+    } else if (ir instanceof ArrayStyle a) {
+      node = new SPLTreeNode.Subscribe(expression(a.getLhs()), expression(a.getSub()));
+    } else if (ir instanceof BuildList b) {
+      node = new SPLTreeNode.BuildList(expressions(b.getChildren()), SPLTreeNode.BuildList.LIST);
+    } else if (ir instanceof BuildSet b) {
+      node = new SPLTreeNode.BuildList(expressions(b.getChildren()), SPLTreeNode.BuildList.SET);
+    } else if (ir instanceof BuildMap b) {
+      node = new SPLTreeNode.BuildList(expressions(b.getChildren()), SPLTreeNode.BuildList.MAP);
+    } else {
+      throw new Unsupported();
+    }
+    return at(node, ir);
+  }
+
+  private SPLTreeNode[] expressions(List<IRNode<Instruction>> irs) throws Unsupported {
+    SPLTreeNode[] nodes = new SPLTreeNode[irs.size()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = expression(irs.get(i));
+    }
+    return nodes;
+  }
+
+  private static SPLTreeNode binary(SPLTreeNode lhs, SPLTreeNode rhs, Op op) throws Unsupported {
+    SPLTreeNode.BinaryOp generic = op(op);
+    return switch (op) {
+      case ADD, ASSIGN_ADD -> new SPLTreeNode.Arithmetic(lhs, rhs, SPLTreeNode.Arithmetic.ADD, generic);
+      case SUB, ASSIGN_SUB -> new SPLTreeNode.Arithmetic(lhs, rhs, SPLTreeNode.Arithmetic.SUB, generic);
+      case MUL, ASSIGN_MUL -> new SPLTreeNode.Arithmetic(lhs, rhs, SPLTreeNode.Arithmetic.MUL, generic);
+      case LT -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.LT, generic);
+      case GT -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.GT, generic);
+      case LE -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.LE, generic);
+      case GE -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.GE, generic);
+      case EQ -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.EQ, generic);
+      case NE -> new SPLTreeNode.Compare(lhs, rhs, SPLTreeNode.Compare.NE, generic);
+      default -> new SPLTreeNode.Binary(lhs, rhs, generic);
+    };
+  }
+
+  /**
+   * the method the instruction of an operator calls on its left operand
+   */
+  static SPLTreeNode.BinaryOp op(Op op) throws Unsupported {
+    return switch (op) {
+      case ADD -> SPLObject::__add__;
+      case SUB -> SPLObject::__sub__;
+      case MUL -> SPLObject::__mul__;
+      case DIV -> SPLObject::__div__;
+      case TRUE_DIV -> SPLObject::__trueDiv__;
+      case MOD -> SPLObject::__mod__;
+      case POWER -> SPLObject::__pow__;
+      case XOR -> SPLObject::__xor__;
+      case LSHIFT -> SPLObject::__lshift__;
+      case RSHIFT -> SPLObject::__rshift__;
+      case U_RSHIFT -> SPLObject::__URshift__;
+      case AND -> SPLObject::__and__;
+      case OR -> SPLObject::__or__;
+      case LT -> SPLObject::__lt__;
+      case GT -> SPLObject::__gt__;
+      case LE -> SPLObject::__le__;
+      case GE -> SPLObject::__ge__;
+      case EQ -> SPLObject::__eq__;
+      case NE -> SPLObject::__ne__;
+      case ASSIGN_ADD -> SPLObject::__inplaceAdd__;
+      case ASSIGN_SUB -> SPLObject::__inplaceSub__;
+      case ASSIGN_MUL -> SPLObject::__inplaceMul__;
+      case ASSIGN_DIV -> SPLObject::__inplaceDiv__;
+      case ASSIGN_TRUE_DIV -> SPLObject::__inplaceTrueDiv__;
+      case ASSIGN_MOD -> SPLObject::__inplaceMod__;
+      case ASSIGN_POWER -> SPLObject::__inplacePow__;
+      case ASSIGN_LSHIFT -> SPLObject::__inplaceLshift__;
+      case ASSIGN_RSHIFT -> SPLObject::__inplaceRshift__;
+      case ASSIGN_U_RSHIFT -> SPLObject::__inplaceURshift__;
+      case ASSIGN_AND -> SPLObject::__inplaceAnd__;
+      case ASSIGN_OR -> SPLObject::__inplaceOr__;
+      case ASSIGN_XOR -> SPLObject::__inplaceXor__;
+      default -> throw new Unsupported();
+    };
+  }
+
+  static Op assignOp(Lexer.TOKEN_TYPE token) throws Unsupported {
+    try {
+      return Op.valueOf(token.name());
+    } catch (IllegalArgumentException e) {
+      throw new Unsupported();
+    }
+  }
+
+  private int index(String name) throws Unsupported {
+    Integer idx = names.get(name);
+    if (idx == null) {
+      throw new Unsupported();
+    }
+    return idx;
+  }
+
+  /**
+   * the CALL instruction of the call c in the byte code, the one at the
+   * position of c in the line table
+   */
+  static int callPc(SPLCodeObject code, FuncCallExp c) throws Unsupported {
+    int[] instructions = code.getInstructions();
+    SPLLineTable lineTable = code.getLineTable();
+    int pc = -1;
+    for (int i = 0; i < instructions.length; i++) {
+      if ((instructions[i] & 0xff) == OpCode.CALL.val
+          && lineTable.getLineNo(i) == c.getLineNo() && lineTable.getColumnNo(i) == c.getColumnNo()) {
+        if (pc != -1) {
+          throw new Unsupported();
+        }
+        pc = i;
+      }
+    }
+    if (pc == -1) {
+      throw new Unsupported();
+    }
+    return pc;
+  }
+
+  private static SPLTreeNode at(SPLTreeNode node, IRNode<Instruction> ir) {
+    node.lineNo = ir.getLineNo();
+    node.columnNo = ir.getColumnNo();
+    return node;
+  }
+
+  /**
+   * the IR has a node the tree or the register code does not support, the
+   * function is interpreted
+   */
+  static final class Unsupported extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    Unsupported() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static final class Tree implements SPLCompiledCode {
+    private final SPLTreeNode body;
+
+    Tree(SPLTreeNode body) {
+      this.body = body;
+    }
+
+    @Override
+    public SPLObject run(DefaultEval frame) throws SPLInternalException {
+      SPLObject res;
+      try {
+        res = body.execute(frame);
+      } catch (DefaultEval.Deopt d) {
+        return frame.deopt(d);
+      }
+      return res == null ? SPLNoneObject.getInstance() : res;
+    }
+  }
+}
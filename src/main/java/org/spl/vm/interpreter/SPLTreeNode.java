@@ -0,0 +1,857 @@
+package org.spl.vm.interpreter;
+
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interfaces.SPLIterator;
+import org.spl.vm.objects.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A node of the tree {@link SPLTreeCompiler} makes of the IR of a function.
+ * Every node evaluates itself and its children against the frame of the call,
+ * the locals are the fast locals of the frame and nothing is pushed on its
+ * eval stack. An expression returns its value. A statement returns null when
+ * the next statement runs, {@link #BREAK} or {@link #CONTINUE} to leave or
+ * restart the loop around it and the result of the call for a return. The
+ * nodes do what the instructions the IR compiles to do, in the same order.
+ * <p>
+ * A call which suspends the routine hands the frame to the interpreter at the
+ * CALL instruction of the call. A node which holds values the byte code has on
+ * its eval stack at that point, like the left operand of a binary expression,
+ * adds them to the {@link DefaultEval.Deopt} unwinding it.
+ */
+abstract class SPLTreeNode {
+
+  static final SPLObject BREAK = new SPLObject(null);
+  static final SPLObject CONTINUE = new SPLObject(null);
+
+  // where the IR node starts, a statement which fails points the traceback at it
+  int lineNo;
+  int columnNo;
+
+  abstract SPLObject execute(DefaultEval frame) throws SPLInternalException;
+
+  /**
+   * points the traceback of the frame at this node, the innermost node which
+   * fails is the one the instruction of the traceback is looked up for
+   */
+  SPLInternalException failed(DefaultEval frame, SPLInternalException e) {
+    frame.treeFailed(lineNo, columnNo);
+    return e;
+  }
+
+  /**
+   * the value of node, which the byte code evaluates with below on the eval
+   * stack, a call in node which hands the frame to the interpreter leaves it
+   * there, see {@link DefaultEval.Deopt}
+   */
+  static SPLObject evaluate(SPLTreeNode node, DefaultEval frame, SPLObject below) throws SPLInternalException {
+    try {
+      return node.execute(frame);
+    } catch (DefaultEval.Deopt d) {
+      throw d.below(below);
+    }
+  }
+
+  /**
+   * an operation of two operands, the IR of a binary expression is compiled
+   * to a method reference of the operand, like {@code SPLObject::__xor__}
+   */
+  @FunctionalInterface
+  interface BinaryOp {
+    SPLObject apply(SPLObject lhs, SPLObject rhs) throws SPLInternalException;
+  }
+
+  @FunctionalInterface
+  interface UnaryOp {
+    SPLObject apply(SPLObject o) throws SPLInternalException;
+  }
+
+  static SPLObject bool(boolean b) {
+    return b ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  static SPLObject bool(SPLObject o) {
+    return o == SPLBoolObject.getTrue() ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  static final class Const extends SPLTreeNode {
+    private final SPLObject value;
+
+    Const(SPLObject value) {
+      this.value = value;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) {
+      return value;
+    }
+  }
+
+  static final class LoadFast extends SPLTreeNode {
+    private final int idx;
+    private final SPLStringObject name;
+
+    LoadFast(int idx, SPLStringObject name) {
+      this.idx = idx;
+      this.name = name;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = frame.getFastLocals()[idx];
+      if (o != null) {
+        return o;
+      }
+      frame.treeFailed(lineNo, columnNo);
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + name.__str__() + "\""));
+    }
+  }
+
+  /**
+   * LOAD_GLOBAL, and LOAD_NAME when the fast local of the same index is unset
+   */
+  static final class LoadGlobal extends SPLTreeNode {
+    private final int idx;
+    private final SPLStringObject name;
+    private final boolean local;
+    private final SPLGlobalCache cache = new SPLGlobalCache();
+
+    LoadGlobal(int idx, SPLStringObject name, boolean local) {
+      this.idx = idx;
+      this.name = name;
+      this.local = local;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o;
+      if (local && (o = frame.getFastLocals()[idx]) != null) {
+        return o;
+      }
+      o = cache.load(frame.getGlobals(), name);
+      if (o != null) {
+        return o;
+      }
+      frame.treeFailed(lineNo, columnNo);
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Not find a variable named \"" + name.__str__() + "\""));
+    }
+  }
+
+  static final class LoadBuiltin extends SPLTreeNode {
+    private final int idx;
+
+    LoadBuiltin(int idx) {
+      this.idx = idx;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      try {
+        return frame.loadBuiltin(idx);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class LoadClosure extends SPLTreeNode {
+    private final int idx;
+
+    LoadClosure(int idx) {
+      this.idx = idx;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) {
+      return frame.getClosures()[idx];
+    }
+  }
+
+  static final class Binary extends SPLTreeNode {
+    private final SPLTreeNode lhs;
+    private final SPLTreeNode rhs;
+    private final BinaryOp op;
+
+    Binary(SPLTreeNode lhs, SPLTreeNode rhs, BinaryOp op) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+      this.op = op;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject l = lhs.execute(frame);
+      SPLObject r = evaluate(rhs, frame, l);
+      try {
+        return op.apply(l, r);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  /**
+   * +, - and * and their inplace forms, longs and floats are computed here
+   * like the quickened instructions do
+   */
+  static final class Arithmetic extends SPLTreeNode {
+    static final int ADD = 0;
+    static final int SUB = 1;
+    static final int MUL = 2;
+
+    private final SPLTreeNode lhs;
+    private final SPLTreeNode rhs;
+    private final int kind;
+    private final BinaryOp generic;
+
+    Arithmetic(SPLTreeNode lhs, SPLTreeNode rhs, int kind, BinaryOp generic) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+      this.kind = kind;
+      this.generic = generic;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject l = lhs.execute(frame);
+      SPLObject r = evaluate(rhs, frame, l);
+      if (l instanceof SPLLongObject a && r instanceof SPLLongObject b) {
+        return switch (kind) {
+          case ADD -> SPLLongObject.create(a.getVal() + b.getVal());
+          case SUB -> SPLLongObject.create(a.getVal() - b.getVal());
+          default -> SPLLongObject.create(a.getVal() * b.getVal());
+        };
+      }
+      if (l instanceof SPLFloatObject a && r instanceof SPLFloatObject b) {
+        return switch (kind) {
+          case ADD -> new SPLFloatObject(a.getVal() + b.getVal());
+          case SUB -> new SPLFloatObject(a.getVal() - b.getVal());
+          default -> new SPLFloatObject(a.getVal() * b.getVal());
+        };
+      }
+      try {
+        return generic.apply(l, r);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class Compare extends SPLTreeNode {
+    static final int LT = 0;
+    static final int GT = 1;
+    static final int LE = 2;
+    static final int GE = 3;
+    static final int EQ = 4;
+    static final int NE = 5;
+
+    private final SPLTreeNode lhs;
+    private final SPLTreeNode rhs;
+    private final int kind;
+    private final BinaryOp generic;
+
+    Compare(SPLTreeNode lhs, SPLTreeNode rhs, int kind, BinaryOp generic) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+      this.kind = kind;
+      this.generic = generic;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject l = lhs.execute(frame);
+      SPLObject r = evaluate(rhs, frame, l);
+      if (l instanceof SPLLongObject a && r instanceof SPLLongObject b) {
+        long x = a.getVal();
+        long y = b.getVal();
+        return bool(switch (kind) {
+          case LT -> x < y;
+          case GT -> x > y;
+          case LE -> x <= y;
+          case GE -> x >= y;
+          case EQ -> x == y;
+          default -> x != y;
+        });
+      }
+      try {
+        return bool(generic.apply(l, r));
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  /**
+   * both operands are evaluated, CONDITIONAL_AND takes the right one first
+   */
+  static final class ConditionalAnd extends SPLTreeNode {
+    private final SPLTreeNode lhs;
+    private final SPLTreeNode rhs;
+
+    ConditionalAnd(SPLTreeNode lhs, SPLTreeNode rhs) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject l = lhs.execute(frame);
+      SPLObject r = evaluate(rhs, frame, l);
+      try {
+        return bool(r.__conditionalAnd__(l));
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  /**
+   * the right operand is skipped when the left one is true
+   */
+  static final class ConditionalOr extends SPLTreeNode {
+    private final SPLTreeNode lhs;
+    private final SPLTreeNode rhs;
+
+    ConditionalOr(SPLTreeNode lhs, SPLTreeNode rhs) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject l = lhs.execute(frame);
+      if (l == SPLBoolObject.getTrue()) {
+        return l;
+      }
+      SPLObject r = evaluate(rhs, frame, l);
+      try {
+        return bool(r.__conditionalOr__(l));
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class Unary extends SPLTreeNode {
+    private final SPLTreeNode operand;
+    private final UnaryOp op;
+
+    Unary(SPLTreeNode operand, UnaryOp op) {
+      this.operand = operand;
+      this.op = op;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = operand.execute(frame);
+      try {
+        return op.apply(o);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  /**
+   * the arguments are evaluated from the last to the first and the callable
+   * after them, the order the CALL instruction at pc finds them on the stack
+   */
+  static final class Call extends SPLTreeNode {
+    private final SPLTreeNode callable;
+    private final SPLTreeNode[] args;
+    private final int pc;
+
+    Call(SPLTreeNode callable, SPLTreeNode[] args, int pc) {
+      this.callable = callable;
+      this.args = args;
+      this.pc = pc;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      int n = args.length;
+      SPLObject[] stack = new SPLObject[n];
+      int i = n - 1;
+      SPLObject c;
+      try {
+        for (; i >= 0; i--) {
+          stack[n - 1 - i] = args[i].execute(frame);
+        }
+        c = callable.execute(frame);
+      } catch (DefaultEval.Deopt d) {
+        // the arguments which have been evaluated
+        for (int j = n - 2 - i; j >= 0; j--) {
+          d.below(stack[j]);
+        }
+        throw d;
+      }
+      try {
+        return frame.treeCall(pc, c, stack);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class LoadAttr extends SPLTreeNode {
+    private final SPLTreeNode obj;
+    private final SPLStringObject name;
+    private final boolean method;
+    private final SPLInlineCache cache = new SPLInlineCache();
+
+    LoadAttr(SPLTreeNode obj, SPLStringObject name, boolean method) {
+      this.obj = obj;
+      this.name = name;
+      this.method = method;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = obj.execute(frame);
+      try {
+        return method ? cache.loadMethod(o, name) : cache.loadAttr(o, name);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class Subscribe extends SPLTreeNode {
+    private final SPLTreeNode obj;
+    private final SPLTreeNode sub;
+
+    Subscribe(SPLTreeNode obj, SPLTreeNode sub) {
+      this.obj = obj;
+      this.sub = sub;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = obj.execute(frame);
+      SPLObject s = evaluate(sub, frame, o);
+      try {
+        if (o instanceof SPLListObject l && s instanceof SPLLongObject idx) {
+          return l.get(idx.getVal());
+        }
+        return o.__subscribe__(s);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+    }
+  }
+
+  static final class BuildList extends SPLTreeNode {
+    static final int LIST = 0;
+    static final int SET = 1;
+    static final int MAP = 2;
+
+    private final SPLTreeNode[] items;
+    private final int kind;
+
+    BuildList(SPLTreeNode[] items, int kind) {
+      this.items = items;
+      this.kind = kind;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject[] values = new SPLObject[items.length];
+      for (int i = 0; i < items.length; i++) {
+        try {
+          values[i] = items[i].execute(frame);
+        } catch (DefaultEval.Deopt d) {
+          for (int j = i - 1; j >= 0; j--) {
+            d.below(values[j]);
+          }
+          throw d;
+        }
+      }
+      switch (kind) {
+        case LIST -> {
+          return new SPLListObject(new ArrayList<>(Arrays.asList(values)));
+        }
+        case SET -> {
+          return new SPLSetObject(new HashSet<>(Arrays.asList(values)));
+        }
+        default -> {
+          HashMap<SPLObject, SPLObject> map = new HashMap<>();
+          for (int i = 0; i < values.length; i += 2) {
+            map.put(values[i], values[i + 1]);
+          }
+          return new SPLDictObject(map);
+        }
+      }
+    }
+  }
+
+  // statements
+
+  static final class Block extends SPLTreeNode {
+    private final SPLTreeNode[] statements;
+
+    Block(SPLTreeNode[] statements) {
+      this.statements = statements;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      for (SPLTreeNode statement : statements) {
+        SPLObject res;
+        try {
+          res = statement.execute(frame);
+        } catch (SPLInternalException e) {
+          frame.treeFailed(statement.lineNo, statement.columnNo);
+          throw e;
+        }
+        if (res != null) {
+          return res;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * an expression whose value is dropped
+   */
+  static final class Eval extends SPLTreeNode {
+    private final SPLTreeNode expr;
+
+    Eval(SPLTreeNode expr) {
+      this.expr = expr;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      expr.execute(frame);
+      return null;
+    }
+  }
+
+  static final class StoreFast extends SPLTreeNode {
+    private final int idx;
+    private final SPLTreeNode value;
+
+    StoreFast(int idx, SPLTreeNode value) {
+      this.idx = idx;
+      this.value = value;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      frame.getFastLocals()[idx] = value.execute(frame);
+      return null;
+    }
+  }
+
+  static final class StoreGlobal extends SPLTreeNode {
+    private final int idx;
+    private final SPLTreeNode value;
+
+    StoreGlobal(int idx, SPLTreeNode value) {
+      this.idx = idx;
+      this.value = value;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      frame.storeGlobal(idx, value.execute(frame));
+      return null;
+    }
+  }
+
+  static final class StoreClosure extends SPLTreeNode {
+    private final int idx;
+    private final SPLTreeNode value;
+
+    StoreClosure(int idx, SPLTreeNode value) {
+      this.idx = idx;
+      this.value = value;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      frame.getClosures()[idx] = value.execute(frame);
+      return null;
+    }
+  }
+
+  /**
+   * STORE_ATTR of obj.name = value, the value is op(obj.name, value) for an
+   * inplace operator and obj is evaluated once
+   */
+  static final class StoreAttr extends SPLTreeNode {
+    private final SPLTreeNode obj;
+    private final SPLTreeNode value;
+    private final SPLStringObject name;
+    private final BinaryOp op;
+    private final SPLInlineCache loadCache;
+    private final SPLInlineCache storeCache = new SPLInlineCache();
+
+    StoreAttr(SPLTreeNode obj, SPLTreeNode value, SPLStringObject name, BinaryOp op) {
+      this.obj = obj;
+      this.value = value;
+      this.name = name;
+      this.op = op;
+      loadCache = op == null ? null : new SPLInlineCache();
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = obj.execute(frame);
+      SPLObject v;
+      if (op == null) {
+        v = evaluate(value, frame, o);
+      } else {
+        SPLObject old;
+        try {
+          old = loadCache.loadAttr(o, name);
+        } catch (SPLInternalException e) {
+          throw failed(frame, e);
+        }
+        SPLObject r;
+        try {
+          r = value.execute(frame);
+        } catch (DefaultEval.Deopt d) {
+          throw d.below(old).below(o);
+        }
+        try {
+          v = op.apply(old, r);
+        } catch (SPLInternalException e) {
+          throw failed(frame, e);
+        }
+      }
+      try {
+        storeCache.storeAttr(o, name, v);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * SUBSCRIBE_STORE of obj[sub] = value, like StoreAttr for an inplace operator
+   */
+  static final class SubscribeStore extends SPLTreeNode {
+    private final SPLTreeNode obj;
+    private final SPLTreeNode sub;
+    private final SPLTreeNode value;
+    private final BinaryOp op;
+
+    SubscribeStore(SPLTreeNode obj, SPLTreeNode sub, SPLTreeNode value, BinaryOp op) {
+      this.obj = obj;
+      this.sub = sub;
+      this.value = value;
+      this.op = op;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = obj.execute(frame);
+      SPLObject s = evaluate(sub, frame, o);
+      SPLObject v;
+      if (op == null) {
+        try {
+          v = value.execute(frame);
+        } catch (DefaultEval.Deopt d) {
+          throw d.below(s).below(o);
+        }
+      } else {
+        SPLObject old;
+        try {
+          old = o.__subscribe__(s);
+        } catch (SPLInternalException e) {
+          throw failed(frame, e);
+        }
+        SPLObject r;
+        try {
+          r = value.execute(frame);
+        } catch (DefaultEval.Deopt d) {
+          throw d.below(old).below(s).below(o);
+        }
+        try {
+          v = op.apply(old, r);
+        } catch (SPLInternalException e) {
+          throw failed(frame, e);
+        }
+      }
+      try {
+        o.__setAttr__(s, v);
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * the branches of JUMP_FALSE, everything but false takes the then block
+   */
+  static final class If extends SPLTreeNode {
+    private final SPLTreeNode condition;
+    private final SPLTreeNode thenBlock;
+    private final SPLTreeNode elseBlock;
+
+    If(SPLTreeNode condition, SPLTreeNode thenBlock, SPLTreeNode elseBlock) {
+      this.condition = condition;
+      this.thenBlock = thenBlock;
+      this.elseBlock = elseBlock;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      if (condition.execute(frame) != SPLBoolObject.getFalse()) {
+        return thenBlock.execute(frame);
+      }
+      return elseBlock == null ? null : elseBlock.execute(frame);
+    }
+  }
+
+  /**
+   * a while loop and the loop of a for statement, whose continue runs the
+   * increment, which is null for a while loop
+   */
+  static final class Loop extends SPLTreeNode {
+    private final SPLTreeNode condition;
+    private final SPLTreeNode body;
+    private final SPLTreeNode increment;
+
+    Loop(SPLTreeNode condition, SPLTreeNode body, SPLTreeNode increment) {
+      this.condition = condition;
+      this.body = body;
+      this.increment = increment;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      while (condition.execute(frame) != SPLBoolObject.getFalse()) {
+        SPLObject res = body.execute(frame);
+        if (res == BREAK) {
+          break;
+        }
+        if (res != null && res != CONTINUE) {
+          return res;
+        }
+        if (increment != null) {
+          increment.execute(frame);
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * JUMP_BACK_TRUE only loops on true, a continue goes back to the start of
+   * the body without testing the condition like the jump it compiles to
+   */
+  static final class DoWhile extends SPLTreeNode {
+    private final SPLTreeNode condition;
+    private final SPLTreeNode body;
+
+    DoWhile(SPLTreeNode condition, SPLTreeNode body) {
+      this.condition = condition;
+      this.body = body;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      for (; ; ) {
+        SPLObject res = body.execute(frame);
+        if (res == BREAK) {
+          return null;
+        }
+        if (res == CONTINUE) {
+          continue;
+        }
+        if (res != null) {
+          return res;
+        }
+        if (condition.execute(frame) != SPLBoolObject.getTrue()) {
+          return null;
+        }
+      }
+    }
+  }
+
+  /**
+   * for name in iterable, the item is stored in the fast local idx
+   */
+  static final class ForIn extends SPLTreeNode {
+    private final SPLTreeNode iterable;
+    private final int idx;
+    private final SPLTreeNode body;
+
+    ForIn(SPLTreeNode iterable, int idx, SPLTreeNode body) {
+      this.iterable = iterable;
+      this.idx = idx;
+      this.body = body;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject o = iterable.execute(frame);
+      SPLObject it;
+      try {
+        it = o.__getIterator__();
+      } catch (SPLInternalException e) {
+        throw failed(frame, e);
+      }
+      if (it == null) {
+        frame.treeFailed(lineNo, columnNo);
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException(o.__str__() + " is not an iterator"));
+      }
+      if (!(it instanceof SPLIterator iterator)) {
+        throw new SPLInternalException("NEXT can only be used with iterators");
+      }
+      SPLObject[] fastLocals = frame.getFastLocals();
+      SPLObject next;
+      while ((next = iterator.next()) != SPLStopIteration.getInstance()) {
+        fastLocals[idx] = next;
+        // the iterator stays on the eval stack while the body runs
+        SPLObject res = evaluate(body, frame, it);
+        if (res == BREAK) {
+          break;
+        }
+        if (res != null && res != CONTINUE) {
+          return res;
+        }
+      }
+      return null;
+    }
+  }
+
+  static final class Jump extends SPLTreeNode {
+    private final SPLObject target;
+
+    Jump(SPLObject target) {
+      this.target = target;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) {
+      return target;
+    }
+  }
+
+  static final class Return extends SPLTreeNode {
+    private final SPLTreeNode value;
+
+    Return(SPLTreeNode value) {
+      this.value = value;
+    }
+
+    @Override
+    SPLObject execute(DefaultEval frame) throws SPLInternalException {
+      SPLObject res = value == null ? null : value.execute(frame);
+      // null would let the block go on with the next statement
+      return res == null ? SPLNoneObject.getInstance() : res;
+    }
+  }
+}
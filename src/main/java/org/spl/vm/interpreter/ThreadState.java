@@ -1,13 +1,18 @@
 package org.spl.vm.interpreter;
 
+import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLException;
+import org.spl.vm.exceptions.splexceptions.SPLStackOverflowError;
 import org.spl.vm.internal.objs.SPLFrameObject;
 import org.spl.vm.splroutine.SPLRoutineObject;
 import org.spl.vm.types.SPLCommonType;
 
 public class ThreadState {
 
+  // the calls native code nests on the Java stack of a worker, the Java stack is much smaller than the call stack of a routine
+  static final int MAX_NATIVE_CALLS = 200;
+
   public static ThreadLocal<ThreadState> tss;
 
   static {
@@ -15,6 +20,13 @@ public class ThreadState {
   }
 
   private volatile SPLRoutineObject coroutine;
+  private final SPLFramePool framePool = new SPLFramePool();
+  // the instructions the running routine may still execute before it is preempted
+  private long sliceBudget;
+  // calls entered from native code, a frame under them can not be suspended
+  private int pinned;
+  // calls compiled code runs nested on the Java stack of this worker
+  private int compiledCalls;
 
   public static ThreadState get() {
     ThreadState ts = tss.get();
@@ -30,9 +42,10 @@ public class ThreadState {
   }
 
   public static void clearCurrentCoroutineState() {
-    get().getCurrentRoutine().setExecType(null);
-    get().getCurrentRoutine().setExecVal(null);
-    get().getCurrentRoutine().setTrace(null);
+    SPLRoutineObject routine = get().getCurrentRoutine();
+    routine.setExecType(null);
+    routine.setExecVal(null);
+    routine.setTrace(null);
   }
 
   public static void increaseThreadCallStackSize() throws SPLInternalException {
@@ -49,6 +62,63 @@ public class ThreadState {
     return old;
   }
 
+  public SPLFramePool getFramePool() {
+    return framePool;
+  }
+
+  /**
+   * gives the routine which is resumed next a fresh time slice
+   */
+  public void startSlice(int timeSlice) {
+    sliceBudget = timeSlice;
+  }
+
+  /**
+   * takes the executed instructions from the time slice and tells whether the
+   * routine should give up its worker
+   */
+  public boolean consumeSlice(long executed) {
+    sliceBudget -= executed;
+    return sliceBudget <= 0 && pinned == 0;
+  }
+
+  public long getSliceBudget() {
+    return sliceBudget;
+  }
+
+  /**
+   * a call made by native code can not return a routine marker to its caller,
+   * the frames it runs must not be preempted until {@link #unpin()}. It runs
+   * nested on the Java stack, a stack overflow is raised once
+   * {@link #MAX_NATIVE_CALLS} of them are nested.
+   */
+  public void pin() throws SPLInternalException {
+    if (pinned >= MAX_NATIVE_CALLS) {
+      SPLErrorUtils.splErrorFormat(new SPLStackOverflowError("Call Stack Overflow"));
+    }
+    pinned++;
+  }
+
+  public void unpin() {
+    pinned--;
+  }
+
+  /**
+   * counts a call compiled code runs on the Java stack, false if max calls are
+   * nested already and the call has to go through the loop of the interpreter
+   */
+  boolean enterCompiledCall(int max) {
+    if (compiledCalls >= max) {
+      return false;
+    }
+    compiledCalls++;
+    return true;
+  }
+
+  void exitCompiledCall() {
+    compiledCalls--;
+  }
+
   public SPLRoutineObject getCurrentRoutine() {
     return coroutine;
   }
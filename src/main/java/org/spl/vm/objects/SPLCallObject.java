@@ -29,8 +29,14 @@ public class SPLCallObject extends SPLObject {
       } else {
         return (SPLObject) method.invoke(self, (Object) args);
       }
-    } catch (InvocationTargetException | IllegalAccessException e) {
+    } catch (InvocationTargetException e) {
+      // the error raised by the method is already in the thread state
+      if (e.getCause() instanceof SPLInternalException internal) {
+        throw internal;
+      }
       return SPLErrorUtils.splErrorFormat(new SPLException(e.getCause().getMessage()));
+    } catch (IllegalAccessException e) {
+      return SPLErrorUtils.splErrorFormat(new SPLException(e.getMessage()));
     }
   }
 
@@ -51,6 +57,10 @@ public class SPLCallObject extends SPLObject {
     return new SPLStringObject(toString());
   }
 
+  public Method getMethod() {
+    return method;
+  }
+
   public SPLObject getSelf() {
     return self;
   }
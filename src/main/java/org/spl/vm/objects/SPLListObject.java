@@ -99,15 +99,23 @@ public class SPLListObject extends SPLObject {
   @Override
   public SPLObject __subscribe__(SPLObject args) throws SPLInternalException {
     if (args instanceof SPLLongObject o) {
-      int idx = (int) o.getVal();
-      if (idx < container.size())
-        return container.get(idx);
-      return SPLErrorUtils.splErrorFormat(new SPLOutOfBoundException(
-          String.format("Index %d out of bound %d", idx, container.size())));
+      return get(o.getVal());
     }
     return SPLErrorUtils.splErrorFormat(new SPLTypeError("Index must be integer"));
   }
 
+  public SPLObject get(long val) throws SPLInternalException {
+    int idx = (int) val;
+    if (idx < container.size())
+      return container.get(idx);
+    return SPLErrorUtils.splErrorFormat(new SPLOutOfBoundException(
+        String.format("Index %d out of bound %d", idx, container.size())));
+  }
+
+  public int size() {
+    return container.size();
+  }
+
   @Override
   public SPLCommonIterator __getIterator__() throws SPLInternalException {
     return new SPLCommonIterator(new ArrayList<>(container));
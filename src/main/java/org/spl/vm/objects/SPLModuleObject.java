@@ -1,5 +1,6 @@
 package org.spl.vm.objects;
 
+import org.spl.vm.interpreter.SPLNamespace;
 import org.spl.vm.types.SPLModuleType;
 
 import java.util.Map;
@@ -21,6 +22,8 @@ public class SPLModuleObject extends SPLObject {
   public SPLModuleObject(SPLStringObject name) {
     super(SPLModuleType.getInstance());
     this.name = name;
+    // a module is shared by all routines which import it
+    attrs = new SPLNamespace();
   }
 
   public SPLModuleObject(String name) {
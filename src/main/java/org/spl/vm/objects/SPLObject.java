@@ -9,7 +9,6 @@ import org.spl.vm.exceptions.splexceptions.SPLNotImplemented;
 import org.spl.vm.exceptions.splexceptions.SPLTypeError;
 import org.spl.vm.internal.objs.SPLFuncObject;
 import org.spl.vm.internal.objs.SPLMethodWrapper;
-import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.types.SPLCommonType;
 import org.spl.vm.types.SPLObjectType;
 
@@ -194,27 +193,37 @@ public class SPLObject implements SPLInterface {
 
   @Override
   public SPLObject __getAttr__(SPLObject name) throws SPLInternalException {
+    SPLObject res = findAttr(name);
+    if (res != null) {
+      return res;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("can not find an attribute or method '" + name + "'"));
+  }
+
+  /**
+   * looks up an attribute like {@link #__getAttr__(SPLObject)} but returns null
+   * when there is none, a miss is a normal outcome for the callers which try
+   * other places afterwards and must not cost raising an error
+   */
+  public SPLObject findAttr(SPLObject name) throws SPLInternalException {
     if (attrs.containsKey(name)) {
       return attrs.get(name);
-    } else {
-      // load from this class
-      Class<?> clazz = getClass();
-      while (SPLObject.class.isAssignableFrom(clazz)) {
-        SPLObject res = loadAttributeFromClass(clazz, name);
-        if (res != null) {
-          attrs.put(name, res);
-          return res;
-        }
-        clazz = clazz.getSuperclass();
+    }
+    // load from this class
+    Class<?> clazz = getClass();
+    while (SPLObject.class.isAssignableFrom(clazz)) {
+      SPLObject res = loadAttributeFromClass(clazz, name);
+      if (res != null) {
+        attrs.put(name, res);
+        return res;
       }
+      clazz = clazz.getSuperclass();
     }
-    try {
-      return __getMethod__(name);
-    } catch (Exception ignore) {
-    } finally {
-      ThreadState.clearCurrentCoroutineState();
+    SPLObject res = findMethod(name);
+    if (res != null) {
+      return res;
     }
-    return type.__getAttr__(name);
+    return type == null ? null : type.findAttr(name);
   }
 
   @Override
@@ -238,21 +247,61 @@ public class SPLObject implements SPLInterface {
 
   @Override
   public SPLObject __getMethod__(SPLObject name) throws SPLInternalException {
-    try {
-      SPLObject method = type.__getMethod__(name);
-      if (method instanceof SPLCallObject callable) {
-        callable.setStatic(false);
-        callable.setSelf(this);
-        return callable;
-      } else if (method instanceof SPLFuncObject callable) {
-        return new SPLMethodWrapper(callable, this);
-      } else if (method instanceof SPLStaticMethodWrapper callable) {
-        return callable;
-      }
-    } catch (Exception ignore) {
-      ThreadState.clearCurrentCoroutineState();
+    SPLObject method = findMethod(name);
+    if (method != null) {
+      return method;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("can not find an attribute or method '" + name + "'"));
+  }
+
+  /**
+   * the non raising form of {@link #__getMethod__(SPLObject)}, null if there is
+   * no method named {@code name}
+   */
+  public SPLObject findMethod(SPLObject name) {
+    SPLObject method = bindTypeMethod(getTypeMethod(name));
+    if (method != null) {
+      return method;
     }
     // fall back to self
+    return findInstanceMethod(name);
+  }
+
+  /**
+   * look up a method in the type chain of this object without binding it,
+   * returns null if the type does not provide a callable named {@code name}
+   */
+  public SPLObject getTypeMethod(SPLObject name) {
+    if (type == null) {
+      return null;
+    }
+    SPLObject method = type.findMethod(name);
+    if (method instanceof SPLCallObject || method instanceof SPLFuncObject || method instanceof SPLStaticMethodWrapper) {
+      return method;
+    }
+    return null;
+  }
+
+  public SPLObject bindTypeMethod(SPLObject method) {
+    if (method instanceof SPLCallObject callable) {
+      return new SPLCallObject(callable.getMethod(), this, false);
+    } else if (method instanceof SPLFuncObject callable) {
+      return new SPLMethodWrapper(callable, this);
+    } else if (method instanceof SPLStaticMethodWrapper callable) {
+      return callable;
+    }
+    return null;
+  }
+
+  public SPLObject getInstanceMethod(SPLObject name) throws SPLInternalException {
+    SPLObject method = findInstanceMethod(name);
+    if (method != null) {
+      return method;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("can not find an attribute or method '" + name + "'"));
+  }
+
+  private SPLObject findInstanceMethod(SPLObject name) {
     if (attrs.containsKey(name)) {
       return attrs.get(name);
     }
@@ -266,8 +315,7 @@ public class SPLObject implements SPLInterface {
       }
     } catch (NoSuchMethodException ignore) {
     }
-
-    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("can not find an attribute or method '" + name + "'"));
+    return null;
   }
 
   @SPLExportMethod
@@ -1,11 +1,10 @@
 package org.spl.vm.objects;
 
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
-import org.spl.vm.interfaces.SPLContinuable;
 import org.spl.vm.internal.objs.SPLFuncObject;
 import org.spl.vm.types.SPLStaticMethodWrapperType;
 
-public class SPLStaticMethodWrapper extends SPLObject implements SPLContinuable {
+public class SPLStaticMethodWrapper extends SPLObject {
 
   private final SPLFuncObject func;
 
@@ -18,9 +17,4 @@ public class SPLStaticMethodWrapper extends SPLObject implements SPLContinuable
   public SPLObject __call__(SPLObject... args) throws SPLInternalException {
     return func.__call__(args);
   }
-
-  @Override
-  public SPLObject resume() throws SPLInternalException {
-    return func.resume();
-  }
 }
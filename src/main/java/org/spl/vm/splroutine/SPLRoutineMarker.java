@@ -8,15 +8,23 @@ public class SPLRoutineMarker extends SPLObject {
   public static SPLRoutineMarker PSEUDO_BLOCKED = new SPLRoutineMarker(SPLRoutineMarkerState.BLOCKED, true);
   public static SPLRoutineMarker RUNNING = new SPLRoutineMarker(SPLRoutineMarkerState.RUNNING, true);
   public static SPLRoutineMarker WAITING = new SPLRoutineMarker(SPLRoutineMarkerState.WAITING, true);
+  public static SPLRoutineMarker LOCK_WAITING = new SPLRoutineMarker(SPLRoutineMarkerState.LOCK_WAITING, true);
   public static SPLRoutineMarker TIME_WAITING = new SPLRoutineMarker(SPLRoutineMarkerState.TIME_WAITING, false);
   public static SPLRoutineMarker READY = new SPLRoutineMarker(SPLRoutineMarkerState.READY, true);
   public static SPLRoutineMarker TERMINATED = new SPLRoutineMarker(SPLRoutineMarkerState.TERMINATED, false);
   private final SPLRoutineMarkerState state;
-  private boolean needReCall;
+  private final boolean needReCall;
+  /**
+   * the marker of the same state which asks the caller to call again, markers
+   * are shared by all routines so they are never modified
+   */
+  private final SPLRoutineMarker reCall;
+
   private SPLRoutineMarker(SPLRoutineMarkerState state, boolean needReCall) {
     super(SPLRoutineMarkerType.getInstance());
     this.state = state;
     this.needReCall = needReCall;
+    this.reCall = needReCall ? this : new SPLRoutineMarker(state, true);
   }
 
   public SPLRoutineObject.SPLRoutineState getState() {
@@ -33,6 +41,9 @@ public class SPLRoutineMarker extends SPLObject {
       case TIME_WAITING -> {
         return SPLRoutineObject.SPLRoutineState.TIME_WAITING;
       }
+      case LOCK_WAITING -> {
+        return SPLRoutineObject.SPLRoutineState.LOCK_WAITING;
+      }
       case READY -> {
         return SPLRoutineObject.SPLRoutineState.READY;
       }
@@ -46,8 +57,8 @@ public class SPLRoutineMarker extends SPLObject {
     return needReCall;
   }
 
-  public void setNeedReCall(boolean needReCall) {
-    this.needReCall = needReCall;
+  public SPLRoutineMarker reCall() {
+    return reCall;
   }
 
   public enum SPLRoutineMarkerState {
@@ -56,6 +67,7 @@ public class SPLRoutineMarker extends SPLObject {
     READY,
     WAITING,
     TIME_WAITING,
+    LOCK_WAITING,
     TERMINATED
   }
 }
@@ -1,9 +1,11 @@
 package org.spl.vm.splroutine;
 
 import org.spl.vm.annotations.SPLExportField;
+import org.spl.vm.annotations.SPLExportMethod;
 import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
 import org.spl.vm.exceptions.splexceptions.SPLStackOverflowError;
 import org.spl.vm.interfaces.SPLContinuable;
 import org.spl.vm.internal.objs.SPLFrameObject;
@@ -11,16 +13,35 @@ import org.spl.vm.interpreter.Evaluation;
 import org.spl.vm.interpreter.SPL;
 import org.spl.vm.interpreter.SPLInternalWorld;
 import org.spl.vm.interpreter.SPLTraceBackObject;
+import org.spl.vm.interpreter.ThreadState;
+import org.spl.vm.objects.SPLBoolObject;
+import org.spl.vm.objects.SPLNoneObject;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.objects.SPLStringObject;
 import org.spl.vm.types.SPLCommonType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
 
   public static AtomicInteger nonDaemonRoutineCount = new AtomicInteger(0);
   public static AtomicInteger routineCount = new AtomicInteger(1);
+  /**
+   * the weight of the priorities -20 to 19, a step of one priority is worth
+   * about 10% of the worker time, the same table the nice values of CFS use
+   */
+  private static final int[] WEIGHTS = {
+      88761, 71755, 56483, 46273, 36291,
+      29154, 23254, 18705, 14949, 11916,
+      9548, 7620, 6100, 4904, 3906,
+      3121, 2501, 1991, 1586, 1277,
+      1024, 820, 655, 526, 423,
+      335, 272, 215, 172, 137,
+      110, 87, 70, 56, 45,
+      36, 29, 23, 18, 15
+  };
   @SPLExportField
   private final SPLStringObject name;
   private final SPLContinuable eval;
@@ -32,6 +53,17 @@ public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
   private volatile SPLException execVal;
   private volatile SPLTraceBackObject trace;
   private volatile SPLFrameObject currentFrame;
+  private volatile long wakeUpTime;
+  // the nanoseconds this routine has run, scaled by the weight of its priority
+  private volatile long virtualRuntime;
+  // the operation the routine is blocked on
+  private volatile SPLRoutineWaiter waiter;
+  // the routines joining this one, guarded by this
+  private final List<SPLRoutineWaiter> joiners = new ArrayList<>();
+  // what the routine returned, null if it failed
+  private volatile SPLObject result;
+  private volatile boolean finished;
+
   public SPLRoutineObject(SPLContinuable eval, String name, boolean isDaemon) {
     super(SPLRoutineType.getInstance());
     this.eval = eval;
@@ -85,12 +117,109 @@ public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
       if (res instanceof SPLRoutineMarker marker) {
         return marker.getState();
       }
+      finish(res);
       return state = SPLRoutineState.TERMINATED;
     } catch (SPLInternalException ignore) {
       SPLInternalWorld.splWorld.hasError = true;
       SPL.printStackTrace();
     }
-    return SPLRoutineState.ERROR_OCCURRED;
+    finish(null);
+    return state = SPLRoutineState.ERROR_OCCURRED;
+  }
+
+  /**
+   * keeps the result and wakes up the routines joining this one
+   */
+  private void finish(SPLObject res) {
+    List<SPLRoutineWaiter> waiters;
+    synchronized (this) {
+      result = res;
+      finished = true;
+      waiters = new ArrayList<>(joiners);
+      joiners.clear();
+    }
+    for (SPLRoutineWaiter w : waiters) {
+      if (w.claim()) {
+        w.complete(0, SPLNoneObject.getInstance(), true);
+      }
+    }
+  }
+
+  /**
+   * registers w to be completed once this routine has finished, false if it
+   * already has
+   */
+  public boolean addJoiner(SPLRoutineWaiter w) {
+    synchronized (this) {
+      if (finished) {
+        return false;
+      }
+      joiners.add(w);
+      return true;
+    }
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * join() waits until the routine has finished
+   */
+  @SPLExportMethod
+  public SPLObject join(SPLObject... args) throws SPLInternalException {
+    SPLObject marker = await();
+    return marker != null ? marker : SPLNoneObject.getInstance();
+  }
+
+  /**
+   * result() waits until the routine has finished and returns what its
+   * function returned, it fails if the routine has failed
+   */
+  @SPLExportMethod
+  public SPLObject result(SPLObject... args) throws SPLInternalException {
+    SPLObject marker = await();
+    return marker != null ? marker : getResult();
+  }
+
+  /**
+   * done() tells whether the routine has finished
+   */
+  @SPLExportMethod
+  public SPLObject done(SPLObject... args) {
+    return finished ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  /**
+   * the result of a finished routine or an error if it has failed
+   */
+  public SPLObject getResult() throws SPLInternalException {
+    SPLObject res = result;
+    if (res == null) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException(name.getVal() + " has failed"));
+    }
+    return res;
+  }
+
+  /**
+   * blocks the current routine until this one has finished, returns the marker
+   * the caller has to return or null once it has finished
+   */
+  public SPLObject await() throws SPLInternalException {
+    SPLRoutineObject current = ThreadState.get().getCurrentRoutine();
+    current.takeCompletedWaiter();
+    if (finished) {
+      return null;
+    }
+    if (current == this) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("a routine can not wait for itself"));
+    }
+    SPLRoutineWaiter w = new SPLRoutineWaiter(current);
+    if (!addJoiner(w)) {
+      return null;
+    }
+    current.block(w);
+    return SPLRoutineMarker.PSEUDO_BLOCKED;
   }
 
   @Override
@@ -115,6 +244,22 @@ public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
       priority = 19;
   }
 
+  /**
+   * adds the time the routine has been running on a worker to its virtual run
+   * time, a routine of a lower priority value ages slower
+   */
+  public void charge(long nanos) {
+    virtualRuntime += nanos * WEIGHTS[20] / WEIGHTS[priority + 20];
+  }
+
+  public long getVirtualRuntime() {
+    return virtualRuntime;
+  }
+
+  public void setVirtualRuntime(long virtualRuntime) {
+    this.virtualRuntime = virtualRuntime;
+  }
+
   public SPLContinuable getEval() {
     return eval;
   }
@@ -123,6 +268,10 @@ public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
     return callStackSize;
   }
 
+  public void setCallStackSize(int callStackSize) {
+    this.callStackSize = callStackSize;
+  }
+
   public SPLCommonType getExecType() {
     return execType;
   }
@@ -147,6 +296,43 @@ public class SPLRoutineObject extends SPLObject implements SPLRoutineInterface {
     this.trace = trace;
   }
 
+  /**
+   * the {@link System#nanoTime()} a sleeping routine becomes ready again, it is
+   * only handed to the timer once the routine has been suspended
+   */
+  public long getWakeUpTime() {
+    return wakeUpTime;
+  }
+
+  public void setWakeUpTime(long wakeUpTime) {
+    this.wakeUpTime = wakeUpTime;
+  }
+
+  /**
+   * blocks the routine on waiter, the caller returns
+   * {@link SPLRoutineMarker#PSEUDO_BLOCKED} right after
+   */
+  public void block(SPLRoutineWaiter waiter) {
+    this.waiter = waiter;
+  }
+
+  public SPLRoutineWaiter getWaiter() {
+    return waiter;
+  }
+
+  /**
+   * the operation the routine has been blocked on once it has completed, the
+   * call which blocked takes its result when it is made again
+   */
+  public SPLRoutineWaiter takeCompletedWaiter() {
+    SPLRoutineWaiter w = waiter;
+    if (w != null && w.isDone()) {
+      waiter = null;
+      return w;
+    }
+    return null;
+  }
+
   public SPLFrameObject getCurrentFrame() {
     return currentFrame;
   }
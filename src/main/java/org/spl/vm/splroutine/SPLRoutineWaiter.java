@@ -0,0 +1,85 @@
+package org.spl.vm.splroutine;
+
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The operation a blocked routine waits for. The routine registers it where
+ * the routine which can complete it finds it and returns
+ * {@link SPLRoutineMarker#PSEUDO_BLOCKED}, so its call is made again once it
+ * is woken up and picks up the result. An operation registered at several
+ * places, like a select on several channels, is only claimed by one of them.
+ * The worker parks the routine after it has left it, whichever of the worker
+ * and the completing routine comes second makes it ready again.
+ */
+public class SPLRoutineWaiter {
+
+  private static final int BLOCKING = 0;
+  private static final int PARKED = 1;
+  private static final int DONE = 2;
+
+  private final SPLRoutineObject routine;
+  private final AtomicBoolean claimed;
+  private final AtomicInteger state;
+  private int index;
+  private SPLObject value;
+  private boolean ok;
+
+  public SPLRoutineWaiter(SPLRoutineObject routine) {
+    this.routine = routine;
+    claimed = new AtomicBoolean();
+    state = new AtomicInteger(BLOCKING);
+  }
+
+  public SPLRoutineObject getRoutine() {
+    return routine;
+  }
+
+  /**
+   * takes the right to complete the operation, only one caller gets it
+   */
+  public boolean claim() {
+    return !claimed.get() && claimed.compareAndSet(false, true);
+  }
+
+  /**
+   * hands the result to the routine and wakes it up, index tells which of the
+   * registered operations completed and ok is false if it failed
+   */
+  public void complete(int index, SPLObject value, boolean ok) {
+    this.index = index;
+    this.value = value;
+    this.ok = ok;
+    if (state.getAndSet(DONE) == PARKED) {
+      routine.setState(SPLRoutineObject.SPLRoutineState.READY);
+      SPLInternalWorld.splWorld.addReadyRoutine(routine);
+    }
+  }
+
+  /**
+   * called by the worker after the routine has been suspended, false if the
+   * operation has already completed and the routine has to run again
+   */
+  public boolean park() {
+    return state.compareAndSet(BLOCKING, PARKED);
+  }
+
+  public boolean isDone() {
+    return state.get() == DONE;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public SPLObject getValue() {
+    return value;
+  }
+
+  public boolean isOk() {
+    return ok;
+  }
+}
@@ -0,0 +1,163 @@
+package org.spl.vm.stlib.chan;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interfaces.SPLModuleInterface;
+import org.spl.vm.interpreter.ThreadState;
+import org.spl.vm.objects.SPLListObject;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLModuleObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.splroutine.SPLRoutineMarker;
+import org.spl.vm.splroutine.SPLRoutineObject;
+import org.spl.vm.splroutine.SPLRoutineWaiter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
+  public ModuleMain() {
+    super("chan");
+  }
+
+  /**
+   * make() makes a channel without a buffer, make(n) one which buffers n values
+   */
+  @SPLExportMethod
+  public SPLObject make(SPLObject... args) throws SPLInternalException {
+    if (args.length == 0) {
+      return new SPLChannelObject(0);
+    }
+    if (args.length == 1 && args[0] instanceof SPLLongObject n && n.getVal() >= 0 && n.getVal() <= Integer.MAX_VALUE) {
+      return new SPLChannelObject((int) n.getVal());
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("make requires a non negative long capacity"));
+  }
+
+  /**
+   * unbounded() makes a channel whose sends never block
+   */
+  @SPLExportMethod
+  public SPLObject unbounded(SPLObject... args) throws SPLInternalException {
+    if (args.length != 0) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("unbounded() takes no arguments"));
+    }
+    return new SPLChannelObject(SPLChannelObject.UNBOUNDED);
+  }
+
+  /**
+   * select(cases...) waits until one of the cases can proceed and returns
+   * [index, value]. A channel is a receive and [channel, v] a send of v, the
+   * value of a send is None. A case is taken at random if several are ready.
+   */
+  @SPLExportMethod
+  public SPLObject select(SPLObject... args) throws SPLInternalException {
+    return select(args, true);
+  }
+
+  /**
+   * trySelect(cases...) is select which returns [-1, None] instead of blocking
+   */
+  @SPLExportMethod
+  public SPLObject trySelect(SPLObject... args) throws SPLInternalException {
+    return select(args, false);
+  }
+
+  private SPLObject select(SPLObject[] args, boolean block) throws SPLInternalException {
+    SPLChannelObject[] channels = new SPLChannelObject[args.length];
+    SPLObject[] values = new SPLObject[args.length];
+    for (int i = 0; i < args.length; i++) {
+      if (args[i] instanceof SPLChannelObject c) {
+        channels[i] = c;
+      } else if (args[i] instanceof SPLListObject l && l.size() == 2 && l.get(0) instanceof SPLChannelObject c) {
+        channels[i] = c;
+        values[i] = l.get(1);
+      } else {
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("a case of select is a channel or [channel, value]"));
+      }
+    }
+    SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
+    SPLRoutineWaiter waiter = routine.takeCompletedWaiter();
+    if (waiter != null) {
+      int index = waiter.getIndex();
+      // the other channels still know the cases which have not been taken
+      for (int i = 0; i < channels.length; i++) {
+        if (i != index) {
+          channels[i].dequeue(waiter);
+        }
+      }
+      if (!waiter.isOk()) {
+        return SPLChannelObject.sendOnClosed();
+      }
+      return result(index, waiter.getValue());
+    }
+    if (args.length == 0 && block) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("select() requires at least one case"));
+    }
+    // the channels are locked in the order of their ids, a channel of two cases is locked twice
+    SPLChannelObject[] order = channels.clone();
+    Arrays.sort(order, Comparator.comparingLong(SPLChannelObject::getId));
+    for (SPLChannelObject c : order) {
+      c.getLock().lock();
+    }
+    try {
+      int start = args.length == 0 ? 0 : ThreadLocalRandom.current().nextInt(args.length);
+      for (int k = 0; k < args.length; k++) {
+        int i = (start + k) % args.length;
+        SPLChannelObject c = channels[i];
+        if (values[i] != null) {
+          if (c.isClosed()) {
+            return SPLChannelObject.sendOnClosed();
+          }
+          if (c.offer(values[i])) {
+            return result(i, SPLNoneObject.getInstance());
+          }
+        } else {
+          SPLObject o = c.poll();
+          if (o != null) {
+            return result(i, o);
+          }
+          if (c.isClosed()) {
+            return result(i, SPLNoneObject.getInstance());
+          }
+        }
+      }
+      if (!block) {
+        return result(-1, SPLNoneObject.getInstance());
+      }
+      waiter = new SPLRoutineWaiter(routine);
+      for (int i = 0; i < args.length; i++) {
+        channels[i].enqueue(waiter, i, values[i], values[i] != null);
+      }
+      routine.block(waiter);
+      return SPLRoutineMarker.PSEUDO_BLOCKED;
+    } finally {
+      for (SPLChannelObject c : order) {
+        c.getLock().unlock();
+      }
+    }
+  }
+
+  private SPLObject result(int index, SPLObject value) {
+    List<SPLObject> res = new ArrayList<>(2);
+    res.add(SPLLongObject.create(index));
+    res.add(value);
+    return new SPLListObject(res);
+  }
+
+  @Override
+  public void init() {
+
+  }
+
+  @Override
+  public void destroy() {
+
+  }
+}
@@ -0,0 +1,223 @@
+package org.spl.vm.stlib.chan;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interpreter.ThreadState;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.splroutine.SPLRoutineMarker;
+import org.spl.vm.splroutine.SPLRoutineObject;
+import org.spl.vm.splroutine.SPLRoutineWaiter;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A channel made by chan.make or chan.unbounded. Values are kept in a buffer
+ * of the capacity of the channel, a channel of capacity 0 hands every value
+ * from the sender to the receiver directly. A routine which can not send or
+ * receive is blocked until the routine on the other side completes its
+ * operation, it does not poll.
+ */
+public class SPLChannelObject extends SPLObject {
+
+  public static final int UNBOUNDED = -1;
+  private static final AtomicLong ids = new AtomicLong();
+
+  // the order the channels of a select are locked in
+  private final long id;
+  private final int capacity;
+  private final ArrayDeque<SPLObject> buffer;
+  private final ArrayDeque<Case> receivers;
+  private final ArrayDeque<Case> senders;
+  private final ReentrantLock lock;
+  private boolean closed;
+
+  public SPLChannelObject(int capacity) {
+    super(SPLChannelType.getInstance());
+    id = ids.getAndIncrement();
+    this.capacity = capacity;
+    buffer = new ArrayDeque<>();
+    receivers = new ArrayDeque<>();
+    senders = new ArrayDeque<>();
+    lock = new ReentrantLock();
+  }
+
+  /**
+   * send(v) puts v into the channel, it blocks while the buffer is full or, for
+   * a channel of capacity 0, until a routine receives it
+   */
+  @SPLExportMethod
+  public SPLObject send(SPLObject... args) throws SPLInternalException {
+    if (args.length != 1) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("send() takes exactly one argument"));
+    }
+    SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
+    SPLRoutineWaiter waiter = routine.takeCompletedWaiter();
+    if (waiter != null) {
+      return waiter.isOk() ? SPLNoneObject.getInstance() : sendOnClosed();
+    }
+    lock.lock();
+    try {
+      if (closed) {
+        return sendOnClosed();
+      }
+      if (offer(args[0])) {
+        return SPLNoneObject.getInstance();
+      }
+      waiter = new SPLRoutineWaiter(routine);
+      senders.add(new Case(waiter, 0, args[0]));
+      routine.block(waiter);
+      return SPLRoutineMarker.PSEUDO_BLOCKED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * recv() takes the next value of the channel, it blocks while the channel is
+   * empty and returns None once the channel is closed and drained
+   */
+  @SPLExportMethod
+  public SPLObject recv(SPLObject... args) throws SPLInternalException {
+    if (args.length != 0) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("recv() takes no arguments"));
+    }
+    SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
+    SPLRoutineWaiter waiter = routine.takeCompletedWaiter();
+    if (waiter != null) {
+      return waiter.getValue();
+    }
+    lock.lock();
+    try {
+      SPLObject o = poll();
+      if (o != null) {
+        return o;
+      }
+      if (closed) {
+        return SPLNoneObject.getInstance();
+      }
+      waiter = new SPLRoutineWaiter(routine);
+      receivers.add(new Case(waiter, 0, null));
+      routine.block(waiter);
+      return SPLRoutineMarker.PSEUDO_BLOCKED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * close() wakes up all blocked routines, the receivers get None and the
+   * senders an error, later sends fail too
+   */
+  @SPLExportMethod
+  public SPLObject close(SPLObject... args) throws SPLInternalException {
+    lock.lock();
+    try {
+      if (closed) {
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("close of a closed channel"));
+      }
+      closed = true;
+      Case c;
+      while ((c = receivers.poll()) != null) {
+        if (c.waiter.claim()) {
+          c.waiter.complete(c.index, SPLNoneObject.getInstance(), true);
+        }
+      }
+      while ((c = senders.poll()) != null) {
+        if (c.waiter.claim()) {
+          c.waiter.complete(c.index, SPLNoneObject.getInstance(), false);
+        }
+      }
+      return SPLNoneObject.getInstance();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  static SPLObject sendOnClosed() throws SPLInternalException {
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("send on a closed channel"));
+  }
+
+  /**
+   * hands o to a blocked receiver or puts it into the buffer, false if the
+   * sender has to block. The caller holds the lock.
+   */
+  boolean offer(SPLObject o) {
+    Case c;
+    while ((c = receivers.poll()) != null) {
+      if (c.waiter.claim()) {
+        c.waiter.complete(c.index, o, true);
+        return true;
+      }
+    }
+    if (capacity == UNBOUNDED || buffer.size() < capacity) {
+      buffer.add(o);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * takes the next value from the buffer or a blocked sender, null if the
+   * receiver has to block. The caller holds the lock.
+   */
+  SPLObject poll() {
+    SPLObject o = buffer.poll();
+    Case c;
+    while ((c = senders.poll()) != null) {
+      if (c.waiter.claim()) {
+        if (o == null) {
+          o = c.value;
+        } else {
+          // the value of the sender takes the place which has become free
+          buffer.add(c.value);
+        }
+        c.waiter.complete(c.index, SPLNoneObject.getInstance(), true);
+        break;
+      }
+    }
+    return o;
+  }
+
+  /**
+   * registers case index of a select which blocks. The caller holds the lock.
+   */
+  void enqueue(SPLRoutineWaiter waiter, int index, SPLObject value, boolean send) {
+    (send ? senders : receivers).add(new Case(waiter, index, value));
+  }
+
+  /**
+   * removes the cases of a select which another channel has completed
+   */
+  void dequeue(SPLRoutineWaiter waiter) {
+    lock.lock();
+    try {
+      receivers.removeIf(c -> c.waiter == waiter);
+      senders.removeIf(c -> c.waiter == waiter);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  ReentrantLock getLock() {
+    return lock;
+  }
+
+  /**
+   * a blocked send or receive, value is the value of a send
+   */
+  private record Case(SPLRoutineWaiter waiter, int index, SPLObject value) {
+  }
+}
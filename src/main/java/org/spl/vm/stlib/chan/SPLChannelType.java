@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.chan;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLChannelType extends SPLCommonType {
+  private SPLChannelType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLChannelType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLChannelType INSTANCE = new SPLChannelType(null, "Channel", SPLChannelObject.class);
+  }
+}
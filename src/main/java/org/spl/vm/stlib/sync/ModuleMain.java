@@ -0,0 +1,67 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interfaces.SPLModuleInterface;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLModuleObject;
+import org.spl.vm.objects.SPLObject;
+
+/**
+ * Primitives to synchronize routines. A routine which has to wait is parked,
+ * the worker running it goes on with other routines.
+ */
+public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
+  public ModuleMain() {
+    super("sync");
+  }
+
+  @SPLExportMethod
+  public SPLObject mutex(SPLObject... args) {
+    return new SPLMutexObject();
+  }
+
+  @SPLExportMethod
+  public SPLObject rwlock(SPLObject... args) {
+    return new SPLRWLockObject();
+  }
+
+  /**
+   * semaphore(n) makes a semaphore of n permits
+   */
+  @SPLExportMethod
+  public SPLObject semaphore(SPLObject... args) throws SPLInternalException {
+    if (args.length == 1 && args[0] instanceof SPLLongObject n && n.getVal() >= 0) {
+      return new SPLSemaphoreObject(n.getVal());
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("semaphore requires a non negative long argument"));
+  }
+
+  /**
+   * condition(mutex) makes a condition which waits with mutex locked
+   */
+  @SPLExportMethod
+  public SPLObject condition(SPLObject... args) throws SPLInternalException {
+    if (args.length == 1 && args[0] instanceof SPLMutexObject m) {
+      return new SPLConditionObject(m);
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("condition requires a mutex"));
+  }
+
+  @SPLExportMethod
+  public SPLObject waitGroup(SPLObject... args) {
+    return new SPLWaitGroupObject();
+  }
+
+  @Override
+  public void init() {
+
+  }
+
+  @Override
+  public void destroy() {
+
+  }
+}
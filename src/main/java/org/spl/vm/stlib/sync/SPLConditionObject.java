@@ -0,0 +1,98 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.interpreter.ThreadState;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.splroutine.SPLRoutineMarker;
+import org.spl.vm.splroutine.SPLRoutineObject;
+import org.spl.vm.splroutine.SPLRoutineWaiter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A condition of a mutex made by sync.condition(mutex). A signalled routine is
+ * not woken up but moved to the waiters of the mutex, it runs again once it
+ * holds the mutex.
+ */
+public class SPLConditionObject extends SPLObject {
+
+  private final SPLMutexObject mutex;
+  private final ReentrantLock lock;
+  private final ArrayDeque<SPLRoutineWaiter> waiters;
+
+  public SPLConditionObject(SPLMutexObject mutex) {
+    super(SPLConditionType.getInstance());
+    this.mutex = mutex;
+    lock = new ReentrantLock();
+    waiters = new ArrayDeque<>();
+  }
+
+  /**
+   * wait() unlocks the mutex, waits for a signal and locks the mutex again
+   */
+  @SPLExportMethod
+  public SPLObject wait(SPLObject... args) throws SPLInternalException {
+    SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
+    if (routine.takeCompletedWaiter() != null) {
+      return SPLNoneObject.getInstance();
+    }
+    if (!mutex.isLocked()) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("wait on a condition whose mutex is not locked"));
+    }
+    SPLRoutineWaiter waiter = new SPLRoutineWaiter(routine);
+    // a signal may move the waiter to the mutex as soon as it has been added
+    routine.block(waiter);
+    lock.lock();
+    try {
+      waiters.add(waiter);
+    } finally {
+      lock.unlock();
+    }
+    mutex.unlock();
+    return SPLRoutineMarker.LOCK_WAITING;
+  }
+
+  /**
+   * signal() wakes up the routine waiting longest
+   */
+  @SPLExportMethod
+  public SPLObject signal(SPLObject... args) {
+    SPLRoutineWaiter waiter;
+    lock.lock();
+    try {
+      waiter = waiters.poll();
+    } finally {
+      lock.unlock();
+    }
+    if (waiter != null) {
+      mutex.enqueue(waiter, 0);
+    }
+    return SPLNoneObject.getInstance();
+  }
+
+  /**
+   * broadcast() wakes up all waiting routines
+   */
+  @SPLExportMethod
+  public SPLObject broadcast(SPLObject... args) {
+    List<SPLRoutineWaiter> all;
+    lock.lock();
+    try {
+      all = new ArrayList<>(waiters);
+      waiters.clear();
+    } finally {
+      lock.unlock();
+    }
+    for (SPLRoutineWaiter waiter : all) {
+      mutex.enqueue(waiter, 0);
+    }
+    return SPLNoneObject.getInstance();
+  }
+}
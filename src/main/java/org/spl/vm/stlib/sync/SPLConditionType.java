@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLConditionType extends SPLCommonType {
+  private SPLConditionType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLConditionType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLConditionType INSTANCE = new SPLConditionType(null, "Condition", SPLConditionObject.class);
+  }
+}
@@ -0,0 +1,62 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.objects.SPLBoolObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A mutex made by sync.mutex. It is not owned by a routine, any routine may
+ * unlock it.
+ */
+public class SPLMutexObject extends SPLSyncObject {
+
+  private final AtomicBoolean locked;
+
+  public SPLMutexObject() {
+    super(SPLMutexType.getInstance());
+    locked = new AtomicBoolean();
+  }
+
+  @Override
+  protected boolean tryAcquire(int kind) {
+    return !locked.get() && locked.compareAndSet(false, true);
+  }
+
+  /**
+   * lock() waits until the mutex is unlocked and locks it
+   */
+  @SPLExportMethod
+  public SPLObject lock(SPLObject... args) {
+    return acquireOrPark(0);
+  }
+
+  /**
+   * tryLock() locks the mutex if it is unlocked and tells whether it did
+   */
+  @SPLExportMethod
+  public SPLObject tryLock(SPLObject... args) {
+    return tryAcquire(0) ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  /**
+   * unlock() unlocks the mutex, the routine waiting longest gets it
+   */
+  @SPLExportMethod
+  public SPLObject unlock(SPLObject... args) throws SPLInternalException {
+    if (!locked.compareAndSet(true, false)) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("unlock of an unlocked mutex"));
+    }
+    wakeUpWaiters();
+    return SPLNoneObject.getInstance();
+  }
+
+  boolean isLocked() {
+    return locked.get();
+  }
+}
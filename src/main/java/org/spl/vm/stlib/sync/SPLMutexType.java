@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLMutexType extends SPLCommonType {
+  private SPLMutexType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLMutexType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLMutexType INSTANCE = new SPLMutexType(null, "Mutex", SPLMutexObject.class);
+  }
+}
@@ -0,0 +1,81 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock made by sync.rwlock, held by any number of readers or one writer. A
+ * reader does not pass a waiting writer, so writers are not starved.
+ */
+public class SPLRWLockObject extends SPLSyncObject {
+
+  private static final int READ = 0;
+  private static final int WRITE = 1;
+
+  // the number of readers, -1 while a writer holds the lock
+  private final AtomicInteger state;
+
+  public SPLRWLockObject() {
+    super(SPLRWLockType.getInstance());
+    state = new AtomicInteger();
+  }
+
+  @Override
+  protected boolean tryAcquire(int kind) {
+    if (kind == WRITE) {
+      return state.get() == 0 && state.compareAndSet(0, -1);
+    }
+    int s;
+    while ((s = state.get()) >= 0) {
+      if (state.compareAndSet(s, s + 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * lock() waits until no routine holds the lock and takes it for writing
+   */
+  @SPLExportMethod
+  public SPLObject lock(SPLObject... args) {
+    return acquireOrPark(WRITE);
+  }
+
+  @SPLExportMethod
+  public SPLObject unlock(SPLObject... args) throws SPLInternalException {
+    if (!state.compareAndSet(-1, 0)) {
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("unlock of a rwlock which is not locked for writing"));
+    }
+    wakeUpWaiters();
+    return SPLNoneObject.getInstance();
+  }
+
+  /**
+   * rlock() waits until no writer holds or waits for the lock and takes it for
+   * reading
+   */
+  @SPLExportMethod
+  public SPLObject rlock(SPLObject... args) {
+    return acquireOrPark(READ);
+  }
+
+  @SPLExportMethod
+  public SPLObject runlock(SPLObject... args) throws SPLInternalException {
+    int s;
+    do {
+      s = state.get();
+      if (s <= 0) {
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("runlock of a rwlock which is not locked for reading"));
+      }
+    } while (!state.compareAndSet(s, s - 1));
+    wakeUpWaiters();
+    return SPLNoneObject.getInstance();
+  }
+}
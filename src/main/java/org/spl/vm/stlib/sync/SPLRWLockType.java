@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLRWLockType extends SPLCommonType {
+  private SPLRWLockType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLRWLockType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLRWLockType INSTANCE = new SPLRWLockType(null, "RWLock", SPLRWLockObject.class);
+  }
+}
@@ -0,0 +1,58 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.objects.SPLBoolObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counting semaphore made by sync.semaphore(n)
+ */
+public class SPLSemaphoreObject extends SPLSyncObject {
+
+  private final AtomicLong permits;
+
+  public SPLSemaphoreObject(long permits) {
+    super(SPLSemaphoreType.getInstance());
+    this.permits = new AtomicLong(permits);
+  }
+
+  @Override
+  protected boolean tryAcquire(int kind) {
+    long p;
+    while ((p = permits.get()) > 0) {
+      if (permits.compareAndSet(p, p - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * acquire() waits until a permit is available and takes it
+   */
+  @SPLExportMethod
+  public SPLObject acquire(SPLObject... args) {
+    return acquireOrPark(0);
+  }
+
+  /**
+   * tryAcquire() takes a permit if one is available and tells whether it did
+   */
+  @SPLExportMethod
+  public SPLObject tryAcquire(SPLObject... args) {
+    return tryAcquire(0) ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+
+  /**
+   * release() returns a permit, it goes to the routine waiting longest
+   */
+  @SPLExportMethod
+  public SPLObject release(SPLObject... args) {
+    permits.incrementAndGet();
+    wakeUpWaiters();
+    return SPLNoneObject.getInstance();
+  }
+}
@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLSemaphoreType extends SPLCommonType {
+  private SPLSemaphoreType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLSemaphoreType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLSemaphoreType INSTANCE = new SPLSemaphoreType(null, "Semaphore", SPLSemaphoreObject.class);
+  }
+}
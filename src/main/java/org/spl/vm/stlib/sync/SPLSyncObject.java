@@ -0,0 +1,137 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.interpreter.ThreadState;
+import org.spl.vm.objects.SPLDictObject;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLStringObject;
+import org.spl.vm.splroutine.SPLRoutineMarker;
+import org.spl.vm.splroutine.SPLRoutineObject;
+import org.spl.vm.splroutine.SPLRoutineWaiter;
+import org.spl.vm.types.SPLCommonType;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of routines waiting for a primitive of the sync module. The state
+ * of a primitive is an atomic which tryAcquire changes with a CAS, a routine
+ * only takes the lock of the queue if that fails. A routine which can not
+ * acquire is parked in LOCK_WAITING, the routine which releases completes its
+ * waiter once the primitive has been acquired for it, so the call is made
+ * again holding it. The waiters are served in order.
+ */
+public abstract class SPLSyncObject extends SPLObject {
+
+  private final ReentrantLock lock;
+  private final ArrayDeque<Waiter> queue;
+  private final AtomicLong acquires;
+  private final AtomicLong contentions;
+  // the size of queue, only written under lock
+  private volatile int queued;
+
+  protected SPLSyncObject(SPLCommonType type) {
+    super(type);
+    lock = new ReentrantLock();
+    queue = new ArrayDeque<>();
+    acquires = new AtomicLong();
+    contentions = new AtomicLong();
+  }
+
+  /**
+   * changes the state for a waiter of kind, false if it has to wait
+   */
+  protected abstract boolean tryAcquire(int kind);
+
+  /**
+   * acquires for the current routine, the returned marker parks it if it has
+   * to wait
+   */
+  protected SPLObject acquireOrPark(int kind) {
+    SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
+    // the call is made again once the routine has been woken up
+    if (routine.takeCompletedWaiter() != null) {
+      return SPLNoneObject.getInstance();
+    }
+    // the routines which are already waiting go first
+    if (queued == 0 && tryAcquire(kind)) {
+      acquires.incrementAndGet();
+      return SPLNoneObject.getInstance();
+    }
+    SPLRoutineWaiter waiter = new SPLRoutineWaiter(routine);
+    enqueue(waiter, kind);
+    if (waiter.isDone()) {
+      return SPLNoneObject.getInstance();
+    }
+    routine.block(waiter);
+    return SPLRoutineMarker.LOCK_WAITING;
+  }
+
+  /**
+   * adds a waiter which is completed once the primitive has been acquired for
+   * it, it may already be completed when this returns
+   */
+  void enqueue(SPLRoutineWaiter waiter, int kind) {
+    lock.lock();
+    try {
+      contentions.incrementAndGet();
+      queue.add(new Waiter(waiter, kind));
+      queued = queue.size();
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * wakes up the waiters which can acquire now, called after the state has
+   * been changed
+   */
+  protected void wakeUpWaiters() {
+    // a waiter is queued before it tries again, so one of both sees the other
+    if (queued > 0) {
+      lock.lock();
+      try {
+        dispatch();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * the caller holds the lock
+   */
+  private void dispatch() {
+    Waiter w;
+    while ((w = queue.peek()) != null && tryAcquire(w.kind)) {
+      queue.poll();
+      acquires.incrementAndGet();
+      if (w.waiter.claim()) {
+        w.waiter.complete(0, SPLNoneObject.getInstance(), true);
+      }
+    }
+    queued = queue.size();
+  }
+
+  /**
+   * stats() returns how often the primitive has been acquired, how often a
+   * routine had to wait for it and how many routines are waiting now
+   */
+  @SPLExportMethod
+  public SPLObject stats(SPLObject... args) {
+    Map<SPLObject, SPLObject> stats = new HashMap<>();
+    stats.put(new SPLStringObject("acquires"), SPLLongObject.create(acquires.get()));
+    stats.put(new SPLStringObject("contentions"), SPLLongObject.create(contentions.get()));
+    stats.put(new SPLStringObject("waiting"), SPLLongObject.create(queued));
+    return new SPLDictObject(stats);
+  }
+
+  private record Waiter(SPLRoutineWaiter waiter, int kind) {
+  }
+}
@@ -0,0 +1,69 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.SPLErrorUtils;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLNoneObject;
+import org.spl.vm.objects.SPLObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A wait group made by sync.waitGroup, wait() blocks until the counter drops
+ * to 0 and then wakes up all waiting routines at once
+ */
+public class SPLWaitGroupObject extends SPLSyncObject {
+
+  private final AtomicLong counter;
+
+  public SPLWaitGroupObject() {
+    super(SPLWaitGroupType.getInstance());
+    counter = new AtomicLong();
+  }
+
+  @Override
+  protected boolean tryAcquire(int kind) {
+    return counter.get() == 0;
+  }
+
+  /**
+   * add(n) adds n to the counter, n may be negative
+   */
+  @SPLExportMethod
+  public SPLObject add(SPLObject... args) throws SPLInternalException {
+    if (args.length == 1 && args[0] instanceof SPLLongObject n) {
+      return add(n.getVal());
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("add requires a long argument"));
+  }
+
+  /**
+   * done() subtracts 1 from the counter
+   */
+  @SPLExportMethod
+  public SPLObject done(SPLObject... args) throws SPLInternalException {
+    return add(-1);
+  }
+
+  /**
+   * wait() waits until the counter is 0
+   */
+  @SPLExportMethod
+  public SPLObject wait(SPLObject... args) {
+    return acquireOrPark(0);
+  }
+
+  private SPLObject add(long n) throws SPLInternalException {
+    long c = counter.addAndGet(n);
+    if (c < 0) {
+      counter.addAndGet(-n);
+      return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("negative counter of a wait group"));
+    }
+    if (c == 0) {
+      wakeUpWaiters();
+    }
+    return SPLNoneObject.getInstance();
+  }
+}
@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.sync;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLWaitGroupType extends SPLCommonType {
+  private SPLWaitGroupType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLWaitGroupType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLWaitGroupType INSTANCE = new SPLWaitGroupType(null, "WaitGroup", SPLWaitGroupObject.class);
+  }
+}
@@ -5,7 +5,8 @@ import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
 import org.spl.vm.interfaces.SPLModuleInterface;
-import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.internal.objs.SPLFuncObject;
+import org.spl.vm.internal.objs.SPLMethodWrapper;
 import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.SPLLongObject;
 import org.spl.vm.objects.SPLModuleObject;
@@ -25,8 +26,7 @@ public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
       SPLObject arg = args[0];
       if (arg instanceof SPLLongObject l) {
         SPLRoutineObject routine = ThreadState.get().getCurrentRoutine();
-        SPLInternalWorld.splWorld.addTimeWaitingRoutine(routine, l.getVal() + System.currentTimeMillis());
-        SPLRoutineMarker.TIME_WAITING.setNeedReCall(false);
+        routine.setWakeUpTime(System.nanoTime() + l.getVal() * 1_000_000);
         return SPLRoutineMarker.TIME_WAITING;
       }
       return SPLNoneObject.getInstance();
@@ -34,6 +34,41 @@ public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
     return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("sleep requires a long argument"));
   }
 
+  /**
+   * after(ms, fn, args...) calls fn with args in a new routine once ms
+   * milliseconds have passed, the returned timer can be cancelled before
+   */
+  @SPLExportMethod
+  public SPLObject after(SPLObject... args) throws SPLInternalException {
+    return startTimer(args, false);
+  }
+
+  /**
+   * every(ms, fn, args...) calls fn with args in a new routine every ms
+   * milliseconds until the returned timer is cancelled, a pending timer keeps
+   * the program running
+   */
+  @SPLExportMethod
+  public SPLObject every(SPLObject... args) throws SPLInternalException {
+    return startTimer(args, true);
+  }
+
+  private SPLObject startTimer(SPLObject[] args, boolean periodic) throws SPLInternalException {
+    if (args.length >= 2 && args[0] instanceof SPLLongObject ms
+        && (args[1] instanceof SPLFuncObject || args[1] instanceof SPLMethodWrapper)) {
+      if (ms.getVal() < (periodic ? 1 : 0)) {
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Invalid interval of a timer: " + ms.getVal()));
+      }
+      SPLObject[] fnArgs = new SPLObject[args.length - 2];
+      System.arraycopy(args, 2, fnArgs, 0, args.length - 2);
+      long nanos = ms.getVal() * 1_000_000;
+      SPLTimerObject timer = new SPLTimerObject(args[1], fnArgs, nanos, periodic ? nanos : 0);
+      timer.start();
+      return timer;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("a timer requires a long interval and a function"));
+  }
+
   @Override
   public void init() {
 
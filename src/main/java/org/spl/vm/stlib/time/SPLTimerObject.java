@@ -0,0 +1,85 @@
+package org.spl.vm.stlib.time;
+
+import org.spl.vm.annotations.SPLExportMethod;
+import org.spl.vm.exceptions.jexceptions.SPLInternalException;
+import org.spl.vm.internal.objs.SPLFuncObject;
+import org.spl.vm.internal.objs.SPLMethodWrapper;
+import org.spl.vm.interpreter.DefaultEval;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.interpreter.SPLTimerWheel;
+import org.spl.vm.objects.SPLBoolObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.splroutine.SPLRoutineObject;
+
+/**
+ * A timer created by time.after or time.every. Nothing runs while it is
+ * pending, every time it expires the function is called in a new routine and
+ * a periodic timer is scheduled again for the next period.
+ */
+public class SPLTimerObject extends SPLObject implements SPLTimerWheel.Task {
+
+  // a function or a bound method
+  private final SPLObject func;
+  private final SPLObject[] args;
+  // the period in nanoseconds, 0 for a timer which expires once
+  private final long period;
+  private long deadline;
+  // the frame of the next call, the first one checks the arguments
+  private DefaultEval frame;
+  private volatile SPLTimerWheel.Timeout timeout;
+  private volatile boolean cancelled;
+
+  public SPLTimerObject(SPLObject func, SPLObject[] args, long delay, long period) throws SPLInternalException {
+    super(SPLTimerType.getInstance());
+    this.func = func;
+    this.args = args;
+    this.period = period;
+    frame = buildEval();
+    deadline = System.nanoTime() + delay;
+  }
+
+  public void start() {
+    timeout = SPLInternalWorld.splWorld.schedule(this, deadline);
+  }
+
+  @Override
+  public SPLRoutineObject expire() {
+    int routineCount = SPLRoutineObject.getRoutineCount();
+    SPLRoutineObject.increaseRoutineCount();
+    SPLRoutineObject routine = new SPLRoutineObject(frame, "SPLRoutine-" + routineCount);
+    routine.setState(SPLRoutineObject.SPLRoutineState.READY);
+    if (period > 0 && !cancelled) {
+      try {
+        frame = buildEval();
+      } catch (SPLInternalException e) {
+        throw new IllegalStateException("arguments of a timer have been checked when it was created", e);
+      }
+      deadline += period;
+      timeout = SPLInternalWorld.splWorld.schedule(this, deadline);
+    }
+    return routine;
+  }
+
+  private DefaultEval buildEval() throws SPLInternalException {
+    if (func instanceof SPLMethodWrapper m) {
+      return m.buildEval(args);
+    }
+    return ((SPLFuncObject) func).buildEval(args);
+  }
+
+  /**
+   * stops the timer, returns whether it was still pending
+   */
+  @SPLExportMethod
+  public SPLObject cancel(SPLObject... args) {
+    cancelled = true;
+    SPLTimerWheel.Timeout t = timeout;
+    boolean pending = SPLInternalWorld.splWorld.cancel(t);
+    // an expiry which held the lock of the world before cancelled was set has
+    // scheduled the next period, a later one sees cancelled
+    if (timeout != t) {
+      pending |= SPLInternalWorld.splWorld.cancel(timeout);
+    }
+    return pending ? SPLBoolObject.getTrue() : SPLBoolObject.getFalse();
+  }
+}
@@ -0,0 +1,18 @@
+package org.spl.vm.stlib.time;
+
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.types.SPLCommonType;
+
+public class SPLTimerType extends SPLCommonType {
+  private SPLTimerType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
+    super(type, name, clazz);
+  }
+
+  public static SPLTimerType getInstance() {
+    return SelfHolder.INSTANCE;
+  }
+
+  private static class SelfHolder {
+    public static final SPLTimerType INSTANCE = new SPLTimerType(null, "Timer", SPLTimerObject.class);
+  }
+}
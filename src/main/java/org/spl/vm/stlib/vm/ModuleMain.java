@@ -6,11 +6,18 @@ import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLRuntimeException;
 import org.spl.vm.interfaces.SPLModuleInterface;
 import org.spl.vm.internal.objs.SPLFuncObject;
+import org.spl.vm.interpreter.DefaultEval;
 import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.objects.SPLListObject;
+import org.spl.vm.objects.SPLLongObject;
 import org.spl.vm.objects.SPLModuleObject;
+import org.spl.vm.objects.SPLNoneObject;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.splroutine.SPLRoutineObject;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
   public ModuleMain() {
     super("vm");
@@ -31,13 +38,13 @@ public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
     if (args.length >= 1) {
       SPLObject arg = args[0];
       if (arg instanceof SPLFuncObject f) {
-        f = new SPLFuncObject(f);
         SPLObject[] newArgs = new SPLObject[args.length - 1];
         System.arraycopy(args, 1, newArgs, 0, args.length - 1);
-        f.buildEval(newArgs);
+        // every routine gets a frame of its own, the function object is shared
+        DefaultEval frame = f.buildEval(newArgs);
         int routineCount = SPLRoutineObject.getRoutineCount();
         SPLRoutineObject.increaseRoutineCount();
-        SPLRoutineObject routine = new SPLRoutineObject(f, "SPLRoutine-" + routineCount);
+        SPLRoutineObject routine = new SPLRoutineObject(frame, "SPLRoutine-" + routineCount);
         routine.setState(SPLRoutineObject.SPLRoutineState.READY);
         SPLInternalWorld.splWorld.addReadyRoutine(routine);
         return routine;
@@ -45,4 +52,42 @@ public class ModuleMain extends SPLModuleObject implements SPLModuleInterface {
     }
     return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("Invalid arguments to spawn a new routine"));
   }
+
+  /**
+   * setPriority(routine, n) sets the priority of a routine, it is clamped to
+   * [-20, 19] and a lower value gets a larger share of the workers
+   */
+  @SPLExportMethod
+  public SPLObject setPriority(SPLObject... args) throws SPLInternalException {
+    if (args.length == 2 && args[0] instanceof SPLRoutineObject routine && args[1] instanceof SPLLongObject n) {
+      routine.setPriority((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, n.getVal())));
+      return SPLNoneObject.getInstance();
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("setPriority requires a routine and a long priority"));
+  }
+
+  /**
+   * gather(routines...) waits until all routines have finished and returns the
+   * list of their results, it fails if one of them has failed
+   */
+  @SPLExportMethod
+  public SPLObject gather(SPLObject... args) throws SPLInternalException {
+    for (SPLObject arg : args) {
+      if (!(arg instanceof SPLRoutineObject)) {
+        return SPLErrorUtils.splErrorFormat(new SPLRuntimeException("gather requires routines"));
+      }
+    }
+    // waits for one routine at a time, the call is made again once it has finished
+    for (SPLObject arg : args) {
+      SPLObject marker = ((SPLRoutineObject) arg).await();
+      if (marker != null) {
+        return marker;
+      }
+    }
+    List<SPLObject> results = new ArrayList<>(args.length);
+    for (SPLObject arg : args) {
+      results.add(((SPLRoutineObject) arg).getResult());
+    }
+    return new SPLListObject(results);
+  }
 }
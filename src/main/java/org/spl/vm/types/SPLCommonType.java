@@ -6,13 +6,12 @@ import org.spl.vm.exceptions.SPLErrorUtils;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.exceptions.splexceptions.SPLAttributeError;
 import org.spl.vm.internal.objs.SPLFuncObject;
-import org.spl.vm.interpreter.ThreadState;
 import org.spl.vm.objects.SPLCallObject;
 import org.spl.vm.objects.SPLObject;
 import org.spl.vm.objects.SPLStaticMethodWrapper;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SPLCommonType extends SPLObject {
 
@@ -20,13 +19,21 @@ public class SPLCommonType extends SPLObject {
   protected final Class<? extends SPLObject> clazz;
   @SPLExportField
   protected SPLCommonType base;
+  /**
+   * bumped whenever the attributes or bound methods of this type change,
+   * inline caches compare it with {@link #getVersion()} before using a
+   * resolved attribute
+   */
+  private volatile long version;
 
   public SPLCommonType(SPLCommonType type, String name, Class<? extends SPLObject> clazz) {
     super(type);
     base = SPLObjectType.getInstance();
     this.name = name;
     this.clazz = clazz;
-    methods = new HashMap<>();
+    // types are shared by all workers and fill their caches lazily
+    attrs = new ConcurrentHashMap<>();
+    methods = new ConcurrentHashMap<>();
   }
 
   public static boolean isExecMatch(SPLObject o1, SPLCommonType o2) {
@@ -44,6 +51,22 @@ public class SPLCommonType extends SPLObject {
     return base;
   }
 
+  /**
+   * the version of this type together with all of its bases, every change in
+   * the chain makes the sum grow so a stale value never matches again
+   */
+  public long getVersion() {
+    long v = version;
+    for (SPLCommonType t = base; t != null; t = t.base) {
+      v += t.version;
+    }
+    return v;
+  }
+
+  protected synchronized void modified() {
+    version++;
+  }
+
   public String getName() {
     return name;
   }
@@ -58,32 +81,62 @@ public class SPLCommonType extends SPLObject {
   }
 
   private SPLObject getFromCache(SPLObject name) {
-    if (methods.containsKey(name)) {
-      Object method = methods.get(name);
-      if (method instanceof Method m) {
-        return new SPLCallObject(m, null, true);
-      } else if (method instanceof SPLFuncObject func) {
-        return func;
-      }
+    Object method = methods.get(name);
+    if (method instanceof Method m) {
+      return new SPLCallObject(m, null, true);
+    } else if (method instanceof SPLFuncObject func) {
+      return func;
     }
     return null;
   }
 
+  @Override
+  public SPLObject __setAttr__(SPLObject name, SPLObject value) throws SPLInternalException {
+    SPLObject res = super.__setAttr__(name, value);
+    modified();
+    return res;
+  }
+
+  @Override
+  @SPLExportMethod
+  public SPLObject bind(SPLObject... args) throws SPLInternalException {
+    SPLObject res = super.bind(args);
+    modified();
+    return res;
+  }
+
   @Override
   public SPLObject __getAttr__(SPLObject name) throws SPLInternalException {
-    try {
-      return super.__getAttr__(name);
-    } catch (Exception ignore) {
-    } finally {
-      ThreadState.clearCurrentCoroutineState();
+    SPLObject res = findAttr(name);
+    if (res != null) {
+      return res;
     }
-    if (base != null)
-      return base.__getAttr__(name);
     return SPLErrorUtils.splErrorFormat(new SPLAttributeError("Not found an attribute or method  named '" + name + "'"));
   }
 
+  @Override
+  public SPLObject findAttr(SPLObject name) throws SPLInternalException {
+    SPLObject res = super.findAttr(name);
+    if (res == null && base != null) {
+      res = base.findAttr(name);
+    }
+    return res;
+  }
+
   @Override
   public SPLObject __getMethod__(SPLObject name) throws SPLInternalException {
+    SPLObject res = findMethod(name);
+    if (res != null) {
+      return res;
+    }
+    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("Not found an attribute or method  named '" + name + "'"));
+  }
+
+  /**
+   * looks up a method in this type and its bases, null if none of them has one
+   */
+  @Override
+  public SPLObject findMethod(SPLObject name) {
     if (attrs != null && attrs.containsKey(name)) {
       SPLObject func = attrs.get(name);
       if (func instanceof SPLFuncObject || func instanceof SPLStaticMethodWrapper) {
@@ -102,12 +155,12 @@ public class SPLCommonType extends SPLObject {
     }
     // check super class only single inheritance allowed in SPL
     if (base != null) { // SPLObjectType's type is null
-      res = base.__getMethod__(name);
+      res = base.findMethod(name);
       if (res != null) {
         methods.put(name, res);
         return res;
       }
     }
-    return SPLErrorUtils.splErrorFormat(new SPLAttributeError("Not found an attribute or method  named '" + name + "'"));
+    return null;
   }
 }
@@ -1,9 +1,12 @@
 package org.spl.compiler.compiler;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.spl.compiler.exceptions.SPLSyntaxError;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInlineCache;
+import org.spl.vm.interpreter.SPLOpcodeProfile;
 
 import java.io.IOException;
 
@@ -68,4 +71,22 @@ public class ObjectSystemTest {
     spl.dis();
     spl.run();
   }
+
+  @Test
+  public void testInlineCache() throws SPLSyntaxError, IOException {
+    long hits = SPLInlineCache.getTotalHits();
+    SPL spl = new SPL("object/inlinecache.spl");
+    spl.dis();
+    spl.run();
+    // the hits are only counted by a profile
+    Assertions.assertEquals(hits, SPLInlineCache.getTotalHits());
+    SPLOpcodeProfile.setEnabled(true);
+    try {
+      new SPL("object/inlinecache.spl").run();
+    } finally {
+      SPLOpcodeProfile.setEnabled(false);
+      SPLOpcodeProfile.clear();
+    }
+    Assertions.assertTrue(SPLInlineCache.getTotalHits() > hits);
+  }
 }
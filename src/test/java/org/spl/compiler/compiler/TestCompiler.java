@@ -1,5 +1,6 @@
 package org.spl.compiler.compiler;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.spl.compiler.bytecode.Instruction;
 import org.spl.compiler.exceptions.SPLSyntaxError;
@@ -14,6 +15,9 @@ import org.spl.vm.internal.utils.Dissembler;
 import org.spl.vm.interpreter.DefaultEval;
 import org.spl.vm.interpreter.Evaluation;
 import org.spl.vm.interpreter.SPL;
+import org.spl.vm.objects.SPLLongObject;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLStringObject;
 
 import java.io.IOException;
 import java.net.URL;
@@ -39,11 +43,28 @@ public class TestCompiler {
     run("controlflow/if.spl");
   }
 
+  @Test
+  public void testIfElse() throws SPLSyntaxError, IOException {
+    // the false branch jumped onto the jump over the else block
+    Assertions.assertEquals(2, runForLong("controlflow/ifelse.spl", "done"));
+  }
+
   @Test
   public void testCondition() throws SPLSyntaxError, IOException, SPLInternalException {
     run("controlflow/condition.spl");
   }
 
+  /**
+   * runs filename and returns the long its global name is bound to
+   */
+  private long runForLong(String filename, String name) throws SPLSyntaxError, IOException {
+    SPL spl = new SPL(getResource(filename));
+    spl.run();
+    SPLObject value = spl.getFrame().getGlobals().get(new SPLStringObject(name));
+    Assertions.assertInstanceOf(SPLLongObject.class, value, name);
+    return ((SPLLongObject) value).getVal();
+  }
+
   public DefaultEval run(String filename) throws SPLSyntaxError, IOException, SPLInternalException {
     filename = getResource(filename);
     SPL spl = new SPL(filename);
@@ -61,6 +82,11 @@ public class TestCompiler {
     run("controlflow/while.spl");
   }
 
+  @Test
+  public void testLongLoop() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("controlflow/longloop.spl");
+  }
+
   @Test
   public void testDoWhile() throws SPLInternalException, SPLSyntaxError, IOException {
     run("controlflow/dowhile.spl");
@@ -81,6 +107,12 @@ public class TestCompiler {
     run("controlflow/for.spl");
   }
 
+  @Test
+  public void testFarFor() throws SPLSyntaxError, IOException {
+    // the false condition jumped into the JUMP_ABSOLUTE after the loop and the run stopped
+    Assertions.assertEquals(10, runForLong("controlflow/farfor.spl", "done"));
+  }
+
   @Test
   public void testFunctionDef() throws SPLInternalException, SPLSyntaxError, IOException {
     run("function/basic.spl");
@@ -114,6 +146,29 @@ public class TestCompiler {
     run("function/default03.spl");
   }
 
+  @Test
+  public void testFastLocals() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("function/fastlocals.spl");
+  }
+
+  @Test
+  public void testGlobalCache() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("function/globalcache.spl");
+  }
+
+  @Test
+  public void testQuicken() throws SPLInternalException, SPLSyntaxError, IOException {
+    SPL spl = new SPL("function/quicken.spl");
+    spl.run();
+    Assertions.assertTrue(spl.getCode().isQuickened());
+    spl.dis();
+  }
+
+  @Test
+  public void testFramePool() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("function/framepool.spl");
+  }
+
   @Test
   public void testAnonymous01() throws SPLInternalException, SPLSyntaxError, IOException {
     run("function/anonymous01.spl");
@@ -258,6 +313,34 @@ public class TestCompiler {
     run("try/try04.spl");
   }
 
+  @Test
+  public void testTry05() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("try/try05.spl");
+  }
+
+  @Test
+  public void testTry06() throws SPLInternalException, SPLSyntaxError, IOException {
+    run("try/try06.spl");
+  }
+
+  @Test
+  public void testTryInLoop() throws SPLSyntaxError, IOException {
+    // the operand left by the failed division broke the NEXT of the second iteration
+    Assertions.assertEquals(3, runForLong("try/tryloop.spl", "done"));
+  }
+
+  @Test
+  public void testCaughtErrorDepth() throws SPLSyntaxError, IOException {
+    // every error caught by the caller left a level of the call stack behind
+    Assertions.assertEquals(300, runForLong("try/trydepth.spl", "done"));
+  }
+
+  @Test
+  public void testUnwind() throws SPLSyntaxError, IOException {
+    // the error is handed from frame to frame as a pending error, past try blocks which do not cover the call
+    Assertions.assertEquals(100, runForLong("try/tryunwind.spl", "done"));
+  }
+
   @Test
   public void testComment() throws SPLInternalException, SPLSyntaxError, IOException {
     run("comment/comment.spl");
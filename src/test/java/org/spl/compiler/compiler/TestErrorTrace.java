@@ -1,11 +1,19 @@
 package org.spl.compiler.compiler;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.spl.compiler.SPLCompiler;
+import org.spl.compiler.bytecode.OpCode;
 import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.internal.objs.SPLCodeObject;
 import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.interpreter.SPLLineTable;
 import org.spl.vm.objects.SPLObject;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class TestErrorTrace {
 
@@ -32,11 +40,20 @@ public class TestErrorTrace {
     assert run == null;
   }
 
-//  @Test
+  @Test
   public void testStackOverflow() throws SPLSyntaxError, IOException {
     SPL spl = new SPL("error/stack.spl");
     SPLObject run = spl.run();
     assert run == null;
+    Assertions.assertTrue(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testNativeStackOverflow() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("error/native_stack.spl");
+    SPLObject run = spl.run();
+    assert run == null;
+    Assertions.assertTrue(SPLInternalWorld.splWorld.hasError);
   }
 
   @Test
@@ -45,4 +62,46 @@ public class TestErrorTrace {
     SPLObject run = spl.run();
     assert run == null;
   }
+
+  @Test
+  public void testLineTable() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("error/call.spl");
+    SPLCodeObject code = spl.getCode();
+    int[] instructions = code.getInstructions();
+    int call = instructions.length - 1;
+    while ((instructions[call] & 0xff) != OpCode.CALL.val) {
+      call--;
+    }
+    // the call of main in the last line, the same position the traceback shows
+    SPLLineTable lineTable = code.getLineTable();
+    Assertions.assertEquals(16, lineTable.getLineNo(call));
+    Assertions.assertEquals(1, lineTable.getColumnNo(call));
+    Assertions.assertEquals(4, lineTable.getLength(call));
+  }
+
+  @Test
+  public void testLineTableWideValues() throws SPLSyntaxError, IOException {
+    // a line after 254, a column after 254 and an increment whose line is before the line of the loop body
+    String source = "def f(a, b) {\n  return a\n}\n" + "\n".repeat(300)
+        + "for (i = 0; i < 1; i += 1) {\n  y = i\n}\n" + " ".repeat(300) + "z = 1\n";
+    Path file = Files.createTempFile("linetable", ".spl");
+    try {
+      Files.writeString(file, source);
+      SPLCodeObject code = new SPLCompiler(file.toString()).compile();
+      int[] instructions = code.getInstructions();
+      SPLLineTable lineTable = code.getLineTable();
+      int jump = 0;
+      while ((instructions[jump] & 0xff) != OpCode.JUMP_ABSOLUTE.val) {
+        jump++;
+      }
+      Assertions.assertEquals(305, lineTable.getLineNo(jump - 5));
+      Assertions.assertEquals(304, lineTable.getLineNo(jump - 4));
+      Assertions.assertEquals(304, lineTable.getLineNo(jump));
+      int last = instructions.length - 1;
+      Assertions.assertEquals(307, lineTable.getLineNo(last));
+      Assertions.assertEquals(303, lineTable.getColumnNo(last));
+    } finally {
+      Files.delete(file);
+    }
+  }
 }
@@ -38,6 +38,6 @@ public class VisualizerTest {
     ASTVisualizer vis = new ASTVisualizer(compiler.getIr(), "add.spl");
     String content = vis.getDotFileContent();
     System.out.println(content);
-    saveStringToFile(content, "dots/add.dot");
+    saveStringToFile(content, "target/dots/add.dot");
   }
 }
@@ -0,0 +1,97 @@
+package org.spl.vm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.objects.SPLObject;
+import org.spl.vm.objects.SPLStringObject;
+
+import java.io.IOException;
+
+public class CoRoutineTest {
+
+
+  @Test
+  public void testCo01() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/coroutine01.spl");
+    spl.run();
+  }
+
+  @Test
+  public void testImport() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/import.spl");
+    spl.run();
+  }
+
+  @Test
+  public void testReentrant() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/reentrant.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testTimer() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/timer.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testPriority() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/priority.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testPreemption() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/preempt.spl");
+    // only the main thread, the routines can only interleave when they are preempted
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 0, 1000));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testDeepYield() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/deep.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testDeopt() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/deopt.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testChannel() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/chan.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testJoin() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/join.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+  }
+
+  @Test
+  public void testSync() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL("routines/sync.spl");
+    spl.run();
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    // the holders of the semaphore wait for each other, so they reach its limit but never pass it
+    SPLObject limit = spl.getFrame().getGlobals().get(new SPLStringObject("limit"));
+    SPLObject holders = spl.getFrame().getGlobals().get(new SPLStringObject("holders"));
+    Assertions.assertEquals(limit, holders);
+  }
+}
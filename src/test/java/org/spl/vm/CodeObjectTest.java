@@ -1,24 +1,40 @@
 package org.spl.vm;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.spl.compiler.bytecode.FusionTable;
 import org.spl.compiler.bytecode.Instruction;
 import org.spl.compiler.bytecode.OpCode;
 import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.compiler.ir.ConstantFolder;
 import org.spl.compiler.ir.IRNode;
 import org.spl.compiler.ir.context.DefaultASTContext;
 import org.spl.compiler.parser.ArithmeticParser;
 import org.spl.compiler.tree.InsVisitor;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
 import org.spl.vm.exceptions.jexceptions.SPLInternalException;
 import org.spl.vm.internal.SPLCodeObjectBuilder;
 import org.spl.vm.internal.objs.SPLCodeObject;
+import org.spl.vm.internal.objs.SPLFuncObject;
 import org.spl.vm.interpreter.DefaultEval;
 import org.spl.vm.interpreter.SPL;
-import org.spl.vm.objects.SPLObject;
-import org.spl.vm.objects.SPLStringObject;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.interpreter.SPLOpcodeProfile;
+import org.spl.vm.interpreter.SPLRegisterCompiler;
+import org.spl.vm.interpreter.SPLTreeCompiler;
+import org.spl.vm.objects.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class CodeObjectTest {
   public String getResource(String filename) {
@@ -71,4 +87,215 @@ public class CodeObjectTest {
     String resource = getResource("arithmetic/complete.spl");
     new SPL(resource).run();
   }
+
+  @Test
+  public void testJit() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL(getResource("jit/jit.spl"));
+    // every function is compiled on its first call
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 1));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    for (String name : new String[]{"fib", "sum", "norms"}) {
+      SPLFuncObject f = (SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject(name));
+      Assertions.assertNotNull(f.getCodeObject().getCompiledCode(), name);
+    }
+  }
+
+  @Test
+  public void testTree() throws SPLSyntaxError, IOException {
+    SPLTreeCompiler.setEnabled(true);
+    SPL spl;
+    try {
+      spl = new SPL(getResource("jit/jit.spl"));
+    } finally {
+      SPLTreeCompiler.setEnabled(false);
+    }
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    for (String name : new String[]{"fib", "sum", "norms", "divide"}) {
+      SPLFuncObject f = (SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject(name));
+      Assertions.assertNotNull(f.getCodeObject().getTreeCode(), name);
+    }
+  }
+
+  @Test
+  public void testTreeRoutines() throws SPLSyntaxError, IOException {
+    runRoutines(false);
+  }
+
+  @Test
+  public void testRegisterRoutines() throws SPLSyntaxError, IOException {
+    runRoutines(true);
+  }
+
+  @Test
+  public void testJitRoutines() throws SPLSyntaxError, IOException {
+    String[] files = new File(getResource("routines")).list();
+    Assertions.assertNotNull(files);
+    Arrays.sort(files);
+    for (String file : files) {
+      SPL spl = new SPL(getResource("routines/" + file));
+      // every function is compiled on its first call, preempt.spl is preempted in compiled code
+      int timeSlice = file.equals("preempt.spl") ? 1000 : 0;
+      spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 0, timeSlice, 1));
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError, file);
+      if (file.equals("preempt.spl")) {
+        for (String name : new String[]{"spin", "spinFor", "count"}) {
+          SPLFuncObject f = (SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject(name));
+          Assertions.assertNotNull(f.getCodeObject().getCompiledCode(), name);
+        }
+      }
+    }
+  }
+
+  /**
+   * runs each program of routines with its functions compiled to trees or to
+   * register code, they hand their frames to the interpreter when a call
+   * suspends the routine
+   */
+  private void runRoutines(boolean register) throws SPLSyntaxError, IOException {
+    String[] files = new File(getResource("routines")).list();
+    Assertions.assertNotNull(files);
+    Arrays.sort(files);
+    for (String file : files) {
+      SPLTreeCompiler.setEnabled(!register);
+      SPLRegisterCompiler.setEnabled(register);
+      SPL spl;
+      try {
+        spl = new SPL(getResource("routines/" + file));
+      } finally {
+        SPLTreeCompiler.setEnabled(false);
+        SPLRegisterCompiler.setEnabled(false);
+      }
+      if (file.equals("preempt.spl")) {
+        spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 0, 1000));
+      } else {
+        spl.run();
+      }
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError, file);
+      if (file.equals("deopt.spl")) {
+        for (String name : new String[]{"binary", "inplaceKey", "buildMap", "arguments", "method", "loop", "receive", "nap", "rec"}) {
+          SPLCodeObject code = ((SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject(name))).getCodeObject();
+          Assertions.assertNotNull(register ? code.getRegisterCode() : code.getTreeCode(), name);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRegister() throws SPLSyntaxError, IOException {
+    long stack = countInstructions("jit/jit.spl", false);
+    long register = countInstructions("jit/jit.spl", true);
+    Assertions.assertTrue(register < stack, register + " >= " + stack);
+    SPLRegisterCompiler.setEnabled(true);
+    SPL spl;
+    try {
+      spl = new SPL(getResource("jit/jit.spl"));
+    } finally {
+      SPLRegisterCompiler.setEnabled(false);
+    }
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    for (String name : new String[]{"fib", "sum", "norms", "divide"}) {
+      SPLCodeObject code = ((SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject(name))).getCodeObject();
+      Assertions.assertNotNull(code.getRegisterCode(), name);
+      Assertions.assertTrue(code.getRegisters() >= code.getVarnames().length, name);
+    }
+  }
+
+  /**
+   * the instructions a run of filename executes, the code of the module is byte code
+   */
+  private long countInstructions(String filename, boolean register) throws SPLSyntaxError, IOException {
+    SPLOpcodeProfile.clear();
+    SPLOpcodeProfile.setEnabled(true);
+    SPLRegisterCompiler.setEnabled(register);
+    try {
+      SPL spl = new SPL(getResource(filename));
+      SPLRegisterCompiler.setEnabled(false);
+      spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+      return SPLOpcodeProfile.instructions() + SPLOpcodeProfile.registerInstructions();
+    } finally {
+      SPLRegisterCompiler.setEnabled(false);
+      SPLOpcodeProfile.setEnabled(false);
+      SPLOpcodeProfile.clear();
+    }
+  }
+
+  @Test
+  public void testFusion() throws SPLSyntaxError, IOException {
+    SPL spl = new SPL(getResource("fusion/fusion.spl"));
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    SPLFuncObject f = (SPLFuncObject) spl.getFrame().getGlobals().get(new SPLStringObject("statements"));
+    EnumSet<OpCode> ops = EnumSet.noneOf(OpCode.class);
+    for (int word : f.getCodeObject().getInstructions()) {
+      ops.add(OpCode.values()[word & 0xff]);
+    }
+    Assertions.assertTrue(ops.containsAll(EnumSet.of(OpCode.CMP_LOCALS_JUMP, OpCode.CALL_POP, OpCode.CALL_BUILTIN_POP, OpCode.INC_LOCAL)), ops.toString());
+    // a superinstruction only runs the sequences of its shape
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> FusionTable.parse(new StringReader("INC_LOCAL LOAD_FAST LOAD_CONST SUB STORE_FAST")));
+  }
+
+  @Test
+  public void testOpcodeProfile() throws SPLSyntaxError, IOException {
+    SPLOpcodeProfile.clear();
+    SPLOpcodeProfile.setEnabled(true);
+    try {
+      new SPL(getResource("fusion/fusion.spl")).run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+    } finally {
+      SPLOpcodeProfile.setEnabled(false);
+    }
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    // statements(10) calls abs ten times
+    Assertions.assertEquals(10, SPLOpcodeProfile.count(OpCode.LOAD_BUILTIN, OpCode.CALL, OpCode.POP));
+    StringWriter out = new StringWriter();
+    SPLOpcodeProfile.write(out);
+    FusionTable table = FusionTable.parse(new StringReader(out.toString()));
+    List<Instruction> sequence = List.of(new Instruction(OpCode.LOAD_BUILTIN, 0), new Instruction(OpCode.CALL, 1), new Instruction(OpCode.POP));
+    Assertions.assertEquals(OpCode.CALL_BUILTIN_POP, table.match(sequence, 0));
+  }
+
+  @Test
+  public void testConstantFolding() throws SPLSyntaxError, IOException {
+    Map<SPLObject, SPLObject> plain = runFolding(false);
+    Map<SPLObject, SPLObject> folded = runFolding(true);
+    for (Map.Entry<SPLObject, SPLObject> e : plain.entrySet()) {
+      SPLObject value = e.getValue();
+      if (value instanceof SPLLongObject || value instanceof SPLFloatObject
+          || value instanceof SPLStringObject || value instanceof SPLBoolObject) {
+        Assertions.assertEquals(value, folded.get(e.getKey()), e.getKey().toString());
+      }
+    }
+    // the loads of k and m are replaced and k * k + 1 is folded
+    for (String name : new String[]{"seconds", "local"}) {
+      Assertions.assertTrue(opcodes(plain, name).contains(OpCode.MUL), name);
+      Assertions.assertFalse(opcodes(folded, name).contains(OpCode.MUL), name);
+    }
+  }
+
+  /**
+   * the globals of a run of folding/folding.spl
+   */
+  private Map<SPLObject, SPLObject> runFolding(boolean fold) throws SPLSyntaxError, IOException {
+    ConstantFolder.setEnabled(fold);
+    SPL spl;
+    try {
+      spl = new SPL(getResource("folding/folding.spl"));
+    } finally {
+      ConstantFolder.setEnabled(true);
+    }
+    spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0));
+    Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    return spl.getFrame().getGlobals();
+  }
+
+  private static EnumSet<OpCode> opcodes(Map<SPLObject, SPLObject> globals, String name) {
+    EnumSet<OpCode> ops = EnumSet.noneOf(OpCode.class);
+    for (int word : ((SPLFuncObject) globals.get(new SPLStringObject(name))).getCodeObject().getInstructions()) {
+      ops.add(OpCode.values()[word & 0xff]);
+    }
+    return ops;
+  }
 }
@@ -0,0 +1,75 @@
+package org.spl.vm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.bytecode.FusionTable;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+
+import java.io.IOException;
+
+/**
+ * Compares the interpreter on code with and without the superinstructions of
+ * {@link FusionTable}, like {@link JitBenchmark} it is not picked up by the
+ * default test run, use -Dtest=FusionBenchmark. The JIT is off for both, the
+ * code is fused when the script is compiled so fusion is only turned off while
+ * it is loaded.
+ */
+public class FusionBenchmark {
+
+  private static final int WARMUPS = 2;
+  private static final int RUNS = 3;
+
+  @Test
+  public void testNumericLoops() throws SPLSyntaxError, IOException {
+    compare("jit/numeric.spl");
+  }
+
+  @Test
+  public void testRecursion() throws SPLSyntaxError, IOException {
+    compare("jit/recursion.spl");
+  }
+
+  @Test
+  public void testAttributes() throws SPLSyntaxError, IOException {
+    compare("jit/attrs.spl");
+  }
+
+  private void compare(String filename) throws SPLSyntaxError, IOException {
+    double plain = measure(filename, false);
+    double fused = measure(filename, true);
+    System.out.printf("%s: plain %.1f ms, fused %.1f ms (%.2fx)%n",
+        filename, plain, fused, plain / fused);
+  }
+
+  /**
+   * the mean wall time of a run in ms
+   */
+  private double measure(String filename, boolean fused) throws SPLSyntaxError, IOException {
+    SPLConfiguration config = new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0);
+    for (int i = 0; i < WARMUPS; i++) {
+      load(filename, fused).run(config);
+    }
+    long wall = 0;
+    for (int i = 0; i < RUNS; i++) {
+      SPL spl = load(filename, fused);
+      long start = System.nanoTime();
+      spl.run(config);
+      wall += System.nanoTime() - start;
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    }
+    return wall / 1e6 / RUNS;
+  }
+
+  private SPL load(String filename, boolean fused) throws SPLSyntaxError, IOException {
+    FusionTable.setEnabled(fused);
+    try {
+      return new SPL(filename);
+    } finally {
+      FusionTable.setEnabled(true);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.spl.vm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+
+import java.io.IOException;
+
+/**
+ * Compares the interpreter and the JIT, like {@link SchedulerBenchmark} it is
+ * not picked up by the default test run, use -Dtest=JitBenchmark. Every script
+ * is run a few times first so the JVM has compiled the interpreter. A run loads
+ * the script again and the JIT compiles its functions again, the scripts run
+ * long enough for the JVM to compile the classes the JIT made as well.
+ */
+public class JitBenchmark {
+
+  private static final int WARMUPS = 2;
+  private static final int RUNS = 3;
+
+  @Test
+  public void testNumericLoops() throws SPLSyntaxError, IOException {
+    compare("jit/numeric.spl");
+  }
+
+  @Test
+  public void testRecursion() throws SPLSyntaxError, IOException {
+    compare("jit/recursion.spl");
+  }
+
+  @Test
+  public void testAttributes() throws SPLSyntaxError, IOException {
+    compare("jit/attrs.spl");
+  }
+
+  private void compare(String filename) throws SPLSyntaxError, IOException {
+    double interpreted = measure(filename, 0);
+    double compiled = measure(filename, SPLConfigBuilder.DEFAULT_JIT_THRESHOLD);
+    System.out.printf("%s: interpreter %.1f ms, jit %.1f ms (%.2fx)%n",
+        filename, interpreted, compiled, interpreted / compiled);
+  }
+
+  /**
+   * the mean wall time of a run in ms
+   */
+  private double measure(String filename, int jitThreshold) throws SPLSyntaxError, IOException {
+    SPLConfiguration config = new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, jitThreshold);
+    for (int i = 0; i < WARMUPS; i++) {
+      new SPL(filename).run(config);
+    }
+    long wall = 0;
+    for (int i = 0; i < RUNS; i++) {
+      SPL spl = new SPL(filename);
+      long start = System.nanoTime();
+      spl.run(config);
+      wall += System.nanoTime() - start;
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    }
+    return wall / 1e6 / RUNS;
+  }
+}
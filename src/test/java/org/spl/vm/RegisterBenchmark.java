@@ -0,0 +1,97 @@
+package org.spl.vm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.interpreter.SPLOpcodeProfile;
+import org.spl.vm.interpreter.SPLRegisterCompiler;
+
+import java.io.IOException;
+
+/**
+ * Compares the byte code of the interpreter and the register code of
+ * {@link SPLRegisterCompiler}, like {@link JitBenchmark} it is not picked up by
+ * the default test run, use -Dtest=RegisterBenchmark. The instructions a run
+ * executes are counted by {@link SPLOpcodeProfile} on code which is not fused,
+ * the code of a module is byte code in both runs. The JIT is off and the
+ * register code is made when the script is parsed, so the flag is only set
+ * while it is loaded.
+ */
+public class RegisterBenchmark {
+
+  private static final int WARMUPS = 2;
+  private static final int RUNS = 3;
+
+  @Test
+  public void testNumericLoops() throws SPLSyntaxError, IOException {
+    compare("jit/numeric.spl");
+  }
+
+  @Test
+  public void testRecursion() throws SPLSyntaxError, IOException {
+    compare("jit/recursion.spl");
+  }
+
+  @Test
+  public void testAttributes() throws SPLSyntaxError, IOException {
+    compare("jit/attrs.spl");
+  }
+
+  private void compare(String filename) throws SPLSyntaxError, IOException {
+    long stackInstructions = count(filename, false);
+    long registerInstructions = count(filename, true);
+    double stack = measure(filename, false);
+    double register = measure(filename, true);
+    System.out.printf("%s: stack %d instructions %.1f ms, register %d instructions %.1f ms (%.2fx fewer, %.2fx faster)%n",
+        filename, stackInstructions, stack, registerInstructions, register,
+        (double) stackInstructions / registerInstructions, stack / register);
+  }
+
+  private long count(String filename, boolean register) throws SPLSyntaxError, IOException {
+    SPLOpcodeProfile.clear();
+    SPLOpcodeProfile.setEnabled(true);
+    try {
+      load(filename, register).run(config());
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+      return SPLOpcodeProfile.instructions() + SPLOpcodeProfile.registerInstructions();
+    } finally {
+      SPLOpcodeProfile.setEnabled(false);
+      SPLOpcodeProfile.clear();
+    }
+  }
+
+  /**
+   * the mean wall time of a run in ms
+   */
+  private double measure(String filename, boolean register) throws SPLSyntaxError, IOException {
+    for (int i = 0; i < WARMUPS; i++) {
+      load(filename, register).run(config());
+    }
+    long wall = 0;
+    for (int i = 0; i < RUNS; i++) {
+      SPL spl = load(filename, register);
+      long start = System.nanoTime();
+      spl.run(config());
+      wall += System.nanoTime() - start;
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    }
+    return wall / 1e6 / RUNS;
+  }
+
+  private static SPLConfiguration config() {
+    return new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0);
+  }
+
+  private SPL load(String filename, boolean register) throws SPLSyntaxError, IOException {
+    SPLRegisterCompiler.setEnabled(register);
+    try {
+      return new SPL(filename);
+    } finally {
+      SPLRegisterCompiler.setEnabled(false);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package org.spl.vm;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the scheduler, like {@link JitBenchmark} it is not picked up by the
+ * default test run, use -Dtest=SchedulerBenchmark. The number of workers is
+ * taken from SPL_CORE_COUNT, unless a case sets it itself.
+ */
+public class SchedulerBenchmark {
+
+  private static final OperatingSystemMXBean os =
+      (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  @Test
+  public void testIdleCpu() throws SPLSyntaxError, IOException, InterruptedException {
+    // warm up the interpreter so the compiler threads stay quiet
+    new SPL("routines/wakeup.spl").run();
+    SPL spl = new SPL("routines/idle.spl");
+    long cpu = os.getProcessCpuTime();
+    Map<Long, Long> workerCpu = new ConcurrentHashMap<>();
+    Thread sampler = new Thread(() -> sampleWorkers(workerCpu));
+    sampler.setDaemon(true);
+    sampler.start();
+    long mainCpu = threads.getCurrentThreadCpuTime();
+    long start = System.nanoTime();
+    spl.run();
+    long wall = System.nanoTime() - start;
+    mainCpu = threads.getCurrentThreadCpuTime() - mainCpu;
+    sampler.interrupt();
+    sampler.join();
+    cpu = os.getProcessCpuTime() - cpu;
+    // the main routine runs on this thread, the other routines on the workers
+    long scheduler = mainCpu;
+    for (long c : workerCpu.values()) {
+      scheduler += c;
+    }
+    System.out.printf("idle: wall %d ms, cpu %d ms (%.1f%%), workers %d ms (%.1f%%)%n",
+        wall / 1_000_000, cpu / 1_000_000, 100.0 * cpu / wall, scheduler / 1_000_000, 100.0 * scheduler / wall);
+    // the process cpu time also counts the compiler and gc threads, the workers alone must be parked
+    Assertions.assertTrue(scheduler < wall / 4);
+  }
+
+  /**
+   * records the cpu time of every worker thread until it is interrupted, a
+   * thread which has ended has no cpu time anymore so the last sample is kept
+   */
+  private static void sampleWorkers(Map<Long, Long> cpu) {
+    while (!Thread.currentThread().isInterrupted()) {
+      for (Thread t : Thread.getAllStackTraces().keySet()) {
+        if (SPLInternalWorld.WORKER_NAME.equals(t.getName())) {
+          long c = threads.getThreadCpuTime(t.getId());
+          if (c >= 0) {
+            cpu.put(t.getId(), c);
+          }
+        }
+      }
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  @Test
+  public void testWakeUpLatency() throws SPLSyntaxError, IOException {
+    new SPL("routines/wakeup.spl").run();
+    SPL spl = new SPL("routines/wakeup.spl");
+    long start = System.nanoTime();
+    spl.run();
+    long wall = System.nanoTime() - start;
+    // 200 sleeps of 1 ms
+    double latency = (wall - 200 * 1_000_000L) / 200.0 / 1000;
+    System.out.printf("wake up: wall %d ms, %.1f us late per sleep%n", wall / 1_000_000, latency);
+  }
+
+  @Test
+  public void testSpawnThroughput() throws SPLSyntaxError, IOException {
+    new SPL("routines/spawn.spl").run();
+    SPL spl = new SPL("routines/spawn.spl");
+    long start = System.nanoTime();
+    spl.run();
+    long wall = System.nanoTime() - start;
+    // 100000 routines spawned by the main routine
+    System.out.printf("spawn: %d workers, wall %d ms, %.0f routines/s%n",
+        SPLConfigBuilder.build().getMaxCoreThreads(), wall / 1_000_000, 100_000 * 1e9 / wall);
+  }
+
+  @Test
+  public void testChannelThroughput() throws SPLSyntaxError, IOException {
+    new SPL("routines/producer.spl").run();
+    for (int workers : new int[]{1, 4, 16}) {
+      SPL spl = new SPL("routines/producer.spl");
+      long start = System.nanoTime();
+      spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, workers));
+      long wall = System.nanoTime() - start;
+      // 100000 values from 4 producers to 4 consumers
+      System.out.printf("channel: %d workers, wall %d ms, %.0f values/s%n",
+          workers, wall / 1_000_000, 100_000 * 1e9 / wall);
+    }
+  }
+
+  @Test
+  public void testGlobalContention() throws SPLSyntaxError, IOException {
+    for (int i = 0; i < 3; i++) {
+      new SPL("routines/globals.spl").run();
+    }
+    for (int workers : new int[]{1, 4, 16}) {
+      SPL spl = new SPL("routines/globals.spl");
+      long start = System.nanoTime();
+      spl.run(new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, workers));
+      long wall = System.nanoTime() - start;
+      // 16 routines with 50000 iterations of two global loads each
+      System.out.printf("globals: %d workers, wall %d ms, %.0f loads/s%n",
+          workers, wall / 1_000_000, 1_600_000 * 1e9 / wall);
+    }
+  }
+}
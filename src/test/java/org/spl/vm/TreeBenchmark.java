@@ -0,0 +1,74 @@
+package org.spl.vm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.spl.compiler.exceptions.SPLSyntaxError;
+import org.spl.vm.config.SPLConfigBuilder;
+import org.spl.vm.config.SPLConfiguration;
+import org.spl.vm.interpreter.SPL;
+import org.spl.vm.interpreter.SPLInternalWorld;
+import org.spl.vm.interpreter.SPLTreeCompiler;
+
+import java.io.IOException;
+
+/**
+ * Compares the interpreter and the tree engine of {@link SPLTreeCompiler}, like
+ * {@link JitBenchmark} it is not picked up by the default test run, use
+ * -Dtest=TreeBenchmark. The JIT is off for both, the trees are made when the
+ * script is parsed so the flag is only set while it is loaded.
+ */
+public class TreeBenchmark {
+
+  private static final int WARMUPS = 2;
+  private static final int RUNS = 3;
+
+  @Test
+  public void testNumericLoops() throws SPLSyntaxError, IOException {
+    compare("jit/numeric.spl");
+  }
+
+  @Test
+  public void testRecursion() throws SPLSyntaxError, IOException {
+    compare("jit/recursion.spl");
+  }
+
+  @Test
+  public void testAttributes() throws SPLSyntaxError, IOException {
+    compare("jit/attrs.spl");
+  }
+
+  private void compare(String filename) throws SPLSyntaxError, IOException {
+    double interpreted = measure(filename, false);
+    double tree = measure(filename, true);
+    System.out.printf("%s: interpreter %.1f ms, tree %.1f ms (%.2fx)%n",
+        filename, interpreted, tree, interpreted / tree);
+  }
+
+  /**
+   * the mean wall time of a run in ms
+   */
+  private double measure(String filename, boolean tree) throws SPLSyntaxError, IOException {
+    SPLConfiguration config = new SPLConfiguration(SPLConfigBuilder.DEFAULT_MAX_CALLSTACK_SIZE, 1, 0, 0);
+    for (int i = 0; i < WARMUPS; i++) {
+      load(filename, tree).run(config);
+    }
+    long wall = 0;
+    for (int i = 0; i < RUNS; i++) {
+      SPL spl = load(filename, tree);
+      long start = System.nanoTime();
+      spl.run(config);
+      wall += System.nanoTime() - start;
+      Assertions.assertFalse(SPLInternalWorld.splWorld.hasError);
+    }
+    return wall / 1e6 / RUNS;
+  }
+
+  private SPL load(String filename, boolean tree) throws SPLSyntaxError, IOException {
+    SPLTreeCompiler.setEnabled(tree);
+    try {
+      return new SPL(filename);
+    } finally {
+      SPLTreeCompiler.setEnabled(false);
+    }
+  }
+}